@@ -32,7 +32,7 @@ import org.teiid.adminapi.VDB.ConnectionType;
 
 public interface Admin {
 
-	public enum Cache {PREPARED_PLAN_CACHE, QUERY_SERVICE_RESULT_SET_CACHE};
+	public enum Cache {PREPARED_PLAN_CACHE, QUERY_SERVICE_RESULT_SET_CACHE, RESOLVED_COMMAND_CACHE};
 
 	public enum SchemaObjectType {TABLES, PROCEDURES, FUNCTIONS};
 	
@@ -327,6 +327,8 @@ public interface Admin {
 
     /**
      * Get the Cache Statistics for the given type
+     * <br>
+     * The {@link Cache#RESOLVED_COMMAND_CACHE} statistics are per VDB and are named by the VDB name and version.
      * @param cacheType Cache Type
      * @return Collection of {@link CacheStatistics}
      * @throws AdminException
@@ -65,6 +65,18 @@ public interface EngineStatistics extends AdminObject, DomainAware {
 	 */
 	long getCacheWriteCount();
 	
+	/**
+	 * Number of batch reads satisfied from the heap cache
+	 * @return
+	 */
+	long getHeapCacheHitCount();
+	
+	/**
+	 * Number of batch reads satisfied from the (possibly off-heap) memory buffer without accessing disk
+	 * @return
+	 */
+	long getMemoryBufferReadCount();
+	
 	/**
 	 * Disk space used by buffer manager to save overflowed memory contents
 	 * @return
@@ -70,6 +70,8 @@ public class Column extends BaseColumn implements Comparable<Column> {
     private int charOctetLength;
     private volatile int distinctValues = -1;
     private volatile int nullValues = -1;
+    private volatile String histogram;
+    private volatile String mostCommonValues;
     private ColumnSet<?> parent;
     
     @Override
@@ -181,6 +183,22 @@ public class Column extends BaseColumn implements Comparable<Column> {
     public float getDistinctValuesAsFloat() {
     	return Table.asFloat(distinctValues);
     }
+    
+    /**
+     * @return the equi-depth histogram bucket boundaries
+     * @see ColumnStats#getHistogram()
+     */
+    public String getHistogram() {
+		return histogram;
+	}
+    
+    /**
+     * @return the most common values and their frequencies
+     * @see ColumnStats#getMostCommonValues()
+     */
+    public String getMostCommonValues() {
+		return mostCommonValues;
+	}
 
     /**
      * @param b
@@ -290,6 +308,14 @@ public class Column extends BaseColumn implements Comparable<Column> {
     	this.nullValues = Table.asInt(nullValues);
     }
 
+    public void setHistogram(String histogram) {
+		this.histogram = histogram;
+	}
+    
+    public void setMostCommonValues(String mostCommonValues) {
+		this.mostCommonValues = mostCommonValues;
+	}
+
     /**
      * @param nativeType The nativeType to set.
      * @since 4.2
@@ -311,6 +337,12 @@ public class Column extends BaseColumn implements Comparable<Column> {
 		if (stats.getMinimumValue() != null) {
 			setMinimumValue(stats.getMinimumValue());
 		}
+		if (stats.getHistogram() != null) {
+			setHistogram(stats.getHistogram());
+		}
+		if (stats.getMostCommonValues() != null) {
+			setMostCommonValues(stats.getMostCommonValues());
+		}
     }
 
 }
\ No newline at end of file
@@ -32,6 +32,8 @@ public class ColumnStats implements Serializable {
     private Number nullValues;
     private String minimumValue;
     private String maximumValue;
+    private String histogram;
+    private String mostCommonValues;
 	
 	public String getMinimumValue() {
 		return minimumValue;
@@ -64,5 +66,31 @@ public class ColumnStats implements Serializable {
 	public void setNullValues(Number numNullValues) {
 		this.nullValues = numNullValues;
 	}
+	
+	/**
+	 * The equi-depth histogram as a comma separated list of ascending bucket boundaries.
+	 * Each of the n buckets delimited by the n+1 boundaries holds an equal share of the
+	 * non-null values.  A comma or backslash within a value is escaped as \, or \\
+	 */
+	public String getHistogram() {
+		return histogram;
+	}
+	
+	public void setHistogram(String histogram) {
+		this.histogram = histogram;
+	}
+	
+	/**
+	 * The most common values as a comma separated list of value=frequency entries,
+	 * where the frequency is the fraction of all rows having that value, 
+	 * e.g. <code>a=.25,b=.1</code>.  A comma or backslash within a value is escaped as \, or \\
+	 */
+	public String getMostCommonValues() {
+		return mostCommonValues;
+	}
+	
+	public void setMostCommonValues(String mostCommonValues) {
+		this.mostCommonValues = mostCommonValues;
+	}
     
 }
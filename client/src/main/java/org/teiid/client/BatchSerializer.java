@@ -22,6 +22,7 @@
 
 package org.teiid.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -37,9 +38,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ArrayImpl;
@@ -49,7 +56,10 @@ import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.GeometryType;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.MultiArrayOutputStream;
 import org.teiid.jdbc.JDBCPlugin;
+import org.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
+import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 
 
 
@@ -66,12 +76,14 @@ import org.teiid.jdbc.JDBCPlugin;
  *   uses a safer date/time serialization
  * <li>version 3: starts with 8.6 and adds better repeated string performance
  * <li>version 4: starts with 8.10 and adds the geometry type
+ * <li>version 5: starts with 9.2 and allows the column data to be deflate compressed
  * </ul>
  */
 public class BatchSerializer {
 
 	public static final byte VERSION_GEOMETRY = (byte)4;
-    static final byte CURRENT_VERSION = VERSION_GEOMETRY;
+	public static final byte VERSION_COMPRESSION = (byte)5;
+    static final byte CURRENT_VERSION = VERSION_COMPRESSION;
 
 	private BatchSerializer() {} // Uninstantiable
 
@@ -101,6 +113,13 @@ public class BatchSerializer {
         serializers.put(DataTypeManager.DefaultDataTypes.OBJECT,     	new ColumnSerializer[] {defaultSerializer, new ObjectColumnSerializer((byte)1)});
         serializers.put(DataTypeManager.DefaultDataTypes.VARBINARY,    	new ColumnSerializer[] {new BinaryColumnSerializer(), new BinaryColumnSerializer1()});
     }
+    
+    /**
+     * Types that may reference lob streams cannot be serialized into a separate compressed block
+     */
+    private static final Set<String> uncompressibleTypes = new HashSet<String>(Arrays.asList(DataTypeManager.DefaultDataTypes.CLOB, 
+    		DataTypeManager.DefaultDataTypes.BLOB, DataTypeManager.DefaultDataTypes.XML, DataTypeManager.DefaultDataTypes.GEOMETRY, 
+    		DataTypeManager.DefaultDataTypes.OBJECT));
 
     private static ColumnSerializer arrayColumnSerializer = new ColumnSerializer() {
 
@@ -844,6 +863,14 @@ public class BatchSerializer {
     }
 
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+    	writeBatch(out, types, batch, version, false);
+    }
+
+    /**
+     * Write the batch.  If compress is true and the version and types allow it, 
+     * the column data is written as a single deflate compressed block.
+     */
+    public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version, boolean compress) throws IOException {
         if (batch == null) {
             out.writeInt(-1);
         } else {
@@ -854,34 +881,74 @@ public class BatchSerializer {
                 out.writeInt(batch.size());
         	}
             if (batch.size() > 0) {
-	            int columns = types.length;
-	            out.writeInt(columns);
-	            Map<Object, Integer> cache = null;
-	            for(int i = 0; i < columns; i++) {
-	            	ColumnSerializer serializer = getSerializer(types[i], version);
-	            	
-	            	if (cache == null && serializer.usesCache(version)) {
-	            		cache = new HashMap<Object, Integer>();
+	            out.writeInt(types.length);
+	            if (version >= VERSION_COMPRESSION) {
+	            	if (compress && isCompressible(types)) {
+	            		out.writeByte(1);
+	            		writeCompressedColumns(out, types, batch, version);
+	            		return;
 	            	}
-	                try {
-	                    serializer.writeColumn(out, i, batch, cache, version);
-	                } catch (ClassCastException e) {
-	                    Object obj = null;
-	                    String objectClass = null;
-	                    objectSearch: for (int row = 0; row < batch.size(); row++) {
-	                        obj = batch.get(row).get(i);
-	                        if (obj != null) {
-	                            objectClass = obj.getClass().getName();
-	                            break objectSearch;
-	                        }
-	                    }
-	                     throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
-	                }
+	            	out.writeByte(0);
 	            }
+	            writeColumns(out, types, batch, version);
             }
         }
     }
 
+	private static void writeCompressedColumns(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		MultiArrayOutputStream bytes = new MultiArrayOutputStream(1 << 13);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			CompactObjectOutputStream oos = new CompactObjectOutputStream(new DeflaterOutputStream(bytes, deflater, 1 << 13));
+			writeColumns(oos, types, batch, version);
+			oos.close();
+		} finally {
+			deflater.end();
+		}
+		out.writeInt(bytes.getCount());
+		bytes.writeTo(out);
+	}
+
+	private static void writeColumns(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		int columns = types.length;
+		Map<Object, Integer> cache = null;
+		for(int i = 0; i < columns; i++) {
+			ColumnSerializer serializer = getSerializer(types[i], version);
+			
+			if (cache == null && serializer.usesCache(version)) {
+				cache = new HashMap<Object, Integer>();
+			}
+		    try {
+		        serializer.writeColumn(out, i, batch, cache, version);
+		    } catch (ClassCastException e) {
+		        Object obj = null;
+		        String objectClass = null;
+		        objectSearch: for (int row = 0; row < batch.size(); row++) {
+		            obj = batch.get(row).get(i);
+		            if (obj != null) {
+		                objectClass = obj.getClass().getName();
+		                break objectSearch;
+		            }
+		        }
+		         throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
+		    }
+		}
+	}
+	
+	static boolean isCompressible(String[] types) {
+		for (String type : types) {
+			while (DataTypeManager.isArrayType(type)) {
+				type = type.substring(0, type.length() - 2);
+			}
+			if (!serializers.containsKey(type) || uncompressibleTypes.contains(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
     public static List<List<Object>> readBatch(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
     	int rows = 0;
     	try {
@@ -915,7 +982,26 @@ public class BatchSerializer {
             batch.add(currentRow, Arrays.asList(new Object[columns]));
         }
         byte[] isNullBuffer = new byte[(extraRows > 0) ? numBytes + 1: numBytes];
-        List<Object> cache = null;
+        if (version >= VERSION_COMPRESSION && in.readByte() == 1) {
+        	byte[] bytes = new byte[in.readInt()];
+        	in.readFully(bytes);
+        	Inflater inflater = new Inflater();
+        	try {
+        		CompactObjectInputStream ois = new CompactObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes), inflater, 1 << 13), BatchSerializer.class.getClassLoader());
+        		readColumns(ois, types, columns, batch, isNullBuffer, version);
+        	} finally {
+        		inflater.end();
+        	}
+        } else {
+        	readColumns(in, types, columns, batch, isNullBuffer, version);
+        }
+        return batch;
+    }
+
+	private static void readColumns(ObjectInput in, String[] types, int columns,
+			List<List<Object>> batch, byte[] isNullBuffer, byte version)
+			throws IOException, ClassNotFoundException {
+		List<Object> cache = null;
         for (int col = 0; col < columns; col++) {
             ColumnSerializer serializer = getSerializer(types[col], version);
             if (cache == null && serializer.usesCache(version)) {
@@ -923,6 +1009,5 @@ public class BatchSerializer {
         	}
             serializer.readColumn(in, col, batch, isNullBuffer, cache, version);
         }
-        return batch;
-    }
+	}
 }
@@ -96,6 +96,7 @@ public class RequestMessage implements Externalizable {
     private boolean noExec;
     private boolean autoGeneratedKeys;
     private boolean delaySerialization;
+    private boolean compressResults;
     
     /*
      * Used by embedded connections, could change if we add support
@@ -406,6 +407,8 @@ public class RequestMessage implements Externalizable {
 			this.autoGeneratedKeys = (options & 1) == 1;
 			//8.4 property
 			this.delaySerialization = (options & 2) == 2;
+			//9.2 property
+			this.compressResults = (options & 4) == 4;
 		} catch (OptionalDataException e) {
 		} catch (EOFException e) {
 		}
@@ -440,6 +443,9 @@ public class RequestMessage implements Externalizable {
 		if (delaySerialization) {
 			options |= 2;
 		}
+		if (compressResults) {
+			options |= 4;
+		}
 		out.writeByte(options);
 	}
 
@@ -470,4 +476,12 @@ public class RequestMessage implements Externalizable {
 		this.delaySerialization = delaySerialization;
 	}
 	
+	public boolean isCompressResults() {
+		return compressResults;
+	}
+	
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+	
 }
@@ -93,6 +93,7 @@ public class ResultsMessage implements Externalizable {
     private int updateCount = -1;
     
     private boolean delayDeserialization;
+    private boolean compressResults;
     byte[] resultBytes;
 
 	private MultiArrayOutputStream serializationBuffer;
@@ -128,6 +129,18 @@ public class ResultsMessage implements Externalizable {
 		}
 	}
 
+    /**
+     * @return the length of the serialized results that have not yet been processed,
+     * or 0 if there are none
+     */
+    public int getSerializedLength() {
+    	byte[] bytes = resultBytes;
+    	if (bytes == null) {
+    		return 0;
+    	}
+    	return bytes.length;
+    }
+
     public void setResults(List<?>[] results) {
 		this.results = Arrays.asList(results);
 	}
@@ -316,7 +329,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization) {
         	BatchSerializer.writeBatch(out, dataTypes, null, clientSerializationVersion);
     	} else {
-        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion);
+        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion, compressResults);
     	}
         
         // Plan descriptions
@@ -365,7 +378,7 @@ public class ResultsMessage implements Externalizable {
 		if (serializationBuffer == null) {
 			serializationBuffer = new MultiArrayOutputStream(1 << 13);
 			CompactObjectOutputStream oos = new CompactObjectOutputStream(serializationBuffer);
-			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
+			BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion, compressResults);
 			oos.close();
 		}
 		int result = serializationBuffer.getCount();
@@ -442,5 +455,13 @@ public class ResultsMessage implements Externalizable {
 	public void setDelayDeserialization(boolean delayDeserialization) {
 		this.delayDeserialization = delayDeserialization;
 	}
+	
+	/**
+	 * Only has an effect if the client serialization version supports compression
+	 * @param compressResults
+	 */
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
 }
 
@@ -117,6 +117,25 @@ public interface ExecutionProperties {
     
     public static final String JDBC4COLUMNNAMEANDLABELSEMANTICS = "useJDBC4ColumnNameAndLabelSemantics"; //$NON-NLS-1$
     
+    /**
+     * If true, result batches sent over a socket connection will be compressed 
+     * when supported by the server.  Trades cpu for network bandwidth.
+     * 
+     * Default is <code>false</code>
+     * @since 9.2
+     */
+    public static final String COMPRESS_RESULTS = "compressResults"; //$NON-NLS-1$
+    
+    /**
+     * The amount of memory in KB that forward only result sets may use to request
+     * additional batches ahead of the application.  When 0 only the next batch is
+     * requested.
+     * 
+     * Default is <code>0</code>
+     * @since 9.2
+     */
+    public static final String PREFETCH_MEMORY_KB = "prefetchMemoryKb"; //$NON-NLS-1$
+    
     
 }
     
\ No newline at end of file
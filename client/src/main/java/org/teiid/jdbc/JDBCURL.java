@@ -64,7 +64,9 @@ public class JDBCURL {
 	            ExecutionProperties.PROP_XML_VALIDATION,
 	            LocalProfile.USE_CALLING_THREAD,
 	            ExecutionProperties.DISABLE_LOCAL_TRANSACTIONS,
-	            ExecutionProperties.JDBC4COLUMNNAMEANDLABELSEMANTICS}) {
+	            ExecutionProperties.JDBC4COLUMNNAMEANDLABELSEMANTICS,
+	            ExecutionProperties.COMPRESS_RESULTS,
+	            ExecutionProperties.PREFETCH_MEMORY_KB}) {
 			result.put(key, key);
 		}
 		return result;
@@ -239,6 +239,20 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         return executeSql(new String[] {this.prepareSql}, false, mode, false, options, autoGeneratedKeys);
     }
 
+    /**
+     * Submit the current batch without blocking.  The batch is cleared once submitted and the
+     * update counts are available when the returned future completes.
+     */
+    public ResultsFuture<Boolean> submitExecuteBatch() throws SQLException {
+    	try {
+    		return executeSql(new String[] {this.prepareSql}, true, ResultsMode.UPDATECOUNT, false, null);
+    	} finally {
+    		if (batchParameterList != null) {
+    			batchParameterList.clear();
+    		}
+    	}
+    }
+
 	@Override
     public boolean execute() throws SQLException {
         executeSql(new String[] {this.prepareSql}, false, ResultsMode.EITHER, true, null, autoGeneratedKeys);
@@ -29,11 +29,13 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -55,6 +57,7 @@ import org.teiid.core.types.InputStreamFactory;
 import org.teiid.core.types.SQLXMLImpl;
 import org.teiid.core.types.Streamable;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.core.util.SqlUtil;
 import org.teiid.core.util.TimestampWithTimezone;
@@ -78,7 +81,7 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 
     // Cursor related state
     private int cursorType;
-    private boolean isClosed;
+    private volatile boolean isClosed;
 
     // reuse the original request's state
     private long requestID;
@@ -101,12 +104,27 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     
     private ResultsFuture<ResultsMessage> prefetch;
     private boolean usePrefetch;
+    //additional batches requested after the prefetch, guarded by this
+    private LinkedList<ResultsFuture<ResultsMessage>> prefetchQueue = new LinkedList<ResultsFuture<ResultsMessage>>();
+    private long prefetchMemory;
+    private boolean prefetching;
+    private SQLException prefetchException;
 
 	private int skipTo;
 	
 	private static boolean DISABLE_FETCH_SIZE_DEFAULT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid." + DISABLE_FETCH_SIZE, false); //$NON-NLS-1$
 	
 	private Boolean disableFetchSize;
+	
+	private static int PREFETCH_MEMORY_KB_DEFAULT = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid." + ExecutionProperties.PREFETCH_MEMORY_KB, 0); //$NON-NLS-1$
+	
+	static ExecutorService prefetchExecutor = ExecutorUtils.newFixedThreadPool(8, "Teiid ResultSet Prefetch"); //$NON-NLS-1$
+	
+	/**
+	 * The max time that the shared prefetch thread will wait for a response.  
+	 * Prefetching is restarted as batches are consumed.
+	 */
+	static int PREFETCH_WAIT_MS = 1000;
 
 	/**
 	 * Constructor.
@@ -147,16 +165,40 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 			logger.finer("Creating ResultSet requestID: " + requestID + " beginRow: " + resultsMsg.getFirstRow() + " resultsColumns: " + resultColumns + " parameters: " + parameters); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		}
 		this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread();
+		if (this.usePrefetch && this.parameters == 0) {
+			this.prefetchMemory = getPrefetchMemoryKb(statement) * 1024l;
+		}
 		this.maxRows = statement.getMaxRows();
 		this.batchResults = new BatchResults(this, getCurrentBatch(resultsMsg), this.cursorType == ResultSet.TYPE_FORWARD_ONLY ? 1 : BatchResults.DEFAULT_SAVED_BATCHES);
 	}
 	
+	private static int getPrefetchMemoryKb(StatementImpl statement) {
+		String value = statement.getExecutionProperty(ExecutionProperties.PREFETCH_MEMORY_KB);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				logger.warning(JDBCPlugin.Util.getString("ResultSetImpl.invalid_prefetch_memory", value)); //$NON-NLS-1$
+			}
+		}
+		return PREFETCH_MEMORY_KB_DEFAULT;
+	}
+	
 	public void setMaxFieldSize(int maxFieldSize) {
 		this.maxFieldSize = maxFieldSize;
 	}
 	
     public void close() throws SQLException{
-    	if(!isClosed) {
+    	boolean closeRequest = false;
+    	synchronized (this) {
+    		//prevent further prefetch requests
+    		if (!isClosed) {
+    			isClosed = true;
+    			closeRequest = true;
+    			prefetchQueue.clear();
+    		}
+		}
+    	if(closeRequest) {
             // close the the server's statement object (if necessary)
     		if(this.requestID >= 0){
     			this.statement.checkStatement();
@@ -168,7 +210,6 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 					throw TeiidSQLException.create(e);
 				}
     		}
-            isClosed = true;
         }
     	//we can do this because the statement can only have a
     	//single resultset open currently
@@ -371,12 +412,24 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     public Batch requestBatch(int beginRow) throws SQLException{
     	checkClosed();
         try {
-        	if (prefetch != null) {
+        	ResultsFuture<ResultsMessage> next = null;
+        	synchronized (this) {
+        		next = prefetch;
+        		if (next == null && prefetchException != null) {
+        			//the prefetch request for this batch failed
+        			SQLException e = prefetchException;
+        			prefetchException = null;
+        			throw e;
+        		}
+			}
+        	if (next != null) {
     			//TODO: this is not efficient if the user is skipping around the results
     			//but the server logic at this point basically requires us
     			//to read what we have requested before requesting more (no queuing)
-    			ResultsMessage result = getResults(prefetch);
-    			prefetch = null;
+    			ResultsMessage result = getResults(next);
+    			synchronized (this) {
+    				prefetch = prefetchQueue.poll();
+				}
     			Batch nextBatch = processBatch(result);
 				return nextBatch;
         	}
@@ -447,10 +500,22 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 
 	private Batch getCurrentBatch(ResultsMessage currentResultMsg) throws TeiidSQLException {
 		this.updatedPlanDescription = currentResultMsg.getPlanDescription();
-		if (usePrefetch && !asynch 
-				&& prefetch == null && currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
-			//fetch before processing the results
-			prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
+		if (usePrefetch && !asynch) {
+			synchronized (this) {
+				if (prefetch == null && prefetchException == null && currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
+					//fetch before processing the results
+					prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
+				}
+				if (prefetchMemory > 0 && prefetch != null && !prefetching) {
+					prefetching = true;
+					prefetchExecutor.execute(new Runnable() {
+						@Override
+						public void run() {
+							prefetchBatches();
+						}
+					});
+				}
+			}
 		}
 		currentResultMsg.processResults();
 		List<?> lastTuple = null;
@@ -1774,5 +1839,91 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 	ResultsFuture<ResultsMessage> getPrefetch() {
 		return prefetch;
 	}
+	
+	synchronized int getPrefetchQueueSize() {
+		return prefetchQueue.size();
+	}
+	
+	/**
+	 * Continue requesting batches after the prefetch while the application consumes the current batch.
+	 * Only a single request may be outstanding with the server, so each request is made after the 
+	 * prior response is read.  Stops once the unconsumed results exceed the prefetch memory, 
+	 * in which case it will be restarted as batches are consumed. 
+	 */
+	void prefetchBatches() {
+		while (true) {
+			ResultsFuture<ResultsMessage> tail = null;
+			synchronized (this) {
+				if (isClosed || prefetch == null) {
+					prefetching = false;
+					return;
+				}
+				tail = prefetchQueue.isEmpty()?prefetch:prefetchQueue.getLast();
+			}
+			ResultsMessage last = null;
+			try {
+				//reading here allows the response to be received while the application is busy
+				//the wait is bounded so that a slow request does not hold the shared thread
+				last = tail.get(PREFETCH_WAIT_MS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				//restarted as batches are consumed
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				//the application will see the exception when the batch is consumed
+			}
+			synchronized (this) {
+				if (isClosed || prefetch == null) {
+					prefetching = false;
+					return;
+				}
+				if (tail != (prefetchQueue.isEmpty()?prefetch:prefetchQueue.getLast())) {
+					continue; //consumed in the meantime
+				}
+				if (last == null || last.getException() != null || last.getLastRow() == last.getFinalRow() 
+						|| last.getLastRow() < last.getFirstRow() || getPrefetchedSize() >= prefetchMemory) {
+					prefetching = false;
+					return;
+				}
+				try {
+					prefetchQueue.add(submitRequestBatch(last.getLastRow() + 1));
+				} catch (SQLException e) {
+					//the application will see the exception once the prior batches are consumed
+					prefetchException = e;
+					prefetching = false;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Estimate the size of the unconsumed results.  Socket results will not yet be deserialized, 
+	 * so their serialized length is used.
+	 */
+	private long getPrefetchedSize() {
+		long size = estimateSize(prefetch);
+		for (ResultsFuture<ResultsMessage> future : prefetchQueue) {
+			size += estimateSize(future);
+		}
+		return size;
+	}
+
+	private long estimateSize(ResultsFuture<ResultsMessage> future) {
+		if (!future.isDone()) {
+			return 0;
+		}
+		try {
+			ResultsMessage message = future.get();
+			int length = message.getSerializedLength();
+			if (length > 0) {
+				return length;
+			}
+			//rough estimate of the object size
+			return Math.max(0, message.getLastRow() - message.getFirstRow() + 1) * (long)columnCount * 16;
+		} catch (Exception e) {
+			return 0;
+		}
+	}
 
 }
@@ -960,6 +960,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         if (noExec != null) {
     		res.setNoExec(noExec.equalsIgnoreCase("ON")); //$NON-NLS-1$
         }
+        res.setCompressResults(Boolean.valueOf(getExecutionProperty(ExecutionProperties.COMPRESS_RESULTS)).booleanValue());
     }
 
     /**
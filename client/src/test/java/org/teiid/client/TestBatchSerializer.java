@@ -50,19 +50,25 @@ import org.teiid.query.unittest.TimestampUtil;
 public class TestBatchSerializer {
 
     private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version) throws IOException, ClassNotFoundException {
+    	return helpTestSerialization(types, batch, version, false);
+    }
+    
+    private static byte[] serialize(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException {
         ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
         ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        BatchSerializer.writeBatch(out, types, Arrays.asList(batch), version, compress);
+        out.close();
+        return byteStream.toByteArray();
+    }
+    
+    private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException, ClassNotFoundException {
         List<List<?>> batchList = Arrays.asList(batch);
         
-        BatchSerializer.writeBatch(out, types, batchList, version);
-        out.flush();
-        
-        byte[] bytes = byteStream.toByteArray();
+        byte[] bytes = serialize(types, batch, version, compress);
         
         ByteArrayInputStream bytesIn = new ByteArrayInputStream(bytes);
         ObjectInputStream in = new ObjectInputStream(bytesIn);
         List<List<Object>> newBatch = BatchSerializer.readBatch(in, types);
-        out.close();
         in.close();
 
         assertTrue(batchList.equals(newBatch));
@@ -174,4 +180,23 @@ public class TestBatchSerializer {
     	assertFalse(val instanceof GeometryType);
     }
 
+    @Test public void testCompression() throws Exception {
+    	String[] types = Arrays.copyOf(sampleBatchTypes, sampleBatchTypes.length);
+    	//object is not compressible
+    	assertFalse(BatchSerializer.isCompressible(types));
+    	types[14] = DataTypeManager.DefaultDataTypes.TIMESTAMP;
+    	assertTrue(BatchSerializer.isCompressible(types));
+    	assertTrue(BatchSerializer.isCompressible(new String[] {"string[]"}));
+    	assertFalse(BatchSerializer.isCompressible(new String[] {"clob[]"}));
+    	
+    	helpTestSerialization(types, sampleBatchWithNulls(17), BatchSerializer.CURRENT_VERSION, true);
+    	helpTestSerialization(types, sampleBatchWithNulls(4096), BatchSerializer.CURRENT_VERSION, true);
+    	helpTestSerialization(sampleBatchTypes, sampleBatchWithNulls(17), BatchSerializer.CURRENT_VERSION, true);
+    	//not supported by prior versions
+    	helpTestSerialization(types, sampleBatchWithNulls(17), BatchSerializer.VERSION_GEOMETRY, true);
+    	
+    	assertTrue(serialize(types, sampleBatchWithNulls(4096), BatchSerializer.CURRENT_VERSION, true).length 
+    			< serialize(types, sampleBatchWithNulls(4096), BatchSerializer.CURRENT_VERSION, false).length);
+    }
+
 }
@@ -66,6 +66,7 @@ public class TestRequestMessage {
         message.setRowLimit(1313);
         message.setReturnAutoGeneratedKeys(true);
         message.setDelaySerialization(true);
+        message.setCompressResults(true);
         return message;
     }
 
@@ -91,6 +92,7 @@ public class TestRequestMessage {
         assertEquals(1313, copy.getRowLimit());
         assertTrue(copy.isReturnAutoGeneratedKeys());
         assertTrue(copy.isDelaySerialization());
+        assertTrue(copy.isCompressResults());
     }
     
     @Test public void testInvalidTxnAutoWrap() {
@@ -109,6 +111,7 @@ public class TestRequestMessage {
     	ois.close();
     	assertFalse(rm.isReturnAutoGeneratedKeys());
     	assertFalse(rm.isDelaySerialization());
+    	assertFalse(rm.isCompressResults());
     }
 
 }
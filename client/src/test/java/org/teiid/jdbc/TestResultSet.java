@@ -32,6 +32,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -703,6 +704,59 @@ public class TestResultSet {
         cs.close();      
     }
     
+    @Test public void testForwardOnlyPrefetchMemory() throws Exception {
+    	StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
+    	stub(statement.getExecutionProperty(ExecutionProperties.PREFETCH_MEMORY_KB)).toReturn("1");
+    	ResultSetImpl cs = TestAllResultsImpl.helpTestBatching(statement, 10, 10, 1300);
+    	cs.prefetchBatches();
+    	//bounded by the estimated size of 160 bytes per batch
+    	int queued = cs.getPrefetchQueueSize();
+    	assertTrue(queued > 0);
+    	assertTrue(queued <= 7);
+		for (int i = 1; i <= 1300; i++) {
+			assertTrue(cs.next());
+            assertEquals(i, cs.getObject(1));
+        }
+        assertFalse(cs.next());
+        Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 11, 10);
+        Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 1291, 10);
+        cs.close();      
+    }
+    
+    @Test public void testForwardOnlyPrefetchFailure() throws Exception {
+    	ExecutorService executor = ResultSetImpl.prefetchExecutor;
+    	//prefetch on the test thread
+    	ResultSetImpl.prefetchExecutor = mock(ExecutorService.class);
+    	try {
+	    	StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
+	    	stub(statement.getExecutionProperty(ExecutionProperties.PREFETCH_MEMORY_KB)).toReturn("1");
+	    	ResultSetImpl cs = TestAllResultsImpl.helpTestBatching(statement, 10, 10, 1300);
+	    	DQP dqp = statement.getDQP();
+	    	Mockito.doThrow(new TeiidProcessingException()).when(dqp).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 31, 10);
+	    	cs.prefetchBatches();
+	    	assertEquals(1, cs.getPrefetchQueueSize());
+	    	//the failure is seen after the prior batches are consumed
+			for (int i = 1; i <= 30; i++) {
+				assertTrue(cs.next());
+	            assertEquals(i, cs.getObject(1));
+	        }
+			try {
+				cs.next();
+				fail();
+			} catch (SQLException e) {
+				
+			}
+	        Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 31, 10);
+	        cs.close();
+	        //no further requests after close
+	        cs.prefetchBatches();
+	        Mockito.verify(statement.getDQP(), Mockito.times(1)).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 31, 10);
+	        assertEquals(0, cs.getPrefetchQueueSize());
+    	} finally {
+    		ResultSetImpl.prefetchExecutor = executor;
+    	}
+    }
+    
     @Test public void testOutputParameter() throws Exception {
         StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
         ResultsMessage resultsMsg = new ResultsMessage();
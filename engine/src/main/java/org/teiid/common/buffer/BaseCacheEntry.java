@@ -22,9 +22,14 @@
 
 package org.teiid.common.buffer;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 public class BaseCacheEntry {
 
+	private static final AtomicIntegerFieldUpdater<BaseCacheEntry> QUEUE_STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(BaseCacheEntry.class, "queueState"); //$NON-NLS-1$
+
 	private CacheKey key;
+	private volatile int queueState;
 
 	public BaseCacheEntry(CacheKey key) {
 		this.key = key;
@@ -51,5 +56,16 @@ public class BaseCacheEntry {
 	public CacheKey getKey() {
 		return key;
 	}
+	
+	/**
+	 * State flags used by the eviction queue to track deferred reordering
+	 */
+	public int getQueueState() {
+		return queueState;
+	}
+	
+	public boolean compareAndSetQueueState(int expect, int update) {
+		return QUEUE_STATE_UPDATER.compareAndSet(this, expect, update);
+	}
 
 }
\ No newline at end of file
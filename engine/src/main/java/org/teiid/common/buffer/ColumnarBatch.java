@@ -0,0 +1,547 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * An immutable column oriented batch of tuples.
+ * <br>
+ * Integer, long and double columns are held as primitive arrays with a null bitmap and
+ * string columns are dictionary encoded if there are repeated values.  All other
+ * types are held as an object array.
+ * <br>
+ * The batch is itself a read only {@link List} of tuples so that it may be used anywhere a row
+ * based batch is expected.  The tuples are materialized as accessed, so they do not hold
+ * a reference to the columns.
+ * Projection is performed without copying the column values.  Selection and slicing copy
+ * only the selected rows, so the result does not retain the source columns.
+ */
+public final class ColumnarBatch extends AbstractList<List<?>> implements RandomAccess {
+
+	private static abstract class Column {
+		BitSet nulls;
+
+		abstract Object get(int row);
+
+		final boolean isNull(int row) {
+			return nulls != null && nulls.get(row);
+		}
+
+		abstract long getSizeEstimate(int rows);
+		
+		/**
+		 * Create a column with only the given rows
+		 */
+		abstract Column select(int[] rows, int count);
+		
+		final <C extends Column> C selectNulls(C column, int[] rows, int count) {
+			if (nulls != null) {
+				for (int i = 0; i < count; i++) {
+					if (nulls.get(rows[i])) {
+						setNull(column, i);
+					}
+				}
+			}
+			return column;
+		}
+	}
+
+	private static final class IntColumn extends Column {
+		int[] values;
+
+		@Override
+		Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		long getSizeEstimate(int rows) {
+			return 16 + 4l * rows;
+		}
+		
+		@Override
+		IntColumn select(int[] rows, int count) {
+			IntColumn column = new IntColumn();
+			column.values = new int[count];
+			for (int i = 0; i < count; i++) {
+				column.values[i] = values[rows[i]];
+			}
+			return selectNulls(column, rows, count);
+		}
+	}
+
+	private static final class LongColumn extends Column {
+		long[] values;
+
+		@Override
+		Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		long getSizeEstimate(int rows) {
+			return 16 + 8l * rows;
+		}
+		
+		@Override
+		LongColumn select(int[] rows, int count) {
+			LongColumn column = new LongColumn();
+			column.values = new long[count];
+			for (int i = 0; i < count; i++) {
+				column.values[i] = values[rows[i]];
+			}
+			return selectNulls(column, rows, count);
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+		double[] values;
+
+		@Override
+		Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		long getSizeEstimate(int rows) {
+			return 16 + 8l * rows;
+		}
+		
+		@Override
+		DoubleColumn select(int[] rows, int count) {
+			DoubleColumn column = new DoubleColumn();
+			column.values = new double[count];
+			for (int i = 0; i < count; i++) {
+				column.values[i] = values[rows[i]];
+			}
+			return selectNulls(column, rows, count);
+		}
+	}
+
+	private static final class StringColumn extends Column {
+		int[] codes;
+		String[] dictionary;
+
+		@Override
+		Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return dictionary[codes[row]];
+		}
+
+		@Override
+		long getSizeEstimate(int rows) {
+			long size = 32 + 4l * rows + 4l * dictionary.length;
+			for (String value : dictionary) {
+				size += 40 + 2 * value.length();
+			}
+			return size;
+		}
+		
+		@Override
+		StringColumn select(int[] rows, int count) {
+			StringColumn column = new StringColumn();
+			column.codes = new int[count];
+			for (int i = 0; i < count; i++) {
+				column.codes[i] = codes[rows[i]];
+			}
+			//the dictionary is immutable and can be shared
+			column.dictionary = dictionary;
+			return selectNulls(column, rows, count);
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+		Object[] values;
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		long getSizeEstimate(int rows) {
+			return -1;
+		}
+		
+		@Override
+		ObjectColumn select(int[] rows, int count) {
+			ObjectColumn column = new ObjectColumn();
+			column.values = new Object[count];
+			for (int i = 0; i < count; i++) {
+				column.values[i] = values[rows[i]];
+			}
+			return column;
+		}
+	}
+
+	/**
+	 * View of a single row
+	 */
+	private final class Row extends AbstractList<Object> implements RandomAccess {
+		private int row;
+
+		Row(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(int index) {
+			return columns[index].get(row);
+		}
+
+		@Override
+		public int size() {
+			return columns.length;
+		}
+	}
+
+	private Column[] columns;
+	private int size;
+
+	private ColumnarBatch(Column[] columns, int size) {
+		this.columns = columns;
+		this.size = size;
+	}
+
+	/**
+	 * Return true if the types are suitable for a columnar representation.  At least one of
+	 * the columns should be a primitive or string type and lob values are not supported,
+	 * since their references are updated in place.
+	 */
+	public static boolean isColumnar(Class<?>[] types) {
+		boolean result = false;
+		for (Class<?> type : types) {
+			if (DataTypeManager.isLOB(type) || type == DataTypeManager.DefaultDataClasses.OBJECT) {
+				return false;
+			}
+			if (type == DataTypeManager.DefaultDataClasses.INTEGER
+					|| type == DataTypeManager.DefaultDataClasses.LONG
+					|| type == DataTypeManager.DefaultDataClasses.DOUBLE
+					|| type == DataTypeManager.DefaultDataClasses.STRING) {
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Create a columnar batch from the given row based batch
+	 */
+	public static ColumnarBatch create(List<? extends List<?>> tuples, Class<?>[] types) {
+		if (tuples instanceof ColumnarBatch) {
+			return (ColumnarBatch)tuples;
+		}
+		int rows = tuples.size();
+		Column[] columns = new Column[types.length];
+		for (int col = 0; col < types.length; col++) {
+			Class<?> type = types[col];
+			Column column = null;
+			if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+				column = createIntColumn(tuples, col);
+			} else if (type == DataTypeManager.DefaultDataClasses.LONG) {
+				column = createLongColumn(tuples, col);
+			} else if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+				column = createDoubleColumn(tuples, col);
+			} else if (type == DataTypeManager.DefaultDataClasses.STRING) {
+				column = createStringColumn(tuples, col);
+			}
+			if (column == null) {
+				ObjectColumn objectColumn = new ObjectColumn();
+				objectColumn.values = new Object[rows];
+				for (int row = 0; row < rows; row++) {
+					objectColumn.values[row] = tuples.get(row).get(col);
+				}
+				column = objectColumn;
+			}
+			columns[col] = column;
+		}
+		return new ColumnarBatch(columns, rows);
+	}
+
+	private static Column createIntColumn(List<? extends List<?>> tuples, int col) {
+		IntColumn column = new IntColumn();
+		column.values = new int[tuples.size()];
+		for (int row = 0; row < tuples.size(); row++) {
+			Object value = tuples.get(row).get(col);
+			if (value == null) {
+				setNull(column, row);
+			} else if (value instanceof Integer) {
+				column.values[row] = (Integer)value;
+			} else {
+				return null;
+			}
+		}
+		return column;
+	}
+
+	private static Column createLongColumn(List<? extends List<?>> tuples, int col) {
+		LongColumn column = new LongColumn();
+		column.values = new long[tuples.size()];
+		for (int row = 0; row < tuples.size(); row++) {
+			Object value = tuples.get(row).get(col);
+			if (value == null) {
+				setNull(column, row);
+			} else if (value instanceof Long) {
+				column.values[row] = (Long)value;
+			} else {
+				return null;
+			}
+		}
+		return column;
+	}
+
+	private static Column createDoubleColumn(List<? extends List<?>> tuples, int col) {
+		DoubleColumn column = new DoubleColumn();
+		column.values = new double[tuples.size()];
+		for (int row = 0; row < tuples.size(); row++) {
+			Object value = tuples.get(row).get(col);
+			if (value == null) {
+				setNull(column, row);
+			} else if (value instanceof Double) {
+				column.values[row] = (Double)value;
+			} else {
+				return null;
+			}
+		}
+		return column;
+	}
+
+	private static Column createStringColumn(List<? extends List<?>> tuples, int col) {
+		int rows = tuples.size();
+		StringColumn column = new StringColumn();
+		column.codes = new int[rows];
+		Map<String, Integer> codes = new HashMap<String, Integer>();
+		for (int row = 0; row < rows; row++) {
+			Object value = tuples.get(row).get(col);
+			if (value == null) {
+				setNull(column, row);
+				continue;
+			}
+			if (!(value instanceof String)) {
+				return null;
+			}
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = codes.size();
+				//there is no benefit if the values are mostly distinct
+				if (code > rows/2) {
+					return null;
+				}
+				codes.put((String)value, code);
+			}
+			column.codes[row] = code;
+		}
+		column.dictionary = new String[codes.size()];
+		for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+			column.dictionary[entry.getValue()] = entry.getKey();
+		}
+		return column;
+	}
+
+	private static void setNull(Column column, int row) {
+		if (column.nulls == null) {
+			column.nulls = new BitSet();
+		}
+		column.nulls.set(row);
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(row));
+		}
+		return row;
+	}
+
+	/**
+	 * Get a copy of the tuple at the given index
+	 */
+	@Override
+	public List<?> get(int index) {
+		int row = checkRow(index);
+		List<Object> tuple = new ArrayList<Object>(columns.length);
+		for (Column column : columns) {
+			tuple.add(column.get(row));
+		}
+		return tuple;
+	}
+	
+	/**
+	 * Get a view of the tuple at the given index that boxes the values as they are accessed.
+	 * The view holds a reference to the columns, so it should not be retained.
+	 */
+	public List<?> getView(int index) {
+		return new Row(checkRow(index));
+	}
+	
+	/**
+	 * Copy the tuples into a modifiable row based list
+	 */
+	public List<List<?>> toRows() {
+		List<List<?>> result = new ArrayList<List<?>>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(get(i));
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public Object getValue(int row, int col) {
+		return columns[col].get(checkRow(row));
+	}
+
+	public boolean isNull(int row, int col) {
+		return columns[col].isNull(checkRow(row));
+	}
+
+	/**
+	 * @return true if the column is held as an int array
+	 */
+	public boolean isIntColumn(int col) {
+		return columns[col] instanceof IntColumn;
+	}
+
+	/**
+	 * @return true if the column is held as a long array
+	 */
+	public boolean isLongColumn(int col) {
+		return columns[col] instanceof LongColumn;
+	}
+
+	/**
+	 * @return true if the column is held as a double array
+	 */
+	public boolean isDoubleColumn(int col) {
+		return columns[col] instanceof DoubleColumn;
+	}
+
+	/**
+	 * Get the int value without boxing.  The value is undefined if {@link #isNull(int, int)}.
+	 */
+	public int getInt(int row, int col) {
+		return ((IntColumn)columns[col]).values[checkRow(row)];
+	}
+
+	/**
+	 * Get the long value without boxing.  The value is undefined if {@link #isNull(int, int)}.
+	 */
+	public long getLong(int row, int col) {
+		return ((LongColumn)columns[col]).values[checkRow(row)];
+	}
+
+	/**
+	 * Get the double value without boxing.  The value is undefined if {@link #isNull(int, int)}.
+	 */
+	public double getDouble(int row, int col) {
+		return ((DoubleColumn)columns[col]).values[checkRow(row)];
+	}
+
+	/**
+	 * Return a batch with only the given columns in the given order
+	 */
+	public ColumnarBatch project(int[] cols) {
+		Column[] projected = new Column[cols.length];
+		for (int i = 0; i < cols.length; i++) {
+			projected[i] = this.columns[cols[i]];
+		}
+		return new ColumnarBatch(projected, size);
+	}
+
+	/**
+	 * Return a batch with only the given rows.  The values of the rows are copied.
+	 * @param rows the selected row indexes in ascending order
+	 * @param count the number of selected rows
+	 */
+	public ColumnarBatch select(int[] rows, int count) {
+		for (int i = 0; i < count; i++) {
+			checkRow(rows[i]);
+		}
+		Column[] selected = new Column[columns.length];
+		for (int col = 0; col < columns.length; col++) {
+			selected[col] = columns[col].select(rows, count);
+		}
+		return new ColumnarBatch(selected, count);
+	}
+
+	/**
+	 * Return a batch with only the given range of rows.  The values of the rows are copied.
+	 */
+	@Override
+	public ColumnarBatch subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException(fromIndex + " " + toIndex); //$NON-NLS-1$
+		}
+		int[] rows = new int[toIndex - fromIndex];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = fromIndex + i;
+		}
+		return select(rows, rows.length);
+	}
+
+	/**
+	 * Get the estimated memory size of the primitive and string columns, or -1 if there
+	 * are object columns that must be estimated by value.
+	 */
+	public long getSizeEstimate() {
+		long result = 16;
+		for (Column column : columns) {
+			long columnSize = column.getSizeEstimate(size);
+			if (columnSize < 0) {
+				return -1;
+			}
+			result += columnSize;
+			if (column.nulls != null) {
+				result += 16 + column.nulls.size()/8;
+			}
+		}
+		return result;
+	}
+
+}
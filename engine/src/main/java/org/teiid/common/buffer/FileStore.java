@@ -194,6 +194,52 @@ public abstract class FileStore implements Removable {
     	} while (n < length);
 	}
 
+	/**
+	 * Read into the remaining bytes of the buffer, advancing its position.
+	 * @return the number of bytes read or -1 if there are no bytes available
+	 */
+	public int read(long fileOffset, ByteBuffer buffer) throws IOException {
+		checkRemoved();
+		return readWrite(fileOffset, buffer, false);
+	}
+	
+	/**
+	 * Write all of the remaining bytes of the buffer at the given position
+	 */
+	public void write(long start, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			checkRemoved();
+			int count = this.readWrite(start, buffer, true);
+			if (count <= 0) {
+				throw new IOException("not enough bytes available"); //$NON-NLS-1$
+			}
+			start += count;
+		}
+	}
+	
+	/**
+	 * Read into or write from the remaining bytes of the buffer, advancing its position.
+	 * The default implementation transfers through a heap array if the buffer is direct.
+	 */
+	protected int readWrite(long fileOffset, ByteBuffer buffer, boolean write) throws IOException {
+		int position = buffer.position();
+		int count = 0;
+		if (buffer.hasArray()) {
+			count = readWrite(fileOffset, buffer.array(), buffer.arrayOffset() + position, buffer.remaining(), write);
+		} else {
+			byte[] b = new byte[Math.min(buffer.remaining(), 1<<13)];
+			if (write) {
+				buffer.get(b);
+			}
+			count = readWrite(fileOffset, b, 0, b.length, write);
+			if (!write && count > 0) {
+				buffer.put(b, 0, count);
+			}
+		}
+		buffer.position(position + Math.max(0, count));
+		return count;
+	}
+
 	public void remove() {
 		if (removed.compareAndSet(false, true)) {
 			this.removeDirect();
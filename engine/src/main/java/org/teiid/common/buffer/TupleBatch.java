@@ -72,7 +72,12 @@ public class TupleBatch {
      */
     public TupleBatch(long beginRow, List<? extends List<?>> listOfTupleLists) {
         this.rowOffset = beginRow;
-        this.tuples = new ArrayList<List<?>>(listOfTupleLists);
+        if (listOfTupleLists instanceof ColumnarBatch) {
+        	//immutable, so there's no need to copy
+        	this.tuples = (ColumnarBatch)listOfTupleLists;
+        } else {
+        	this.tuples = new ArrayList<List<?>>(listOfTupleLists);
+        }
     }
 
     /**
@@ -114,10 +119,34 @@ public class TupleBatch {
         return tuples.get(intVal);
     }
     
+    /**
+     * Get the tuples, which may be modified.  A columnar batch is first converted 
+     * to row form.
+     */
     public List<List<?>> getTuples() {
+    	if (tuples instanceof ColumnarBatch) {
+    		tuples = ((ColumnarBatch)tuples).toRows();
+    	}
 		return tuples;
 	}
     
+    /**
+     * Get the tuples without converting a columnar batch.  The result should not be modified.
+     */
+    public List<List<?>> getReadOnlyTuples() {
+    	return tuples;
+    }
+    
+    /**
+     * @return the columnar form of the tuples or null if the batch is row based
+     */
+    public ColumnarBatch getColumnarBatch() {
+    	if (tuples instanceof ColumnarBatch) {
+    		return (ColumnarBatch)tuples;
+    	}
+    	return null;
+    }
+    
     /**
      * Get all tuples 
      * @return All tuples
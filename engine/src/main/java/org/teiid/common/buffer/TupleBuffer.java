@@ -133,6 +133,12 @@ public class TupleBuffer {
 
 	private LobManager lobManager;
 	private String uuid;
+	private Class<?>[] columnarTypes;
+	
+	//adaptive sizing state, a target of 0 indicates a fixed batch size
+	private long targetBatchBytes;
+	private int minBatchSize;
+	private int maxBatchSize;
 	
 	public TupleBuffer(BatchManager manager, String id, List<? extends Expression> schema, LobManager lobManager, int batchSize) {
 		this.manager = manager;
@@ -170,6 +176,13 @@ public class TupleBuffer {
 		return lobManager != null;
 	}
 	
+	/**
+	 * Set the types to store saved batches as {@link ColumnarBatch}es, or null for row based batches
+	 */
+	public void setColumnarTypes(Class<?>[] columnarTypes) {
+		this.columnarTypes = columnarTypes;
+	}
+	
 	public void addTuple(List<?> tuple) throws TeiidComponentException {
 		if (isLobs()) {
 			lobManager.updateReferences(tuple, ReferenceMode.CREATE);
@@ -191,7 +204,7 @@ public class TupleBuffer {
 	 */
 	public void addTupleBatch(TupleBatch batch, boolean save) throws TeiidComponentException {
 		setRowCount(batch.getBeginRow() - 1); 
-		List<List<?>> tuples = batch.getTuples();
+		List<List<?>> tuples = batch.getReadOnlyTuples();
 		if (save) {
 			for (int i = 0; i < batch.getRowCount(); i++) {
 				addTuple(tuples.get(i));
@@ -247,9 +260,42 @@ public class TupleBuffer {
 		if (batchBuffer == null || batchBuffer.isEmpty() || (!force && batchBuffer.size() < Math.max(1, batchSize / 32))) {
 			return;
 		}
-		Long mbatch = manager.createManagedBatch(batchBuffer, null, false);
+		List<? extends List<?>> toSave = batchBuffer;
+		if (columnarTypes != null) {
+			toSave = ColumnarBatch.create(batchBuffer, columnarTypes);
+		}
+		Long mbatch = manager.createManagedBatch(toSave, null, false);
 		this.batches.put(rowCount - batchBuffer.size() + 1, mbatch);
         batchBuffer = null;
+        adjustBatchSize();
+	}
+	
+	/**
+	 * Move the batch size toward the target bytes using the row size measured 
+	 * from the saved batches.  The size is only doubled or halved when the measured
+	 * size differs from the target by more than a factor of 2 to prevent thrashing.
+	 */
+	private void adjustBatchSize() {
+		if (targetBatchBytes <= 0) {
+			return;
+		}
+		int rowSize = manager.getRowSizeEstimate();
+		if (rowSize <= 0) {
+			return;
+		}
+		long desired = targetBatchBytes / rowSize;
+		int newBatchSize = batchSize;
+		if (desired > ((long)batchSize << 1)) {
+			newBatchSize = Math.min(maxBatchSize, batchSize << 1);
+		} else if (desired < (batchSize >> 1)) {
+			newBatchSize = Math.max(minBatchSize, batchSize >> 1);
+		}
+		if (newBatchSize != batchSize) {
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
+				LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Resizing TupleBuffer", this.tupleSourceID, "batch size from", batchSize, "to", newBatchSize, "with a measured row size of", rowSize); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			}
+			batchSize = newBatchSize;
+		}
 	}
 	
 	public void close() throws TeiidComponentException {
@@ -350,8 +396,26 @@ public class TupleBuffer {
 		return batchSize;
 	}
 	
+	/**
+	 * Set a fixed batch size, which disables adaptive sizing
+	 */
 	public void setBatchSize(int batchSize) {
 		this.batchSize = batchSize;
+		this.targetBatchBytes = 0;
+	}
+	
+	/**
+	 * Allow the batch size to adapt between the given bounds so that saved batches
+	 * approach the target bytes.
+	 */
+	public void setTargetBatchBytes(long targetBatchBytes, int minBatchSize, int maxBatchSize) {
+		this.targetBatchBytes = targetBatchBytes;
+		this.minBatchSize = Math.max(1, minBatchSize);
+		this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+	}
+	
+	public long getTargetBatchBytes() {
+		return targetBatchBytes;
 	}
 	    
     public Streamable<?> getLobReference(String id) throws TeiidComponentException {
@@ -23,9 +23,10 @@
 package org.teiid.common.buffer.impl;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidRuntimeException;
@@ -69,7 +70,7 @@ class BlockStore {
 	}
 	
 	int writeToStorageBlock(PhysicalInfo info,
-			InputStream is) throws IOException {
+			ExtensibleBufferedInputStream is) throws IOException {
 		int block = getAndSetNextClearBit(info);
 		int segment = block/blocksInUse.getBitsPerSegment();
 		boolean success = false;
@@ -77,17 +78,17 @@ class BlockStore {
 		try {
 			FileStore fs = stores[segment];
 			long blockOffset = (block%blocksInUse.getBitsPerSegment())*blockSize;
-			//TODO: there is still an extra buffer being created here, we could FileChannels to do better
-			byte[] b = new byte[BufferFrontedFileStoreCache.BLOCK_SIZE];
-			int read = 0;
 			long newLength = blockOffset+blockSize;
 			if (fs.getLength() < newLength) {
 				//grow by whole blocks
 				//TODO: could pad the growth
 				fs.setLength(newLength); 
 			}
-			while ((read = is.read(b, 0, b.length)) != -1) {
-				fs.write(blockOffset, b, 0, read);
+			//write the buffers directly, so that memory blocks are not copied
+			ByteBuffer bb = null;
+			while ((bb = is.getBuffer()) != null) {
+				int read = bb.remaining();
+				fs.write(blockOffset, bb);
 				blockOffset+=read;
 			}
 			success = true;
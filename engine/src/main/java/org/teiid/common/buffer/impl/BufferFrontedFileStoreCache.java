@@ -28,6 +28,7 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -48,6 +49,9 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.teiid.common.buffer.AutoCleanupUtil;
 import org.teiid.common.buffer.Cache;
@@ -59,6 +63,7 @@ import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.logging.LogConstants;
@@ -107,6 +112,10 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
 	private static final int DEFAULT_MIN_DEFRAG = 1 << 26;
 	private static final int HEADER_BYTES = 16;
+	private static final byte UNCOMPRESSED = 0;
+	private static final byte COMPRESSED = 1;
+	//the number of adds that skip compression after a batch fails to compress well
+	private static final int COMPRESSION_SKIPS = 16;
 	private static final int EVICTION_SCANS = 2;
 
 	public static final int DEFAuLT_MAX_OBJECT_SIZE = 1 << 23;
@@ -360,7 +369,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
 	private int maxMemoryBlocks;
 	private AtomicLong readAttempts = new AtomicLong();
-	LrfuEvictionQueue<PhysicalInfo> memoryBufferEntries = new LrfuEvictionQueue<PhysicalInfo>(readAttempts);
+	LrfuEvictionQueue<PhysicalInfo> memoryBufferEntries = LrfuEvictionQueue.create(readAttempts, false);
 	private Semaphore memoryWritePermits; //prevents deadlock waiting for free blocks
 	private ReentrantReadWriteLock memoryEvictionLock = new ReentrantReadWriteLock(true);
 	private ReentrantLock freedLock = new ReentrantLock();
@@ -382,6 +391,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	private AtomicInteger freedCounter = new AtomicInteger();
 	
 	private boolean compactBufferFiles = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.compactBufferFiles", false); //$NON-NLS-1$
+	private boolean compressBufferFiles = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.compressBufferFiles", false); //$NON-NLS-1$
+	private AtomicInteger compressionSkips = new AtomicInteger();
+	private AtomicLong compressedBytesSaved = new AtomicLong();
 	
 	private int truncateInterval = 4;
 	//defrag to release freespace held by storage files
@@ -439,7 +451,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 								break;
 							}
 							//move the block if possible
-							InputStream is = blockStore.stores[segment].createInputStream(relativeBlockToMove * blockStore.blockSize, blockStore.blockSize);
+							ExtensibleBufferedInputStream is = blockStore.stores[segment].createInputStream(relativeBlockToMove * blockStore.blockSize, blockStore.blockSize);
 							Long gid = null;
 							Long oid = null;
 							try {
@@ -554,6 +566,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
 	private AtomicLong storageWrites = new AtomicLong();
 	private AtomicLong storageReads = new AtomicLong();
+	private AtomicLong memoryBufferReads = new AtomicLong();
 	
 	private long minDefrag = DEFAULT_MIN_DEFRAG;
 	private BufferManagerImpl bufferManager;
@@ -662,10 +675,21 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			BlockOutputStream bos = new BlockOutputStream(blockManager, memoryBlocks);
 			bos.writeLong(s.getId());
 			bos.writeLong(entry.getId());
-			ObjectOutput dos = new ObjectOutputStream(bos);
+			AccessibleByteArrayOutputStream baos = null;
+			OutputStream target = bos;
+			if (shouldCompress()) {
+				baos = new AccessibleByteArrayOutputStream(1 << 12);
+				target = baos;
+			} else {
+				bos.write(UNCOMPRESSED);
+			}
+			ObjectOutput dos = new ObjectOutputStream(target);
 			dos.writeInt(entry.getSizeEstimate());
             s.serialize(entry.getObject(), dos);
             dos.close();
+            if (baos != null) {
+            	writeCompressed(baos, bos);
+            }
         	//synchronized to ensure proper cleanup from a concurrent removal 
             synchronized (map) {
             	if (physicalMapping.containsKey(s.getId()) && map.containsKey(entry.getId())) {
@@ -755,7 +779,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		readAttempts.incrementAndGet();
 		InputStream is = null;
 		Lock lock = null;
-		ExtensibleBufferedInputStream eis = null;
+		FileStore fs = null;
+		long blockOffset = 0;
+		Inflater inflater = null;
 		int memoryBlocks = 0;
 		try {
 			synchronized (info) {
@@ -764,6 +790,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 				if (info.inode != EMPTY_ADDRESS) {
 					info.pinned = true;
 					memoryBufferEntries.touch(info); 
+					memoryBufferReads.incrementAndGet();
 					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
 						LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Getting object at inode", info.inode, serializer.getId(), oid); //$NON-NLS-1$
 					}
@@ -778,9 +805,8 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 					}
 					BlockStore blockStore = sizeBasedStores[info.sizeIndex];
 					int segment = info.block/blockStore.blocksInUse.getBitsPerSegment();
-					FileStore fs = blockStore.stores[segment];
-					long blockOffset = (info.block%blockStore.blocksInUse.getBitsPerSegment())*blockStore.blockSize;
-					eis = fs.createInputStream(blockOffset, info.memoryBlockCount<<LOG_BLOCK_SIZE);
+					fs = blockStore.stores[segment];
+					blockOffset = (info.block%blockStore.blocksInUse.getBitsPerSegment())*blockStore.blockSize;
 					lock = blockStore.locks[segment].writeLock();
 					memoryBlocks = info.memoryBlockCount;
 				} else {
@@ -788,11 +814,15 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 				}
 			}
 			if (lock != null) {
-				is = readIntoMemory(info, eis, lock, memoryBlocks);
+				is = readIntoMemory(info, fs, blockOffset, lock, memoryBlocks);
 			}
 			for (int i = 0; i < HEADER_BYTES; i++) {
 				is.read();
 			}
+			if (is.read() == COMPRESSED) {
+				inflater = new Inflater();
+				is = new InflaterInputStream(is, inflater);
+			}
 			ObjectInput dis = new ObjectInputStream(is);
 			int sizeEstimate = dis.readInt();
 			CacheEntry ce = new CacheEntry(new CacheKey(oid, 1, 1), sizeEstimate, serializer.deserialize(dis), ref, true);
@@ -804,6 +834,9 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         } catch (InterruptedException e) {
         	 throw new TeiidRuntimeException(QueryPlugin.Event.TEIID30049, e);
 		} finally {
+			if (inflater != null) {
+				inflater.end();
+			}
         	synchronized (info) {
 				info.pinned = false;
 				info.notifyAll();
@@ -811,10 +844,52 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         }
 	}
 
+	private boolean shouldCompress() {
+		if (!compressBufferFiles) {
+			return false;
+		}
+		int skips = compressionSkips.get();
+		return skips <= 0 || compressionSkips.decrementAndGet() < 0;
+	}
+	
+	/**
+	 * Write the serialized entry deflated with the fastest setting.  Each entry is framed independently
+	 * so that it may still be read directly by its {@link PhysicalInfo}.  Poorly compressible 
+	 * entries are written uncompressed and suspend compression for the next several adds.
+	 */
+	private void writeCompressed(AccessibleByteArrayOutputStream baos, BlockOutputStream bos) throws IOException {
+		int length = baos.getCount();
+		byte[] compressed = new byte[length];
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		int compressedLength = 0;
+		try {
+			deflater.setInput(baos.getBuffer(), 0, length);
+			deflater.finish();
+			//only keep the compressed form if it saves at least 1/8 
+			int max = length - (length >> 3);
+			while (!deflater.finished() && compressedLength < max) {
+				compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+			}
+			if (!deflater.finished() || compressedLength >= max) {
+				compressionSkips.set(COMPRESSION_SKIPS);
+				bos.write(UNCOMPRESSED);
+				bos.write(baos.getBuffer(), 0, length);
+				bos.close();
+				return;
+			}
+		} finally {
+			deflater.end();
+		}
+		compressedBytesSaved.addAndGet(length - compressedLength);
+		bos.write(COMPRESSED);
+		bos.write(compressed, 0, compressedLength);
+		bos.close();
+	}
+	
 	/**
 	 * Transfer into memory to release memory/file locks
 	 */
-	private InputStream readIntoMemory(PhysicalInfo info, ExtensibleBufferedInputStream is,
+	private InputStream readIntoMemory(PhysicalInfo info, FileStore fs, long blockOffset,
 			Lock fileLock, int memoryBlocks) throws InterruptedException,
 			IOException {
 		checkForLowMemory();
@@ -822,6 +897,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		BlockManager manager = null;
 		boolean success = false;
 		boolean locked = false;
+		InputStream is = null;
 		try {
 			manager = getBlockManager(info.gid, info.getId(), EMPTY_ADDRESS);
 			//preallocate the memory area, to ensure we won't exhaust memory while holding
@@ -832,16 +908,18 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			
 			fileLock.lock();
 			locked = true;
-			ExtensibleBufferedOutputStream os = new BlockOutputStream(manager, -1);
-			//TODO: there is still an extra buffer being created here, we could FileChannels to do better
-			ByteBuffer bb = null;
-			while ((bb = is.getBuffer()) != null) {
-				byte[] array = bb.array();
-				os.write(array, bb.position() + bb.arrayOffset(), bb.remaining());
-				bb.position(bb.position()+bb.remaining());
+			//read directly into the memory blocks
+			for (int i = 0; i < memoryBlocks; i++) {
+				ByteBuffer bb = manager.getBlock(i);
+				while (bb.hasRemaining()) {
+					int read = fs.read(blockOffset, bb);
+					if (read <= 0) {
+						break;
+					}
+					blockOffset += read;
+				}
 			}
 			fileLock.unlock();
-			os.close();
 			locked = false;
 		    synchronized (info) {
 		        info.inode = manager.getInode();
@@ -888,6 +966,13 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		this.direct = direct;
 	}
 	
+	/**
+	 * Use a {@link StripedLrfuEvictionQueue} for the memory buffer.  Should be set prior to use.
+	 */
+	public void setStripedEvictionQueue(boolean striped) {
+		this.memoryBufferEntries = LrfuEvictionQueue.create(readAttempts, striped);
+	}
+	
 	@Override
 	public boolean addToCacheGroup(Long gid, Long oid) {
 		Map<Long, PhysicalInfo> map = physicalMapping.get(gid);
@@ -1183,6 +1268,13 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return storageReads.get();
 	}
 	
+	/**
+	 * @return the number of reads satisfied by the memory buffer without accessing storage
+	 */
+	public long getMemoryBufferReads() {
+		return memoryBufferReads.get();
+	}
+	
 	public long getStorageWrites() {
 		return storageWrites.get();
 	}
@@ -1231,4 +1323,15 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		this.compactBufferFiles = compactBufferFiles;
 	}
 	
+	public void setCompressBufferFiles(boolean compressBufferFiles) {
+		this.compressBufferFiles = compressBufferFiles;
+	}
+	
+	/**
+	 * @return the number of bytes saved by compression for all entries added
+	 */
+	public long getCompressedBytesSaved() {
+		return compressedBytesSaved.get();
+	}
+	
 }
\ No newline at end of file
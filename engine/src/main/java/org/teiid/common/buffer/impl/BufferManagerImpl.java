@@ -56,6 +56,7 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.DataTypeManager.WeakReferenceHashedValueCache;
 import org.teiid.core.types.Streamable;
 import org.teiid.core.util.Assertion;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.dqp.internal.process.DQPConfiguration;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.logging.LogConstants;
@@ -156,6 +157,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		private LobManager lobManager;
 		private long totalSize;
 		private long rowsSampled;
+		private Class<?>[] columnarTypes;
 
 		private BatchManagerImpl(Long newID, Class<?>[] types) {
 			this.id = newID;
@@ -175,6 +177,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			this.lobManager = lobManager;
 		}
 		
+		public void setColumnarTypes(Class<?>[] columnarTypes) {
+			this.columnarTypes = columnarTypes;
+		}
+		
 		@Override
 		public String[] getTypes() {
 			return types;
@@ -255,6 +261,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		public List<? extends List<?>> deserialize(ObjectInput ois)
 				throws IOException, ClassNotFoundException {
 			List<? extends List<?>> batch = BatchSerializer.readBatch(ois, types);
+			if (columnarTypes != null) {
+				//the boxed values read are short lived
+				return ColumnarBatch.create(batch, columnarTypes);
+			}
 			if (lobManager != null) {
 				for (int i = batch.size() - 1; i >= 0; i--) {
 					try {
@@ -391,6 +401,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private boolean useWeakReferences = true;
     private boolean inlineLobs = true;
     private int targetBytesPerRow = TARGET_BYTES_PER_ROW;
+    private boolean adaptiveBatchSizing = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.adaptiveBatchSizing", true); //$NON-NLS-1$
     private int maxSoftReferences;
     private int nominalProcessingMemoryMax = maxProcessingBytes;
 
@@ -401,8 +412,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     private AtomicLong readAttempts = new AtomicLong();
     //TODO: consider the size estimate in the weighting function
-    LrfuEvictionQueue<CacheEntry> evictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
-    LrfuEvictionQueue<CacheEntry> initialEvictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
+    LrfuEvictionQueue<CacheEntry> evictionQueue = LrfuEvictionQueue.create(readAttempts, false);
+    LrfuEvictionQueue<CacheEntry> initialEvictionQueue = LrfuEvictionQueue.create(readAttempts, false);
     ConcurrentHashMap<Long, CacheEntry> memoryEntries = new ConcurrentHashMap<Long, CacheEntry>(16, .75f, CONCURRENCY_LEVEL);
     
     //limited size reference caches based upon the memory settings
@@ -495,6 +506,10 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		this.targetBytesPerRow = targetBytesPerRow;
 	}
 
+    public void setAdaptiveBatchSizing(boolean adaptiveBatchSizing) {
+		this.adaptiveBatchSizing = adaptiveBatchSizing;
+	}
+    
     public void setProcessorBatchSize(int processorBatchSize) {
         this.processorBatchSize = processorBatchSize;
     } 
@@ -513,6 +528,14 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			batchManager.setLobManager(lobManager);
 		}
     	TupleBuffer tupleBuffer = new TupleBuffer(batchManager, String.valueOf(newID), elements, lobManager, getProcessorBatchSize(elements));
+    	if (adaptiveBatchSizing) {
+    		//allow the same range as the static estimate, but based upon the measured row size
+    		tupleBuffer.setTargetBatchBytes((long)processorBatchSize * targetBytesPerRow, processorBatchSize >> 3, processorBatchSize << 3);
+    	}
+    	if (options != null && options.isUseColumnarBatches() && ColumnarBatch.isColumnar(types)) {
+    		tupleBuffer.setColumnarTypes(types);
+    		batchManager.setColumnarTypes(types);
+    	}
         if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
         	LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Creating TupleBuffer:", newID, elements, Arrays.toString(types), "batch size", tupleBuffer.getBatchSize(), "of type", tupleSourceType); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
@@ -1196,9 +1219,11 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		out.writeLong(buffer.getRowCount());
 		out.writeInt(buffer.getBatchSize());
 		out.writeObject(buffer.getTypes());
-		for (int row = 1; row <= buffer.getRowCount(); row+=buffer.getBatchSize()) {
+		//batches may vary in size, so write each one by its end row
+		for (long row = 1; row <= buffer.getRowCount();) {
 			TupleBatch b = buffer.getBatch(row);
-			BatchSerializer.writeBatch(out, buffer.getTypes(), b.getTuples());
+			BatchSerializer.writeBatch(out, buffer.getTypes(), b.getReadOnlyTuples());
+			row = b.getEndRow() + 1;
 		}
 	}
 
@@ -1238,8 +1263,11 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		buffer.setBatchSize(batchSize);
 		buffer.setId(state_id);
 		
-		for (int row = 1; row <= rowCount; row+=batchSize) {
+		while (buffer.getRowCount() < rowCount) {
 			List<List<Object>> batch = BatchSerializer.readBatch(in, types);
+			if (batch.isEmpty()) {
+				break;
+			}
 			for (int i = 0; i < batch.size(); i++) {
 				buffer.addTuple(batch.get(i));
 			}
@@ -1263,6 +1291,14 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	public void setInlineLobs(boolean inlineLobs) {
 		this.inlineLobs = inlineLobs;
 	}
+	
+	/**
+	 * Use {@link StripedLrfuEvictionQueue}s.  Should be set prior to use.
+	 */
+	public void setStripedEvictionQueue(boolean striped) {
+		this.evictionQueue = LrfuEvictionQueue.create(readAttempts, striped);
+		this.initialEvictionQueue = LrfuEvictionQueue.create(readAttempts, striped);
+	}
 
 	public int getMaxReserveKB() {
 		return (int)(maxReserveBytes>>10);
@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link FileStorageManager} that uses {@link FileChannel} positional reads and writes
+ * rather than a seek followed by a read or write.  This halves the number of system calls
+ * per access.  Direct buffers, such as the memory blocks of the {@link BufferFrontedFileStoreCache}, 
+ * are transferred without an intermediate copy.
+ * <br>
+ * The file limits, space accounting, and splitting by the {@link SplittableStorageManager}
+ * are the same as for the {@link FileStorageManager}.
+ */
+public class FileChannelStorageManager extends FileStorageManager {
+
+	@Override
+	protected int read(RandomAccessFile fileAccess, long fileOffset, ByteBuffer buffer) throws IOException {
+		return fileAccess.getChannel().read(buffer, fileOffset);
+	}
+
+	@Override
+	protected void write(RandomAccessFile fileAccess, long fileOffset, ByteBuffer buffer) throws IOException {
+		FileChannel channel = fileAccess.getChannel();
+		while (buffer.hasRemaining()) {
+			fileOffset += channel.write(buffer, fileOffset);
+		}
+	}
+
+}
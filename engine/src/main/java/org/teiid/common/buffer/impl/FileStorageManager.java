@@ -23,9 +23,9 @@
 package org.teiid.common.buffer.impl;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -66,10 +66,11 @@ public class FileStorageManager implements StorageManager {
             this.file = file;
         }
 
-        public RandomAccessFile open() throws FileNotFoundException {
+        public RandomAccessFile open() throws IOException {
         	if(this.fileData == null) {
         		this.fileData = fileCache.remove(this.file);
-        		if (this.fileData == null) {
+        		if (this.fileData == null || !this.fileData.getFD().valid()) {
+        			//the file may have been closed by an interrupt during channel access
         			this.fileData = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
         		}
             }
@@ -102,6 +103,7 @@ public class FileStorageManager implements StorageManager {
 	public class DiskStore extends FileStore {
 	    private String name;
 		private FileInfo fileInfo; 
+		private long length;
 	    
 	    public DiskStore(String name) {
 			this.name = name;
@@ -109,23 +111,24 @@ public class FileStorageManager implements StorageManager {
 	    
 	    @Override
 	    public synchronized long getLength() {
-	    	if (fileInfo == null) {
-	    		return 0;
-	    	}
-	    	return fileInfo.file.length();
+	    	return length;
 	    }
 	    
 	    @Override
-	    protected synchronized int readWrite(long fileOffset, byte[] b, int offSet,
+	    protected int readWrite(long fileOffset, byte[] b, int offSet,
 	    		int length, boolean write) throws IOException {
+	    	return readWrite(fileOffset, ByteBuffer.wrap(b, offSet, length), write);
+	    }
+	    
+	    @Override
+	    protected synchronized int readWrite(long fileOffset, ByteBuffer buffer,
+	    		boolean write) throws IOException {
 	    	if (!write) {
 	    		if (fileInfo == null) {
 	    			return -1;
 	    		}
 				try {
-					RandomAccessFile fileAccess = fileInfo.open();
-			        fileAccess.seek(fileOffset);
-			        return fileAccess.read(b, offSet, length);
+			        return FileStorageManager.this.read(fileInfo.open(), fileOffset, buffer);
 				} finally {
 					fileInfo.close();
 				}
@@ -133,12 +136,12 @@ public class FileStorageManager implements StorageManager {
 			if (fileInfo == null) {
 				fileInfo = new FileInfo(createFile(name));
 	        }
+			int length = buffer.remaining();
 	        try {
 	        	RandomAccessFile fileAccess = fileInfo.open();
 	            long newLength = fileOffset + length;
 	            setLength(fileAccess, newLength, false);
-	            fileAccess.seek(fileOffset);
-	            fileAccess.write(b, offSet, length);
+	            FileStorageManager.this.write(fileAccess, fileOffset, buffer);
 	        } finally {
 	        	fileInfo.close();
 	        }	    		
@@ -147,7 +150,7 @@ public class FileStorageManager implements StorageManager {
 
 		private void setLength(RandomAccessFile fileAccess, long newLength, boolean truncate)
 				throws IOException {
-			long currentLength = fileAccess.length();
+			long currentLength = this.length;
 			long bytesUsed = newLength - currentLength;
 			if (bytesUsed == 0) {
 				return;
@@ -169,6 +172,7 @@ public class FileStorageManager implements StorageManager {
 				}
 			}
 			fileAccess.setLength(newLength);
+			this.length = newLength;
 			long used = usedBufferSpace.addAndGet(bytesUsed);
 			if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL) && (sample.getAndIncrement() % 100) == 0) {
 				LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "sampling bytes used:", used); //$NON-NLS-1$
@@ -179,6 +183,7 @@ public class FileStorageManager implements StorageManager {
 				used = usedBufferSpace.get();
 				if (used > maxBufferSpace) {
 					fileAccess.setLength(currentLength);
+					this.length = currentLength;
 					usedBufferSpace.addAndGet(-bytesUsed);
 					throw new OutOfDiskException(QueryPlugin.Util.getString("FileStoreageManager.space_exhausted", bytesUsed, used, maxBufferSpace)); //$NON-NLS-1$
 				}
@@ -199,7 +204,8 @@ public class FileStorageManager implements StorageManager {
 		
 	    @Override
 		public synchronized void removeDirect() {
-			usedBufferSpace.addAndGet(-getLength());
+			usedBufferSpace.addAndGet(-length);
+			length = 0;
 			if (fileInfo != null){
 				fileInfo.delete();
 			}
@@ -265,6 +271,44 @@ public class FileStorageManager implements StorageManager {
 		this.directory = directory;
 	}
     
+    /**
+     * Read from the file at the given position into the remaining bytes of the buffer, 
+     * advancing its position
+     * @return the number of bytes read or -1 if at the end of the file
+     */
+    protected int read(RandomAccessFile fileAccess, long fileOffset, ByteBuffer buffer) throws IOException {
+    	fileAccess.seek(fileOffset);
+    	int count = 0;
+    	if (buffer.hasArray()) {
+    		count = fileAccess.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    		if (count > 0) {
+    			buffer.position(buffer.position() + count);
+    		}
+    	} else {
+    		byte[] b = new byte[buffer.remaining()];
+    		count = fileAccess.read(b);
+    		if (count > 0) {
+    			buffer.put(b, 0, count);
+    		}
+    	}
+    	return count;
+    }
+    
+    /**
+     * Write all of the remaining bytes of the buffer to the file at the given position
+     */
+    protected void write(RandomAccessFile fileAccess, long fileOffset, ByteBuffer buffer) throws IOException {
+    	fileAccess.seek(fileOffset);
+    	if (buffer.hasArray()) {
+    		fileAccess.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    		buffer.position(buffer.limit());
+    	} else {
+	    	byte[] b = new byte[buffer.remaining()];
+	    	buffer.get(b);
+	    	fileAccess.write(b);
+    	}
+    }
+    
     File createFile(String name) throws IOException {
     	//spray the files into separate different directories in a round robin fashion.
     	File storageFile = File.createTempFile(FILE_PREFIX + name + "_", null, this.subDirectories[fileCounter.getAndIncrement()&(this.subDirectories.length-1)]); //$NON-NLS-1$
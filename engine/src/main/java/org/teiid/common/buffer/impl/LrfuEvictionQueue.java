@@ -40,7 +40,7 @@ import org.teiid.common.buffer.CacheKey;
 public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	
 	private static final long DEFAULT_HALF_LIFE = 1<<16;
-	private static final long MIN_INTERVAL = 1<<9;
+	static final long MIN_INTERVAL = 1<<9;
 	//TODO: until Java 7 ConcurrentSkipListMap has a scaling bug in that
 	//the level function limits the effective map size to ~ 2^16
 	//above which it performs comparably under multi-threaded load to a synchronized LinkedHashMap
@@ -51,6 +51,17 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	protected long halfLife;
 	private AtomicInteger size = new AtomicInteger();
 	
+	/**
+	 * Create the eviction queue implementation
+	 * @param striped true if touches should be buffered in a {@link StripedLrfuEvictionQueue}
+	 */
+	public static <V extends BaseCacheEntry> LrfuEvictionQueue<V> create(AtomicLong clock, boolean striped) {
+		if (striped) {
+			return new StripedLrfuEvictionQueue<V>(clock);
+		}
+		return new LrfuEvictionQueue<V>(clock);
+	}
+	
 	public LrfuEvictionQueue(AtomicLong clock) {
 		this.clock = clock;
 		setHalfLife(DEFAULT_HALF_LIFE);
@@ -103,7 +114,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	}
 	
 	/**
-     * Callers should be synchronized on value
+     * Callers should be synchronized on value or otherwise have exclusive use of its key
      */
 	void recordAccess(V value) {
 		CacheKey key = value.getKey();
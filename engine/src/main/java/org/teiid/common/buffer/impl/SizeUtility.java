@@ -38,6 +38,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.BaseLob;
 import org.teiid.core.types.BinaryType;
@@ -122,6 +123,12 @@ public final class SizeUtility {
 	}
 	
     public long getBatchSize(boolean accountForValueCache, List<? extends List<?>> data) {
+    	if (data instanceof ColumnarBatch) {
+    		long size = ((ColumnarBatch)data).getSizeEstimate();
+    		if (size >= 0) {
+    			return size;
+    		}
+    	}
         int colLength = types.length;
         int rowLength = data.size();
     
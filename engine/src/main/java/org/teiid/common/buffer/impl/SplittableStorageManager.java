@@ -23,6 +23,7 @@
 package org.teiid.common.buffer.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -75,7 +76,14 @@ public class SplittableStorageManager implements StorageManager {
 	    @Override
 	    protected int readWrite(long fileOffset, byte[] b, int offSet,
 	    		int length, boolean write) throws IOException {
+	    	return readWrite(fileOffset, ByteBuffer.wrap(b, offSet, length), write);
+	    }
+	    
+	    @Override
+	    protected int readWrite(long fileOffset, ByteBuffer buffer, boolean write)
+	    		throws IOException {
 	    	FileStore store = null;
+	    	int length = buffer.remaining();
 	    	if (!write) {
 	    		synchronized (this) {
 		    		if (fileOffset > len) {
@@ -83,7 +91,7 @@ public class SplittableStorageManager implements StorageManager {
 		    		}
 		    		store = storageFiles.get((int)(fileOffset/maxFileSize));
 	    		}
-		    	return store.read(fileOffset%maxFileSize, b, offSet, length);
+		    	return store.read(fileOffset%maxFileSize, buffer);
 			}
 	    	synchronized (this) {
 		    	ensureLength(fileOffset + length);
@@ -91,7 +99,14 @@ public class SplittableStorageManager implements StorageManager {
 			}
 	    	long fileBegin = fileOffset%maxFileSize;
 	    	length = Math.min(length, (int)Math.min(Integer.MAX_VALUE, maxFileSize - fileBegin));
-			store.write(fileBegin, b, offSet, length);
+	    	//only write the portion that fits in this file
+	    	int limit = buffer.limit();
+	    	buffer.limit(buffer.position() + length);
+	    	try {
+	    		store.write(fileBegin, buffer);
+	    	} finally {
+	    		buffer.limit(limit);
+	    	}
 			return length;
 	    }
 
@@ -0,0 +1,218 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.teiid.common.buffer.BaseCacheEntry;
+
+/**
+ * A {@link LrfuEvictionQueue} that defers the reordering of touched entries.
+ * <br>
+ * Touches of entries already in the queue are recorded in per thread striped lock free buffers
+ * and applied in batches by whichever thread wins the drain flag,
+ * rather than performing a remove and reinsert against the shared map on every access.
+ * The buffers are also drained prior to inspecting the head of the queue so that
+ * eviction decisions see the recent accesses.
+ * <br>
+ * Touches of entries that are not in the queue are performed immediately as they are adds.
+ * <br>
+ * Callers may hold the lock of another entry, so the drain does not synchronize on the entries.
+ * Instead each entry carries queue state flags.  An entry is buffered at most once, 
+ * the drain skips entries that are in use by an add, remove, or touch, and those operations 
+ * wait only for the drain of that same entry to finish.
+ * @param <V>
+ */
+public class StripedLrfuEvictionQueue<V extends BaseCacheEntry> extends LrfuEvictionQueue<V> {
+
+	private static final int DRAIN_THRESHOLD = 64;
+	
+	static final int BUFFERED = 1;
+	static final int BUSY = 2;
+	static final int DRAINING = 4;
+
+	private List<ConcurrentLinkedQueue<V>> buffers;
+	private int mask;
+	private AtomicInteger pending = new AtomicInteger();
+	private AtomicBoolean draining = new AtomicBoolean();
+
+	public StripedLrfuEvictionQueue(AtomicLong clock) {
+		super(clock);
+		int stripes = Math.max(1, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) - 1) << 1);
+		this.buffers = new ArrayList<ConcurrentLinkedQueue<V>>(stripes);
+		for (int i = 0; i < stripes; i++) {
+			buffers.add(new ConcurrentLinkedQueue<V>());
+		}
+		this.mask = stripes - 1;
+	}
+	
+	/**
+	 * Mark the value as in use.  Callers are expected to hold the value lock, so 
+	 * the only contention is with a drain of this value, which does not block.
+	 */
+	private void acquire(V value) {
+		while (true) {
+			int state = value.getQueueState();
+			if ((state & DRAINING) == 0 && value.compareAndSetQueueState(state, state | BUSY)) {
+				return;
+			}
+			Thread.yield();
+		}
+	}
+	
+	private void release(V value) {
+		while (true) {
+			int state = value.getQueueState();
+			if (value.compareAndSetQueueState(state, state & ~BUSY)) {
+				return;
+			}
+		}
+	}
+	
+	@Override
+	public boolean add(V value) {
+		acquire(value);
+		try {
+			return super.add(value);
+		} finally {
+			release(value);
+		}
+	}
+	
+	@Override
+	public boolean remove(V value) {
+		acquire(value);
+		try {
+			return super.remove(value);
+		} finally {
+			release(value);
+		}
+	}
+
+	@Override
+	public void touch(V value) {
+		long tick = clock.get();
+		if (tick - MIN_INTERVAL < value.getKey().getLastAccess()) {
+			return;
+		}
+		acquire(value);
+		try {
+			if (!evictionQueue.containsKey(value.getKey())) {
+				super.touch(value);
+				return;
+			}
+			int state = value.getQueueState();
+			if ((state & BUFFERED) != 0 || !value.compareAndSetQueueState(state, state | BUFFERED)) {
+				//already pending
+				return;
+			}
+			buffers.get((int)Thread.currentThread().getId() & mask).offer(value);
+		} finally {
+			release(value);
+		}
+		if (pending.incrementAndGet() >= DRAIN_THRESHOLD) {
+			drain();
+		}
+	}
+
+	/**
+	 * Apply the buffered touches if no other thread is doing so.
+	 * Does not wait on any lock, so it is safe to call while holding an entry lock.
+	 */
+	void drain() {
+		while (draining.compareAndSet(false, true)) {
+			try {
+				for (ConcurrentLinkedQueue<V> buffer : buffers) {
+					V value = null;
+					while ((value = buffer.poll()) != null) {
+						pending.decrementAndGet();
+						if (!startDrain(value)) {
+							continue;
+						}
+						try {
+							if (clock.get() - MIN_INTERVAL < value.getKey().getLastAccess()) {
+								continue;
+							}
+							//if removed in the meantime, the touch is stale
+							if (evictionQueue.remove(value.getKey()) != null) {
+								recordAccess(value);
+								evictionQueue.put(value.getKey(), value);
+							}
+						} finally {
+							value.compareAndSetQueueState(DRAINING, 0);
+						}
+					}
+				}
+			} finally {
+				draining.set(false);
+			}
+			if (pending.get() < DRAIN_THRESHOLD) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Clear the buffered flag and mark the value as draining.  
+	 * Returns false if the value is in use, in which case the touch is dropped.
+	 */
+	private boolean startDrain(V value) {
+		while (true) {
+			int state = value.getQueueState();
+			if ((state & BUSY) == 0) {
+				if (value.compareAndSetQueueState(state, DRAINING)) {
+					return true;
+				}
+			} else if (value.compareAndSetQueueState(state, state & ~BUFFERED)) {
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public V firstEntry(boolean poll) {
+		if (pending.get() > 0) {
+			drain();
+		}
+		return super.firstEntry(poll);
+	}
+
+	@Override
+	public Collection<V> getEvictionQueue() {
+		if (pending.get() > 0) {
+			drain();
+		}
+		return super.getEvictionQueue();
+	}
+
+	int getPending() {
+		return pending.get();
+	}
+
+}
@@ -1283,11 +1283,15 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 				Number nullVals = (Number)((Constant)proc.getParameter(4).getExpression()).getValue();
 				String max = (String) ((Constant)proc.getParameter(5).getExpression()).getValue();
 				String min = (String) ((Constant)proc.getParameter(6).getExpression()).getValue();
+				String histogram = (String) ((Constant)proc.getParameter(7).getExpression()).getValue();
+				String mostCommonValues = (String) ((Constant)proc.getParameter(8).getExpression()).getValue();
 				ColumnStats columnStats = new ColumnStats();
 				columnStats.setDistinctValues(distinctVals);
 				columnStats.setNullValues(nullVals);
 				columnStats.setMaximumValue(max);
 				columnStats.setMinimumValue(min);
+				columnStats.setHistogram(histogram);
+				columnStats.setMostCommonValues(mostCommonValues);
 				if (getMetadataRepository(table, vdb) != null) {
 					getMetadataRepository(table, vdb).setColumnStats(vdbName, vdbVersion, c, columnStats);
 				}
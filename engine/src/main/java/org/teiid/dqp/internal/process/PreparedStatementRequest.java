@@ -29,6 +29,7 @@ import java.util.List;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.api.exception.query.QueryMetadataException;
+import org.teiid.api.exception.query.QueryParserException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.api.exception.query.QueryValidatorException;
@@ -45,18 +46,22 @@ import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.BatchedUpdatePlanner;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities;
+import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.relational.AccessNode;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.lang.BatchedUpdateCommand;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.QueryCommand;
 import org.teiid.query.sql.lang.SPParameter;
 import org.teiid.query.sql.lang.StoredProcedure;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.sql.util.VariableContext;
+import org.teiid.query.sql.visitor.LiteralParameterizerVisitor;
+import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
 import org.teiid.query.util.CommandContext;
 
 
@@ -66,14 +71,28 @@ import org.teiid.query.util.CommandContext;
 public class PreparedStatementRequest extends Request {
     private SessionAwareCache<PreparedPlan> prepPlanCache;
     private PreparedPlan prepPlan;
+    private boolean autoParameterize;
+    private Command parameterizedCommand;
     
     public PreparedStatementRequest(SessionAwareCache<PreparedPlan> prepPlanCache) {
     	this.prepPlanCache = prepPlanCache;
     }
     
+    /**
+     * Treat a plain statement as prepared by replacing its comparison literals with references
+     */
+    public void setAutoParameterize(boolean autoParameterize) {
+		this.autoParameterize = autoParameterize;
+	}
+    
     @Override
     protected void checkReferences(List<Reference> references)
     		throws QueryValidatorException {
+    	if (prepPlan == null) {
+    		//planning a plain statement
+    		super.checkReferences(references);
+    		return;
+    	}
     	for (Iterator<Reference> i = references.iterator(); i.hasNext();) {
     		if (i.next().isOptional()) {
     			i.remove(); //remove any optional parameter, which accounts for out params - the client does not send any bindings
@@ -94,6 +113,64 @@ public class PreparedStatementRequest extends Request {
     	if (this.preParser != null) {
     		sqlQuery = this.preParser.preParse(sqlQuery, this.context);
     	}
+    	if (!this.autoParameterize) {
+    		generatePreparedPlan(sqlQuery, requestMsg.getParameterValues());
+    		return;
+    	}
+    	List<Object> literals = parameterize(sqlQuery);
+    	if (literals == null) {
+    		this.autoParameterize = false;
+    		super.generatePlan(addLimit);
+    		return;
+    	}
+    	try {
+    		generatePreparedPlan(this.parameterizedCommand.toString(), literals);
+    	} catch (QueryResolverException e) {
+    		//the literals may not be convertible to the types of the references
+    		LogManager.logDetail(LogConstants.CTX_DQP, e, requestId, "Could not use an auto parameterized plan, planning the statement normally"); //$NON-NLS-1$
+    		this.autoParameterize = false;
+    		this.parameterizedCommand = null;
+    		this.prepPlan = null;
+    		this.processPlan = null;
+    		this.analysisRecord = null;
+    		super.generatePlan(addLimit);
+    	}
+    }
+	
+	/**
+	 * Replace the comparison literals in a plain query with references.
+	 * @return the literal values by reference index or null if the statement should not be parameterized 
+	 */
+	private List<Object> parameterize(String sqlQuery) throws QueryParserException, TeiidComponentException {
+		//a row limit may be pushed as a literal
+		if (requestMsg.getCommand() != null || requestMsg.getRowLimit() > 0) {
+			return null;
+		}
+		Command command = QueryParser.getQueryParser().parseCommand(sqlQuery, createParseInfo(this.requestMsg, this.workContext.getSession()));
+		if (!(command instanceof QueryCommand) || !ReferenceCollectorVisitor.getReferences(command).isEmpty()) {
+			return null;
+		}
+		List<Object> literals = null;
+		try {
+			//literals against partitioning or constant view columns are kept so that the plan may still use them
+			literals = LiteralParameterizerVisitor.parameterize(command, this.metadata);
+		} catch (QueryResolverException e) {
+			//let normal planning report the error
+			return null;
+		}
+		this.parameterizedCommand = command;
+		return literals;
+	}
+	
+	@Override
+	protected Command parseCommand() throws QueryParserException {
+		if (this.parameterizedCommand != null) {
+			return this.parameterizedCommand;
+		}
+		return super.parseCommand();
+	}
+	
+	private void generatePreparedPlan(String sqlQuery, List<?> values) throws TeiidComponentException, TeiidProcessingException {
     	CacheID id = new CacheID(this.workContext, Request.createParseInfo(this.requestMsg, this.workContext.getSession()), sqlQuery);
         prepPlan = prepPlanCache.get(id);
         
@@ -141,7 +218,14 @@ public class PreparedStatementRequest extends Request {
 	        handlePreparedBatchUpdate();
         } else {
 	        List<Reference> params = prepPlan.getReferences();
-	        List<?> values = requestMsg.getParameterValues();
+	        if (this.autoParameterize) {
+	        	//order the literals by the references of the cached plan
+	        	List<Object> bound = new ArrayList<Object>(params.size());
+	        	for (Reference ref : params) {
+	        		bound.add(values.get(ref.getIndex()));
+	        	}
+	        	values = bound;
+	        }
 	
 	    	PreparedStatementRequest.resolveParameterValues(params, values, this.context, this.metadata);
         }
@@ -28,11 +28,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -659,7 +659,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         if (cachable && (requestMsg.useResultSetCache() || originalCommand.getCacheHint() != null) && rsCache != null && originalCommand.areResultsCachable()) {
         	this.cid = cacheId;
         	//turn on the collection of data objects used
-        	request.processor.getContext().setDataObjects(new HashSet<Object>(4));
+        	//may be updated by parallel plan branches
+        	request.processor.getContext().setDataObjects(Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>(4)));
         }
         request.processor.getContext().setWorkItem(this);
 		processor = request.processor;
@@ -1060,6 +1061,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         
 		result.setClientSerializationVersion(clientSerializationVersion);
         result.setDelayDeserialization(this.requestMsg.isDelaySerialization() && this.originalCommand.returnsResultSet());
+        result.setCompressResults(this.requestMsg.isCompressResults());
         return result;
     }
     
@@ -1331,7 +1333,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		return work;
 	}
 	
-    <T> FutureWork<T> addWork(Callable<T> callable, CompletionListener<T> listener, int priority) {
+    /**
+     * Add work for this request that is subject to the user request source concurrency.
+     * If the limit has been reached the work will be queued until a running work item completes.
+     */
+    public <T> FutureWork<T> addWork(Callable<T> callable, CompletionListener<T> listener, int priority) {
     	FutureWork<T> work = new FutureWork<T>(callable, priority);
     	work.setRequestId(this.requestID.toString());
     	WorkWrapper<T> wl = new WorkWrapper<T>(work);
@@ -0,0 +1,441 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * A criteria compiled to filter a whole batch at a time rather than
+ * walking the criteria with the {@link Evaluator} for each tuple.
+ * <br>
+ * Only comparisons, in lists, between, and is null predicates over column references
+ * and constants combined with and/or are supported.  Since there are no negations
+ * an unknown result can be treated as false.
+ * <br>
+ * Column values are compared using the same semantics as the {@link Evaluator}.
+ * Int, long and double columns of a {@link ColumnarBatch} are compared without boxing.
+ * <br>
+ * The filter is immutable and may be shared by multiple plan instances.
+ */
+public abstract class BatchFilter {
+
+	/**
+	 * Compile the criteria
+	 * @param criteria
+	 * @param elementMap the map of expressions to tuple indexes
+	 * @return the filter or null if the criteria cannot be compiled
+	 */
+	public static BatchFilter compile(Criteria criteria, Map<? extends Expression, Integer> elementMap) {
+		if (criteria instanceof CompoundCriteria) {
+			CompoundCriteria compound = (CompoundCriteria)criteria;
+			List<BatchFilter> filters = new ArrayList<BatchFilter>(compound.getCriteria().size());
+			for (Criteria crit : compound.getCriteria()) {
+				BatchFilter filter = compile(crit, elementMap);
+				if (filter == null) {
+					return null;
+				}
+				filters.add(filter);
+			}
+			if (compound.getOperator() == CompoundCriteria.AND) {
+				return new AndFilter(filters);
+			}
+			return new OrFilter(filters);
+		}
+		if (criteria instanceof CompareCriteria) {
+			CompareCriteria compare = (CompareCriteria)criteria;
+			return compileCompare(compare.getLeftExpression(), compare.getOperator(), compare.getRightExpression(), elementMap);
+		}
+		if (criteria instanceof BetweenCriteria) {
+			BetweenCriteria between = (BetweenCriteria)criteria;
+			BatchFilter lower = compileCompare(between.getExpression(), between.isNegated()?CompareCriteria.LT:CompareCriteria.GE, between.getLowerExpression(), elementMap);
+			BatchFilter upper = compileCompare(between.getExpression(), between.isNegated()?CompareCriteria.GT:CompareCriteria.LE, between.getUpperExpression(), elementMap);
+			if (lower == null || upper == null) {
+				return null;
+			}
+			if (between.isNegated()) {
+				return new OrFilter(Arrays.asList(lower, upper));
+			}
+			return new AndFilter(Arrays.asList(lower, upper));
+		}
+		if (criteria instanceof IsNullCriteria) {
+			IsNullCriteria isNull = (IsNullCriteria)criteria;
+			int col = getColumn(isNull.getExpression(), elementMap);
+			if (col < 0) {
+				return null;
+			}
+			return new IsNullFilter(col, isNull.isNegated());
+		}
+		if (criteria instanceof SetCriteria) {
+			SetCriteria set = (SetCriteria)criteria;
+			int col = getColumn(set.getExpression(), elementMap);
+			if (col < 0 || set.getValues().isEmpty()) {
+				return null;
+			}
+			for (Object value : set.getValues()) {
+				if (!isConstant(value)) {
+					return null;
+				}
+			}
+			return new SetFilter(col, set);
+		}
+		return null;
+	}
+
+	private static BatchFilter compileCompare(Expression left, int operator, Expression right, Map<? extends Expression, Integer> elementMap) {
+		int leftCol = getColumn(left, elementMap);
+		int rightCol = getColumn(right, elementMap);
+		if (leftCol < 0 && rightCol >= 0 && isConstant(left)) {
+			//put the column on the left
+			Expression temp = left;
+			left = right;
+			right = temp;
+			leftCol = rightCol;
+			rightCol = -1;
+			operator = getReverseOperator(operator);
+		}
+		if (leftCol < 0) {
+			return null;
+		}
+		if (rightCol >= 0) {
+			return new CompareFilter(leftCol, operator, rightCol, null);
+		}
+		if (!isConstant(right)) {
+			return null;
+		}
+		return new CompareFilter(leftCol, operator, -1, ((Constant)right).getValue());
+	}
+
+	private static int getReverseOperator(int operator) {
+		switch (operator) {
+		case CompareCriteria.LT:
+			return CompareCriteria.GT;
+		case CompareCriteria.LE:
+			return CompareCriteria.GE;
+		case CompareCriteria.GT:
+			return CompareCriteria.LT;
+		case CompareCriteria.GE:
+			return CompareCriteria.LE;
+		default:
+			return operator;
+		}
+	}
+
+	private static boolean isConstant(Object expr) {
+		return expr instanceof Constant && !((Constant)expr).isMultiValued() && !((Constant)expr).getType().isArray();
+	}
+
+	private static int getColumn(Expression expr, Map<? extends Expression, Integer> elementMap) {
+		if (!(expr instanceof DerivedExpression) || expr.getType().isArray()) {
+			return -1;
+		}
+		Integer index = elementMap.get(expr);
+		if (index == null) {
+			return -1;
+		}
+		return index;
+	}
+
+	/**
+	 * Filter the rows in place
+	 * @param tuples
+	 * @param rows the indexes of the rows to filter in ascending order.  The matching rows
+	 * are moved to the front.
+	 * @param count the number of rows
+	 * @return the number of matching rows
+	 */
+	public abstract int filter(List<? extends List<?>> tuples, int[] rows, int count);
+
+	static Object getValue(List<? extends List<?>> tuples, ColumnarBatch columnar, int row, int col) {
+		if (columnar != null) {
+			return columnar.getValue(row, col);
+		}
+		return tuples.get(row).get(col);
+	}
+
+	static boolean matches(int operator, int compare) {
+		switch (operator) {
+		case CompareCriteria.EQ:
+			return compare == 0;
+		case CompareCriteria.NE:
+			return compare != 0;
+		case CompareCriteria.LT:
+			return compare < 0;
+		case CompareCriteria.LE:
+			return compare <= 0;
+		case CompareCriteria.GT:
+			return compare > 0;
+		case CompareCriteria.GE:
+			return compare >= 0;
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	private static ColumnarBatch getColumnar(List<? extends List<?>> tuples) {
+		if (tuples instanceof ColumnarBatch) {
+			return (ColumnarBatch)tuples;
+		}
+		return null;
+	}
+
+	static class AndFilter extends BatchFilter {
+		private BatchFilter[] filters;
+
+		AndFilter(List<BatchFilter> filters) {
+			this.filters = filters.toArray(new BatchFilter[filters.size()]);
+		}
+
+		@Override
+		public int filter(List<? extends List<?>> tuples, int[] rows, int count) {
+			for (int i = 0; i < filters.length && count > 0; i++) {
+				count = filters[i].filter(tuples, rows, count);
+			}
+			return count;
+		}
+	}
+
+	static class OrFilter extends BatchFilter {
+		private BatchFilter[] filters;
+
+		OrFilter(List<BatchFilter> filters) {
+			this.filters = filters.toArray(new BatchFilter[filters.size()]);
+		}
+
+		@Override
+		public int filter(List<? extends List<?>> tuples, int[] rows, int count) {
+			boolean[] matched = new boolean[tuples.size()];
+			int[] pending = Arrays.copyOf(rows, count);
+			int pendingCount = count;
+			int[] candidates = new int[count];
+			//each filter only needs to consider the rows not yet matched
+			for (int i = 0; i < filters.length && pendingCount > 0; i++) {
+				System.arraycopy(pending, 0, candidates, 0, pendingCount);
+				int passed = filters[i].filter(tuples, candidates, pendingCount);
+				for (int j = 0; j < passed; j++) {
+					matched[candidates[j]] = true;
+				}
+				int remaining = 0;
+				for (int j = 0; j < pendingCount; j++) {
+					if (!matched[pending[j]]) {
+						pending[remaining++] = pending[j];
+					}
+				}
+				pendingCount = remaining;
+			}
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				if (matched[rows[i]]) {
+					rows[result++] = rows[i];
+				}
+			}
+			return result;
+		}
+	}
+
+	static class IsNullFilter extends BatchFilter {
+		private int col;
+		private boolean negated;
+
+		IsNullFilter(int col, boolean negated) {
+			this.col = col;
+			this.negated = negated;
+		}
+
+		@Override
+		public int filter(List<? extends List<?>> tuples, int[] rows, int count) {
+			ColumnarBatch columnar = getColumnar(tuples);
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				boolean isNull = columnar != null ? columnar.isNull(row, col) : tuples.get(row).get(col) == null;
+				if (isNull ^ negated) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+	}
+
+	static class CompareFilter extends BatchFilter {
+		private int col;
+		private int operator;
+		private int rightCol;
+		private Object value;
+
+		CompareFilter(int col, int operator, int rightCol, Object value) {
+			this.col = col;
+			this.operator = operator;
+			this.rightCol = rightCol;
+			this.value = value;
+		}
+
+		@Override
+		public int filter(List<? extends List<?>> tuples, int[] rows, int count) {
+			if (rightCol < 0 && value == null) {
+				//comparison with null is unknown
+				return 0;
+			}
+			ColumnarBatch columnar = getColumnar(tuples);
+			if (columnar != null && rightCol < 0) {
+				if (value instanceof Integer && columnar.isIntColumn(col)) {
+					return filterInt(columnar, rows, count, (Integer)value);
+				}
+				if (value instanceof Long && columnar.isLongColumn(col)) {
+					return filterLong(columnar, rows, count, (Long)value);
+				}
+				if (value instanceof Double && columnar.isDoubleColumn(col)) {
+					return filterDouble(columnar, rows, count, (Double)value);
+				}
+			}
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				Object leftValue = getValue(tuples, columnar, row, col);
+				if (leftValue == null) {
+					continue;
+				}
+				Object rightValue = value;
+				if (rightCol >= 0) {
+					rightValue = getValue(tuples, columnar, row, rightCol);
+					if (rightValue == null) {
+						continue;
+					}
+				}
+				if (matches(operator, Constant.COMPARATOR.compare(leftValue, rightValue))) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		private int filterInt(ColumnarBatch columnar, int[] rows, int count, int v) {
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				if (!columnar.isNull(row, col) && matches(operator, Integer.compare(columnar.getInt(row, col), v))) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		private int filterLong(ColumnarBatch columnar, int[] rows, int count, long v) {
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				if (!columnar.isNull(row, col) && matches(operator, Long.compare(columnar.getLong(row, col), v))) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		private int filterDouble(ColumnarBatch columnar, int[] rows, int count, double v) {
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				if (!columnar.isNull(row, col) && matches(operator, Double.compare(columnar.getDouble(row, col), v))) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+	}
+
+	static class SetFilter extends BatchFilter {
+		private int col;
+		private boolean negated;
+		private boolean allConstants;
+		private Class<?> type;
+		private Collection<?> values;
+		private Object[] valueArray;
+		private boolean hasNull;
+
+		SetFilter(int col, SetCriteria criteria) {
+			this.col = col;
+			this.negated = criteria.isNegated();
+			this.allConstants = criteria.isAllConstants();
+			this.type = criteria.getExpression().getType();
+			this.values = criteria.getValues();
+			List<Object> nonNull = new ArrayList<Object>(values.size());
+			for (Object constant : values) {
+				Object value = ((Constant)constant).getValue();
+				if (value == null) {
+					hasNull = true;
+				} else {
+					nonNull.add(value);
+				}
+			}
+			this.valueArray = nonNull.toArray();
+		}
+
+		@Override
+		public int filter(List<? extends List<?>> tuples, int[] rows, int count) {
+			if (negated && hasNull) {
+				//not in with a null value is never true
+				return 0;
+			}
+			ColumnarBatch columnar = getColumnar(tuples);
+			int result = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				Object value = getValue(tuples, columnar, row, col);
+				if (value == null) {
+					continue;
+				}
+				if (contains(value) ^ negated) {
+					rows[result++] = row;
+				}
+			}
+			return result;
+		}
+
+		private boolean contains(Object value) {
+			if (allConstants) {
+				return values.contains(new Constant(value, type));
+			}
+			for (Object possibleValue : valueArray) {
+				if (Constant.COMPARATOR.compare(value, possibleValue) == 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,452 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.eval;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.CaseExpression;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.SearchedCaseExpression;
+
+/**
+ * An expression compiled once per plan into a tree of evaluation nodes.
+ * <br>
+ * Column references are resolved to tuple indexes, functions are invoked through a
+ * {@link MethodHandle} rather than reflection, and the type dispatch of the
+ * {@link Evaluator} is performed only at compile time.  Expressions that are not
+ * supported, such as subqueries, xml, or pushdown functions, are interpreted by
+ * the {@link Evaluator} used for evaluation.
+ * <br>
+ * The compiled form is immutable and may be shared by multiple plan instances.
+ */
+public abstract class CompiledExpression {
+
+	protected final Expression expression;
+
+	CompiledExpression(Expression expression) {
+		this.expression = expression;
+	}
+
+	/**
+	 * Compile the expression
+	 * @param expression
+	 * @param elementMap the map of expressions to tuple indexes
+	 */
+	public static CompiledExpression compile(Expression expression, Map<? extends Expression, Integer> elementMap) {
+		if (expression instanceof DerivedExpression) {
+			Integer index = elementMap.get(expression);
+			if (index != null) {
+				return new ColumnReference(expression, index);
+			}
+			if (expression instanceof ExpressionSymbol) {
+				return compile(((ExpressionSymbol)expression).getExpression(), elementMap);
+			}
+			return new Interpreted(expression);
+		}
+		if (expression instanceof Constant) {
+			return new ConstantValue(expression);
+		}
+		if (expression instanceof Function) {
+			Function function = (Function)expression;
+			FunctionDescriptor fd = function.getFunctionDescriptor();
+			if (fd == null || fd.getPushdown() == PushDown.MUST_PUSHDOWN || fd.getProcedure() != null
+					|| function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+				return new Interpreted(expression);
+			}
+			return new FunctionCall(function, compile(function.getArgs(), elementMap), fd.createMethodHandle());
+		}
+		if (expression instanceof CaseExpression) {
+			CaseExpression expr = (CaseExpression)expression;
+			CompiledExpression[] whens = new CompiledExpression[expr.getWhenCount()];
+			CompiledExpression[] thens = new CompiledExpression[expr.getWhenCount()];
+			for (int i = 0; i < whens.length; i++) {
+				whens[i] = compile(expr.getWhenExpression(i), elementMap);
+				thens[i] = compile(expr.getThenExpression(i), elementMap);
+			}
+			return new Case(expr, compile(expr.getExpression(), elementMap), whens, thens,
+					expr.getElseExpression() != null ? compile(expr.getElseExpression(), elementMap) : null);
+		}
+		if (expression instanceof SearchedCaseExpression) {
+			SearchedCaseExpression expr = (SearchedCaseExpression)expression;
+			CompiledCriteria[] whens = new CompiledCriteria[expr.getWhenCount()];
+			CompiledExpression[] thens = new CompiledExpression[expr.getWhenCount()];
+			for (int i = 0; i < whens.length; i++) {
+				whens[i] = compile(expr.getWhenCriteria(i), elementMap);
+				thens[i] = compile(expr.getThenExpression(i), elementMap);
+			}
+			return new SearchedCase(expr, whens, thens,
+					expr.getElseExpression() != null ? compile(expr.getElseExpression(), elementMap) : null);
+		}
+		if (expression instanceof Criteria) {
+			return compile((Criteria)expression, elementMap);
+		}
+		return new Interpreted(expression);
+	}
+
+	/**
+	 * Compile the criteria
+	 * @param criteria
+	 * @param elementMap the map of expressions to tuple indexes
+	 */
+	public static CompiledCriteria compile(Criteria criteria, Map<? extends Expression, Integer> elementMap) {
+		if (criteria instanceof CompoundCriteria) {
+			CompoundCriteria compound = (CompoundCriteria)criteria;
+			CompiledCriteria[] crits = new CompiledCriteria[compound.getCriteria().size()];
+			for (int i = 0; i < crits.length; i++) {
+				crits[i] = compile(compound.getCriteria().get(i), elementMap);
+			}
+			return new Compound(criteria, compound.getOperator() == CompoundCriteria.AND, crits);
+		}
+		if (criteria instanceof NotCriteria) {
+			return new Not(criteria, compile(((NotCriteria)criteria).getCriteria(), elementMap));
+		}
+		if (criteria instanceof CompareCriteria) {
+			CompareCriteria compare = (CompareCriteria)criteria;
+			return new Compare(compare, compile(compare.getLeftExpression(), elementMap), compile(compare.getRightExpression(), elementMap));
+		}
+		if (criteria instanceof IsNullCriteria) {
+			IsNullCriteria isNull = (IsNullCriteria)criteria;
+			return new IsNull(isNull, compile(isNull.getExpression(), elementMap));
+		}
+		return new InterpretedCriteria(criteria);
+	}
+
+	private static CompiledExpression[] compile(Expression[] expressions, Map<? extends Expression, Integer> elementMap) {
+		CompiledExpression[] result = new CompiledExpression[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			result[i] = compile(expressions[i], elementMap);
+		}
+		return result;
+	}
+
+	public Expression getExpression() {
+		return expression;
+	}
+
+	abstract Object evaluate(Evaluator evaluator, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+
+	/**
+	 * Evaluate with the same exception handling as {@link Evaluator#evaluate(Expression, List)}
+	 */
+	static Object evaluateWrapped(CompiledExpression expr, Evaluator evaluator, List<?> tuple)
+			throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		try {
+			return expr.evaluate(evaluator, tuple);
+		} catch (ExpressionEvaluationException e) {
+			throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30328, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30328, new Object[] {expr.expression, e.getMessage()}));
+		}
+	}
+
+	/**
+	 * A compiled criteria that evaluates to a three valued logic result
+	 */
+	public static abstract class CompiledCriteria extends CompiledExpression {
+
+		CompiledCriteria(Expression expression) {
+			super(expression);
+		}
+
+		abstract Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+
+		/**
+		 * As with the {@link Evaluator} an unknown criteria value is false when used as an expression
+		 */
+		@Override
+		final Object evaluate(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return Boolean.TRUE.equals(evaluateTVL(evaluator, tuple));
+		}
+	}
+
+	static class ColumnReference extends CompiledExpression {
+		private final int index;
+
+		ColumnReference(Expression expression, int index) {
+			super(expression);
+			this.index = index;
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple) {
+			return tuple.get(index);
+		}
+	}
+
+	static class ConstantValue extends CompiledExpression {
+		private final Object value;
+
+		ConstantValue(Expression expression) {
+			super(expression);
+			this.value = ((Constant)expression).getValue();
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple) {
+			return value;
+		}
+	}
+
+	static class Interpreted extends CompiledExpression {
+
+		Interpreted(Expression expression) {
+			super(expression);
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return evaluator.internalEvaluate(expression, tuple);
+		}
+	}
+
+	static class FunctionCall extends CompiledExpression {
+		private final FunctionDescriptor fd;
+		private final CompiledExpression[] args;
+		private final MethodHandle handle;
+
+		FunctionCall(Function function, CompiledExpression[] args, MethodHandle handle) {
+			super(function);
+			this.fd = function.getFunctionDescriptor();
+			this.args = args;
+			this.handle = handle;
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			int start = fd.requiresContext()?1:0;
+			Object[] values = new Object[args.length + start];
+			if (start == 1) {
+				values[0] = evaluator.context;
+			}
+			for (int i = 0; i < args.length; i++) {
+				values[i + start] = args[i].evaluate(evaluator, tuple);
+			}
+			if (handle != null) {
+				return fd.invokeFunction(handle, values, evaluator.context);
+			}
+			return fd.invokeFunction(values, evaluator.context, null);
+		}
+	}
+
+	static class Case extends CompiledExpression {
+		private final CompiledExpression expr;
+		private final CompiledExpression[] whens;
+		private final CompiledExpression[] thens;
+		private final CompiledExpression elseExpr;
+
+		Case(Expression expression, CompiledExpression expr, CompiledExpression[] whens, CompiledExpression[] thens, CompiledExpression elseExpr) {
+			super(expression);
+			this.expr = expr;
+			this.whens = whens;
+			this.thens = thens;
+			this.elseExpr = elseExpr;
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object exprVal = expr.evaluate(evaluator, tuple);
+			for (int i = 0; i < whens.length; i++) {
+				if (EquivalenceUtil.areEqual(exprVal, whens[i].evaluate(evaluator, tuple))) {
+					return thens[i].evaluate(evaluator, tuple);
+				}
+			}
+			if (elseExpr != null) {
+				return elseExpr.evaluate(evaluator, tuple);
+			}
+			return null;
+		}
+	}
+
+	static class SearchedCase extends CompiledExpression {
+		private final CompiledCriteria[] whens;
+		private final CompiledExpression[] thens;
+		private final CompiledExpression elseExpr;
+
+		SearchedCase(Expression expression, CompiledCriteria[] whens, CompiledExpression[] thens, CompiledExpression elseExpr) {
+			super(expression);
+			this.whens = whens;
+			this.thens = thens;
+			this.elseExpr = elseExpr;
+		}
+
+		@Override
+		Object evaluate(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			for (int i = 0; i < whens.length; i++) {
+				if (Boolean.TRUE.equals(whens[i].evaluateTVL(evaluator, tuple))) {
+					return thens[i].evaluate(evaluator, tuple);
+				}
+			}
+			if (elseExpr != null) {
+				return elseExpr.evaluate(evaluator, tuple);
+			}
+			return null;
+		}
+	}
+
+	static class InterpretedCriteria extends CompiledCriteria {
+
+		InterpretedCriteria(Criteria criteria) {
+			super(criteria);
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return evaluator.evaluateTVL((Criteria)expression, tuple);
+		}
+	}
+
+	static class Compound extends CompiledCriteria {
+		private final boolean and;
+		private final CompiledCriteria[] crits;
+
+		Compound(Criteria criteria, boolean and, CompiledCriteria[] crits) {
+			super(criteria);
+			this.and = and;
+			this.crits = crits;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Boolean result = and?Boolean.TRUE:Boolean.FALSE;
+			for (int i = 0; i < crits.length; i++) {
+				Boolean value = crits[i].evaluateTVL(evaluator, tuple);
+				if (value == null) {
+					result = null;
+				} else if (!value.booleanValue()) {
+					if (and) {
+						return Boolean.FALSE;
+					}
+				} else if (!and) {
+					return Boolean.TRUE;
+				}
+			}
+			return result;
+		}
+	}
+
+	static class Not extends CompiledCriteria {
+		private final CompiledCriteria crit;
+
+		Not(Criteria criteria, CompiledCriteria crit) {
+			super(criteria);
+			this.crit = crit;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Boolean result = crit.evaluateTVL(evaluator, tuple);
+			if (result == null) {
+				return null;
+			}
+			return !result;
+		}
+	}
+
+	static class Compare extends CompiledCriteria {
+		private final int operator;
+		private final CompiledExpression left;
+		private final CompiledExpression right;
+
+		Compare(CompareCriteria criteria, CompiledExpression left, CompiledExpression right) {
+			super(criteria);
+			this.operator = criteria.getOperator();
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object leftValue = null;
+			try {
+				leftValue = evaluateWrapped(left, evaluator, tuple);
+			} catch (ExpressionEvaluationException e) {
+				throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "left", expression)); //$NON-NLS-1$
+			}
+			if (leftValue == null) {
+				return null;
+			}
+			Object rightValue = null;
+			try {
+				rightValue = evaluateWrapped(right, evaluator, tuple);
+			} catch (ExpressionEvaluationException e) {
+				throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "right", expression)); //$NON-NLS-1$
+			}
+			if (rightValue == null) {
+				return null;
+			}
+			return Evaluator.compare(operator, leftValue, rightValue);
+		}
+	}
+
+	static class IsNull extends CompiledCriteria {
+		private final boolean negated;
+		private final CompiledExpression expr;
+
+		IsNull(IsNullCriteria criteria, CompiledExpression expr) {
+			super(criteria);
+			this.negated = criteria.isNegated();
+			this.expr = expr;
+		}
+
+		@Override
+		Boolean evaluateTVL(Evaluator evaluator, List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object value = null;
+			try {
+				value = evaluateWrapped(expr, evaluator, tuple);
+			} catch (ExpressionEvaluationException e) {
+				throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30323, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30323, expression));
+			}
+			return value == null ^ negated;
+		}
+	}
+
+}
@@ -69,6 +69,7 @@ import org.teiid.jdbc.TeiidSQLException;
 import org.teiid.language.Like.MatchMode;
 import org.teiid.metadata.FunctionMethod.PushDown;
 import org.teiid.query.QueryPlugin;
+import org.teiid.query.eval.CompiledExpression.CompiledCriteria;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.function.FunctionLibrary;
 import org.teiid.query.function.JSONFunctionMethods.JSONBuilder;
@@ -221,6 +222,15 @@ public class Evaluator {
         return Boolean.TRUE.equals(evaluateTVL(criteria, tuple));
     }
 
+    /**
+     * Evaluate a criteria compiled by {@link CompiledExpression#compile(Criteria, Map)}
+     */
+    public boolean evaluate(CompiledCriteria criteria, List<?> tuple)
+        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+    	
+    	return Boolean.TRUE.equals(criteria.evaluateTVL(this, tuple));
+    }
+
     public Boolean evaluateTVL(Criteria criteria, List<?> tuple)
         throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
     	
@@ -729,6 +739,15 @@ public class Evaluator {
 	    }
 	}
 	
+	/**
+	 * Evaluate an expression compiled by {@link CompiledExpression#compile(Expression, Map)}
+	 */
+	public Object evaluate(CompiledExpression expression, List<?> tuple)
+		throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+	
+		return CompiledExpression.evaluateWrapped(expression, this, tuple);
+	}
+	
 	protected Object internalEvaluate(Expression expression, List<?> tuple)
 	   throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
 	
@@ -23,9 +23,12 @@
 package org.teiid.query.function;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import org.teiid.api.exception.query.FunctionExecutionException;
@@ -300,6 +303,57 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 		}
 	}
 
+	/**
+	 * Create a {@link MethodHandle} taking the argument values as an Object[] so that the function
+	 * may be invoked without reflection by {@link #invokeFunction(MethodHandle, Object[], CommandContext)}.
+	 * @return the handle or null if the function requires the additional handling of 
+	 * {@link #invokeFunction(Object[], CommandContext, Object)}, such as for var args or a custom classloader
+	 */
+	public MethodHandle createMethodHandle() {
+		if (invocationMethod == null || hasWrappedArgs || method.isVarArgs() || classLoader != null 
+				|| !Modifier.isStatic(invocationMethod.getModifiers())) {
+			return null;
+		}
+		try {
+			MethodHandle handle = MethodHandles.publicLookup().unreflect(invocationMethod);
+			return handle.asType(handle.type().generic()).asSpreader(Object[].class, handle.type().parameterCount());
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Invoke the function using a handle from {@link #createMethodHandle()}.  
+	 * Has the same null handling and result conversion as {@link #invokeFunction(Object[], CommandContext, Object)}
+	 */
+	public Object invokeFunction(MethodHandle handle, Object[] values, CommandContext context) throws FunctionExecutionException, BlockedException {
+        if (!isNullDependent()) {
+        	for (int i = requiresContext?1:0; i < values.length; i++) {
+				if (values[i] == null) {
+					return null;
+				}
+			}
+        }
+        Object result = null;
+        try {
+        	result = handle.invokeExact(values);
+        } catch (BlockedException e) {
+        	throw e;
+        } catch (Throwable e) {
+        	throw new FunctionExecutionException(QueryPlugin.Event.TEIID30384, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30384, getFullName()));
+        }
+        if (context != null && getDeterministic().ordinal() <= Determinism.USER_DETERMINISTIC.ordinal()) {
+        	context.setDeterminismLevel(getDeterministic());
+        }
+        try {
+            return importValue(result, getReturnType());
+        } catch(ArithmeticException e) {
+    		throw new FunctionExecutionException(QueryPlugin.Event.TEIID30384, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30384, getFullName()));
+        } catch (TransformationException e) {
+        	throw new FunctionExecutionException(e);
+        }
+	}
+
 	public static Object importValue(Object result, Class<?> expectedType)
 			throws ArithmeticException, TransformationException {
 		if (!ALLOW_NAN_INFINITY) {
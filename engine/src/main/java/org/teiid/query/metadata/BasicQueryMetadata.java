@@ -142,6 +142,14 @@ public class BasicQueryMetadata implements QueryMetadataInterface {
         return null;
     }
     
+    public String getHistogram(Object elementID) throws TeiidComponentException, QueryMetadataException {
+        return null;
+    }
+
+    public String getMostCommonValues(Object elementID) throws TeiidComponentException, QueryMetadataException {
+        return null;
+    }
+    
     /** 
      * @see org.teiid.query.metadata.QueryMetadataInterface#getDistinctValues(java.lang.Object)
      * @since 4.3
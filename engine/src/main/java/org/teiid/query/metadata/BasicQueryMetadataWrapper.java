@@ -193,6 +193,16 @@ public class BasicQueryMetadataWrapper implements QueryMetadataInterface {
 			throws TeiidComponentException, QueryMetadataException {
 		return actualMetadata.getMinimumValue(elementID);
 	}
+	
+	public String getHistogram(Object elementID)
+			throws TeiidComponentException, QueryMetadataException {
+		return actualMetadata.getHistogram(elementID);
+	}
+	
+	public String getMostCommonValues(Object elementID)
+			throws TeiidComponentException, QueryMetadataException {
+		return actualMetadata.getMostCommonValues(elementID);
+	}
 
 	public Object getModelID(Object groupOrElementID)
 			throws TeiidComponentException, QueryMetadataException {
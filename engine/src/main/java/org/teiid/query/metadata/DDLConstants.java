@@ -34,6 +34,8 @@ public interface DDLConstants {
 	public static final String CHAR_OCTET_LENGTH = "CHAR_OCTET_LENGTH";//$NON-NLS-1$
 	public static final String MAX_VALUE = "MAX_VALUE"; //$NON-NLS-1$
 	public static final String MIN_VALUE = "MIN_VALUE";//$NON-NLS-1$
+	public static final String HISTOGRAM = "HISTOGRAM";//$NON-NLS-1$
+	public static final String MOST_COMMON_VALUES = "MOST_COMMON_VALUES";//$NON-NLS-1$
 	public static final String SEARCHABLE = "SEARCHABLE";//$NON-NLS-1$
 	public static final String FIXED_LENGTH = "FIXED_LENGTH";//$NON-NLS-1$
 	public static final String CURRENCY = "CURRENCY";//$NON-NLS-1$
@@ -492,6 +492,14 @@ public class DDLStringVisitor {
 				addOption(options, MAX_VALUE, column.getMaximumValue());
 			}
 			
+			if (column.getHistogram() != null) {
+				addOption(options, HISTOGRAM, column.getHistogram());
+			}
+			
+			if (column.getMostCommonValues() != null) {
+				addOption(options, MOST_COMMON_VALUES, column.getMostCommonValues());
+			}
+			
 			if (column.getNullValues() != -1) {
 				addOption(options, NULL_VALUE_COUNT, column.getNullValues());
 			}
@@ -50,6 +50,12 @@ public class MaterializationMetadataRepository extends MetadataRepository {
 	public static final String MATVIEW_UPDATABLE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_UPDATABLE"; //$NON-NLS-1$
 	public static final String MATVIEW_PREFER_MEMORY = "{http://www.teiid.org/ext/relational/2012}MATVIEW_PREFER_MEMORY"; //$NON-NLS-1$
 	public static final String MATVIEW_SCOPE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_SCOPE"; //$NON-NLS-1$
+	/**
+	 * The name of a monotonically increasing column, such as a last modified timestamp or version, 
+	 * that allows an internal materialized view with a primary key to be refreshed with only the rows
+	 * having a greater value than seen in the prior load.  Deleted rows are not detected by a delta refresh.
+	 */
+	public static final String MATVIEW_LAST_MODIFIED_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_LAST_MODIFIED_COLUMN"; //$NON-NLS-1$
 	
 	public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
 	public enum Scope {NONE, VDB, SCHEMA};
@@ -188,6 +188,28 @@ public interface QueryMetadataInterface {
     Object getMaximumValue(Object elementID)
         throws TeiidComponentException, QueryMetadataException;        
 
+    /**
+     * Get the element's equi-depth histogram
+     * @param elementID The element ID
+     * @return The comma separated histogram bucket boundaries or null if not known
+     * @throws QueryMetadataException Metadata implementation detected a problem during the request
+     * @throws TeiidComponentException Unexpected internal system problem during request
+     * @see org.teiid.metadata.ColumnStats#getHistogram()
+     */
+    String getHistogram(Object elementID)
+        throws TeiidComponentException, QueryMetadataException;        
+
+    /**
+     * Get the element's most common values
+     * @param elementID The element ID
+     * @return The comma separated value=frequency list or null if not known
+     * @throws QueryMetadataException Metadata implementation detected a problem during the request
+     * @throws TeiidComponentException Unexpected internal system problem during request
+     * @see org.teiid.metadata.ColumnStats#getMostCommonValues()
+     */
+    String getMostCommonValues(Object elementID)
+        throws TeiidComponentException, QueryMetadataException;        
+
     /**
      * Get the element's position in the group
      * @param elementID The element ID
@@ -290,6 +290,28 @@ public class TempMetadataAdapter extends BasicQueryMetadataWrapper {
         }
         return this.actualMetadata.getMinimumValue(elementID);
     }
+    
+    public String getHistogram(Object elementID) throws TeiidComponentException, QueryMetadataException {
+        if (elementID instanceof TempMetadataID) {
+            TempMetadataID id = (TempMetadataID)elementID;
+            elementID = id.getOriginalMetadataID();
+            if (elementID == null) {
+                return null;
+            }
+        }
+        return this.actualMetadata.getHistogram(elementID);
+    }
+
+    public String getMostCommonValues(Object elementID) throws TeiidComponentException, QueryMetadataException {
+        if (elementID instanceof TempMetadataID) {
+            TempMetadataID id = (TempMetadataID)elementID;
+            elementID = id.getOriginalMetadataID();
+            if (elementID == null) {
+                return null;
+            }
+        }
+        return this.actualMetadata.getMostCommonValues(elementID);
+    }
 
     /**
      * @see org.teiid.query.metadata.QueryMetadataInterface#getDistinctValues(java.lang.Object)
@@ -27,12 +27,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
 
+import org.teiid.adminapi.impl.CacheStatisticsMetadata;
 import org.teiid.adminapi.impl.DataPolicyMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.QueryMetadataException;
@@ -46,6 +48,7 @@ import org.teiid.core.types.SQLXMLImpl;
 import org.teiid.core.util.ArgCheck;
 import org.teiid.core.util.LRUCache;
 import org.teiid.core.util.ObjectConverterUtil;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.core.util.StringUtil;
 import org.teiid.metadata.*;
 import org.teiid.metadata.BaseColumn.NullType;
@@ -69,6 +72,33 @@ import org.teiid.query.sql.lang.SPParameter;
 public class TransformationMetadata extends BasicQueryMetadata implements Serializable {
 	
 	public static final String ALLOWED_LANGUAGES = "allowed-languages"; //$NON-NLS-1$
+	
+	/**
+	 * Cache key prefix for resolved view and procedure definitions
+	 */
+	public static final String TRANSFORMATION_CACHE_PREFIX = "transformation/"; //$NON-NLS-1$
+	
+	private static final int COMMAND_CACHE_SIZE = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid.resolvedCommandCacheSize", 1000); //$NON-NLS-1$
+	
+	/**
+	 * Bounded cache of the resolved view and procedure definitions.  It is shared by all sessions
+	 * using the same vdb version and by the design time metadata.
+	 */
+	private static final class CommandCache implements Serializable {
+		private static final long serialVersionUID = -4394837236479437219L;
+		private Map<String, Object> entries = Collections.synchronizedMap(new LRUCache<String, Object>(COMMAND_CACHE_SIZE));
+		private AtomicLong requestCount = new AtomicLong();
+		private AtomicLong hitCount = new AtomicLong();
+		
+		Object get(String key) {
+			Object result = entries.get(key);
+			requestCount.getAndIncrement();
+			if (result != null) {
+				hitCount.getAndIncrement();
+			}
+			return result;
+		}
+	}
 
 	private static final class LiveQueryNode extends QueryNode {
 		Procedure p;
@@ -147,6 +177,7 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
     private Map<String, Object> groupInfoCache = Collections.synchronizedMap(new LRUCache<String, Object>(250));
     private Map<String, Collection<Table>> partialNameToFullNameCache = Collections.synchronizedMap(new LRUCache<String, Collection<Table>>(1000));
     private Map<String, Collection<StoredProcedureInfo>> procedureCache = Collections.synchronizedMap(new LRUCache<String, Collection<StoredProcedureInfo>>(200));
+    private CommandCache commandCache = new CommandCache();
 
 	private boolean widenComparisonToString = true;
     /**
@@ -464,6 +495,26 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
         }
     }
 
+    public String getHistogram(final Object elementID) throws TeiidComponentException, QueryMetadataException {
+        if(elementID instanceof Column) {
+            return ((Column) elementID).getHistogram();            
+        } else if(elementID instanceof ProcedureParameter){
+            return null;
+        } else {
+            throw createInvalidRecordTypeException(elementID);
+        }
+    }
+
+    public String getMostCommonValues(final Object elementID) throws TeiidComponentException, QueryMetadataException {
+        if(elementID instanceof Column) {
+            return ((Column) elementID).getMostCommonValues();            
+        } else if(elementID instanceof ProcedureParameter){
+            return null;
+        } else {
+            throw createInvalidRecordTypeException(elementID);
+        }
+    }
+
     public boolean isVirtualGroup(final Object groupID) throws TeiidComponentException, QueryMetadataException {
     	if (groupID instanceof Table) {
     		return ((Table) groupID).isVirtual();
@@ -1027,10 +1078,14 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
 	@Override
 	public Object addToMetadataCache(Object metadataID, String key, Object value) {
         boolean groupInfo = key.startsWith(GroupInfo.CACHE_PREFIX);
+        boolean transformation = key.startsWith(TRANSFORMATION_CACHE_PREFIX);
         key = getCacheKey(key, (AbstractMetadataRecord)metadataID);
         if (groupInfo) {
         	return this.groupInfoCache.put(key, value); 
         }
+        if (transformation) {
+        	return this.commandCache.entries.put(key, value);
+        }
     	return this.metadataCache.put(key, value); 
 	}
 
@@ -1038,16 +1093,40 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
 	public Object getFromMetadataCache(Object metadataID, String key)
 			throws TeiidComponentException, QueryMetadataException {
         boolean groupInfo = key.startsWith(GroupInfo.CACHE_PREFIX);
+        boolean transformation = key.startsWith(TRANSFORMATION_CACHE_PREFIX);
         key = getCacheKey(key, (AbstractMetadataRecord)metadataID);
         if (groupInfo) {
         	return this.groupInfoCache.get(key); 
         }
+        if (transformation) {
+        	return this.commandCache.get(key);
+        }
     	return this.metadataCache.get(key);
 	}
 
 	private String getCacheKey(String key, AbstractMetadataRecord record) {
 		return record.getUUID() + "/" + key; //$NON-NLS-1$
 	}
+	
+	/**
+	 * @return the hit/miss statistics of the resolved view and procedure definition cache
+	 */
+	public CacheStatisticsMetadata getCommandCacheStatistics() {
+		CacheStatisticsMetadata stats = new CacheStatisticsMetadata();
+		stats.setName("ResolvedCommandCache"); //$NON-NLS-1$
+		long requestCount = this.commandCache.requestCount.get();
+		stats.setHitRatio(requestCount == 0?0:((double)this.commandCache.hitCount.get()/requestCount)*100);
+		stats.setTotalEntries(this.commandCache.entries.size());
+		stats.setRequestCount((int)Math.min(Integer.MAX_VALUE, requestCount));
+		return stats;
+	}
+	
+	/**
+	 * Remove all of the resolved view and procedure definitions
+	 */
+	public void clearCommandCache() {
+		this.commandCache.entries.clear();
+	}
 
 	@Override
 	public FunctionLibrary getFunctionLibrary() {
@@ -1067,6 +1146,7 @@ public class TransformationMetadata extends BasicQueryMetadata implements Serial
 		tm.metadataCache = this.metadataCache;
 		tm.partialNameToFullNameCache = this.partialNameToFullNameCache;
 		tm.procedureCache = this.procedureCache; 
+		tm.commandCache = this.commandCache;
 		tm.scriptEngineManager = this.scriptEngineManager;
 		tm.importedModels = this.importedModels;
 		tm.allowedLanguages = this.allowedLanguages;
@@ -38,6 +38,7 @@ import org.teiid.core.util.Assertion;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.function.FunctionLibrary;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -46,6 +47,7 @@ import org.teiid.query.optimizer.capabilities.SourceCapabilities;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
+import org.teiid.query.optimizer.relational.plantree.NodeEditor;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
 import org.teiid.query.optimizer.relational.rules.CapabilitiesUtil;
 import org.teiid.query.optimizer.relational.rules.CriteriaCapabilityValidatorVisitor;
@@ -59,6 +61,7 @@ import org.teiid.query.processor.relational.JoinNode.JoinStrategyType;
 import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
 import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.resolver.util.ResolverUtil;
+import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.lang.ObjectTable.ObjectColumn;
 import org.teiid.query.sql.lang.SetQuery.Operation;
@@ -69,6 +72,7 @@ import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.sql.symbol.WindowFunction;
@@ -76,8 +80,10 @@ import org.teiid.query.sql.util.SymbolMap;
 import org.teiid.query.sql.visitor.ElementCollectorVisitor;
 import org.teiid.query.sql.visitor.EvaluatableVisitor;
 import org.teiid.query.sql.visitor.EvaluatableVisitor.EvaluationLevel;
+import org.teiid.query.sql.visitor.FunctionCollectorVisitor;
 import org.teiid.query.sql.visitor.GroupCollectorVisitor;
 import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
+import org.teiid.query.sql.visitor.ValueIteratorProviderCollectorVisitor;
 import org.teiid.query.util.CommandContext;
 import org.teiid.translator.ExecutionFactory.TransactionSupport;
 
@@ -170,10 +176,101 @@ public class PlanToProcessConverter {
 				nextParent.addChild(child);
 			}
 		}
+		
+		if (context != null && context.getOptions().isUseParallelExchange() 
+				&& (nextParent instanceof SortNode || NodeEditor.findParent(planNode, NodeConstants.Types.TUPLE_LIMIT, NodeConstants.Types.SOURCE 
+						| NodeConstants.Types.SORT | NodeConstants.Types.GROUP | NodeConstants.Types.DUP_REMOVE) == null)) {
+			//under a limit reading ahead may process more than is needed
+			addExchanges(nextParent);
+		}
 
         // Return root of tree for top node
 		return convertedNode;
 	}
+	
+	/**
+	 * Process the children of a union, join, or sort on separate threads 
+	 * if they perform more than a source query.
+	 */
+	private void addExchanges(RelationalNode node) {
+		if (!(node instanceof UnionAllNode || node instanceof SortNode || node instanceof JoinNode)) {
+			return;
+		}
+		if (node instanceof JoinNode) {
+			JoinNode joinNode = (JoinNode)node;
+			if (joinNode.isDependent() || joinNode.getJoinStrategy() instanceof NestedTableJoinStrategy) {
+				return;
+			}
+		}
+		RelationalNode[] children = node.getChildren();
+		for (int i = 0; i < node.getChildCount(); i++) {
+			RelationalNode child = children[i];
+			if (child instanceof AccessNode || !isParallelSafe(child)) {
+				//source queries are already processed asynchly
+				continue;
+			}
+			ExchangeNode exchangeNode = new ExchangeNode(getID());
+			exchangeNode.setElements(child.getElements());
+			exchangeNode.addChild(child);
+			exchangeNode.setParent(node);
+			children[i] = exchangeNode;
+		}
+	}
+	
+	/**
+	 * Return true if the branch does not share processing state with the rest of the plan
+	 */
+	private static boolean isParallelSafe(RelationalNode node) {
+		if (node instanceof DependentAccessNode || node instanceof DependentProcedureAccessNode) {
+			return false;
+		}
+		if (node instanceof AccessNode && TempMetadataAdapter.TEMP_MODEL.getID().equals(((AccessNode)node).getModelName())) {
+			//temp and with clause tables may be lazily created/loaded by the first access
+			return false;
+		}
+		if (!(node instanceof AccessNode || node instanceof ProjectNode || node instanceof SelectNode 
+				|| node instanceof SortNode || node instanceof GroupingNode || node instanceof DupRemoveNode
+				|| node instanceof LimitNode || node instanceof UnionAllNode || node instanceof ExchangeNode
+				|| node instanceof NullNode || node instanceof JoinNode)) {
+			return false;
+		}
+		if (node instanceof JoinNode) {
+			JoinNode joinNode = (JoinNode)node;
+			if (joinNode.isDependent() || joinNode.getJoinStrategy() instanceof NestedTableJoinStrategy) {
+				return false;
+			}
+		}
+		if (node instanceof SubqueryAwareRelationalNode && usesSharedState(((SubqueryAwareRelationalNode)node).getObjects())) {
+			return false;
+		}
+		RelationalNode[] children = node.getChildren();
+		for (int i = 0; i < node.getChildCount(); i++) {
+			if (!isParallelSafe(children[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Subqueries and lookups use processing state that is shared with the rest of the plan
+	 */
+	private static boolean usesSharedState(Collection<? extends LanguageObject> objects) {
+		if (objects == null || objects.isEmpty()) {
+			return false;
+		}
+		if (!ValueIteratorProviderCollectorVisitor.getValueIteratorProviders(objects).isEmpty()) {
+			return true;
+		}
+		for (LanguageObject object : objects) {
+			for (Function function : FunctionCollectorVisitor.getFunctions(object, false, true)) {
+				if (FunctionLibrary.LOOKUP.equalsIgnoreCase(function.getName())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
 
     protected int getID() {
         return idGenerator.nextInt();
@@ -272,9 +369,11 @@ public class PlanToProcessConverter {
                 List joinCrits = (List) node.getProperty(NodeConstants.Info.JOIN_CRITERIA);
                 String depValueSource = (String) node.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE);
                 SortOption leftSort = (SortOption)node.getProperty(NodeConstants.Info.SORT_LEFT);
-                if(stype == JoinStrategyType.MERGE || stype == JoinStrategyType.ENHANCED_SORT) {
+                if(stype == JoinStrategyType.MERGE || stype == JoinStrategyType.ENHANCED_SORT || stype == JoinStrategyType.HASH) {
                 	MergeJoinStrategy mjStrategy = null;
-                	if (stype.equals(JoinStrategyType.ENHANCED_SORT)) { 
+                	if (stype.equals(JoinStrategyType.HASH)) {
+                		mjStrategy = new HashJoinStrategy(leftSort, (SortOption)node.getProperty(NodeConstants.Info.SORT_RIGHT));
+                	} else if (stype.equals(JoinStrategyType.ENHANCED_SORT)) { 
                 		EnhancedSortMergeJoinStrategy esmjStrategy = new EnhancedSortMergeJoinStrategy(leftSort, (SortOption)node.getProperty(NodeConstants.Info.SORT_RIGHT));
                 		esmjStrategy.setSemiDep(node.hasBooleanProperty(Info.IS_SEMI_DEP));
                 		mjStrategy = esmjStrategy;
@@ -545,6 +644,9 @@ public class PlanToProcessConverter {
 				List<Expression> gCols = (List) node.getProperty(NodeConstants.Info.GROUP_COLS);
 				OrderBy orderBy = (OrderBy) node.getProperty(Info.SORT_ORDER);
 				if (orderBy == null) {
+					//the output does not need to be ordered by the grouping columns
+					gnode.setHashAggregate(gCols != null && context != null && context.getOptions().isUseHashAggregation() 
+							&& !node.hasBooleanProperty(Info.ROLLUP) && !node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL));
 			        if (gCols != null) {
 			        	LinkedHashSet<Expression> exprs = new LinkedHashSet<Expression>();
 			        	for (Expression ex : gCols) {
@@ -51,6 +51,7 @@ import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TempMetadataStore;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.QueryOptimizer;
 import org.teiid.query.optimizer.TriggerActionPlanner;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -1121,7 +1122,7 @@ public class RelationalPlanner {
 			CorrelatedReferenceCollectorVisitor.collectReferences(subqueryContainer.getCommand(), Arrays.asList(container.getGroup()), correlatedReferences, metadata);
 			setCorrelatedReferences(subqueryContainer, correlatedReferences);
 		}
-		String cacheString = "transformation/" + container.getClass().getSimpleName().toUpperCase(); //$NON-NLS-1$
+		String cacheString = TransformationMetadata.TRANSFORMATION_CACHE_PREFIX + container.getClass().getSimpleName().toUpperCase();
 		Command c = (Command)metadata.getFromMetadataCache(metadataId, cacheString);
 		if (c == null) {
 			c = QueryResolver.expandCommand(container, metadata, analysisRecord);
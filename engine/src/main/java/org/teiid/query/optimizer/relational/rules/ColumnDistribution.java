@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.optimizer.relational.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teiid.api.exception.query.QueryMetadataException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Estimates predicate selectivity from the equi-depth histogram and most common value
+ * column statistics.
+ * <br>
+ * Each method returns null if the statistics are not available or not usable for the
+ * given value so that the caller may fall back to the cardinality / ndv based estimate.
+ *
+ * @see org.teiid.metadata.ColumnStats
+ */
+final class ColumnDistribution {
+
+	private ColumnDistribution() {
+
+	}
+
+	/**
+	 * Split on the unescaped commas.  A backslash escapes the following comma or backslash.
+	 */
+	static List<String> split(String value) {
+		List<String> result = new ArrayList<String>();
+		StringBuilder part = new StringBuilder();
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length()) {
+				char next = value.charAt(i + 1);
+				if (next == ',' || next == '\\') {
+					part.append(next);
+					i++;
+					continue;
+				}
+			} else if (c == ',') {
+				result.add(part.toString());
+				part.setLength(0);
+				continue;
+			}
+			part.append(c);
+		}
+		result.add(part.toString());
+		return result;
+	}
+
+	/**
+	 * @return the fraction of rows equal to the value
+	 */
+	static Float getEqualitySelectivity(ElementSymbol element, Constant value, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+		if (value.isMultiValued() || value.getValue() == null) {
+			return null;
+		}
+		String mostCommonValues = metadata.getMostCommonValues(element.getMetadataID());
+		if (mostCommonValues == null) {
+			return null;
+		}
+		float total = 0;
+		int count = 0;
+		for (String entry : split(mostCommonValues)) {
+			int index = entry.lastIndexOf('=');
+			if (index < 0) {
+				return invalid(element, mostCommonValues, null);
+			}
+			float frequency = 0;
+			try {
+				frequency = Float.parseFloat(entry.substring(index + 1).trim());
+			} catch (NumberFormatException e) {
+				return invalid(element, mostCommonValues, e);
+			}
+			Object mcv = convert(element, entry.substring(0, index), value.getType());
+			if (mcv == null) {
+				return null;
+			}
+			if (Constant.COMPARATOR.compare(mcv, value.getValue()) == 0) {
+				return frequency;
+			}
+			total += frequency;
+			count++;
+		}
+		//spread the remaining non-null rows evenly over the remaining values
+		float ndv = metadata.getDistinctValues(element.getMetadataID());
+		if (ndv == NewCalculateCostUtil.UNKNOWN_VALUE || ndv <= count) {
+			return null;
+		}
+		return Math.max(0, getNonNullFraction(element, metadata) - total) / (ndv - count);
+	}
+
+	/**
+	 * @return the fraction of rows satisfying the range comparison against the value
+	 */
+	static Float getRangeSelectivity(ElementSymbol element, int operator, Constant value, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+		if (value.isMultiValued() || value.getValue() == null) {
+			return null;
+		}
+		String histogram = metadata.getHistogram(element.getMetadataID());
+		if (histogram == null) {
+			return null;
+		}
+		List<String> parts = split(histogram);
+		if (parts.size() < 2) {
+			return invalid(element, histogram, null);
+		}
+		Object[] bounds = new Object[parts.size()];
+		for (int i = 0; i < bounds.length; i++) {
+			bounds[i] = convert(element, parts.get(i), value.getType());
+			if (bounds[i] == null) {
+				return null;
+			}
+		}
+		Object compareValue = value.getValue();
+		int buckets = bounds.length - 1;
+		float below = 0;
+		if (Constant.COMPARATOR.compare(compareValue, bounds[0]) <= 0) {
+			below = 0;
+		} else if (Constant.COMPARATOR.compare(compareValue, bounds[buckets]) >= 0) {
+			below = 1;
+		} else {
+			int i = 0;
+			while (Constant.COMPARATOR.compare(compareValue, bounds[i + 1]) >= 0) {
+				i++;
+			}
+			below = (i + interpolate(bounds[i], bounds[i + 1], compareValue)) / buckets;
+		}
+		//the histogram only describes the non-null rows
+		float nonNull = getNonNullFraction(element, metadata);
+		if (operator == CompareCriteria.GT || operator == CompareCriteria.GE) {
+			return (1 - below) * nonNull;
+		}
+		return below * nonNull;
+	}
+
+	/**
+	 * The most common value frequencies are relative to all rows, while the histogram
+	 * only describes the non-null rows
+	 * @return the fraction of rows that are not null
+	 */
+	private static float getNonNullFraction(ElementSymbol element, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+		float nullValues = metadata.getNullValues(element.getMetadataID());
+		if (nullValues == NewCalculateCostUtil.UNKNOWN_VALUE || element.getGroupSymbol() == null) {
+			return 1;
+		}
+		float cardinality = metadata.getCardinality(element.getGroupSymbol().getMetadataID());
+		if (cardinality == NewCalculateCostUtil.UNKNOWN_VALUE || cardinality <= 0) {
+			return 1;
+		}
+		return Math.max(0, 1 - Math.min(1, nullValues / cardinality));
+	}
+
+	/**
+	 * Linear interpolation within a bucket for numeric and date/time values,
+	 * otherwise assume half of the bucket
+	 */
+	private static float interpolate(Object low, Object high, Object value) {
+		Double l = asDouble(low);
+		Double h = asDouble(high);
+		Double v = asDouble(value);
+		if (l == null || h == null || v == null || h <= l) {
+			return .5f;
+		}
+		return (float)((v - l) / (h - l));
+	}
+
+	private static Double asDouble(Object value) {
+		if (value instanceof Number) {
+			return ((Number)value).doubleValue();
+		}
+		if (value instanceof java.util.Date) {
+			return (double)((java.util.Date)value).getTime();
+		}
+		return null;
+	}
+
+	private static Object convert(ElementSymbol element, String value, Class<?> type) {
+		try {
+			return DataTypeManager.transformValue(value.trim(), type);
+		} catch (TransformationException e) {
+			return invalid(element, value, e);
+		}
+	}
+
+	private static Float invalid(ElementSymbol element, String value, Exception e) {
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_QUERY_PLANNER, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_QUERY_PLANNER, e, "Ignoring invalid column statistics", value, "for", element); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return null;
+	}
+
+}
@@ -236,158 +236,186 @@ class JoinRegion {
      */
     public double scoreRegion(Object[] joinOrder, int startIndex, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context, boolean partial) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
         List<Map.Entry<PlanNode, PlanNode>> joinSourceEntries = new ArrayList<Map.Entry<PlanNode, PlanNode>>(joinSourceNodes.entrySet());
-        double totalIntermediatCost = 0;
-        double cost = 1;
-        
-        HashSet<PlanNode> criteria = new HashSet<PlanNode>(this.criteriaNodes);
-        HashSet<GroupSymbol> groups = new HashSet<GroupSymbol>(this.joinSourceNodes.size());
-        HashSet<GroupSymbol> rightGroups = new HashSet<GroupSymbol>();
-        List<Expression> leftExpressions = new ArrayList<Expression>();
-        List<Expression> rightExpressions = new ArrayList<Expression>();
-        HashSet<Criteria> nonEquiJoinCriteria = new HashSet<Criteria>();
+        ScoreState state = new ScoreState(this);
 
         //only calculate up to the second to last as the last is not an intermediate result
         for (int i = 0; i < joinOrder.length - (partial?0:1); i++) {
-        	boolean hasUnknown = false;
-        	boolean shouldFilter = true;
-            Integer source = (Integer)joinOrder[i];
-            
-            Map.Entry<PlanNode, PlanNode> entry = joinSourceEntries.get(source.intValue());
-            PlanNode joinSourceRoot = entry.getValue();
-            
-            if (i >= startIndex) {
-	            //check to make sure that this group ordering satisfies the access patterns
-	            if (!this.unsatisfiedAccessPatterns.isEmpty() || this.containsNestedTable) {
-	                PlanNode joinSource = entry.getKey();
-	                
-	                Collection<GroupSymbol> requiredGroups = (Collection<GroupSymbol>)joinSource.getProperty(NodeConstants.Info.REQUIRED_ACCESS_PATTERN_GROUPS);
-	                
-	                if (requiredGroups != null && !groups.containsAll(requiredGroups)) {
-	                    return Double.MAX_VALUE;
-	                }
-	            }
-            } 
-            
-            rightGroups.clear();
-            rightGroups.addAll(groups);
-            groups.addAll(joinSourceRoot.getGroups());
-            
             if (startIndex > 0 && i < startIndex) {
+            	Integer source = (Integer)joinOrder[i];
+            	state.groups.addAll(joinSourceEntries.get(source.intValue()).getValue().getGroups());
             	continue;
             }
+            if (!scoreJoin(state, joinOrder, i, joinSourceEntries, metadata, capFinder, context)) {
+            	return Double.MAX_VALUE;
+            }
+        }
+        
+        return state.totalIntermediatCost;
+    }
+    
+    /**
+     * The running cost of a left linear join order prefix.
+     */
+    static class ScoreState {
+    	HashSet<PlanNode> criteria;
+    	HashSet<GroupSymbol> groups;
+    	double cost = 1;
+    	double totalIntermediatCost;
+    	
+    	ScoreState(JoinRegion region) {
+    		this.criteria = new HashSet<PlanNode>(region.criteriaNodes);
+    		this.groups = new HashSet<GroupSymbol>(region.joinSourceNodes.size());
+		}
+    	
+    	ScoreState(ScoreState other) {
+    		this.criteria = new HashSet<PlanNode>(other.criteria);
+    		this.groups = new HashSet<GroupSymbol>(other.groups);
+    		this.cost = other.cost;
+    		this.totalIntermediatCost = other.totalIntermediatCost;
+    	}
+    }
+    
+    /**
+     * Add the cost of joining the source at position i of the join order to the state.
+     * @return false if the join order is not valid
+     */
+    boolean scoreJoin(ScoreState state, Object[] joinOrder, int i, List<Map.Entry<PlanNode, PlanNode>> joinSourceEntries, 
+    		QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
+    	boolean hasUnknown = false;
+    	boolean shouldFilter = true;
+        Integer source = (Integer)joinOrder[i];
+        HashSet<PlanNode> criteria = state.criteria;
+        HashSet<GroupSymbol> groups = state.groups;
+        double cost = state.cost;
+        
+        Map.Entry<PlanNode, PlanNode> entry = joinSourceEntries.get(source.intValue());
+        PlanNode joinSourceRoot = entry.getValue();
+        
+        //check to make sure that this group ordering satisfies the access patterns
+        if (!this.unsatisfiedAccessPatterns.isEmpty() || this.containsNestedTable) {
+            PlanNode joinSource = entry.getKey();
             
-            float sourceCost = joinSourceRoot.getCardinality();
-            
-            List<PlanNode> applicableCriteria = null;
+            Collection<GroupSymbol> requiredGroups = (Collection<GroupSymbol>)joinSource.getProperty(NodeConstants.Info.REQUIRED_ACCESS_PATTERN_GROUPS);
             
-            CompoundCriteria cc = null;
-        	
-            if (!criteria.isEmpty() && i > 0) {
-                applicableCriteria = getJoinCriteriaForGroups(groups, criteria);
-                if (applicableCriteria != null && !applicableCriteria.isEmpty()) {
-                	cc = new CompoundCriteria();
-                	for (PlanNode planNode : applicableCriteria) {
-        				cc.addCriteria((Criteria) planNode.getProperty(NodeConstants.Info.SELECT_CRITERIA));
-        			}    	
+            if (requiredGroups != null && !groups.containsAll(requiredGroups)) {
+                return false;
+            }
+        }
+        
+        HashSet<GroupSymbol> rightGroups = new HashSet<GroupSymbol>(groups);
+        groups.addAll(joinSourceRoot.getGroups());
+        
+        float sourceCost = joinSourceRoot.getCardinality();
+        
+        List<PlanNode> applicableCriteria = null;
+        
+        CompoundCriteria cc = null;
+    	
+        if (!criteria.isEmpty() && i > 0) {
+            applicableCriteria = getJoinCriteriaForGroups(groups, criteria);
+            if (applicableCriteria != null && !applicableCriteria.isEmpty()) {
+            	cc = new CompoundCriteria();
+            	for (PlanNode planNode : applicableCriteria) {
+    				cc.addCriteria((Criteria) planNode.getProperty(NodeConstants.Info.SELECT_CRITERIA));
+    			}    	
+            }
+        }
+        
+    	if (sourceCost == NewCalculateCostUtil.UNKNOWN_VALUE) {
+    		sourceCost = UNKNOWN_TUPLE_EST;
+    		hasUnknown = true;
+            if (cc != null) {
+            	shouldFilter = false;
+            	sourceCost = (float)cost;
+            	criteria.removeAll(applicableCriteria);
+        		if (NewCalculateCostUtil.usesKey(cc, metadata) || (i >= 1 && joinSourceRoot.hasProperty(Info.MAKE_DEP) && !joinSourceRoot.hasBooleanProperty(Info.MAKE_NOT_DEP))) {
+	            	sourceCost = Math.min(UNKNOWN_TUPLE_EST, sourceCost * Math.min(NewCalculateCostUtil.UNKNOWN_JOIN_SCALING, sourceCost));
+        		} else {
+	            	sourceCost = Math.min(UNKNOWN_TUPLE_EST, sourceCost * NewCalculateCostUtil.UNKNOWN_JOIN_SCALING * 8);
+        		}
+            }
+        } else if (Double.isInfinite(sourceCost) || Double.isNaN(sourceCost)) {
+        	return false;
+        } else if (i == 1 && applicableCriteria != null && !applicableCriteria.isEmpty()) {
+        	List<Object> key = Arrays.asList(joinOrder[0], joinOrder[1]);
+        	Float depJoinCost = null;
+        	if (depCache != null && depCache.containsKey(key)) {
+    			depJoinCost = depCache.get(key);
+        	} else {
+            	Integer indIndex = (Integer)joinOrder[0];
+            	Map.Entry<PlanNode, PlanNode> indEntry = joinSourceEntries.get(indIndex.intValue());
+                PlanNode possibleInd = indEntry.getValue();
+                
+                depJoinCost = getDepJoinCost(metadata, capFinder, context, possibleInd, applicableCriteria, joinSourceRoot);
+                if (depCache == null) {
+                	depCache = new HashMap<List<Object>, Float>();
                 }
+                depCache.put(key, depJoinCost);
+        	}
+            if (depJoinCost != null) {
+            	sourceCost = depJoinCost;
             }
+        }
+    	
+    	if (i > 0 && (applicableCriteria == null || applicableCriteria.isEmpty()) && hasUnknown) {
+    		sourceCost *= 10; //cross join penalty
+    	}
+    
+    	double rightCost = cost;
+        cost *= sourceCost;
+        
+        if (cc != null && applicableCriteria != null && shouldFilter) {
+        	//filter based upon notion of join
+            List<Expression> leftExpressions = new ArrayList<Expression>();
+            List<Expression> rightExpressions = new ArrayList<Expression>();
+            HashSet<Criteria> nonEquiJoinCriteria = new HashSet<Criteria>();
+
+        	Collection<GroupSymbol> leftGroups = joinSourceRoot.getGroups();
             
-        	if (sourceCost == NewCalculateCostUtil.UNKNOWN_VALUE) {
-        		sourceCost = UNKNOWN_TUPLE_EST;
-        		hasUnknown = true;
-                if (cc != null) {
-                	shouldFilter = false;
-                	sourceCost = (float)cost;
-                	criteria.removeAll(applicableCriteria);
-            		if (NewCalculateCostUtil.usesKey(cc, metadata) || (i >= 1 && joinSourceRoot.hasProperty(Info.MAKE_DEP) && !joinSourceRoot.hasBooleanProperty(Info.MAKE_NOT_DEP))) {
-    	            	sourceCost = Math.min(UNKNOWN_TUPLE_EST, sourceCost * Math.min(NewCalculateCostUtil.UNKNOWN_JOIN_SCALING, sourceCost));
-            		} else {
-    	            	sourceCost = Math.min(UNKNOWN_TUPLE_EST, sourceCost * NewCalculateCostUtil.UNKNOWN_JOIN_SCALING * 8);
+            RuleChooseJoinStrategy.separateCriteria(leftGroups, rightGroups, leftExpressions, rightExpressions, cc.getCriteria(), nonEquiJoinCriteria);   
+            
+            if (!leftExpressions.isEmpty()) {
+				float leftNdv = NewCalculateCostUtil.getNDVEstimate(joinSourceRoot, metadata, sourceCost, leftExpressions, null);
+            	float rightNdv = NewCalculateCostUtil.UNKNOWN_VALUE;
+            	
+            	if (leftNdv != NewCalculateCostUtil.UNKNOWN_VALUE) {
+            		Set<GroupSymbol> usedRight = GroupsUsedByElementsVisitor.getGroups(rightExpressions);
+            		for (int j = 0; j < i; j++) {
+            			Entry<PlanNode, PlanNode> previousEntry = joinSourceEntries.get((int) joinOrder[j]);
+						if (previousEntry.getValue().getGroups().containsAll(usedRight)) {
+							rightNdv = NewCalculateCostUtil.getNDVEstimate(previousEntry.getValue(), metadata, sourceCost, rightExpressions, null);
+							break;
+						}
             		}
-                }
-            } else if (Double.isInfinite(sourceCost) || Double.isNaN(sourceCost)) {
-            	return Double.MAX_VALUE;
-            } else if (i == 1 && applicableCriteria != null && !applicableCriteria.isEmpty()) {
-            	List<Object> key = Arrays.asList(joinOrder[0], joinOrder[1]);
-            	Float depJoinCost = null;
-            	if (depCache != null && depCache.containsKey(key)) {
-        			depJoinCost = depCache.get(key);
+            	}
+            	
+            	if (leftNdv != NewCalculateCostUtil.UNKNOWN_VALUE && rightNdv != NewCalculateCostUtil.UNKNOWN_VALUE) {
+            		cost = (sourceCost / leftNdv) * (rightCost / rightNdv) * Math.min(leftNdv, rightNdv);
             	} else {
-	            	Integer indIndex = (Integer)joinOrder[0];
-	            	Map.Entry<PlanNode, PlanNode> indEntry = joinSourceEntries.get(indIndex.intValue());
-	                PlanNode possibleInd = indEntry.getValue();
-	                
-	                depJoinCost = getDepJoinCost(metadata, capFinder, context, possibleInd, applicableCriteria, joinSourceRoot);
-	                if (depCache == null) {
-	                	depCache = new HashMap<List<Object>, Float>();
-	                }
-	                depCache.put(key, depJoinCost);
+            		//check for a key
+            		//just use the default logic
+            		nonEquiJoinCriteria.clear();
             	}
-                if (depJoinCost != null) {
-                	sourceCost = depJoinCost;
-                }
+            } else {
+            	//just use the default logic
+            	nonEquiJoinCriteria.clear();
             }
         	
-        	if (i > 0 && (applicableCriteria == null || applicableCriteria.isEmpty()) && hasUnknown) {
-        		sourceCost *= 10; //cross join penalty
-        	}
-        
-        	double rightCost = cost;
-            cost *= sourceCost;
-            
-            if (cc != null && applicableCriteria != null && shouldFilter) {
-            	//filter based upon notion of join
-                leftExpressions.clear();
-                rightExpressions.clear();
-                nonEquiJoinCriteria.clear();
-
-            	Collection<GroupSymbol> leftGroups = joinSourceRoot.getGroups();
-                
-                RuleChooseJoinStrategy.separateCriteria(leftGroups, rightGroups, leftExpressions, rightExpressions, cc.getCriteria(), nonEquiJoinCriteria);   
+        	for (PlanNode criteriaNode : applicableCriteria) {
+        		Criteria crit = (Criteria) criteriaNode.getProperty(NodeConstants.Info.SELECT_CRITERIA);
+        		if (!nonEquiJoinCriteria.contains(crit)) {
+        			continue;
+        		}
+                float filter = ((Float)criteriaNode.getProperty(NodeConstants.Info.EST_SELECTIVITY)).floatValue();
                 
-                if (!leftExpressions.isEmpty()) {
-					float leftNdv = NewCalculateCostUtil.getNDVEstimate(joinSourceRoot, metadata, sourceCost, leftExpressions, null);
-                	float rightNdv = NewCalculateCostUtil.UNKNOWN_VALUE;
-                	
-                	if (leftNdv != NewCalculateCostUtil.UNKNOWN_VALUE) {
-                		Set<GroupSymbol> usedRight = GroupsUsedByElementsVisitor.getGroups(rightExpressions);
-                		for (int j = 0; j < i; j++) {
-                			Entry<PlanNode, PlanNode> previousEntry = joinSourceEntries.get((int) joinOrder[j]);
-							if (previousEntry.getValue().getGroups().containsAll(usedRight)) {
-								rightNdv = NewCalculateCostUtil.getNDVEstimate(previousEntry.getValue(), metadata, sourceCost, rightExpressions, null);
-								break;
-							}
-                		}
-                	}
-                	
-                	if (leftNdv != NewCalculateCostUtil.UNKNOWN_VALUE && rightNdv != NewCalculateCostUtil.UNKNOWN_VALUE) {
-                		cost = (sourceCost / leftNdv) * (rightCost / rightNdv) * Math.min(leftNdv, rightNdv);
-                	} else {
-                		//check for a key
-                		//just use the default logic
-                		nonEquiJoinCriteria.clear();
-                	}
-                } else {
-                	//just use the default logic
-                	nonEquiJoinCriteria.clear();
-                }
-            	
-            	for (PlanNode criteriaNode : applicableCriteria) {
-            		Criteria crit = (Criteria) criteriaNode.getProperty(NodeConstants.Info.SELECT_CRITERIA);
-            		if (!nonEquiJoinCriteria.contains(crit)) {
-            			continue;
-            		}
-                    float filter = ((Float)criteriaNode.getProperty(NodeConstants.Info.EST_SELECTIVITY)).floatValue();
-                    
-                    cost *= filter;
-                }
-                
-                criteria.removeAll(applicableCriteria);
+                cost *= filter;
             }
-            totalIntermediatCost += cost;
+            
+            criteria.removeAll(applicableCriteria);
         }
-        
-        return totalIntermediatCost;
+        state.cost = cost;
+        state.totalIntermediatCost += cost;
+        return true;
     }
 
 	private Float getDepJoinCost(QueryMetadataInterface metadata,
@@ -45,6 +45,8 @@ import org.teiid.query.optimizer.relational.plantree.NodeConstants;
 import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
 import org.teiid.query.optimizer.relational.plantree.NodeEditor;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
 import org.teiid.query.resolver.util.ResolverUtil;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.*;
@@ -71,6 +73,7 @@ public class NewCalculateCostUtil {
     private final static float compareTime = .0001f; //TODO: a better estimate would be based upon the number of conjuncts
     private final static float readTime = .001f; //TODO: should come from the connector
     private final static float procNewRequestTime = 1; //TODO: should come from the connector
+    private final static float hashTime = .0003f; //hashing and probing a row, which includes at least one comparison
     
     enum Stat {
     	NDV,
@@ -1004,12 +1007,20 @@ public class NewCalculateCostUtil {
             		}
                     return UNKNOWN_VALUE;
                 }
-                float ndv = getPredicateNDV(compCrit.getLeftExpression(), currentNode, childCost, metadata);
-                if (!EvaluatableVisitor.willBecomeConstant(compCrit.getRightExpression())) {
-                	float ndv1 = getPredicateNDV(compCrit.getRightExpression(), currentNode, childCost, metadata);
-                	ndv = (float) Math.sqrt(ndv * ndv1);
-                } 
-            	cost = childCost / ndv;
+                Float selectivity = null;
+                if (compCrit.getLeftExpression() instanceof ElementSymbol && compCrit.getRightExpression() instanceof Constant) {
+                	selectivity = ColumnDistribution.getEqualitySelectivity((ElementSymbol)compCrit.getLeftExpression(), (Constant)compCrit.getRightExpression(), metadata);
+                }
+                if (selectivity != null) {
+                	cost = childCost * selectivity;
+                } else {
+	                float ndv = getPredicateNDV(compCrit.getLeftExpression(), currentNode, childCost, metadata);
+	                if (!EvaluatableVisitor.willBecomeConstant(compCrit.getRightExpression())) {
+	                	float ndv1 = getPredicateNDV(compCrit.getRightExpression(), currentNode, childCost, metadata);
+	                	ndv = (float) Math.sqrt(ndv * ndv1);
+	                } 
+	            	cost = childCost / ndv;
+                }
                 if (compCrit.getOperator() == CompareCriteria.NE) {
                     isNegatedPredicateCriteria = true;
                 }
@@ -1038,9 +1049,14 @@ public class NewCalculateCostUtil {
                 return UNKNOWN_VALUE;
             }
             
-            float ndv = getPredicateNDV(setCriteria.getExpression(), currentNode, childCost, metadata);
-            
-            cost = childCost * setCriteria.getNumberOfValues() / ndv;
+            Float selectivity = getSetSelectivity(setCriteria, metadata);
+            if (selectivity != null) {
+            	cost = childCost * selectivity;
+            } else {
+	            float ndv = getPredicateNDV(setCriteria.getExpression(), currentNode, childCost, metadata);
+	            
+	            cost = childCost * setCriteria.getNumberOfValues() / ndv;
+            }
             
             isNegatedPredicateCriteria = setCriteria.isNegated();
             
@@ -1112,6 +1128,28 @@ public class NewCalculateCostUtil {
         return cost;
     }
     
+    /**
+     * Sum the most common value selectivities of the set values 
+     */
+    private static Float getSetSelectivity(SetCriteria setCriteria, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+    	if (!(setCriteria.getExpression() instanceof ElementSymbol)) {
+    		return null;
+    	}
+    	ElementSymbol element = (ElementSymbol)setCriteria.getExpression();
+    	float result = 0;
+    	for (Object value : setCriteria.getValues()) {
+    		if (!(value instanceof Constant)) {
+    			return null;
+    		}
+    		Float selectivity = ColumnDistribution.getEqualitySelectivity(element, (Constant)value, metadata);
+    		if (selectivity == null) {
+    			return null;
+    		}
+    		result += selectivity;
+    	}
+    	return result;
+    }
+    
     private static float getPredicateNDV(LanguageObject object, PlanNode currentNode, float childCost, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
         Collection<ElementSymbol> elements = ElementCollectorVisitor.getElements(object, true);
         
@@ -1168,6 +1206,11 @@ public class NewCalculateCostUtil {
         }
         ElementSymbol element = (ElementSymbol)compCrit.getLeftExpression();
         Class<?> dataType = compCrit.getRightExpression().getType();
+        
+        Float selectivity = ColumnDistribution.getRangeSelectivity(element, compCrit.getOperator(), (Constant)compCrit.getRightExpression(), metadata);
+        if (selectivity != null) {
+        	return childCost * selectivity;
+        }
     
         String max = (String)metadata.getMaximumValue(element.getMetadataID());
         String min = (String)metadata.getMinimumValue(element.getMetadataID());
@@ -1329,6 +1372,34 @@ public class NewCalculateCostUtil {
         return (float)Math.max(1, Math.log(x));
     }
     
+    /**
+     * Determine if a hash join should be used rather than sorting both sides of a merge join.
+     * 
+     * Only considered when neither side is already ordered.  If the cardinalities are unknown 
+     * the hash join is preferred as there is no ordering to take advantage of. 
+     */
+    static boolean isHashJoinPreferred(PlanNode joinNode, QueryMetadataInterface metadata, CommandContext context) 
+    		throws QueryMetadataException, TeiidComponentException {
+    	if (joinNode.getProperty(Info.SORT_LEFT) != SortOption.SORT || joinNode.getProperty(Info.SORT_RIGHT) != SortOption.SORT) {
+    		return false;
+    	}
+    	if (!HashJoinStrategy.isHashable((List<?>) joinNode.getProperty(Info.LEFT_EXPRESSIONS)) 
+    			|| !HashJoinStrategy.isHashable((List<?>) joinNode.getProperty(Info.RIGHT_EXPRESSIONS))) {
+    		return false;
+    	}
+    	float leftCost = computeCostForTree(joinNode.getFirstChild(), metadata);
+    	float rightCost = computeCostForTree(joinNode.getLastChild(), metadata);
+    	if (leftCost == UNKNOWN_VALUE || rightCost == UNKNOWN_VALUE) {
+    		return true;
+    	}
+    	if (Math.min(leftCost, rightCost) <= context.getProcessorBatchSize()) {
+    		return false; //the enhanced sort join will simply index the small side
+    	}
+    	float sortCost = (leftCost * safeLog(leftCost) + rightCost * safeLog(rightCost)) * compareTime;
+    	float hashCost = (leftCost + rightCost) * hashTime;
+    	return hashCost < sortCost;
+    }
+    
     /**
      * Computes the cost of a Dependent Join
      * 
@@ -1491,6 +1562,19 @@ public class NewCalculateCostUtil {
         return dca;
 	}
 	
+	/**
+	 * Compare fetching all of the dependent rows in a single query against issuing the remaining dependent queries
+	 * @param dependentCardinality the estimated cardinality of the dependent side without the dependent criteria
+	 * @param dependentQueries the number of remaining dependent queries
+	 * @return true if the full fetch is estimated to be cheaper
+	 */
+	public static boolean isFullFetchCheaper(float dependentCardinality, long dependentQueries) {
+		if (dependentCardinality == UNKNOWN_VALUE) {
+			return false;
+		}
+		return procNewRequestTime + dependentCardinality*readTime < dependentQueries*procNewRequestTime;
+	}
+	
 	private static float[] estimateCost(PlanNode accessNode, float setCriteriaBatchSize, boolean usesIndex, float depTargetCardinality, 
 			float indSymbolNDV, float dependentCardinality, float depSymbolNDV) {
         float dependentAccessCardinality = Math.min(depTargetCardinality, depTargetCardinality * indSymbolNDV / depSymbolNDV);
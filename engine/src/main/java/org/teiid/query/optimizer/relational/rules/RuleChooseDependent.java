@@ -378,6 +378,11 @@ public final class RuleChooseDependent implements OptimizerRule {
         }
 
         PlanNode crit = getDependentCriteriaNode(id, independentExpressions, dependentExpressions, indNode, metadata, dca, bound, makeDep);
+        DependentSetCriteria dsc = (DependentSetCriteria)crit.getProperty(Info.SELECT_CRITERIA);
+        if (dsc != null) {
+        	//used at runtime to determine if a full fetch is cheaper than the set processing
+        	dsc.setDependentCardinality(NewCalculateCostUtil.computeCostForTree(sourceNode, metadata));
+        }
         
         sourceNode.addAsParent(crit);
               
@@ -215,7 +215,15 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
 
 			boolean pushedRight = insertSort(joinNode.getLastChild(), rightExpressions, joinNode, metadata, capabilitiesFinder, pushRight, context);
         	if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
-        		joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.ENHANCED_SORT);
+        		if (context != null && context.getOptions().isUseHashJoin() 
+        				&& joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) == null
+        				&& !joinNode.hasBooleanProperty(Info.IS_SEMI_DEP)
+        				&& NewCalculateCostUtil.isHashJoinPreferred(joinNode, metadata, context)) {
+        			//neither side will be ordered, so a hash join avoids the processing sorts entirely
+        			joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+        		} else {
+        			joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.ENHANCED_SORT);
+        		}
         	}
         }
         
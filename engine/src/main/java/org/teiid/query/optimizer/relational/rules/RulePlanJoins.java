@@ -27,6 +27,9 @@ import java.util.*;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
@@ -82,7 +85,7 @@ import org.teiid.translator.ExecutionFactory.SupportedJoinCriteria;
  *         with a single access node.
  *         
  *  Stage 5.  The remaining join regions will be ordered in a left linear tree based
- *  upon a an exhaustive, or random, algorithm that considers costing and criteria information.
+ *  upon a an exhaustive, dynamic programming, or greedy algorithm that considers costing and criteria information.
  *   
  */
 public class RulePlanJoins implements OptimizerRule {
@@ -548,12 +551,25 @@ public class RulePlanJoins implements OptimizerRule {
         }
     }
     
+    /**
+     * The best (partial) left linear join order found for a set of join sources
+     */
+    private static class PartialOrder {
+    	Object[] order;
+    	JoinRegion.ScoreState state;
+    	long sources;
+    	long neighbors;
+    	PartialOrder alternative;
+    }
+    
     /**
      * The scoring algorithm is partially exhaustive and partially greedy.  For
      * regions up to the exhaustive search group size all possible left linear join
      * trees will be searched in O(n!) time.
      * 
-     * Beyond this number, every join will be determined greedily in O(n^2) time.
+     * Beyond this number the join orders are enumerated by {@link #enumerateJoinOrders} 
+     * within the join enumeration budget.  If the enumeration is disabled, a partially 
+     * exhaustive search is performed and every remaining join will be determined greedily in O(n^2) time.
      *  
      * TODO: this method together with scoreRegion have not been optimized 
      * 
@@ -565,6 +581,16 @@ public class RulePlanJoins implements OptimizerRule {
     Object[] findBestJoinOrder(JoinRegion region, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
         int regionCount = region.getJoinSourceNodes().size();
         
+        if (regionCount > EXHAUSTIVE_SEARCH_GROUPS && regionCount < Long.SIZE && context != null) {
+        	int budget = context.getOptions().getJoinEnumerationBudget();
+        	if (budget > 0) {
+        		Object[] result = enumerateJoinOrders(region, budget, metadata, capFinder, context);
+        		if (result != null) {
+        			return result;
+        		}
+        	}
+        }
+        
         List<Integer> orderList = new ArrayList<Integer>(regionCount);
         for(int i=0; i<regionCount; i++) {
             orderList.add(new Integer(i));
@@ -644,6 +670,165 @@ public class RulePlanJoins implements OptimizerRule {
         return result;
     }
     
+    /**
+     * Dynamic programming over the connected subsets of the join sources in the manner of DPccp,
+     * but restricted to left linear trees as that is what the region will be reconstructed as.
+     * <br>
+     * The cheapest order for each subset is kept and extended only by the sources that are 
+     * connected to it by join criteria.  Cross joins are only considered when no connected
+     * source remains.  Each costed join step counts against the budget - once it is spent 
+     * the cheapest order found so far is completed greedily.
+     * 
+     * @return the best order or null if no valid order was found
+     */
+    Object[] enumerateJoinOrders(JoinRegion region, int budget, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
+    	List<Map.Entry<PlanNode, PlanNode>> joinSourceEntries = new ArrayList<Map.Entry<PlanNode, PlanNode>>(region.getJoinSourceNodes().entrySet());
+    	int regionCount = joinSourceEntries.size();
+    	
+    	long[] neighbors = new long[regionCount];
+    	for (PlanNode critNode : region.getCriteriaNodes()) {
+    		long sources = 0;
+    		for (int i = 0; i < regionCount; i++) {
+    			if (!Collections.disjoint(critNode.getGroups(), joinSourceEntries.get(i).getValue().getGroups())) {
+    				sources |= 1l << i;
+    			}
+    		}
+    		if (Long.bitCount(sources) < 2) {
+    			continue;
+    		}
+    		for (int i = 0; i < regionCount; i++) {
+    			if ((sources & (1l << i)) != 0) {
+    				neighbors[i] |= sources & ~(1l << i);
+    			}
+    		}
+    	}
+    	
+    	int steps = 0;
+    	Map<Long, PartialOrder> current = new LinkedHashMap<Long, PartialOrder>();
+    	for (int i = 0; i < regionCount; i++) {
+    		steps++;
+    		PartialOrder partial = new PartialOrder();
+    		partial.order = new Object[0];
+    		partial.state = new JoinRegion.ScoreState(region);
+    		partial = extend(region, partial, i, neighbors, joinSourceEntries, metadata, capFinder, context);
+    		if (partial != null) {
+    			current.put(partial.sources, partial);
+    		}
+    	}
+    	
+    	//the last join is not an intermediate result, so stop one short
+    	for (int size = 2; size < regionCount && steps <= budget; size++) {
+    		Map<Long, PartialOrder> next = new LinkedHashMap<Long, PartialOrder>();
+    		for (PartialOrder best : current.values()) {
+    			for (PartialOrder partial = best; partial != null; partial = (partial == best ? best.alternative : null)) {
+	    			long candidates = getCandidates(partial, regionCount);
+	    			for (int i = 0; i < regionCount && steps <= budget; i++) {
+	    				if ((candidates & (1l << i)) == 0) {
+	    					continue;
+	    				}
+	    				steps++;
+	    				PartialOrder extended = extend(region, partial, i, neighbors, joinSourceEntries, metadata, capFinder, context);
+	    				if (extended != null) {
+	    					retain(next, extended);
+	    				}
+	    			}
+    			}
+    		}
+    		if (steps > budget) {
+    			//the level is incomplete
+    			break;
+    		}
+    		current = next;
+    	}
+    	
+    	PartialOrder best = null;
+    	for (PartialOrder partial : current.values()) {
+    		if (best == null || partial.state.totalIntermediatCost < best.state.totalIntermediatCost) {
+    			best = partial;
+    		}
+    	}
+    	
+    	if (best != null && steps > budget && LogManager.isMessageToBeRecorded(LogConstants.CTX_QUERY_PLANNER, MessageLevel.DETAIL)) {
+    		LogManager.logDetail(LogConstants.CTX_QUERY_PLANNER, "Join enumeration budget of", budget, "exceeded, greedily ordering the remaining", regionCount - best.order.length, "join sources"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	}
+    	
+    	while (best != null && best.order.length < regionCount - 1) {
+    		long candidates = getCandidates(best, regionCount);
+    		PartialOrder bestExtended = null;
+    		for (int i = 0; i < regionCount; i++) {
+    			if ((candidates & (1l << i)) == 0) {
+    				continue;
+    			}
+    			PartialOrder extended = extend(region, best, i, neighbors, joinSourceEntries, metadata, capFinder, context);
+    			if (extended != null && (bestExtended == null || extended.state.totalIntermediatCost < bestExtended.state.totalIntermediatCost)) {
+    				bestExtended = extended;
+    			}
+    		}
+    		best = bestExtended;
+    	}
+    	
+    	if (best == null) {
+    		return null;
+    	}
+    	Object[] result = Arrays.copyOf(best.order, regionCount);
+    	result[regionCount - 1] = Long.numberOfTrailingZeros(~best.sources);
+    	return result;
+    }
+
+    /**
+     * Keep the cheapest order for the set of sources.  Since the estimates are not
+     * entirely independent of the order, also keep the order with the smallest 
+     * intermediate result as an alternative.
+     */
+	private void retain(Map<Long, PartialOrder> orders, PartialOrder partial) {
+		PartialOrder existing = orders.get(partial.sources);
+		if (existing == null) {
+			orders.put(partial.sources, partial);
+			return;
+		}
+		PartialOrder smallest = existing.alternative != null ? existing.alternative : existing;
+		if (partial.state.totalIntermediatCost < existing.state.totalIntermediatCost) {
+			if (smallest.state.cost < partial.state.cost) {
+				partial.alternative = smallest;
+			}
+			orders.put(partial.sources, partial);
+		} else if (partial.state.cost < smallest.state.cost) {
+			existing.alternative = partial;
+		}
+	}
+
+    /**
+     * @return the sources connected to the partial order or all remaining sources if there are none
+     */
+	private long getCandidates(PartialOrder partial, int regionCount) {
+		long remaining = ((1l << regionCount) - 1) & ~partial.sources;
+		long candidates = partial.neighbors & remaining;
+		if (candidates == 0) {
+			return remaining;
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return the partial order extended by the given source or null if that is not valid
+	 */
+	private PartialOrder extend(JoinRegion region, PartialOrder partial, int source, long[] neighbors, 
+			List<Map.Entry<PlanNode, PlanNode>> joinSourceEntries, QueryMetadataInterface metadata, 
+			CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
+		Object[] order = Arrays.copyOf(partial.order, partial.order.length + 1);
+		order[partial.order.length] = source;
+		JoinRegion.ScoreState state = new JoinRegion.ScoreState(partial.state);
+		if (!region.scoreJoin(state, order, partial.order.length, joinSourceEntries, metadata, capFinder, context)) {
+			return null;
+		}
+		PartialOrder result = new PartialOrder();
+		result.order = order;
+		result.state = state;
+		result.sources = partial.sources | (1l << source);
+		result.neighbors = partial.neighbors | neighbors[source];
+		return result;
+	}
+    
     /** 
      * @see java.lang.Object#toString()
      */
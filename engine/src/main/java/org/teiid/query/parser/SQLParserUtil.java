@@ -458,6 +458,10 @@ public class SQLParserUtil {
     		c.setMinimumValue(null);
     	} else if (key.equals(DDLConstants.MAX_VALUE)) {
     		c.setMaximumValue(null);
+    	} else if (key.equals(DDLConstants.HISTOGRAM)) {
+    		c.setHistogram(null);
+    	} else if (key.equals(DDLConstants.MOST_COMMON_VALUES)) {
+    		c.setMostCommonValues(null);
     	} else if (key.equals(DDLConstants.CHAR_OCTET_LENGTH)) {
     		c.setCharOctetLength(0);
     	} else if (key.equals(DDLConstants.NULL_VALUE_COUNT)) {
@@ -518,6 +522,16 @@ public class SQLParserUtil {
     		c.setMaximumValue(v);
     	}
     	
+    	v = props.remove(DDLConstants.HISTOGRAM);
+    	if (v != null) {
+    		c.setHistogram(v);
+    	}
+    	
+    	v = props.remove(DDLConstants.MOST_COMMON_VALUES);
+    	if (v != null) {
+    		c.setMostCommonValues(v);
+    	}
+    	
     	v = props.remove(DDLConstants.CHAR_OCTET_LENGTH);
     	if (v != null) {
     		c.setCharOctetLength(Integer.parseInt(v));
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * A compact, probabilistic set membership filter.  A negative answer from {@link #mightContain(Object)}
+ * is exact, a positive answer may be a false positive at roughly the configured rate.
+ * <br>
+ * Values are hashed consistently with the engine comparison of non-lob runtime types, 
+ * so it is only valid as a pre-filter for an equi-join.
+ */
+public class BloomFilter {
+	
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = .01;
+	private static final double LN2 = Math.log(2);
+	private static final int MAX_BITS = 1 << 28;
+	
+	private final long[] bits;
+	private final int numBits;
+	private final int numHashes;
+	private long count;
+	
+	/**
+	 * Size the filter for the expected number of distinct entries and the desired false positive rate.
+	 * The size is capped at 2^28 bits. 
+	 */
+	public BloomFilter(long expectedEntries, double falsePositiveRate) {
+		long n = Math.max(1, expectedEntries);
+		long m = (long)Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+		m = Math.max(64, Math.min(MAX_BITS, m));
+		this.numBits = (int)((m + 63) & ~63);
+		this.numHashes = Math.max(1, (int)Math.round((double)numBits / n * LN2));
+		this.bits = new long[numBits >>> 6];
+	}
+	
+	/**
+	 * @return true if values of this type can be placed in the filter
+	 */
+	public static boolean isSupported(Class<?> type) {
+		if (type == DataTypeManager.DefaultDataClasses.STRING) {
+			//other comparisons are not consistent with the hashCode 
+			return !DataTypeManager.PAD_SPACE && DataTypeManager.COLLATION_LOCALE == null;
+		}
+		return Number.class.isAssignableFrom(type) 
+				|| type == DataTypeManager.DefaultDataClasses.BOOLEAN
+				|| type == DataTypeManager.DefaultDataClasses.CHAR
+				|| java.util.Date.class.isAssignableFrom(type);
+	}
+	
+	/**
+	 * Add a non-null value
+	 */
+	public void add(Object value) {
+		long hash = hash(value);
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			bits[index >>> 6] |= 1l << index;
+		}
+		count++;
+	}
+	
+	/**
+	 * @return false if the value was definitely not added.  null values are never contained. 
+	 */
+	public boolean mightContain(Object value) {
+		if (value == null) {
+			return false;
+		}
+		long hash = hash(value);
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			if ((bits[index >>> 6] & (1l << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	public int getNumBits() {
+		return numBits;
+	}
+	
+	public int getNumHashes() {
+		return numHashes;
+	}
+	
+	/**
+	 * @return the estimated heap size in bytes
+	 */
+	public int getSizeEstimate() {
+		return (bits.length << 3) + 40;
+	}
+	
+	static long hash(Object value) {
+		int hashCode = 0;
+		if (value instanceof BigDecimal) {
+			//scale is not considered by the comparison
+			BigDecimal bd = (BigDecimal)value;
+			if (bd.signum() != 0) {
+				hashCode = bd.stripTrailingZeros().hashCode();
+			}
+		} else if (value instanceof BigInteger || !(value instanceof Number)) {
+			hashCode = value.hashCode();
+		} else if (value instanceof Double || value instanceof Float) {
+			hashCode = value.hashCode();
+		} else {
+			//integral types of the same value should hash the same
+			hashCode = Long.valueOf(((Number)value).longValue()).hashCode();
+		}
+		//spread the bits
+		long h = hashCode * 0x9E3779B97F4A7C15l;
+		h ^= (h >>> 33);
+		h *= 0xff51afd7ed558ccdl;
+		h ^= (h >>> 33);
+		h *= 0xc4ceb9fe1a85ec53l;
+		h ^= (h >>> 33);
+		return h;
+	}
+
+}
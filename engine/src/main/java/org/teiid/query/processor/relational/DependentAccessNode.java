@@ -22,8 +22,14 @@
 
 package org.teiid.query.processor.relational;
 
+import static org.teiid.query.analysis.AnalysisRecord.*;
+
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+import org.teiid.client.plan.PlanNode;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.util.Assertion;
@@ -31,6 +37,8 @@ import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.util.SymbolMap;
 
 
 /**
@@ -56,6 +64,10 @@ public class DependentAccessNode extends AccessNode {
     private Command rewrittenCommand;
 	private boolean useBindings;
 	private boolean complexQuery;
+	private int[] filterIndexes;
+	private volatile BloomFilter[] filters;
+	private volatile long filteredRows;
+	private volatile List<String> strategies;
     
     public DependentAccessNode(int nodeID) {
         super(nodeID);
@@ -78,6 +90,10 @@ public class DependentAccessNode extends AccessNode {
         dependentCrit = null;
         sort = true;
         rewrittenCommand = null;
+        filterIndexes = null;
+        filters = null;
+        filteredRows = 0;
+        strategies = null;
     }
     
     @Override
@@ -142,10 +158,15 @@ public class DependentAccessNode extends AccessNode {
             this.criteriaProcessor.setPushdown(pushdown);
             this.criteriaProcessor.setUseBindings(useBindings);
             this.criteriaProcessor.setComplexQuery(complexQuery);
+            this.criteriaProcessor.setAdaptiveFactor(this.getContext().getOptions().getAdaptiveDependentJoinFactor());
         }
         
         if (this.dependentCrit == null) {
             dependentCrit = criteriaProcessor.prepareCriteria();
+            if (this.filters == null) {
+            	setBloomFilters(query, criteriaProcessor.getBloomFilters());
+            	this.strategies = criteriaProcessor.getStrategies();
+            }
         }
         
         query.setCriteria(dependentCrit);
@@ -184,6 +205,49 @@ public class DependentAccessNode extends AccessNode {
         return result;
     }
 
+    /**
+     * Determine the output positions of the dependent expressions to pre-filter
+     */
+    private void setBloomFilters(Query query, Map<Expression, BloomFilter> bloomFilters) {
+    	List<Expression> select = getOriginalSelect();
+    	if (select == null) {
+    		select = query.getSelect().getSymbols();
+    	}
+    	List<Integer> indexes = new ArrayList<Integer>(bloomFilters.size());
+    	List<BloomFilter> toApply = new ArrayList<BloomFilter>(bloomFilters.size());
+    	if (!this.getOutputElements().isEmpty()) {
+	    	for (Map.Entry<Expression, BloomFilter> entry : bloomFilters.entrySet()) {
+	    		for (int i = 0; i < select.size(); i++) {
+	    			if (SymbolMap.getExpression(select.get(i)).equals(entry.getKey())) {
+	    				indexes.add(i);
+	    				toApply.add(entry.getValue());
+	    				break;
+	    			}
+	    		}
+	    	}
+    	}
+    	this.filterIndexes = new int[indexes.size()];
+    	for (int i = 0; i < filterIndexes.length; i++) {
+    		filterIndexes[i] = indexes.get(i);
+    	}
+    	this.filters = toApply.toArray(new BloomFilter[toApply.size()]);
+    }
+    
+    @Override
+    protected void addBatchRow(List<?> row) {
+    	BloomFilter[] bloomFilters = this.filters;
+    	if (bloomFilters != null) {
+	    	for (int i = 0; i < bloomFilters.length; i++) {
+	    		if (!bloomFilters[i].mightContain(row.get(this.filterIndexes[i]))) {
+	    			//cannot match the independent side
+	    			filteredRows++;
+	    			return;
+	    		}
+	    	}
+    	}
+    	super.addBatchRow(row);
+    }
+
     /**
      * @see org.teiid.query.processor.relational.AccessNode#hasNextCommand()
      */
@@ -218,5 +282,19 @@ public class DependentAccessNode extends AccessNode {
 	public void setComplexQuery(boolean complexQuery) {
 		this.complexQuery = complexQuery;
 	}
+	
+	@Override
+	public PlanNode getDescriptionProperties() {
+		PlanNode props = super.getDescriptionProperties();
+		List<String> runtimeStrategies = this.strategies;
+		if (runtimeStrategies != null) {
+			props.addProperty(PROP_DEPENDENT_STRATEGY, runtimeStrategies);
+		}
+		BloomFilter[] bloomFilters = this.filters;
+		if (bloomFilters != null && bloomFilters.length > 0) {
+			props.addProperty(PROP_BLOOM_FILTERED_ROWS, String.valueOf(this.filteredRows));
+		}
+		return props;
+	}
 
 }
\ No newline at end of file
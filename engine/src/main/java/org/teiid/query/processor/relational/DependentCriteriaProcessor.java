@@ -26,10 +26,12 @@ import java.util.*;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.processor.relational.SortUtility.Mode;
@@ -46,6 +48,7 @@ import org.teiid.query.sql.symbol.Array;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.util.ValueIterator;
+import org.teiid.query.util.Options;
 
 
 public class DependentCriteriaProcessor {
@@ -66,6 +69,12 @@ public class DependentCriteriaProcessor {
         
         boolean overMax;
         
+        BloomFilter bloomFilter;
+        
+        boolean exceedsEstimate;
+        
+        boolean fullFetch;
+        
         long replacementSize() {
     		return replacement.size() * valueCount;
     	}
@@ -163,6 +172,7 @@ public class DependentCriteriaProcessor {
     private boolean pushdown;
     private boolean useBindings;
     private boolean complexQuery;
+    private int adaptiveFactor;
 
     //initialization state
     private List<Criteria> queryCriteria;
@@ -179,6 +189,8 @@ public class DependentCriteriaProcessor {
 	
 	private int totalPredicates;
 	private long maxSize;
+	private List<String> strategies;
+	private int reservedBuffers;
 
     public DependentCriteriaProcessor(int maxSetSize, int maxPredicates, RelationalNode dependentNode, Criteria dependentCriteria) throws ExpressionEvaluationException, TeiidComponentException {
         this.maxSetSize = maxSetSize;
@@ -237,6 +249,10 @@ public class DependentCriteriaProcessor {
         if (this.eval != null) {
         	this.eval.close();
         }
+        if (this.reservedBuffers > 0) {
+        	dependentNode.getBufferManager().releaseBuffers(this.reservedBuffers);
+        	this.reservedBuffers = 0;
+        }
     }
 
     public Criteria prepareCriteria() throws TeiidComponentException, TeiidProcessingException {
@@ -266,9 +282,12 @@ public class DependentCriteriaProcessor {
         		}
         	}
         	
+        	boolean exceedsEstimate = checkEstimates();
+        	
         	//determine push down handling
 			if (pushdown) {
 				List<Criteria> newCriteria = new ArrayList<Criteria>();
+				List<DependentSetCriteria> pushed = new ArrayList<DependentSetCriteria>();
 				long params = 0;
 				int sets = 0;
 				for (Criteria criteria : queryCriteria) {
@@ -291,6 +310,7 @@ public class DependentCriteriaProcessor {
 					if (dsc.getExpression() instanceof Array) {
 						cols = ((Array)dsc.getExpression()).getExpressions().size();
 					}
+					pushed.add(dsc);
 					dsc = dsc.clone();
 					//determine if this will be more than 1 source query
 					params += cols * dvs.getTupleBuffer().getRowCount();
@@ -301,14 +321,28 @@ public class DependentCriteriaProcessor {
 				}
 				int maxParamThreshold = 3; //TODO: see if this should be a source tunable parameter
 				                           //generally this value accounts for the additional overhead of temp table creation
-				if (params > maxParams && (sets > 1 || complexQuery || params > maxParams * maxParamThreshold)) {
+				if (params > maxParams && (sets > 1 || complexQuery || params > maxParams * maxParamThreshold || exceedsEstimate)) {
 					//use the pushdown only in limited scenarios
 					//only if we will produce more than two source queries
 					//and only if the we could produce a cross set or have a complex query
-					return Criteria.combineCriteria(newCriteria);
+					//or the independent side is much larger than expected
+					Criteria result = Criteria.combineCriteria(newCriteria);
+					recordStrategies(pushed);
+					return result;
+				}
+			}
+			
+			for (SetState state : setStates.values()) {
+				if (state.fullFetch) {
+					//rather than flooding the source with queries, fetch all with a bloom filter if possible
+					state.overMax = true;
 				}
 			}
 
+			buildBloomFilters();
+			
+			recordStrategies(null);
+
 			//proceed with set based processing
             phase = SET_PROCESSING;
         }
@@ -338,6 +372,156 @@ public class DependentCriteriaProcessor {
         return new CompoundCriteria(CompoundCriteria.AND, crits);
     }
     
+    /**
+     * Compare the number of source queries required by the actual independent values against
+     * the number expected from the planning estimate.
+     * @return true if any dependent set exceeds its estimate by more than the adaptive factor
+     */
+    private boolean checkEstimates() {
+    	if (this.adaptiveFactor <= 0 || this.maxSetSize <= 0) {
+    		return false;
+    	}
+    	long valuesPerQuery = (long)this.maxSetSize * Math.max(1, this.maxPredicates);
+    	boolean result = false;
+    	for (int i = 0; i < queryCriteria.size(); i++) {
+    		Criteria criteria = queryCriteria.get(i);
+    		if (!(criteria instanceof DependentSetCriteria)) {
+    			continue;
+    		}
+    		DependentSetCriteria dsc = (DependentSetCriteria)criteria;
+    		if (dsc.getNdv() == NewCalculateCostUtil.UNKNOWN_VALUE) {
+    			continue;
+    		}
+    		SetState state = setStates.get(i);
+    		long distinctCount = dependentState.get(dsc.getContextSymbol()).dvs.getTupleBuffer().getRowCount();
+    		long queries = queries(distinctCount * state.valueCount, valuesPerQuery);
+    		long expected = Math.max(1, queries((long)Math.ceil(dsc.getNdv()) * state.valueCount, valuesPerQuery));
+    		if (queries <= expected * this.adaptiveFactor) {
+    			continue;
+    		}
+    		state.exceedsEstimate = true;
+    		result = true;
+    		//only fetch everything if reading the dependent side is cheaper than the remaining queries
+    		state.fullFetch = NewCalculateCostUtil.isFullFetchCheaper(dsc.getDependentCardinality(), queries);
+    		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+    			LogManager.logDetail(LogConstants.CTX_DQP, dsc, "has", distinctCount, "independent values, but only", dsc.getNdv(), "were estimated.  Full fetch", state.fullFetch, "instead of", queries, "source queries."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    		}
+    	}
+    	return result;
+    }
+    
+    private static long queries(long values, long valuesPerQuery) {
+    	return values/valuesPerQuery + (values%valuesPerQuery!=0?1:0);
+    }
+    
+    /**
+     * Record how each dependent set is being processed
+     * @param pushed the pushed dependent sets if the pushdown is used
+     */
+    private void recordStrategies(List<DependentSetCriteria> pushed) {
+    	this.strategies = new ArrayList<String>();
+    	for (int i = 0; i < queryCriteria.size(); i++) {
+    		Criteria criteria = queryCriteria.get(i);
+    		if (!(criteria instanceof DependentSetCriteria)) {
+    			continue;
+    		}
+    		DependentSetCriteria dsc = (DependentSetCriteria)criteria;
+    		SetState state = setStates.get(i);
+    		String strategy = null;
+    		if (pushed != null) {
+    			strategy = "Full Fetch"; //$NON-NLS-1$
+    			for (DependentSetCriteria pushedCriteria : pushed) {
+    				if (pushedCriteria == dsc) {
+    					strategy = "Pushdown"; //$NON-NLS-1$
+    				}
+    			}
+    		} else if (state.bloomFilter != null) {
+    			strategy = "Bloom Filter"; //$NON-NLS-1$
+    		} else if (state.overMax) {
+    			strategy = "Full Fetch"; //$NON-NLS-1$
+    		} else {
+    			strategy = "Set Criteria"; //$NON-NLS-1$
+    		}
+    		StringBuilder sb = new StringBuilder();
+    		sb.append(dsc.getExpression()).append(' ').append(strategy).append(" - ") //$NON-NLS-1$
+    		.append(dependentState.get(dsc.getContextSymbol()).dvs.getTupleBuffer().getRowCount()).append(" independent values"); //$NON-NLS-1$
+    		if (dsc.getNdv() != NewCalculateCostUtil.UNKNOWN_VALUE) {
+    			sb.append(", estimated ").append((long)Math.ceil(dsc.getNdv())); //$NON-NLS-1$
+    		}
+    		this.strategies.add(sb.toString());
+		}
+    }
+    
+    /**
+     * @return the description of how each dependent set was processed, or null if not yet determined
+     */
+    public List<String> getStrategies() {
+		return strategies;
+	}
+    
+    /**
+     * Use a bloom filter of the independent values as a pre-filter for single valued sets
+     * that cannot be applied as criteria or that would require too many source queries.
+     */
+    private void buildBloomFilters() throws TeiidComponentException {
+    	if (dependentState.isEmpty()) {
+    		return;
+    	}
+    	Options options = dependentNode.getContext().getOptions();
+    	if (!options.isBloomFilterDependentJoin()) {
+    		return;
+    	}
+    	long maxValues = -1;
+    	if (options.getBloomFilterDependentJoinQueries() > 0 && this.maxSetSize > 0) {
+    		maxValues = (long)this.maxSetSize * Math.max(1, this.maxPredicates) * options.getBloomFilterDependentJoinQueries();
+    	}
+    	for (int i = 0; i < queryCriteria.size(); i++) {
+    		Criteria criteria = queryCriteria.get(i);
+    		if (!(criteria instanceof DependentSetCriteria)) {
+    			continue;
+    		}
+    		DependentSetCriteria dsc = (DependentSetCriteria)criteria;
+    		SetState state = setStates.get(i);
+    		if (state.valueCount != 1 || !BloomFilter.isSupported(dsc.getExpression().getType())) {
+    			continue;
+    		}
+    		long distinctCount = dependentState.get(dsc.getContextSymbol()).dvs.getTupleBuffer().getRowCount();
+    		if (!state.overMax && (maxValues < 0 || distinctCount <= maxValues)) {
+    			continue;
+    		}
+    		BloomFilter filter = new BloomFilter(distinctCount, BloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+    		//the filter is held in memory until the node is closed
+    		reservedBuffers += dependentNode.getBufferManager().reserveBuffers(filter.getSizeEstimate(), BufferReserveMode.FORCE);
+    		ValueIterator iter = state.valueIterator;
+    		while (iter.hasNext()) {
+    			Object value = iter.next();
+    			if (value != null) {
+    				filter.add(value);
+    			}
+    		}
+    		iter.reset();
+    		state.bloomFilter = filter;
+    		//the set will no longer be used as criteria
+    		state.overMax = true;
+    		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+    			LogManager.logDetail(LogConstants.CTX_DQP, "Using a bloom filter of", filter.getCount(), "values and", filter.getNumBits(), "bits for", dsc); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    		}
+		}
+    }
+    
+    /**
+     * @return the bloom filters by dependent expression to apply to the results
+     */
+    public Map<Expression, BloomFilter> getBloomFilters() {
+    	Map<Expression, BloomFilter> result = new LinkedHashMap<Expression, BloomFilter>();
+    	for (Map.Entry<Integer, SetState> entry : setStates.entrySet()) {
+    		if (entry.getValue().bloomFilter != null) {
+    			result.put(((AbstractSetCriteria)queryCriteria.get(entry.getKey())).getExpression(), entry.getValue().bloomFilter);
+    		}
+    	}
+    	return result;
+    }
+    
     public void consumedCriteria() {
         // flush only the value iterators starting at the restart index
         // it is only safe to do this after the super call to prepare command
@@ -522,4 +706,12 @@ public class DependentCriteriaProcessor {
 		this.complexQuery = complexQuery;
 	}
 	
+	/**
+	 * @param adaptiveFactor the factor by which the source queries for the actual independent 
+	 * values may exceed the estimate before abandoning the set processing, 0 to disable
+	 */
+	public void setAdaptiveFactor(int adaptiveFactor) {
+		this.adaptiveFactor = adaptiveFactor;
+	}
+	
 }
@@ -62,7 +62,7 @@ public class DupRemoveNode extends RelationalNode {
 				batch = this.getChildren()[0].nextBatch();
 			}
 			
-			List<List<?>> tuples = batch.getTuples();
+			List<List<?>> tuples = batch.getReadOnlyTuples();
 			for (;counter < tuples.size(); counter++) {
 				List<?> tuple = tuples.get(counter);
 				List<?> existing = stree.insert(tuple, InsertMode.NEW, -1);
@@ -0,0 +1,344 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.dqp.internal.process.DQPCore.CompletionListener;
+import org.teiid.dqp.internal.process.FutureWork;
+import org.teiid.dqp.internal.process.RequestWorkItem;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Processes the child branch on another thread and hands the batches to the parent
+ * through a bounded queue.  This allows the cpu intensive branches of a plan, such as
+ * the children of a union or join, to be processed in parallel with the rest of the plan.
+ * <br>
+ * The branch is submitted through the {@link RequestWorkItem} so that it is subject to the
+ * user request source concurrency and uses a {@link CommandContext#createParallelContext() parallel context}.
+ * <br>
+ * Similar to the {@link TextTableNode} the branch is processed until the queue is full,
+ * the branch blocks, or the branch is done.  The parent restarts the processing as batches
+ * are consumed and will block until a batch is available.
+ */
+public class ExchangeNode extends RelationalNode {
+
+	static final int MAX_QUEUED_BATCHES = 4;
+
+	/**
+	 * A single submission of the child for processing.
+	 * The state is guarded by the ExchangeNode.
+	 */
+	private final class Branch implements Callable<Void>, CompletionListener<Void> {
+		private RelationalNode child;
+		private CommandContext context;
+		private boolean blocked;
+
+		private Branch(RelationalNode child, CommandContext context) {
+			this.child = child;
+			this.context = context;
+		}
+
+		@Override
+		public Void call() throws TeiidComponentException, TeiidProcessingException {
+			CommandContext.pushThreadLocalContext(context);
+			try {
+				blocked = process(this);
+			} finally {
+				CommandContext.popThreadLocalContext();
+			}
+			return null;
+		}
+
+		@Override
+		public void onCompletion(FutureWork<Void> future) {
+			Throwable t = null;
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				t = e.getCause();
+			} catch (Throwable e) {
+				t = e;
+			}
+			completed(this, t);
+		}
+	}
+
+	private LinkedList<TupleBatch> queue = new LinkedList<TupleBatch>();
+	private Branch running;
+	private boolean pendingWork;
+	private boolean done;
+	private boolean closing;
+	private boolean closeDeferred;
+	private Determinism determinism;
+	private CommandContext branchContext;
+	private volatile TeiidRuntimeException asynchException;
+	private int reserved;
+
+	public ExchangeNode(int nodeID) {
+		super(nodeID);
+	}
+
+	@Override
+	public void open() throws TeiidComponentException, TeiidProcessingException {
+		//the branch has its own context so that it does not share unsafe state with the processing thread
+		this.branchContext = getContext().createParallelContext();
+		RelationalPlan.connectExternal(getChildren()[0], this.branchContext, getDataManager(), getBufferManager());
+		super.open();
+		//the queued batches are held in memory
+		if (reserved == 0) {
+			reserved = getBufferManager().reserveBuffers(getBufferManager().getSchemaSize(getOutputElements()) * MAX_QUEUED_BATCHES, BufferReserveMode.FORCE);
+		}
+		//start the branch so that it runs concurrently with its siblings
+		synchronized (this) {
+			processAsynch();
+		}
+	}
+
+	@Override
+	public void reset() {
+		synchronized (this) {
+			if (this.running != null) {
+				//the branch from the last execution will close its child when it stops
+				RelationalNode child = (RelationalNode)getChildren()[0].clone();
+				child.setParent(this);
+				getChildren()[0] = child;
+				this.running = null;
+			}
+			this.queue.clear();
+			this.done = false;
+			this.closing = false;
+			this.closeDeferred = false;
+			this.pendingWork = false;
+			this.determinism = null;
+			this.asynchException = null;
+		}
+		super.reset();
+	}
+
+	@Override
+	public List<? extends Expression> getOutputElements() {
+		return getChildren()[0].getOutputElements();
+	}
+
+	@Override
+	protected synchronized TupleBatch nextBatchDirect() throws BlockedException,
+			TeiidComponentException, TeiidProcessingException {
+		while (true) {
+			if (this.determinism != null) {
+				getContext().setDeterminismLevel(this.determinism);
+				this.determinism = null;
+			}
+
+			TupleBatch batch = this.queue.poll();
+			if (batch != null) {
+				processAsynch(); // read ahead
+				return batch;
+			}
+
+			unwrapException(asynchException);
+
+			boolean started = processAsynch();
+			if (started && running == null && (!this.queue.isEmpty() || asynchException != null)) {
+				//the executor ran the branch directly
+				continue;
+			}
+
+			if (this.getContext().getWorkItem() == null) {
+				//this is for compatibility with engine tests that are below the level of using the work item
+				while (running != null) {
+					try {
+						this.wait();
+					} catch (InterruptedException e) {
+						throw new TeiidRuntimeException(e);
+					}
+				}
+				if (!this.queue.isEmpty() || asynchException != null) {
+					continue;
+				}
+			}
+
+			if (!started) {
+				//ensure that we are woken up when the branch stops
+				this.pendingWork = true;
+			}
+			throw BlockedException.block("Blocking on results from a parallel branch", getID()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Start processing the branch if needed
+	 * @return true if processing was started
+	 */
+	private boolean processAsynch() {
+		if (running != null || done || closing || this.queue.size() >= MAX_QUEUED_BATCHES) {
+			return false;
+		}
+		final Branch branch = new Branch(getChildren()[0], this.branchContext);
+		running = branch;
+		pendingWork = false;
+		RequestWorkItem workItem = getContext().getWorkItem();
+		if (workItem != null) {
+			workItem.addWork(branch, branch, 100);
+			return true;
+		}
+		Executor executor = getContext().getExecutor();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Throwable t = null;
+				try {
+					branch.call();
+				} catch (Throwable e) {
+					t = e;
+				}
+				completed(branch, t);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Process the child until the queue is full
+	 * @return true if the child is blocked
+	 */
+	private boolean process(Branch branch) throws TeiidComponentException, TeiidProcessingException {
+		while (true) {
+			synchronized (this) {
+				if (running != branch || closing || this.queue.size() >= MAX_QUEUED_BATCHES) {
+					return false;
+				}
+			}
+			TupleBatch batch = null;
+			try {
+				batch = branch.child.nextBatch();
+			} catch (BlockedException e) {
+				return true;
+			}
+			synchronized (this) {
+				if (running != branch) {
+					//detached by a reset
+					return false;
+				}
+				this.queue.add(batch);
+				//the parent will apply the determinism to its context
+				this.determinism = branch.context.getDeterminismLevel();
+				if (batch.getTerminationFlag()) {
+					done = true;
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called by the branch thread when the branch stops processing
+	 */
+	private void completed(Branch branch, Throwable t) {
+		boolean notify = false;
+		boolean close = false;
+		synchronized (this) {
+			if (running == branch) {
+				running = null;
+				if (t != null) {
+					if (t instanceof TeiidRuntimeException) {
+						asynchException = (TeiidRuntimeException)t;
+					} else {
+						asynchException = new TeiidRuntimeException(t);
+					}
+				}
+				//if the branch is blocked, then it will be responsible for triggering more work
+				//unless the parent has already been woken up
+				notify = !branch.blocked || pendingWork || t != null;
+				close = closeDeferred;
+				closeDeferred = false;
+				this.notifyAll();
+			} else {
+				//detached by a reset
+				close = true;
+			}
+		}
+		if (close) {
+			try {
+				branch.child.close();
+			} catch (TeiidComponentException e) {
+				LogManager.logDetail(LogConstants.CTX_DQP, e, "Error closing parallel branch", getID()); //$NON-NLS-1$
+			}
+			branch.context.getTupleSourceCache().close();
+			return;
+		}
+		RequestWorkItem workItem = branch.context.getWorkItem();
+		if (notify && workItem != null) {
+			workItem.moreWork();
+		}
+	}
+
+	@Override
+	protected void closeChildren() throws TeiidComponentException {
+		synchronized (this) {
+			if (running != null) {
+				//the branch will close the child after the current batch rather than blocking here
+				closeDeferred = true;
+				return;
+			}
+		}
+		super.closeChildren();
+		if (this.branchContext != null) {
+			this.branchContext.getTupleSourceCache().close();
+		}
+	}
+
+	@Override
+	public void closeDirect() {
+		synchronized (this) {
+			this.closing = true;
+			this.queue.clear();
+		}
+		if (reserved > 0) {
+			getBufferManager().releaseBuffers(reserved);
+			reserved = 0;
+		}
+	}
+
+	@Override
+	public Object clone() {
+		ExchangeNode clonedNode = new ExchangeNode(super.getID());
+		super.copyTo(clonedNode);
+		return clonedNode;
+	}
+
+}
@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -38,6 +39,8 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
@@ -47,10 +50,14 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.language.SortSpecification.NullOrdering;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.aggregate.*;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.BatchCollector.BatchProducer;
+import org.teiid.query.processor.CollectionTupleSource;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.sql.LanguageObject;
@@ -121,7 +128,6 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
        
     // Sort phase
     private SortUtility sortUtility;
-    private TupleBuffer sortBuffer;
     private TupleSource groupTupleSource;
     
     // Group phase
@@ -135,12 +141,26 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private int[] accumulatorStateCount;
     private TupleSource groupSortTupleSource;
     private int[] projection;
+    
+    // Hash group
+    private boolean hashAggregate;
+    private Map<List<Object>, List<Object>> groups;
+    private int groupSchemaSize;
+    private int groupBatchSize;
+    private int capacity;
+    private int reserved;
+    private int pass;
+    private TupleBuffer[] spillPartitions;
+    private LinkedList<TupleBuffer> pendingPartitions;
 
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
     private static final int GROUP_SORT = 4;
     private static final int GROUP_SORT_OUTPUT = 5;
+    private static final int HASH_GROUP = 6;
+    
+    private static final int SPILL_PARTITIONS = 8;
 	private int[] indexes;
 	private boolean rollup;
 	private HashMap<Integer, Integer> indexMap;
@@ -155,11 +175,14 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         phase = COLLECTION;
                 
         sortUtility = null;
-        sortBuffer = null;
         
         lastRow = null;
         currentGroupTuple = null;
         
+        groups = null;
+        capacity = 0;
+        pass = 0;
+        
         if (this.functions != null) {
 	    	for (AggregateFunction[] functions : this.functions) {
 	    		for (AggregateFunction function : functions) {
@@ -177,6 +200,14 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		this.orderBy = orderBy;
 	}
     
+    /**
+     * Group using a hash table rather than sorting.  Should only be set
+     * if the output does not need to be ordered by the grouping columns.
+     */
+    public void setHashAggregate(boolean hashAggregate) {
+		this.hashAggregate = hashAggregate;
+	}
+    
     public void setOutputMapping(SymbolMap outputMapping) {
 		this.outputMapping = outputMapping;
 	}
@@ -366,6 +397,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         	groupSortPhase();
         }
         
+        if (this.phase == HASH_GROUP) {
+        	hashGroupPhase();
+        }
+        
         if (this.phase == GROUP_SORT_OUTPUT) {
         	return groupSortOutputPhase();
         }
@@ -463,12 +498,20 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 			    		schema.add(es);
 		    		}
 		    		
+		    		this.groupSortTupleSource = this.getGroupSortTupleSource();
+		    		
+		    		if (this.hashAggregate && HashJoinStrategy.isHashable(schema.subList(0, orderBy.size()))) {
+		    			this.groupSchemaSize = getBufferManager().getSchemaSize(schema);
+		    			this.groupBatchSize = getBufferManager().getProcessorBatchSize(schema);
+		    			this.phase = HASH_GROUP;
+		    			return;
+		    		}
+		    		
 		    		tree = this.getBufferManager().createSTree(schema, this.getConnectionID(), orderBy.size());
 		    		//non-default order needs to update the comparator
 		    		tree.getComparator().setNullOrdering(nullOrdering);
 		    		tree.getComparator().setOrderTypes(sortTypes);
 		    				
-		    		this.groupSortTupleSource = this.getGroupSortTupleSource();
 		    		this.phase = GROUP_SORT;
 		    		return;
         		}
@@ -476,6 +519,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         	
             this.sortUtility = new SortUtility(getGroupSortTupleSource(), removeDuplicates?Mode.DUP_REMOVE_SORT:Mode.SORT, getBufferManager(),
                     getConnectionID(), new ArrayList<Expression>(collectedExpressions.keySet()), sortTypes, nullOrdering, sortIndexes);
+            this.sortUtility.setExecutor(getContext().getExecutor());
             this.phase = SORT;
         }
     }
@@ -489,34 +533,135 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		List<?> tuple = null;
 		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
 			List<?> current = tree.find(tuple);
-			
-			boolean update = false;
-			List<Object> accumulated = new ArrayList<Object>();
-			//not all collected expressions are needed for the key
-			for (int i = 0; i < orderBy.size(); i++) {
-				accumulated.add(tuple.get(i));
-			}
+			List<Object> accumulated = accumulate(tuple, current);
+			tree.insert(accumulated, current != null?InsertMode.UPDATE:InsertMode.NEW, -1);
+		}
+		this.groupSortTupleSource.closeSource();
+		this.groupSortTupleSource = tree.getTupleSource(true);
+		this.phase = GROUP_SORT_OUTPUT;
+	}
+
+	/**
+	 * Create the grouping key and partial accumulator values for the tuple 
+	 * @param current the existing accumulated values for the group or null if this is a new group
+	 */
+	private List<Object> accumulate(List<?> tuple, List<?> current)
+			throws TeiidComponentException, TeiidProcessingException {
+		List<Object> accumulated = new ArrayList<Object>();
+		//not all collected expressions are needed for the key
+		for (int i = 0; i < orderBy.size(); i++) {
+			accumulated.add(tuple.get(i));
+		}
+		int index = orderBy.size();
+		for (int i = 0; i < this.groupSortfunctions.length; i++) {
+			AggregateFunction aggregateFunction = this.groupSortfunctions[i];
 			if (current != null) {
-				update = true;
+				aggregateFunction.setState(current, index);
+			} else {
+				aggregateFunction.reset();
 			}
-			int index = orderBy.size();
-			for (int i = 0; i < this.groupSortfunctions.length; i++) {
-				AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-				if (update) {
-					aggregateFunction.setState(current, index);
-				} else {
-					aggregateFunction.reset();
+			index+=this.accumulatorStateCount[i];
+			aggregateFunction.addInput(tuple, getContext());
+			aggregateFunction.getState(accumulated);
+		}
+		return accumulated;
+	}
+	
+	/**
+	 * Process the input and store the partial accumulator values in a hash table.
+	 * Once the memory for the table cannot be reserved, rows for new groups 
+	 * are spilled to partitions that are grouped in subsequent passes.
+	 * @throws TeiidComponentException
+	 * @throws TeiidProcessingException
+	 */
+	private void hashGroupPhase() throws TeiidComponentException, TeiidProcessingException {
+		if (this.groups == null) {
+			this.groups = new HashMap<List<Object>, List<Object>>();
+		}
+		List<?> tuple = null;
+		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+			List<Object> key = HashJoinStrategy.getKey(tuple, this.indexes, true);
+			List<Object> current = this.groups.get(key);
+			if (current == null && !reserveGroup()) {
+				if (this.spillPartitions == null) {
+					this.spillPartitions = new TupleBuffer[SPILL_PARTITIONS];
+					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+						LogManager.logDetail(LogConstants.CTX_DQP, "spilling hash aggregation after", this.groups.size(), "groups", getID()); //$NON-NLS-1$ //$NON-NLS-2$
+					}
 				}
-				index+=this.accumulatorStateCount[i];
-				aggregateFunction.addInput(tuple, getContext());
-				aggregateFunction.getState(accumulated);
+				int p = getPartition(key);
+				TupleBuffer partition = this.spillPartitions[p];
+				if (partition == null) {
+					partition = getBufferManager().createTupleBuffer(new ArrayList<Expression>(collectedExpressions.keySet()), getConnectionID(), TupleSourceType.PROCESSOR);
+					partition.setForwardOnly(true);
+					this.spillPartitions[p] = partition;
+				}
+				partition.addTuple(tuple);
+				continue;
 			}
-			tree.insert(accumulated, update?InsertMode.UPDATE:InsertMode.NEW, -1);
+			this.groups.put(key, accumulate(tuple, current));
 		}
 		this.groupSortTupleSource.closeSource();
-		this.groupSortTupleSource = tree.getTupleSource(true);
+		if (this.spillPartitions != null) {
+			if (this.pendingPartitions == null) {
+				this.pendingPartitions = new LinkedList<TupleBuffer>();
+			}
+			for (TupleBuffer partition : this.spillPartitions) {
+				if (partition != null) {
+					partition.close();
+					this.pendingPartitions.add(partition);
+				}
+			}
+			this.spillPartitions = null;
+		}
+		this.groupSortTupleSource = new CollectionTupleSource(this.groups.values().iterator());
 		this.phase = GROUP_SORT_OUTPUT;
 	}
+	
+	/**
+	 * Ensure that there is memory reserved for another group.
+	 * The first batch worth of groups is always allowed.
+	 * @return false if the group should be spilled
+	 */
+	private boolean reserveGroup() {
+		if (this.spillPartitions != null) {
+			//no new groups once spilling has started
+			return false;
+		}
+		if (this.groups.size() < this.capacity) {
+			return true;
+		}
+		int result = getBufferManager().reserveBuffers(this.groupSchemaSize, this.reserved == 0 ? BufferReserveMode.FORCE : BufferReserveMode.NO_WAIT);
+		this.reserved += result;
+		if (result < this.groupSchemaSize) {
+			return false;
+		}
+		this.capacity += this.groupBatchSize;
+		return true;
+	}
+	
+	private int getPartition(List<Object> key) {
+		//rehash with the pass so that spilled partitions are split on subsequent passes
+		int h = (key.hashCode() + this.pass) * 0x9E3779B9;
+		h ^= (h >>> 16);
+		return (h & Integer.MAX_VALUE) % SPILL_PARTITIONS;
+	}
+	
+	/**
+	 * Start grouping the next spilled partition
+	 * @return false if there are no more partitions
+	 */
+	private boolean nextHashPartition() {
+		if (this.pendingPartitions == null || this.pendingPartitions.isEmpty()) {
+			return false;
+		}
+		TupleBuffer partition = this.pendingPartitions.removeFirst();
+		this.groups.clear();
+		this.pass++;
+		this.groupSortTupleSource = partition.createIndexedTupleSource(true);
+		this.phase = HASH_GROUP;
+		return true;
+	}
 
 	/**
 	 * Walk the tree to produce the results
@@ -530,31 +675,36 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		List<?> tuple = null;
 		int size = orderBy.size();
 		List<Object> vals = Arrays.asList(new Object[size + groupSortfunctions.length]);
-		while ((tuple = groupSortTupleSource.nextTuple()) != null) {
-			for (int i = 0; i < size; i++) {
-				vals.set(i, tuple.get(i));
-			}
-			int index = size;
-			for (int i = 0; i < this.groupSortfunctions.length; i++) {
-				AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-				aggregateFunction.setState(tuple, index);
-				index+=this.accumulatorStateCount[i];
-				vals.set(size + i, aggregateFunction.getResult(getContext()));
+		while (true) {
+			while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+				for (int i = 0; i < size; i++) {
+					vals.set(i, tuple.get(i));
+				}
+				int index = size;
+				for (int i = 0; i < this.groupSortfunctions.length; i++) {
+					AggregateFunction aggregateFunction = this.groupSortfunctions[i];
+					aggregateFunction.setState(tuple, index);
+					index+=this.accumulatorStateCount[i];
+					vals.set(size + i, aggregateFunction.getResult(getContext()));
+				}
+				List<?> result = RelationalNode.projectTuple(projection, vals);
+				addBatchRow(result);
+				if (isBatchFull()) {
+					return pullBatch();
+				}
 			}
-			List<?> result = RelationalNode.projectTuple(projection, vals);
-			addBatchRow(result);
-			if (isBatchFull()) {
-				return pullBatch();
+			if (this.groups == null || !nextHashPartition()) {
+				break;
 			}
+			hashGroupPhase();
 		}
 		terminateBatches();
 		return pullBatch();
 	}
 
     private void sortPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
-        this.sortBuffer = this.sortUtility.sort();
-        this.sortBuffer.setForwardOnly(true);
-        this.groupTupleSource = this.sortBuffer.createIndexedTupleSource();
+        //the final merge is performed as the groups are read
+        this.groupTupleSource = this.sortUtility.sortStreaming(-1);
         this.phase = GROUP;
     }
 
@@ -662,10 +812,6 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     }
 
     public void closeDirect() {
-    	if (this.sortBuffer != null) {
-    		this.sortBuffer.remove();
-    		this.sortBuffer = null;
-    	}
     	if (this.sortUtility != null) {
     		this.sortUtility.remove();
     		this.sortUtility = null;
@@ -674,6 +820,25 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     		this.tree.remove();
     		this.tree = null;
     	}
+    	this.groups = null;
+    	if (this.spillPartitions != null) {
+    		for (TupleBuffer partition : this.spillPartitions) {
+    			if (partition != null) {
+    				partition.remove();
+    			}
+    		}
+    		this.spillPartitions = null;
+    	}
+    	if (this.pendingPartitions != null) {
+    		for (TupleBuffer partition : this.pendingPartitions) {
+    			partition.remove();
+    		}
+    		this.pendingPartitions = null;
+    	}
+    	if (this.reserved > 0) {
+    		getBufferManager().releaseBuffers(this.reserved);
+    		this.reserved = 0;
+    	}
     }
 
 	protected void getNodeString(StringBuffer str) {
@@ -691,6 +856,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		clonedNode.outputMapping = outputMapping;
 		clonedNode.orderBy = orderBy;
 		clonedNode.rollup = rollup;
+		clonedNode.hashAggregate = hashAggregate;
 		return clonedNode;
 	}
 
@@ -717,6 +883,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
         	props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (hashAggregate) {
+        	props.addProperty(PROP_HASH_AGGREGATION, Boolean.TRUE.toString());
+        }
         return props;
     }
 
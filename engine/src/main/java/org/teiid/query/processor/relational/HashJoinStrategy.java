@@ -0,0 +1,453 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.Expression;
+
+
+/**
+ * HashJoinStrategy supports Inner, Left Outer, Semi, and Anti-Semi Joins (containing non-equi join criteria) as long as there
+ * is at least one equi-join criteria.
+ *
+ * The build side is loaded into an in-memory hash table keyed by the join expressions, which is then probed
+ * by the other side without sorting either input.  Inner joins build on the smaller side, all other join types build on the right.
+ *
+ * If the build side cannot be reserved in memory a hybrid approach is used - the first hash partition is kept in memory
+ * and the remaining partitions of both sides are spilled to {@link TupleBuffer}s and then joined one pair at a time.
+ *
+ * Degrades to a sort merge join if the join expressions cannot be hashed consistently with the engine comparison
+ * or if a single partitioning pass would not be sufficient.  Only a single partitioning pass is performed, so a skewed
+ * partition that is larger than the reserved memory is still loaded into memory in its entirety.
+ */
+public class HashJoinStrategy extends MergeJoinStrategy {
+
+	private SourceState buildSource;
+	private SourceState probeSource;
+	private boolean buildLeft;
+	private boolean degraded;
+	private boolean loaded;
+	private long[] attempts = new long[2];
+
+	private Map<List<Object>, List<List<?>>> table;
+	private TupleBuffer buildBuffer;
+	private int partitionCount;
+	private int partition;
+	private TupleBuffer[] buildPartitions;
+	private TupleBuffer[] probePartitions;
+
+	//probe state
+	private TupleSource probeTs;
+	private List<?> probeTuple;
+	private List<List<?>> matches;
+	private int matchIndex;
+	private boolean matched;
+	private boolean probeDone;
+
+	public HashJoinStrategy(SortOption sortLeft, SortOption sortRight) {
+		super(sortLeft, sortRight, false);
+	}
+
+	/**
+	 * Return true if values of the given type have equals/hashCode semantics consistent
+	 * with {@link org.teiid.query.sql.symbol.Constant#COMPARATOR}
+	 */
+	public static boolean isHashable(Class<?> type) {
+		if (type == DataTypeManager.DefaultDataClasses.STRING || type == DataTypeManager.DefaultDataClasses.CHAR) {
+			return DataTypeManager.COLLATION_LOCALE == null;
+		}
+		return type == DataTypeManager.DefaultDataClasses.INTEGER
+				|| type == DataTypeManager.DefaultDataClasses.LONG
+				|| type == DataTypeManager.DefaultDataClasses.SHORT
+				|| type == DataTypeManager.DefaultDataClasses.BYTE
+				|| type == DataTypeManager.DefaultDataClasses.BOOLEAN
+				|| type == DataTypeManager.DefaultDataClasses.BIG_INTEGER
+				|| type == DataTypeManager.DefaultDataClasses.BIG_DECIMAL
+				|| type == DataTypeManager.DefaultDataClasses.FLOAT
+				|| type == DataTypeManager.DefaultDataClasses.DOUBLE
+				|| type == DataTypeManager.DefaultDataClasses.DATE
+				|| type == DataTypeManager.DefaultDataClasses.TIME
+				|| type == DataTypeManager.DefaultDataClasses.TIMESTAMP
+				|| type == DataTypeManager.DefaultDataClasses.VARBINARY;
+	}
+
+	public static boolean isHashable(List<?> expressions) {
+		for (Object ex : expressions) {
+			if (!isHashable(((Expression)ex).getType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public HashJoinStrategy clone() {
+		return new HashJoinStrategy(this.sortLeft, this.sortRight);
+	}
+
+	@Override
+	public void close() {
+		if (joinNode == null) {
+			return;
+		}
+		super.close();
+		this.table = null;
+		this.probeTs = null;
+		this.probeTuple = null;
+		this.matches = null;
+		this.buildBuffer = null;
+		removePartitions(this.buildPartitions);
+		removePartitions(this.probePartitions);
+		this.buildPartitions = null;
+		this.probePartitions = null;
+	}
+
+	private void removePartitions(TupleBuffer[] partitions) {
+		if (partitions == null) {
+			return;
+		}
+		for (TupleBuffer tb : partitions) {
+			if (tb != null) {
+				tb.remove();
+			}
+		}
+	}
+
+	@Override
+	protected void loadLeft() throws TeiidComponentException,
+			TeiidProcessingException {
+		//the left is not loaded until the build side is chosen
+	}
+
+	@Override
+	protected void loadRight() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.loaded) {
+			return;
+		}
+		if (this.degraded || !isHashable(this.joinNode.getLeftExpressions()) || !isHashable(this.joinNode.getRightExpressions())) {
+			degrade();
+			return;
+		}
+		if (this.buildSource == null) {
+			chooseBuildSource();
+		}
+		TupleBuffer buffer = this.buildSource.getTupleBuffer();
+		BufferManager bm = this.joinNode.getBufferManager();
+		int schemaSize = bm.getSchemaSize(this.buildSource.getSource().getOutputElements());
+		long batches = buffer.getRowCount() / Math.max(1, this.buildSource.getSource().getBatchSize()) + 1;
+		long needed = batches * schemaSize;
+		int available = Math.max(schemaSize, bm.getMaxProcessingSize());
+		if (needed <= available) {
+			this.reserved += bm.reserveBuffers((int)needed, BufferReserveMode.FORCE);
+		} else {
+			int result = 0;
+			if (needed < Integer.MAX_VALUE) {
+				result = bm.reserveBuffersBlocking((int)needed, attempts, false);
+			}
+			if (result == 0) {
+				long count = needed / available + 1;
+				//each partition holds a batch of each side in memory while being written
+				if (count * 2 * schemaSize > available) {
+					degrade();
+					return;
+				}
+				this.partitionCount = (int)count;
+				result = bm.reserveBuffers(available, BufferReserveMode.FORCE);
+			}
+			this.reserved += result;
+		}
+		if (this.partitionCount > 0) {
+			this.buildPartitions = new TupleBuffer[this.partitionCount];
+			this.probePartitions = new TupleBuffer[this.partitionCount];
+			for (int i = 1; i < this.partitionCount; i++) {
+				this.buildPartitions[i] = this.buildSource.createSourceTupleBuffer();
+				this.buildPartitions[i].setForwardOnly(true);
+				this.probePartitions[i] = this.probeSource.createSourceTupleBuffer();
+				this.probePartitions[i].setForwardOnly(true);
+			}
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+				LogManager.logDetail(LogConstants.CTX_DQP, "using a partitioned hash join with", this.partitionCount, "partitions", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		this.table = new HashMap<List<Object>, List<List<?>>>();
+		TupleSource ts = buffer.createIndexedTupleSource(!this.joinNode.isDependent());
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			List<Object> key = getKey(tuple, indexes);
+			if (key == null) {
+				continue; //nulls cannot match
+			}
+			if (this.partitionCount > 0) {
+				int p = getPartition(key);
+				if (p != 0) {
+					this.buildPartitions[p].addTuple(tuple);
+					continue;
+				}
+			}
+			addToTable(key, tuple);
+		}
+		ts.closeSource();
+		if (this.joinNode.isDependent()) {
+			//the dependent value source may still need the buffer
+			this.buildBuffer = buffer;
+		} else {
+			buffer.remove();
+		}
+		if (this.buildPartitions != null) {
+			for (int i = 1; i < this.partitionCount; i++) {
+				this.buildPartitions[i].close();
+			}
+		}
+		this.loaded = true;
+	}
+
+	private void addToTable(List<Object> key, List<?> tuple) {
+		List<List<?>> values = this.table.get(key);
+		if (values == null) {
+			values = new ArrayList<List<?>>(2);
+			this.table.put(key, values);
+		}
+		values.add(tuple);
+	}
+
+	/**
+	 * For inner joins use the smaller side as the build side.
+	 * The sizes are determined incrementally so that the larger side is not fully buffered.
+	 */
+	private void chooseBuildSource() throws TeiidComponentException, TeiidProcessingException {
+		if (this.joinNode.getJoinType() == JoinType.JOIN_INNER) {
+			long size = this.joinNode.getBatchSize();
+			while (size < Integer.MAX_VALUE) {
+				if (this.rightSource.rowCountLE(size)) {
+					break;
+				}
+				if (this.leftSource.rowCountLE(size)) {
+					this.buildLeft = true;
+					break;
+				}
+				size *= 2;
+			}
+		}
+		if (this.buildLeft) {
+			this.buildSource = this.leftSource;
+			this.probeSource = this.rightSource;
+		} else {
+			this.buildSource = this.rightSource;
+			this.probeSource = this.leftSource;
+		}
+	}
+
+	private void degrade() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (!this.degraded) {
+			this.degraded = true;
+			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+				LogManager.logDetail(LogConstants.CTX_DQP, "degrading hash join to merge join", this.joinNode.getID()); //$NON-NLS-1$
+			}
+		}
+		//the sorts may block, in which case the load is resumed on the next call
+		super.loadRight();
+		super.loadLeft();
+		this.loaded = true;
+	}
+
+	/**
+	 * Get the normalized key values or null if any are null.
+	 */
+	static List<Object> getKey(List<?> tuple, int[] indexes) {
+		return getKey(tuple, indexes, false);
+	}
+
+	/**
+	 * Get the normalized key values.  If nullsMatch is false, then null is returned if any value is null.
+	 */
+	static List<Object> getKey(List<?> tuple, int[] indexes, boolean nullsMatch) {
+		Object[] key = new Object[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			Object value = tuple.get(indexes[i]);
+			if (value == null) {
+				if (nullsMatch) {
+					continue;
+				}
+				return null;
+			}
+			if (value instanceof String) {
+				if (DataTypeManager.PAD_SPACE) {
+					value = FunctionMethods.rightTrim((String)value, ' ', false);
+				}
+			} else if (value instanceof BigDecimal) {
+				BigDecimal bd = (BigDecimal)value;
+				if (bd.signum() == 0) {
+					value = BigDecimal.ZERO;
+				} else {
+					value = bd.stripTrailingZeros();
+				}
+			}
+			key[i] = value;
+		}
+		return Arrays.asList(key);
+	}
+
+	private int getPartition(List<Object> key) {
+		//rehash so that the partition is independent of the hash table bucket
+		int h = key.hashCode() * 0x9E3779B9;
+		h ^= (h >>> 16);
+		return (h & Integer.MAX_VALUE) % this.partitionCount;
+	}
+
+	/**
+	 * Move to the next spilled partition
+	 * @return false if there are no more partitions
+	 */
+	private boolean nextPartition() throws TeiidComponentException, TeiidProcessingException {
+		if (this.partitionCount == 0) {
+			return false;
+		}
+		if (this.partition == 0) {
+			for (int i = 1; i < this.partitionCount; i++) {
+				this.probePartitions[i].close();
+			}
+		} else {
+			this.buildPartitions[this.partition].remove();
+			this.buildPartitions[this.partition] = null;
+			this.probePartitions[this.partition].remove();
+			this.probePartitions[this.partition] = null;
+		}
+		this.table.clear();
+		if (++this.partition >= this.partitionCount) {
+			return false;
+		}
+		TupleSource ts = this.buildPartitions[this.partition].createIndexedTupleSource(true);
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			addToTable(getKey(tuple, indexes), tuple);
+		}
+		ts.closeSource();
+		this.probeTs = this.probePartitions[this.partition].createIndexedTupleSource(true);
+		return true;
+	}
+
+	@Override
+	protected void process() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.degraded) {
+			super.process();
+			return;
+		}
+		if (this.probeDone) {
+			return;
+		}
+		if (this.probeTs == null) {
+			this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+			this.probeTs = this.probeSource.getIterator();
+		}
+		JoinType joinType = this.joinNode.getJoinType();
+		boolean singleMatch = joinType == JoinType.JOIN_SEMI || joinType == JoinType.JOIN_ANTI_SEMI;
+		while (true) {
+			if (this.probeTuple == null) {
+				List<?> tuple = this.probeTs.nextTuple();
+				if (tuple == null) {
+					if (!nextPartition()) {
+						this.probeDone = true;
+						if (this.buildBuffer != null) {
+							this.buildBuffer.remove();
+							this.buildBuffer = null;
+						}
+						return;
+					}
+					continue;
+				}
+				List<Object> key = getKey(tuple, this.probeSource.getExpressionIndexes());
+				if (key != null && this.partitionCount > 0 && this.partition == 0) {
+					int p = getPartition(key);
+					if (p != 0) {
+						this.probePartitions[p].addTuple(tuple);
+						continue;
+					}
+				}
+				this.probeTuple = tuple;
+				this.matches = key == null?null:this.table.get(key);
+				this.matchIndex = 0;
+				this.matched = false;
+			}
+			if (this.matches != null && this.matchIndex < this.matches.size() && !(this.matched && singleMatch)) {
+				List<?> buildTuple = this.matches.get(this.matchIndex);
+				List<?> outputTuple = this.buildLeft?outputTuple(buildTuple, this.probeTuple):outputTuple(this.probeTuple, buildTuple);
+				boolean match = this.joinNode.matchesCriteria(outputTuple);
+				this.matchIndex++;
+				if (match) {
+					this.matched = true;
+					if (joinType != JoinType.JOIN_ANTI_SEMI) {
+						this.joinNode.addBatchRow(outputTuple);
+					}
+				}
+				continue;
+			}
+			List<?> tuple = this.probeTuple;
+			this.probeTuple = null;
+			this.matches = null;
+			if (!this.matched && (joinType == JoinType.JOIN_LEFT_OUTER || joinType == JoinType.JOIN_ANTI_SEMI)) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+	}
+
+	@Override
+	public String getName() {
+		StringBuilder result = new StringBuilder("HASH JOIN"); //$NON-NLS-1$
+		if (this.degraded) {
+			result.append(" RAN AS SORT MERGE"); //$NON-NLS-1$
+		} else if (this.partitionCount > 0) {
+			result.append(" RAN PARTITIONED"); //$NON-NLS-1$
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+}
@@ -30,6 +30,7 @@ import java.util.List;
 
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -87,9 +88,9 @@ public class LimitNode extends RelationalNode {
             List<List<?>> tuples = null;
             
             if (rowCounter > offset) {
-                List<List<?>> originalTuples = batch.getTuples();
+                List<List<?>> originalTuples = batch.getReadOnlyTuples();
                 int rowsToKeep = rowCounter - offset;
-                tuples = new ArrayList<List<?>>(originalTuples.subList(batch.getRowCount() - rowsToKeep, batch.getRowCount()));
+                tuples = subList(originalTuples, batch.getRowCount() - rowsToKeep, batch.getRowCount());
             } else {
                 tuples = Collections.emptyList();
             }
@@ -106,11 +107,11 @@ public class LimitNode extends RelationalNode {
         
         if (limit < 0 || rowCounter + batch.getRowCount() <= limit) {
             // Passthrough
-           tuples = batch.getTuples();
+           tuples = batch.getReadOnlyTuples();
         } else {
             // Partial batch
-            List<List<?>> originalTuples = batch.getTuples();
-            tuples = new ArrayList<List<?>>(originalTuples.subList(0, limit - rowCounter));
+            List<List<?>> originalTuples = batch.getReadOnlyTuples();
+            tuples = subList(originalTuples, 0, limit - rowCounter);
         }
         
         TupleBatch resultBatch = new TupleBatch(rowCounter+1, tuples);
@@ -122,6 +123,14 @@ public class LimitNode extends RelationalNode {
         return resultBatch;
     }
     
+    private static List<List<?>> subList(List<List<?>> tuples, int fromIndex, int toIndex) {
+    	if (tuples instanceof ColumnarBatch) {
+    		//slice without materializing the tuples
+    		return ((ColumnarBatch)tuples).subList(fromIndex, toIndex);
+    	}
+    	return new ArrayList<List<?>>(tuples.subList(fromIndex, toIndex));
+    }
+    
     public void open() throws TeiidComponentException, TeiidProcessingException {
     	limit = -1;
     	if (limitExpr != null) {
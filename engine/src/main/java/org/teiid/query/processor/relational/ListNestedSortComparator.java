@@ -148,24 +148,34 @@ public class ListNestedSortComparator<T extends Comparable<? super T>> implement
      * @param o2 The second object being compared
      */
     
+    /**
+     * Setup the null ordering.  Should be called prior to concurrent use.
+     */
+    void initialize() {
+    	if (init) {
+    		return;
+    	}
+		if (nullOrdering == null) {
+			nullOrdering = Collections.nCopies(sortParameters.length, null);
+		}
+		for (int i = 0; i < sortParameters.length; i++) {
+			if (nullOrdering.get(i) == null) {
+				if (defaultNullOrder == NullOrder.FIRST) {
+					nullOrdering.set(i, NullOrdering.FIRST);
+				} else if (defaultNullOrder == NullOrder.LAST) {
+					nullOrdering.set(i, NullOrdering.LAST);
+				}
+			}
+		}
+		if (defaultNullOrder == NullOrder.HIGH) {
+			nullValue = 1;
+		}
+		init = true;
+    }
+    
     public int compare(java.util.List<T> list1, java.util.List<T> list2) {
     	if (!init) {
-    		if (nullOrdering == null) {
-    			nullOrdering = Collections.nCopies(sortParameters.length, null);
-    		}
-    		for (int i = 0; i < sortParameters.length; i++) {
-    			if (nullOrdering.get(i) == null) {
-    				if (defaultNullOrder == NullOrder.FIRST) {
-    					nullOrdering.set(i, NullOrdering.FIRST);
-    				} else if (defaultNullOrder == NullOrder.LAST) {
-    					nullOrdering.set(i, NullOrdering.LAST);
-    				}
-    			}
-    		}
-    		if (defaultNullOrder == NullOrder.HIGH) {
-    			nullValue = 1;
-    		}
-    		init = true;
+    		initialize();
     	}
         int compare = 0;
         for (int k = 0; k < sortParameters.length; k++) {
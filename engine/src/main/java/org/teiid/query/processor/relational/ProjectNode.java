@@ -34,11 +34,13 @@ import java.util.Map;
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -56,6 +58,8 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private boolean needsProject = true;
     private List<Expression> expressions;
     private int[] projectionIndexes;
+    //shared with the clones so that the expressions are compiled once per plan
+    private CompiledExpression[] compiledExpressions;
 
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
@@ -94,6 +98,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     	for (Expression ses : this.selectSymbols) {
 			this.expressions.add(SymbolMap.getExpression(ses));
 		}
+    	this.compiledExpressions = new CompiledExpression[this.selectSymbols.size()];
 	}
 	
 	@Override
@@ -158,6 +163,22 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             }
         }
 
+        ColumnarBatch columnar = currentBatch.getColumnarBatch();
+        if (columnar != null && currentRow == currentBatch.getBeginRow() && !hasPendingRows() && isElementsOnly()) {
+        	//project the columns without materializing the tuples
+        	if (currentBatch.getTerminationFlag()) {
+        		terminateBatches();
+        	}
+        	currentRow += currentBatch.getRowCount();
+        	currentBatch = null;
+        	return pullBatch(columnar.project(projectionIndexes));
+        }
+
+        CompiledExpression[] compiled = null;
+        if (getContext().getOptions().isUseCompiledExpressions()) {
+        	compiled = getCompiledExpressions();
+        }
+
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
     		List<?> tuple = currentBatch.getTuple(currentRow);
 
@@ -166,7 +187,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 			// Walk through symbols
             for(int i=0; i<expressions.size(); i++) {
 				Expression symbol = expressions.get(i);
-				updateTuple(symbol, i, tuple, projectedTuple);
+				updateTuple(symbol, i, tuple, projectedTuple, compiled);
 			}
 
             // Add to batch
@@ -184,12 +205,32 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     	return pullBatch();
 	}
 
-	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
+	private boolean isElementsOnly() {
+		for (int index : projectionIndexes) {
+			if (index == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private CompiledExpression[] getCompiledExpressions() {
+		for (int i = 0; i < compiledExpressions.length; i++) {
+			if (projectionIndexes[i] == -1 && compiledExpressions[i] == null) {
+				compiledExpressions[i] = CompiledExpression.compile(expressions.get(i), elementMap);
+			}
+		}
+		return compiledExpressions;
+	}
+
+	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple, CompiledExpression[] compiled)
 		throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
 
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
 			tuple.add(values.get(index));
+        } else if (compiled != null) {
+        	tuple.add(getEvaluator(this.elementMap).evaluate(compiled[projectionIndex], values));
         } else { 
 			tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
 		}
@@ -213,6 +254,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         target.elementMap = elementMap;
         target.expressions = expressions;
         target.projectionIndexes = projectionIndexes;
+        target.compiledExpressions = compiledExpressions;
     }
 
     public PlanNode getDescriptionProperties() {
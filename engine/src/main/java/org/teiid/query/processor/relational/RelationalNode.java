@@ -35,9 +35,11 @@ import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.impl.SizeUtility;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
@@ -68,6 +70,7 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
 		ProcessorDataManager dataMgr;
 		int batchSize;
 		RelationalNodeStatistics nodeStatistics;
+		SizeUtility sizeUtility;
 		int beginBatch = 1;
 		List batchRows;
 		boolean lastBatch;
@@ -247,6 +250,18 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         return batch;
     }
 
+    /**
+     * Return the given tuples, such as a {@link org.teiid.common.buffer.ColumnarBatch}, as the next batch 
+     * rather than adding them row by row.  There should be no pending rows.
+     */
+    protected TupleBatch pullBatch(List<? extends List<?>> tuples) {
+    	TupleBatch batch = new TupleBatch(this.getProcessingState().beginBatch, tuples);
+    	getProcessingState().beginBatch += tuples.size();
+    	batch.setTerminationFlag(this.getProcessingState().lastBatch);
+    	this.getProcessingState().lastBatch = false;
+    	return batch;
+    }
+
 	public void open()
 		throws TeiidComponentException, TeiidProcessingException {
 
@@ -259,6 +274,24 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         }
     }
     
+    /**
+     * Record the size of the output batch as measured from the actual values
+     */
+    private void collectOutputBytes(TupleBatch batch) {
+    	if (batch.getRowCount() == 0 || this.getElements() == null) {
+    		return;
+    	}
+    	ProcessingState state = this.getProcessingState();
+    	if (state.sizeUtility == null) {
+    		Class<?>[] types = new Class<?>[this.getElements().size()];
+    		for (int i = 0; i < types.length; i++) {
+    			types[i] = this.getElements().get(i).getType();
+			}
+    		state.sizeUtility = new SizeUtility(types);
+    	}
+    	state.nodeStatistics.collectOutputBytes(state.sizeUtility.getBatchSize(DataTypeManager.isValueCacheEnabled(), batch.getReadOnlyTuples()));
+    }
+    
     /**
      * Wrapper for nextBatchDirect that does performance timing - callers
      * should always call this rather than nextBatchDirect(). 
@@ -284,6 +317,7 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
                     // stop timer for this batch (normal)
                     this.getProcessingState().nodeStatistics.stopBatchTimer();
                     this.getProcessingState().nodeStatistics.collectCumulativeNodeStats((long)batch.getRowCount(), RelationalNodeStatistics.BATCHCOMPLETE_STOP);
+                    collectOutputBytes(batch);
                     if (batch.getTerminationFlag()) {
                         this.getProcessingState().nodeStatistics.collectNodeStats(this.getChildren());
                         //this.nodeStatistics.dumpProperties(this.getClassName());
@@ -332,17 +366,24 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
 
         if (!this.getProcessingState().closed) {
         	closeDirect();
-            for(int i=0; i<children.length; i++) {
-                if(children[i] != null) {
-                    children[i].close();
-                } else {
-                    break;
-                }
-            }
+        	closeChildren();
             this.getProcessingState().closed = true;
         }
     }
 	
+	/**
+	 * Close the children of this node.  Called after {@link #closeDirect()}
+	 */
+	protected void closeChildren() throws TeiidComponentException {
+		for(int i=0; i<children.length; i++) {
+			if(children[i] != null) {
+				children[i].close();
+			} else {
+				break;
+			}
+		}
+	}
+	
 	public void closeDirect() {
 		
 	}
@@ -635,11 +676,13 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
                 // stop timer for this batch (normal)
                 this.getProcessingState().nodeStatistics.stopBatchTimer();
                 this.getProcessingState().nodeStatistics.collectCumulativeNodeStats(buffer.getRowCount(), RelationalNodeStatistics.BATCHCOMPLETE_STOP);
+                this.getProcessingState().nodeStatistics.collectOutputBytes((long)buffer.getRowSizeEstimate() * buffer.getRowCount());
                 this.getProcessingState().nodeStatistics.collectNodeStats(this.getChildren());
                 if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE) && !buffer.isForwardOnly()) {
-                	for (long i = 1; i <= buffer.getRowCount(); i+=buffer.getBatchSize()) {
+                	for (long i = 1; i <= buffer.getRowCount();) {
                 		TupleBatch tb = buffer.getBatch(i);
                 		recordBatch(tb);
+                		i = tb.getEndRow() + 1;
                 	}
                 }
 
@@ -40,6 +40,9 @@ public class RelationalNodeStatistics {
     // The total amount of rows output by this node
     private long nodeOutputRows;
     
+    // The estimated memory size in bytes of the rows output by this node, measured from the actual values
+    private long nodeOutputBytes;
+    
     // Start and End system time for the node
     private long nodeStartTime;
     private long nodeEndTime;
@@ -100,6 +103,10 @@ public class RelationalNodeStatistics {
         }
     }
     
+    public void collectOutputBytes(long bytes) {
+    	this.nodeOutputBytes += bytes;
+    }
+    
     public void collectNodeStats(RelationalNode[] relationalNodes) {
         // set nodeEndTime to the time gathered at the end of the last batch
         this.nodeEndTime = this.batchEndTime;
@@ -114,8 +121,10 @@ public class RelationalNodeStatistics {
     }
     
     public List<String> getStatisticsList() {
-    	ArrayList<String> statisticsList = new ArrayList<String>(6);
+    	ArrayList<String> statisticsList = new ArrayList<String>(8);
     	statisticsList.add("Node Output Rows: " + this.nodeOutputRows); //$NON-NLS-1$
+    	statisticsList.add("Node Output Bytes: " + this.nodeOutputBytes); //$NON-NLS-1$
+    	statisticsList.add("Node Average Row Bytes: " + getNodeAverageRowBytes()); //$NON-NLS-1$
         statisticsList.add("Node Next Batch Process Time: " + this.nodeNextBatchProcessingTime); //$NON-NLS-1$
         statisticsList.add("Node Cumulative Next Batch Process Time: " + this.nodeCumulativeNextBatchProcessingTime); //$NON-NLS-1$
         statisticsList.add("Node Cumulative Process Time: " + this.nodeCumulativeProcessingTime); //$NON-NLS-1$
@@ -166,6 +175,21 @@ public class RelationalNodeStatistics {
     public Long getNodeOutputRows() {
         return this.nodeOutputRows;
     }
+    /**
+     * @return the estimated memory size of the rows output by this node
+     */
+    public long getNodeOutputBytes() {
+		return this.nodeOutputBytes;
+	}
+    /**
+     * @return the measured average size of an output row, or 0 if no rows have been output
+     */
+    public long getNodeAverageRowBytes() {
+    	if (this.nodeOutputRows == 0) {
+    		return 0;
+    	}
+    	return this.nodeOutputBytes / this.nodeOutputRows;
+    }
     /** 
      * @return Returns the nodeProcessingTime.
      * @since 4.2
@@ -32,10 +32,14 @@ import java.util.Map;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.BatchFilter;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.CompiledExpression.CompiledCriteria;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.Criteria;
@@ -51,10 +55,16 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     // Derived element lookup map
     private Map<Expression, Integer> elementMap; 
     private int[] projectionIndexes;
+    private BatchFilter filter;
+    //shared with the clones so that the criteria is compiled once per plan
+    private CompiledCriteria[] compiledCriteria;
 	
     // State if blocked on evaluating a criteria
     private TupleBatch currentBatch;
     private int currentRow = 1;
+    private int[] selected;
+    private int selectedCount;
+    private int selectedIndex;
 
 	protected SelectNode() {
 		super();
@@ -69,10 +79,12 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         
         currentBatch = null;
         currentRow = 1;
+        selected = null;
     }
 
 	public void setCriteria(Criteria criteria) { 
 		this.criteria = criteria;
+		this.compiledCriteria = new CompiledCriteria[1];
 	}
 
 	public Criteria getCriteria() { // made public to support change in ProcedurePlanner
@@ -91,6 +103,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         if(this.elementMap == null) {
             this.elementMap = createLookupMap(this.getChildren()[0].getElements());
             this.projectionIndexes = getProjectionIndexes(this.elementMap, projectedExpressions!=null?projectedExpressions:getElements());
+            this.filter = BatchFilter.compile(this.criteria, this.elementMap);
         }
 	}
 	
@@ -103,11 +116,21 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         if(currentBatch == null) {
         	currentBatch = this.getChildren()[0].nextBatch();
         }
+        
+        ColumnarBatch columnar = currentBatch.getColumnarBatch();
+        //a columnar batch is always filtered without boxing the values when possible
+        if (filter != null && (columnar != null || getContext().getOptions().isUseVectorizedCriteria())) {
+        	return filterBatch();
+        }
+        
+        if (columnar != null && (selected != null || (currentRow == currentBatch.getBeginRow() && !hasPendingRows()))) {
+        	return selectColumnar(columnar);
+        }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
     		List<?> tuple = currentBatch.getTuple(currentRow);
 
-            if(getEvaluator(this.elementMap).evaluate(this.criteria, tuple)) {
+            if(evaluateCriteria(tuple)) {
                 addBatchRow(projectTuple(this.projectionIndexes, tuple));
             }
             currentRow++;
@@ -123,6 +146,84 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     	return pullBatch();
 	}
     
+	private boolean evaluateCriteria(List<?> tuple)
+			throws TeiidComponentException, TeiidProcessingException {
+		if (getContext().getOptions().isUseCompiledExpressions()) {
+			CompiledCriteria compiled = compiledCriteria[0];
+			if (compiled == null) {
+				compiled = CompiledExpression.compile(this.criteria, this.elementMap);
+				compiledCriteria[0] = compiled;
+			}
+			return getEvaluator(this.elementMap).evaluate(compiled, tuple);
+		}
+		return getEvaluator(this.elementMap).evaluate(this.criteria, tuple);
+	}
+    
+	/**
+	 * Filter a columnar batch by selecting the matching rows rather than 
+	 * materializing the output tuples 
+	 */
+	private TupleBatch selectColumnar(ColumnarBatch columnar)
+			throws BlockedException, TeiidComponentException, TeiidProcessingException {
+		if (selected == null) {
+			selected = new int[columnar.size()];
+			selectedCount = 0;
+		}
+		long beginRow = currentBatch.getBeginRow();
+		while (currentRow <= currentBatch.getEndRow()) {
+			int index = (int)(currentRow - beginRow);
+			if (evaluateCriteria(columnar.getView(index))) {
+				selected[selectedCount++] = index;
+			}
+			currentRow++;
+		}
+		ColumnarBatch result = columnar.select(selected, selectedCount).project(projectionIndexes);
+		selected = null;
+		if (currentBatch.getTerminationFlag()) {
+			terminateBatches();
+		}
+		currentBatch = null;
+		return pullBatch(result);
+	}
+    
+	/**
+	 * Filter the whole batch at once with the compiled criteria
+	 */
+	private TupleBatch filterBatch() {
+		List<List<?>> tuples = currentBatch.getReadOnlyTuples();
+		if (selected == null) {
+			selected = new int[tuples.size()];
+			for (int i = 0; i < selected.length; i++) {
+				selected[i] = i;
+			}
+			selectedCount = filter.filter(tuples, selected, selected.length);
+			selectedIndex = 0;
+		}
+		ColumnarBatch columnar = currentBatch.getColumnarBatch();
+		TupleBatch result = null;
+		if (columnar != null && selectedIndex == 0 && !hasPendingRows()) {
+			selectedIndex = selectedCount;
+			if (currentBatch.getTerminationFlag()) {
+				terminateBatches();
+			}
+			result = pullBatch(columnar.select(selected, selectedCount).project(projectionIndexes));
+		} else {
+			while (selectedIndex < selectedCount && !isBatchFull()) {
+				addBatchRow(projectTuple(this.projectionIndexes, tuples.get(selected[selectedIndex++])));
+			}
+			if (selectedIndex == selectedCount && currentBatch.getTerminationFlag()) {
+				terminateBatches();
+			}
+			result = pullBatch();
+		}
+		if (selectedIndex == selectedCount) {
+			currentRow = (int)currentBatch.getEndRow() + 1;
+			currentBatch = null;
+			selected = null;
+		}
+		return result;
+	}
+    
 	protected void getNodeString(StringBuffer str) {
 		super.getNodeString(str);
 		str.append(criteria);
@@ -139,6 +240,8 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 		target.criteria = criteria;
 		target.elementMap = elementMap;
 		target.projectionIndexes = projectionIndexes;
+		target.filter = filter;
+		target.compiledCriteria = compiledCriteria;
 		target.projectedExpressions = projectedExpressions;
 	}
     
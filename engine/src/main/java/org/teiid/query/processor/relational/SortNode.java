@@ -88,13 +88,13 @@ public class SortNode extends RelationalNode {
 	public TupleBatch nextBatchDirect()
 		throws BlockedException, TeiidComponentException, TeiidProcessingException {
         if(this.phase == SORT) {
-            sortPhase();
+            sortPhase(!usingOutput);
         }
 
         return outputPhase();
     }
 
-    private void sortPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+    private void sortPhase(boolean streaming) throws BlockedException, TeiidComponentException, TeiidProcessingException {
     	if (this.sortUtility == null) {
     		TupleSource ts = null;
     		TupleBuffer working = null;
@@ -105,22 +105,30 @@ public class SortNode extends RelationalNode {
     		}
 	        this.sortUtility = new SortUtility(ts, items, this.mode, getBufferManager(),
                     getConnectionID(), getChildren()[0].getElements());
+	        this.sortUtility.setExecutor(getContext().getExecutor());
 	        if (ts == null) {
 	        	this.sortUtility.setWorkingBuffer(working);
 	        }
 		}
-		this.output = this.sortUtility.sort(rowLimit);
-		if (this.outputTs == null) {
-			this.outputTs = this.output.createIndexedTupleSource();
+		if (streaming) {
+			//the final merge is performed as the output is read
+			this.outputTs = this.sortUtility.sortStreaming(rowLimit);
+		} else {
+			this.output = this.sortUtility.sort(rowLimit);
+			if (this.outputTs == null) {
+				this.outputTs = this.output.createIndexedTupleSource();
+			}
 		}
         this.phase = OUTPUT;
     }
 
     private TupleBatch outputPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
-		if (!this.output.isFinal()) {
-			this.phase = SORT;
-		} else if (!usingOutput) {
-			this.output.setForwardOnly(true);
+		if (this.output != null) {
+			if (!this.output.isFinal()) {
+				this.phase = SORT;
+			} else if (!usingOutput) {
+				this.output.setForwardOnly(true);
+			}
 		}
 		List<?> tuple = null;
 		try {
@@ -195,10 +203,10 @@ public class SortNode extends RelationalNode {
     		throw new AssertionError("called after close"); //$NON-NLS-1$
     	}
     	this.rowLimit = maxRows;
+    	usingOutput = true;
     	if (this.output == null) {
-    		sortPhase();
+    		sortPhase(false);
     	}
-    	usingOutput = true;
     	TupleBuffer result = this.output;
     	if (this.output.isFinal()) {
     		this.output = null;
@@ -28,6 +28,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -38,6 +42,7 @@ import org.teiid.common.buffer.TupleBuffer.TupleBufferTupleSource;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.util.Assertion;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.language.SortSpecification.NullOrdering;
@@ -70,20 +75,184 @@ public class SortUtility {
 	/**
 	 * state holder for the merge algorithm
 	 */
-	private class SortedSublist implements Comparable<SortedSublist> {
+	private static class SortedSublist {
 		List<?> tuple;
 		int index;
 		TupleBufferTupleSource its;
 		
 		@Override
-		public int compareTo(SortedSublist o) {
-			//reverse the comparison, so that removal of the lowest is a low cost operation
-			return -comparator.compare(this.tuple, o.tuple);
+		public String toString() {
+			return index + " " + tuple; //$NON-NLS-1$
+		}
+	}
+	
+	/**
+	 * Sorts a single run on the engine executor.
+	 */
+	private class SortRunTask extends FutureTask<List<List<?>>> {
+		
+		int reserved;
+		
+		SortRunTask(final List<List<?>> run) {
+			super(new Callable<List<List<?>>>() {
+				@Override
+				public List<List<?>> call() {
+					Collections.sort(run, comparator);
+					return run;
+				}
+			});
+		}
+		
+		/**
+		 * Wait for the sort.  If the executor has not yet started the task, 
+		 * the sort is performed in the calling thread.
+		 */
+		List<List<?>> getSortedRun() throws TeiidComponentException {
+			run();
+			try {
+				return get();
+			} catch (InterruptedException e) {
+				throw new TeiidRuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException)e.getCause();
+				}
+				throw new TeiidComponentException(e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * A tournament (loser) tree over the sorted sublists.  Determining the next
+	 * lowest tuple requires only log(k) comparisons against the previous losers
+	 * along the path of the last winner.
+	 * <br>
+	 * Ties are resolved by sublist index so that the merge is stable.  Duplicates are
+	 * adjacent in the merged output, so dup removal only needs to check the last tuple.
+	 */
+	private class TournamentTree implements TupleSource {
+		private SortedSublist[] sublists;
+		private int[] losers;
+		private int winner;
+		private List<?> last;
+		private int rowLimit = -1;
+		private int rowCount;
+		
+		TournamentTree(List<TupleBuffer> buffers) throws TeiidComponentException, TeiidProcessingException {
+			int k = buffers.size();
+			sublists = new SortedSublist[k];
+			for (int i = 0; i < k; i++) {
+				SortedSublist sortedSublist = new SortedSublist();
+				sortedSublist.its = buffers.get(i).createIndexedTupleSource();
+				sortedSublist.its.setNoBlocking(true);
+				sortedSublist.index = i;
+				sortedSublist.tuple = sortedSublist.its.nextTuple();
+				sublists[i] = sortedSublist;
+			}
+			//play the initial tournament with the leaves at k..2k-1
+			losers = new int[k];
+			int[] winners = new int[2*k];
+			for (int i = 0; i < k; i++) {
+				winners[k + i] = i;
+			}
+			for (int i = k - 1; i > 0; i--) {
+				int a = winners[2*i];
+				int b = winners[2*i + 1];
+				if (beats(a, b)) {
+					winners[i] = a;
+					losers[i] = b;
+				} else {
+					winners[i] = b;
+					losers[i] = a;
+				}
+			}
+			winner = winners[1];
+		}
+		
+		private boolean beats(int a, int b) {
+			List<?> tupleA = sublists[a].tuple;
+			List<?> tupleB = sublists[b].tuple;
+			if (tupleA == null) {
+				return tupleB == null && a < b;
+			}
+			if (tupleB == null) {
+				return true;
+			}
+			int compare = compare(tupleA, tupleB);
+			return compare < 0 || (compare == 0 && a < b);
+		}
+		
+		private void replay(int index) {
+			int current = index;
+			for (int i = (sublists.length + index) >> 1; i > 0; i >>= 1) {
+				if (beats(losers[i], current)) {
+					int temp = losers[i];
+					losers[i] = current;
+					current = temp;
+				}
+			}
+			winner = current;
 		}
 		
 		@Override
-		public String toString() {
-			return index + " " + tuple; //$NON-NLS-1$
+		public List<?> nextTuple() throws TeiidComponentException,
+				TeiidProcessingException {
+			if (rowLimit > -1 && rowCount >= rowLimit) {
+				return null;
+			}
+			while (true) {
+				SortedSublist sortedSublist = sublists[winner];
+				List<?> tuple = sortedSublist.tuple;
+				if (tuple == null) {
+					return null;
+				}
+				sortedSublist.tuple = sortedSublist.its.nextTuple();
+				replay(sortedSublist.index);
+				if (mode != Mode.SORT) {
+					if (last != null && compare(tuple, last) == 0) {
+						continue;
+					}
+					last = tuple;
+				}
+				rowCount++;
+				return tuple;
+			}
+		}
+		
+		@Override
+		public void closeSource() {
+			for (SortedSublist sortedSublist : sublists) {
+				sortedSublist.its.closeSource();
+			}
+		}
+	}
+	
+	/**
+	 * Streams the final merge pass
+	 */
+	private class MergeTupleSource implements TupleSource {
+		private TournamentTree tree;
+		
+		@Override
+		public List<?> nextTuple() throws TeiidComponentException,
+				TeiidProcessingException {
+			if (tree == null) {
+				return null;
+			}
+			List<?> result = tree.nextTuple();
+			if (result == null) {
+				closeSource();
+			}
+			return result;
+		}
+		
+		@Override
+		public void closeSource() {
+			if (tree != null) {
+				tree.closeSource();
+				tree = null;
+			}
+			releaseMerge();
 		}
 	}
 
@@ -101,6 +270,11 @@ public class SortUtility {
     private int phase = INITIAL_SORT;
     private List<TupleBuffer> activeTupleBuffers = new ArrayList<TupleBuffer>();
     
+    /**
+     * Bounds the number of runs held in memory while being sorted on the executor
+     */
+    private static final int MAX_CONCURRENT_RUNS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    
     // Phase constants for readability
     private static final int INITIAL_SORT = 1;
     private static final int MERGE = 2;
@@ -112,6 +286,12 @@ public class SortUtility {
 	private static boolean STABLE_SORT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.requireStableSort", false); //$NON-NLS-1$
 	
 	private boolean stableSort = STABLE_SORT;
+	private Executor executor;
+	
+	//streaming merge state
+	private boolean streamingOutput;
+	private MergeTupleSource mergeTupleSource;
+	private int mergeReserved;
     
     public SortUtility(TupleSource sourceID, List<OrderByItem> items, Mode mode, BufferManager bufferMgr,
                         String groupName, List<? extends Expression> schema) {
@@ -193,6 +373,7 @@ public class SortUtility {
     
     public TupleBuffer sort(int rowLimit)
         throws TeiidComponentException, TeiidProcessingException {
+    	Assertion.assertTrue(!streamingOutput);
     	boolean success = false;
     	try {
 	        if(this.phase == INITIAL_SORT) {
@@ -214,6 +395,50 @@ public class SortUtility {
         }
     }
     
+    /**
+     * Sort, but rather than merging the final pass into a single {@link TupleBuffer} return 
+     * a {@link TupleSource} that performs the final merge as it is read.  This allows output
+     * to begin before all of the sublists have been merged.
+     * <br>
+     * The returned source should be read or closed prior to calling {@link #remove()}
+     */
+    public TupleSource sortStreaming(int rowLimit) throws TeiidComponentException, TeiidProcessingException {
+    	boolean success = false;
+    	try {
+	        if(this.phase == INITIAL_SORT) {
+	            initialSort(false, false, rowLimit);
+	        }
+	        
+	        if(this.phase == MERGE) {
+	        	Assertion.assertTrue(doneReading);
+	        	if (this.activeTupleBuffers.size() > 1) {
+	        		this.mergeTupleSource = new MergeTupleSource();
+	        		this.mergeReserved = doMerge(rowLimit, true);
+	        		this.mergeTupleSource.tree = new TournamentTree(this.activeTupleBuffers);
+	        		this.mergeTupleSource.tree.rowLimit = rowLimit;
+	        	} else {
+	        		activeTupleBuffers.get(0).close();
+	        	}
+	        	this.phase = DONE;
+	        	this.streamingOutput = true;
+	        }
+	        success = true;
+	        if (this.mergeTupleSource != null) {
+	        	return this.mergeTupleSource;
+	        }
+	        TupleBuffer result = this.activeTupleBuffers.get(0);
+	        result.setForwardOnly(true);
+	        return result.createIndexedTupleSource(true);
+    	} catch (BlockedException e) {
+    		success = true;
+    		throw e;
+    	} finally {
+        	if (!success) {
+        		remove();
+        	}
+        }
+    }
+    
     public List<TupleBuffer> onePassSort(boolean lowLatency) throws TeiidComponentException, TeiidProcessingException {
     	boolean success = false;
     	try {
@@ -297,6 +522,7 @@ public class SortUtility {
     	
 		//sub-phase 2 - perform a memory sort on the workingbuffer/source
     	int totalReservedBuffers = 0;
+    	List<SortRunTask> pendingRuns = new ArrayList<SortRunTask>(0);
         try {
     		int maxRows = this.batchSize;
     		Collection<List<?>> workingTuples = null;
@@ -330,11 +556,18 @@ public class SortUtility {
 			ts.setReverse(!stableSort && workingBuffer.getRowCount() > this.batchSize);
 			maxRows = Math.max(1, (totalReservedBuffers/schemaSize))*batchSize;
 			boolean checkLimit = rowLimit > -1 && rowCount <= maxRows;
-            if (mode == Mode.SORT) {
+			//each run sorted concurrently holds its own reservation
+			int runReserved = totalReservedBuffers;
+			boolean parallel = executor != null && rowCount > maxRows && bufferManager.getOptions() != null && bufferManager.getOptions().isUseParallelSort(); 
+            if (mode == Mode.SORT || parallel) {
             	workingTuples = new ArrayList<List<?>>();
             } else {
             	workingTuples = new TreeSet<List<?>>(comparator);
             }
+            if (parallel) {
+            	//ensure the comparator state is setup prior to concurrent use
+            	comparator.initialize();
+            }
             outer: while (!done) {
                 while(!done) {
 		        	if (workingTuples.size() >= maxRows) {
@@ -352,13 +585,45 @@ public class SortUtility {
                     workingTuples.add(tuple);
 		        } 
 		
-		        TupleBuffer sublist = createTupleBuffer();
-		        activeTupleBuffers.add(sublist);
-		        if (this.mode == Mode.SORT) {
+		        if (parallel && !done && pendingRuns.size() < MAX_CONCURRENT_RUNS) {
+		        	//reserve the memory for the next run
+		        	int reserved = bufferManager.reserveBuffers(runReserved, BufferReserveMode.NO_WAIT);
+		        	int additional = reserved%schemaSize;
+		        	bufferManager.releaseBuffers(additional);
+		        	reserved -= additional;
+		        	if (reserved > 0) {
+		        		totalReservedBuffers += reserved;
+		        		//sort this run on the executor while the next run is read
+		        		SortRunTask task = new SortRunTask((List<List<?>>)workingTuples);
+		        		task.reserved = runReserved;
+		        		pendingRuns.add(task);
+		        		executor.execute(task);
+		        		workingTuples = new ArrayList<List<?>>();
+		        		runReserved = reserved;
+		        		maxRows = (reserved/schemaSize)*batchSize;
+		        		continue;
+		        	}
+		        }
+		        if (workingTuples instanceof List) {
 		        	//perform a stable sort
 		    		Collections.sort((List<List<?>>)workingTuples, comparator);
 		        }
+		        //the runs must be saved in order for the merge to be stable
+		        int released = savePendingRuns(pendingRuns);
+		        bufferManager.releaseBuffers(released);
+		        totalReservedBuffers -= released;
+		        
+		        TupleBuffer sublist = createTupleBuffer();
+		        activeTupleBuffers.add(sublist);
+		        List<?> last = null;
 		        for (List<?> list : workingTuples) {
+		        	if (this.mode != Mode.SORT && workingTuples instanceof List) {
+		        		//remove the adjacent duplicates
+		        		if (last != null && compare(list, last) == 0) {
+		        			continue;
+		        		}
+		        		last = list;
+		        	}
 					sublist.addTuple(list);
 					
 					if (checkLimit && sublist.getRowCount() == rowLimit) {
@@ -369,9 +634,13 @@ public class SortUtility {
 		        workingTuples.clear();
 		        sublist.saveBatch();
             }
+            savePendingRuns(pendingRuns);
         } catch (BlockedException e) {
         	Assertion.failed("should not block during memory sublist sorting"); //$NON-NLS-1$
         } finally {
+        	for (SortRunTask task : pendingRuns) {
+        		task.cancel(false);
+        	}
     		bufferManager.releaseBuffers(totalReservedBuffers);
     		if (this.workingBuffer != null) {
     			if (this.source != null) {
@@ -387,13 +656,41 @@ public class SortUtility {
         this.phase = MERGE;
     }
 
+    /**
+     * Save the runs that were sorted on the executor as sublists.
+     * @return the buffer reservation that is no longer needed
+     */
+    private int savePendingRuns(List<SortRunTask> pendingRuns) throws TeiidComponentException {
+    	int released = 0;
+    	while (!pendingRuns.isEmpty()) {
+    		SortRunTask task = pendingRuns.get(0);
+    		List<List<?>> run = task.getSortedRun();
+    		pendingRuns.remove(0);
+    		TupleBuffer sublist = createTupleBuffer();
+	        activeTupleBuffers.add(sublist);
+	        List<?> last = null;
+	        for (List<?> list : run) {
+	        	if (this.mode != Mode.SORT) {
+	        		if (last != null && compare(list, last) == 0) {
+	        			continue;
+	        		}
+	        		last = list;
+	        	}
+	        	sublist.addTuple(list);
+	        }
+	        sublist.saveBatch();
+	        released += task.reserved;
+    	}
+    	return released;
+    }
+    
     public void setWorkingBuffer(TupleBuffer workingBuffer) {
 		this.workingBuffer = workingBuffer;
 	}
     
     protected void mergePhase(int rowLimit) throws TeiidComponentException, TeiidProcessingException {
         if (this.activeTupleBuffers.size() > 1) {
-        	doMerge(rowLimit);
+        	doMerge(rowLimit, false);
         }
     	
         // Close sorted source (all others have been removed)
@@ -404,7 +701,12 @@ public class SortUtility {
         return;
     }
     
-    protected void doMerge(int rowLimit) throws TeiidComponentException, TeiidProcessingException {
+    /**
+     * Merge the sublists
+     * @param streaming if true, the merge will stop when the remaining sublists can be merged
+     * in a single pass and the reserved buffers for that pass will be returned.
+     */
+    protected int doMerge(int rowLimit, boolean streaming) throws TeiidComponentException, TeiidProcessingException {
     	long desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
         int toForce = (int)Math.min(desiredSpace, Math.max(2*schemaSize, this.bufferManager.getMaxProcessingSize()));
         int reserved = 0;
@@ -445,12 +747,9 @@ public class SortUtility {
         }
         reserved += bufferManager.reserveBuffers(toForce, BufferReserveMode.FORCE);
         
+        boolean success = false;
         try {
         	while(this.activeTupleBuffers.size() > 1) {    		
-	    		ArrayList<SortedSublist> sublists = new ArrayList<SortedSublist>(activeTupleBuffers.size());
-	            
-	            TupleBuffer merged = createTupleBuffer();
-
 	            desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
 	            if (desiredSpace < reserved) {
 	            	bufferManager.releaseBuffers(reserved - (int)desiredSpace);
@@ -458,32 +757,32 @@ public class SortUtility {
 	            }
 	            int maxSortIndex = Math.max(2, reserved / schemaSize); //always allow progress
 	            
+	            if (streaming && maxSortIndex >= activeTupleBuffers.size()) {
+	            	//the caller will perform the final pass
+	            	success = true;
+	            	return reserved;
+	            }
+	            
             	if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE)) {
 	            	LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", maxSortIndex, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$
 	            }
-	        	// initialize the sublists with the min value
-	            for(int i = 0; i<maxSortIndex; i++) { 
-	             	TupleBuffer activeID = activeTupleBuffers.get(i);
-	             	SortedSublist sortedSublist = new SortedSublist();
-	            	sortedSublist.its = activeID.createIndexedTupleSource();
-	            	sortedSublist.its.setNoBlocking(true);
-	            	sortedSublist.index = i;
-	            	incrementWorkingTuple(sublists, sortedSublist);
-	            }
+	            
+	            maxSortIndex = Math.min(maxSortIndex, activeTupleBuffers.size());
+	            TupleBuffer merged = createTupleBuffer();
+	            TournamentTree tree = new TournamentTree(activeTupleBuffers.subList(0, maxSortIndex));
 	            
 	            boolean checkLimit = maxSortIndex == activeTupleBuffers.size() && rowLimit > -1;
+	            if (checkLimit) {
+	            	//early exit for row limit
+	            	tree.rowLimit = rowLimit;
+	            }
 	            
 	            // iteratively process the lowest tuple
-	            while (sublists.size() > 0) {
-	            	SortedSublist sortedSublist = sublists.remove(sublists.size() - 1);
-	        		merged.addTuple(sortedSublist.tuple);
-	            	incrementWorkingTuple(sublists, sortedSublist);
-	            	
-	            	if (checkLimit && merged.getRowCount() == rowLimit) {
-	            		//early exit for row limit
-	            		break;
-	            	}
+	            List<?> tuple = null;
+	            while ((tuple = tree.nextTuple()) != null) {
+	        		merged.addTuple(tuple);
 	            }                
+	            tree.closeSource();
 	
 	            // Remove merged sublists
 	            for(int i=0; i<maxSortIndex; i++) {
@@ -493,35 +792,47 @@ public class SortUtility {
 	            merged.saveBatch();
 	            this.activeTupleBuffers.add(merged);           
     		}
+        	success = true;
+        	if (streaming) {
+        		return reserved;
+        	}
         } finally {
-        	this.bufferManager.releaseBuffers(reserved);
+        	if (!success || !streaming) {
+        		this.bufferManager.releaseBuffers(reserved);
+        	}
         }
+        return 0;
+    }
+    
+    private void releaseMerge() {
+    	if (this.mergeReserved > 0) {
+    		this.bufferManager.releaseBuffers(this.mergeReserved);
+    		this.mergeReserved = 0;
+    	}
     }
 
-	private void incrementWorkingTuple(ArrayList<SortedSublist> subLists, SortedSublist sortedSublist) throws TeiidComponentException, TeiidProcessingException {
-		while (true) {
-			sortedSublist.tuple = null;
-			sortedSublist.tuple = sortedSublist.its.nextTuple();
-	        if (sortedSublist.tuple == null) {
-	        	return; // done with this sublist
-	        }
-			int index = Collections.binarySearch(subLists, sortedSublist);
-			if (index < 0) {
-				subLists.add(-index - 1, sortedSublist);
-				return;
-			}
-			if (mode == Mode.SORT) {
-				subLists.add(index, sortedSublist);
-				return;
-			} 
-		}
-	} 
+    @SuppressWarnings("unchecked")
+	private int compare(List<?> tupleA, List<?> tupleB) {
+    	return comparator.compare(tupleA, tupleB);
+    }
 
+    /**
+     * Set the executor used to sort the initial runs concurrently
+     * when {@link org.teiid.query.util.Options#isUseParallelSort()} is enabled.
+     */
+    public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+    
     public boolean isDistinct() {
     	return this.comparator.isDistinct();
     }
 
 	public void remove() {
+		if (this.mergeTupleSource != null) {
+			this.mergeTupleSource.closeSource();
+			this.mergeTupleSource = null;
+		}
 		if (workingBuffer != null && source != null) {
 			workingBuffer.remove();
 			workingBuffer = null;
@@ -531,7 +842,7 @@ public class SortUtility {
 			//they should not be reused whole
 			for (int i = 0; i < this.activeTupleBuffers.size(); i++) {
 				TupleBuffer tb = this.activeTupleBuffers.get(i);
-				if (i == 0 && phase == DONE) {
+				if (i == 0 && phase == DONE && !streamingOutput) {
 					continue;
 				}
 				tb.remove();
@@ -48,6 +48,7 @@ import org.teiid.query.metadata.SupportConstants;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TempMetadataStore;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.parser.QueryParser;
 import org.teiid.query.resolver.command.*;
 import org.teiid.query.resolver.util.ResolverUtil;
@@ -424,7 +425,7 @@ public class QueryResolver {
 			QueryMetadataException, QueryResolverException,
 			QueryValidatorException {
 		qmi = qmi.getDesignTimeMetadata();
-		cacheString = "transformation/" + cacheString; //$NON-NLS-1$
+		cacheString = TransformationMetadata.TRANSFORMATION_CACHE_PREFIX + cacheString;
 		QueryNode cachedNode = (QueryNode)qmi.getFromMetadataCache(virtualGroup.getMetadataID(), cacheString);
         if (cachedNode == null) {
         	Command result = qnode.getCommand();
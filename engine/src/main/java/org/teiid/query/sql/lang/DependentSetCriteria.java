@@ -67,6 +67,11 @@ public class DependentSetCriteria extends AbstractSetCriteria implements Context
     private float[] ndvs;
     private float[] maxNdvs;
     
+    /**
+     * The estimated cardinality of the dependent side without the dependent criteria
+     */
+    private float dependentCardinality = NewCalculateCostUtil.UNKNOWN_VALUE;
+    
     /**
      * set only for dependent pushdown
      */
@@ -139,6 +144,14 @@ public class DependentSetCriteria extends AbstractSetCriteria implements Context
     public void setNdv(float ndv) {
 		this.ndv = ndv;
 	}
+    
+    public float getDependentCardinality() {
+		return dependentCardinality;
+	}
+    
+    public void setDependentCardinality(float dependentCardinality) {
+		this.dependentCardinality = dependentCardinality;
+	}
 
     /** 
      * Get the independent value expression
@@ -218,6 +231,7 @@ public class DependentSetCriteria extends AbstractSetCriteria implements Context
         criteriaCopy.maxNdv = this.maxNdv;
         criteriaCopy.maxNdvs = this.maxNdvs;
         criteriaCopy.ndvs = this.ndvs;
+        criteriaCopy.dependentCardinality = this.dependentCardinality;
         criteriaCopy.makeDepOptions = this.makeDepOptions;
         return criteriaCopy;
     }
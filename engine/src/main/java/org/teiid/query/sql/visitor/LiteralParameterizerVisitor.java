@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.sql.visitor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.QueryResolverException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
+import org.teiid.language.SQLConstants;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.optimizer.relational.PartitionAnalyzer;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.LanguageVisitor;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.sql.lang.SetQuery;
+import org.teiid.query.sql.lang.SubqueryFromClause;
+import org.teiid.query.sql.lang.WithQueryCommand;
+import org.teiid.query.sql.navigator.DeepPreOrderNavigator;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.symbol.Reference;
+import org.teiid.query.sql.symbol.Symbol;
+import org.teiid.query.sql.util.SymbolMap;
+
+
+/**
+ * <p>This visitor class will replace the literals compared against columns with positional
+ * references and collect the literal values, so that an unresolved command may be 
+ * planned as if it were a prepared statement.</p>
+ * 
+ * <p>Only comparison and between predicates against an element are considered.  Literals 
+ * elsewhere, such as in the select clause, limit, in lists, or like patterns, may affect 
+ * the resulting plan or metadata and are left as is.</p>
+ * 
+ * <p>When metadata is supplied, literals compared against view columns that the planner 
+ * uses, such as union partitioning columns or columns defined by a constant, are also 
+ * left as is so that partition pruning and constant folding still apply.</p>
+ */
+public class LiteralParameterizerVisitor extends LanguageVisitor {
+
+	/**
+	 * Determines, in navigation order, which predicates of a resolved command
+	 * compare against a column that affects planning.
+	 */
+	private static class PlanningColumnVisitor extends LanguageVisitor {
+		
+		private QueryMetadataInterface metadata;
+		private Map<Object, Command> derivedGroups = new IdentityHashMap<Object, Command>();
+		private List<Boolean> fixed = new ArrayList<Boolean>();
+		
+		public PlanningColumnVisitor(QueryMetadataInterface metadata) {
+			this.metadata = metadata;
+		}
+		
+		/**
+		 * Collect the inline view definitions, which may be referenced before they are navigated
+		 */
+		void addDerivedGroups(LanguageObject obj) {
+			DeepPreOrderNavigator.doVisit(obj, new LanguageVisitor() {
+				public void visit(SubqueryFromClause sfc) {
+					derivedGroups.put(sfc.getGroupSymbol().getMetadataID(), sfc.getCommand());
+				}
+				public void visit(WithQueryCommand with) {
+					derivedGroups.put(with.getGroupSymbol().getMetadataID(), with.getCommand());
+				}
+			});
+		}
+		
+		public void visit(CompareCriteria obj) {
+			this.fixed.add(isPlanningColumn(obj.getLeftExpression()) || isPlanningColumn(obj.getRightExpression()));
+		}
+		
+		public void visit(BetweenCriteria obj) {
+			this.fixed.add(isPlanningColumn(obj.getExpression()));
+		}
+		
+		private boolean isPlanningColumn(Expression expr) {
+			expr = unwrap(expr);
+			if (!(expr instanceof ElementSymbol)) {
+				return false;
+			}
+			try {
+				return isPlanningElement((ElementSymbol)expr);
+			} catch (TeiidException e) {
+				//let the literal remain, planning will report any definition issue
+				return true;
+			}
+		}
+
+		private boolean isPlanningElement(ElementSymbol es) throws TeiidException {
+			GroupSymbol group = es.getGroupSymbol();
+			if (group == null || group.isProcedure()) {
+				return false;
+			}
+			Object groupId = group.getMetadataID();
+			Command definition = null;
+			List<?> elements = null;
+			if (groupId instanceof TempMetadataID) {
+				definition = this.derivedGroups.get(groupId);
+				elements = ((TempMetadataID)groupId).getElements();
+			} else if (this.metadata.isVirtualGroup(groupId) && !this.metadata.isXMLGroup(groupId)) {
+				definition = QueryResolver.resolveView(group, this.metadata.getVirtualPlan(groupId), SQLConstants.Reserved.SELECT, this.metadata, false).getCommand();
+				addDerivedGroups(definition);
+				elements = this.metadata.getElementIDsInGroupID(groupId);
+			}
+			if (!(definition instanceof QueryCommand)) {
+				return false;
+			}
+			QueryCommand queryCommand = (QueryCommand)definition;
+			List<Expression> projected = queryCommand.getProjectedSymbols();
+			int index = elements.indexOf(es.getMetadataID());
+			if (index < 0 || index >= projected.size()) {
+				return false;
+			}
+			if (queryCommand instanceof SetQuery) {
+				//the planner prunes union branches by the partitioning columns
+				List<ElementSymbol> symbols = new ArrayList<ElementSymbol>(projected.size());
+				for (Expression ex : projected) {
+					symbols.add(new ElementSymbol(Symbol.getShortName(ex)));
+				}
+				return PartitionAnalyzer.extractPartionInfo((SetQuery)queryCommand, symbols).containsKey(symbols.get(index));
+			}
+			//constant columns are folded into the predicate
+			Expression ex = unwrap(SymbolMap.getExpression(projected.get(index)));
+			if (ex instanceof Constant) {
+				return true;
+			}
+			return isPlanningColumn(ex);
+		}
+		
+	}
+
+	private List<Object> values = new ArrayList<Object>();
+	private List<Boolean> fixed;
+	private int criteriaIndex;
+
+	/**
+	 * Get the literal values in the order of the references.
+	 */
+	public List<Object> getValues() {
+		return this.values;
+	}
+
+	public void visit(CompareCriteria obj) {
+		if (isFixed()) {
+			return;
+		}
+		if (obj.getLeftExpression() instanceof ElementSymbol && isLiteral(obj.getRightExpression())) {
+			obj.setRightExpression(createReference(obj.getRightExpression()));
+		} else if (obj.getRightExpression() instanceof ElementSymbol && isLiteral(obj.getLeftExpression())) {
+			obj.setLeftExpression(createReference(obj.getLeftExpression()));
+		}
+	}
+
+	public void visit(BetweenCriteria obj) {
+		if (isFixed() || !(obj.getExpression() instanceof ElementSymbol)) {
+			return;
+		}
+		if (isLiteral(obj.getLowerExpression())) {
+			obj.setLowerExpression(createReference(obj.getLowerExpression()));
+		}
+		if (isLiteral(obj.getUpperExpression())) {
+			obj.setUpperExpression(createReference(obj.getUpperExpression()));
+		}
+	}
+
+	private boolean isFixed() {
+		if (this.fixed == null) {
+			return false;
+		}
+		int index = this.criteriaIndex++;
+		return index >= this.fixed.size() || this.fixed.get(index);
+	}
+	
+	private static Expression unwrap(Expression expr) {
+		while (expr instanceof Function && ((Function)expr).isImplicit()) {
+			expr = ((Function)expr).getArg(0);
+		}
+		return expr;
+	}
+
+	private static boolean isLiteral(Expression expr) {
+		if (!(expr instanceof Constant)) {
+			return false;
+		}
+		Constant c = (Constant)expr;
+		//null comparisons are rewritten during planning
+		return c.getValue() != null && !c.isMultiValued();
+	}
+
+	private Reference createReference(Expression expr) {
+		Reference ref = new Reference(this.values.size());
+		this.values.add(((Constant)expr).getValue());
+		return ref;
+	}
+
+	/**
+	 * Replace the literals in the command with references.
+	 * @param obj an unresolved command
+	 * @return the literal values in reference order
+	 */
+	public static List<Object> parameterize(LanguageObject obj) {
+		LiteralParameterizerVisitor visitor = new LiteralParameterizerVisitor();
+		DeepPreOrderNavigator.doVisit(obj, visitor);
+		return visitor.getValues();
+	}
+	
+	/**
+	 * Replace the literals in the command with references, except for those compared 
+	 * against columns that affect planning.
+	 * @param command an unresolved command
+	 * @param metadata
+	 * @return the literal values in reference order
+	 * @throws TeiidComponentException
+	 * @throws QueryResolverException if the command cannot be resolved
+	 */
+	public static List<Object> parameterize(Command command, QueryMetadataInterface metadata) throws TeiidComponentException, QueryResolverException {
+		Command resolved = (Command)command.clone();
+		QueryResolver.resolveCommand(resolved, metadata);
+		PlanningColumnVisitor planningVisitor = new PlanningColumnVisitor(metadata);
+		planningVisitor.addDerivedGroups(resolved);
+		DeepPreOrderNavigator.doVisit(resolved, planningVisitor);
+		LiteralParameterizerVisitor visitor = new LiteralParameterizerVisitor();
+		visitor.fixed = planningVisitor.fixed;
+		DeepPreOrderNavigator.doVisit(command, visitor);
+		return visitor.getValues();
+	}
+
+}
@@ -101,6 +101,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		private long ttl = -1;
 		private boolean valid;
 		private boolean asynch; //sub state of loading
+		private Object lastModified; //the high water mark for delta loads
 		private Map<RequestID, WeakReference<RequestWorkItem>> waiters = new HashMap<RequestID, WeakReference<RequestWorkItem>>(2);
 		
 		protected MatTableInfo() {}
@@ -191,6 +192,14 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			return ttl;
 		}
 		
+		public synchronized Object getLastModified() {
+			return lastModified;
+		}
+		
+		public synchronized void setLastModified(Object lastModified) {
+			this.lastModified = lastModified;
+		}
+		
 		public VDBMetaData getVdbMetaData() {
 			return vdbMetaData;
 		}
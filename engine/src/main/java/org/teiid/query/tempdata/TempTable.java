@@ -180,7 +180,10 @@ public class TempTable implements Cloneable, SearchableTable {
 	                }
 			        tree.insert(tuple, InsertMode.UPDATE, -1);
 			    }
-			    upsertUndoLog.addTuple(tuple);
+			    updateIndexes(existing, tuple);
+			    if (upsertUndoLog != null) {
+			    	upsertUndoLog.addTuple(tuple);
+			    }
 			    //don't add to main undo log
 			    currentTuple = null;
 			    return;
@@ -374,6 +377,10 @@ public class TempTable implements Cloneable, SearchableTable {
 	private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 	private boolean updatable = true;
 	private LinkedHashMap<List<ElementSymbol>, TempTable> indexTables;
+	/**
+	 * For an index table the positions of its columns in the parent table tuple
+	 */
+	private int[] baseProjection;
 	
 	private int keyBatchSize;
 	private int leafBatchSize;
@@ -494,10 +501,11 @@ public class TempTable implements Cloneable, SearchableTable {
 		if (unique) {
 			indexTable.uniqueColIndex = indexColumns.size();
 		}
+		indexTable.baseProjection = RelationalNode.getProjectionIndexes(this.columnMap, allColumns);
 		if (indexTables == null) {
 			indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-			indexTables.put(indexColumns, indexTable);
 		}
+		indexTables.put(indexColumns, indexTable);
 		indexTable.setUpdatable(this.updatable);
 		return indexTable;
 	}
@@ -774,6 +782,7 @@ public class TempTable implements Cloneable, SearchableTable {
     				changeSet.addTuple(newTuple);
     			} else {
     				browser.update(newTuple);
+    				updateIndexes(tuple, newTuple);
     			}
 			}
 			
@@ -854,13 +863,48 @@ public class TempTable implements Cloneable, SearchableTable {
 			}
 			throw new TeiidProcessingException(QueryPlugin.Event.TEIID30238, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30238, this.tid.getID()));
 		}
+		updateIndexes(null, list);
 		return true;
 	}
 	
 	private void deleteTuple(List<?> tuple) throws TeiidComponentException {
-		if (tree.remove(tuple) == null) {
+		List<?> result = tree.remove(tuple);
+		if (result == null) {
 			throw new AssertionError("Delete failed"); //$NON-NLS-1$
 		}
+		updateIndexes(result, null);
+	}
+	
+	/**
+	 * Maintain the secondary indexes for a change to the base tuple.
+	 * The index entries contain the index columns followed by the 
+	 * primary key (or row id) as the back reference to the base tree.
+	 * @param oldTuple the prior value or null if inserted
+	 * @param newTuple the new value or null if deleted
+	 */
+	private void updateIndexes(List<?> oldTuple, List<?> newTuple) throws TeiidComponentException {
+		if (indexTables == null) {
+			return;
+		}
+		for (TempTable index : this.indexTables.values()) {
+			List<?> oldEntry = null;
+			if (oldTuple != null) {
+				oldEntry = RelationalNode.projectTuple(index.baseProjection, oldTuple);
+			}
+			List<?> newEntry = null;
+			if (newTuple != null) {
+				newEntry = RelationalNode.projectTuple(index.baseProjection, newTuple);
+			}
+			if (oldEntry != null && oldEntry.equals(newEntry)) {
+				continue;
+			}
+			if (oldEntry != null) {
+				index.tree.remove(oldEntry);
+			}
+			if (newEntry != null) {
+				index.tree.insert(newEntry, InsertMode.NEW, -1);
+			}
+		}
 	}
 	
 	void writeTo(ObjectOutputStream oos) throws TeiidComponentException, IOException {
@@ -909,22 +953,12 @@ public class TempTable implements Cloneable, SearchableTable {
 				if (result == null) {
 					return null;
 				}
-				if (indexTables != null) {
-					for (TempTable index : this.indexTables.values()) {
-						tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), result);
-						index.tree.remove(tuple);
-					}
-				}
+				updateIndexes(result, null);
 				tid.getTableData().dataModified(1);
 				return result;
 			} 
 			List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
-			if (indexTables != null) {
-				for (TempTable index : this.indexTables.values()) {
-					tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-					index.tree.insert(tuple, InsertMode.UPDATE, -1);
-				}
-			}
+			updateIndexes(result, tuple);
 			tid.getTableData().dataModified(1);
 			return result;
 		} finally {
@@ -933,9 +967,11 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	private void updateTuple(List<?> tuple) throws TeiidComponentException {
-		if (tree.insert(tuple, InsertMode.UPDATE, -1) == null) {
+		List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
+		if (result == null) {
 			throw new AssertionError("Update failed"); //$NON-NLS-1$
 		}
+		updateIndexes(result, tuple);
 	}
 	
 	void setPreferMemory(boolean preferMemory) {
@@ -41,6 +41,7 @@ import org.teiid.api.exception.query.QueryValidatorException;
 import org.teiid.client.security.SessionToken;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.CoreConstants;
@@ -63,9 +64,11 @@ import org.teiid.language.SQLConstants;
 import org.teiid.language.SQLConstants.Reserved;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -82,6 +85,7 @@ import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.symbol.MultipleElementSymbol;
 import org.teiid.query.sql.symbol.Reference;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.util.CommandContext;
@@ -360,6 +364,10 @@ public class TempTableDataManager implements ProcessorDataManager {
 			String matTableName = metadata.getFullName(matTableId);
 			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "processing refreshmatview for", matViewName); //$NON-NLS-1$
 			boolean invalidate = Boolean.TRUE.equals(((Constant)proc.getParameter(3).getExpression()).getValue());
+			if (invalidate) {
+				//force a full load rather than a delta
+				globalStore.getMatTableInfo(matTableName).setLastModified(null);
+			}
 			boolean needsLoading = globalStore.needsLoading(matTableName, globalStore.getAddress(), true, true, invalidate);
 			if (!needsLoading) {
 				return CollectionTupleSource.createUpdateCountTupleSource(-1);
@@ -699,14 +707,34 @@ public class TempTableDataManager implements ProcessorDataManager {
 		LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30013, tableName));
 		final QueryMetadataInterface metadata = context.getMetadata();
 		final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata); 
-		final TempTable table = globalStore.createMatTable(tableName, group);
-		table.setUpdatable(false);
+		final MatTableInfo info = globalStore.getMatTableInfo(tableName);
+		final int lastModifiedIndex = getLastModifiedIndex(metadata, group, allColumns);
+		final Object lastModified = lastModifiedIndex == -1 ? null : info.getLastModified();
+		TempTable existing = null;
+		if (lastModified != null) {
+			//the existing rows are still intact even if invalidated
+			existing = globalStore.getTempTable(tableName);
+		}
+		final boolean delta = existing != null && existing.getPkLength() > 0;
+		final TempTable table;
+		final TupleBuffer changes;
+		if (delta) {
+			//the changes are collected first, then applied to a copy so that the swap is atomic
+			table = null;
+			changes = bufferManager.createTupleBuffer(allColumns, context.getConnectionId(), TupleSourceType.PROCESSOR);
+		} else {
+			table = globalStore.createMatTable(tableName, group);
+			table.setUpdatable(false);
+			changes = null;
+		}
 		return new ProxyTupleSource() {
 			TupleSource insertTupleSource;
 			boolean success;
 			QueryProcessor qp;
 			boolean closed;
 			boolean errored;
+			Object maxLastModified = lastModified;
+			long deltaRows;
 		
 			@Override
 			protected TupleSource createTupleSource() throws TeiidComponentException,
@@ -715,9 +743,67 @@ public class TempTableDataManager implements ProcessorDataManager {
 				try {
 					if (insertTupleSource == null) {
 						String fullName = metadata.getFullName(group.getMetadataID());
-						String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
-						qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+						if (delta) {
+							String viewName = metadata.getFullName(((TempMetadataID)group.getMetadataID()).getOriginalMetadataID());
+							Query query = new Query();
+							query.setSelect(new Select(Arrays.asList(new MultipleElementSymbol())));
+							query.setFrom(new From(Arrays.asList(new UnaryFromClause(new GroupSymbol(viewName)))));
+							query.setCriteria(new CompareCriteria(new ElementSymbol(allColumns.get(lastModifiedIndex).getShortName()), CompareCriteria.GT, new Reference(0)));
+							Option option = new Option();
+							option.setNoCache(true);
+							query.setOption(option);
+							qp = context.getQueryProcessorFactory().createQueryProcessor(query.toString(), viewName.toUpperCase(), context, lastModified);
+						} else {
+							String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
+							qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+						}
 						insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						if (lastModifiedIndex != -1) {
+							final TupleSource source = insertTupleSource;
+							insertTupleSource = new TupleSource() {
+								
+								@Override
+								public List<?> nextTuple() throws TeiidComponentException,
+										TeiidProcessingException {
+									List<?> tuple = source.nextTuple();
+									if (tuple != null) {
+										deltaRows++;
+										Object value = tuple.get(lastModifiedIndex);
+										if (value != null && (maxLastModified == null || Constant.COMPARATOR.compare(value, maxLastModified) > 0)) {
+											maxLastModified = value;
+										}
+									}
+									return tuple;
+								}
+								
+								@Override
+								public void closeSource() {
+									source.closeSource();
+								}
+							};
+						}
+					}
+					if (delta) {
+						List<?> tuple = null;
+						while ((tuple = insertTupleSource.nextTuple()) != null) {
+							changes.addTuple(tuple);
+						}
+						changes.close();
+						context.setDeterminismLevel(qp.getContext().getDeterminismLevel());
+						//hold the same lock as row updates so that none are lost by the swap
+						synchronized (globalStore.getGlobalTempTableMetadataId(tableName)) {
+							TempTable copy = globalStore.getTempTable(tableName).clone();
+							copy.insert(changes.createIndexedTupleSource(), allColumns, false, true, null);
+							rowCount = copy.getRowCount();
+							info.setLastModified(maxLastModified);
+							globalStore.loaded(tableName, copy);
+						}
+						success = true;
+						LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30014, tableName, rowCount));
+						if (LogManager.isMessageToBeRecorded(LogConstants.CTX_MATVIEWS, MessageLevel.DETAIL)) {
+							LogManager.logDetail(LogConstants.CTX_MATVIEWS, "Applied", deltaRows, "changed rows to", tableName, "since", lastModified); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						}
+						return CollectionTupleSource.createUpdateCountTupleSource((int)Math.min(Integer.MAX_VALUE, rowCount));
 					}
 					table.insert(insertTupleSource, allColumns, false, false, null);
 					table.getTree().compact();
@@ -740,6 +826,7 @@ public class TempTableDataManager implements ProcessorDataManager {
 					if (determinism.compareTo(Determinism.VDB_DETERMINISTIC) < 0 && (hint == null || hint.getScope() == null || Scope.VDB.compareTo(hint.getScope()) <= 0)) {
 						LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31143, determinism, tableName)); //$NON-NLS-1$
 					}
+					info.setLastModified(lastModifiedIndex == -1 || table.getPkLength() == 0 ? null : maxLastModified);
 					globalStore.loaded(tableName, table);
 					success = true;
 					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30014, tableName, rowCount));
@@ -766,7 +853,14 @@ public class TempTableDataManager implements ProcessorDataManager {
 				closed = true;
 				if (!success) {
 					globalStore.failedLoad(tableName);
-					table.remove();
+					//the next load should be full
+					info.setLastModified(null);
+					if (!delta) {
+						table.remove();
+					}
+				}
+				if (changes != null) {
+					changes.remove();
 				}
 				if (qp != null) {
 					qp.closeProcessing();
@@ -776,6 +870,29 @@ public class TempTableDataManager implements ProcessorDataManager {
 		};
 	}
 
+	/**
+	 * @return the position of the column named by {@link MaterializationMetadataRepository#MATVIEW_LAST_MODIFIED_COLUMN}
+	 * or -1 if a delta refresh is not possible
+	 */
+	private int getLastModifiedIndex(QueryMetadataInterface metadata, GroupSymbol group, List<ElementSymbol> allColumns) 
+			throws TeiidComponentException, QueryMetadataException {
+		Object viewId = ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID();
+		if (viewId == null) {
+			return -1;
+		}
+		String columnName = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_LAST_MODIFIED_COLUMN, false);
+		if (columnName == null || metadata.getElementIDsInGroupID(viewId).size() != allColumns.size()) {
+			//function based index columns are not projected by the view
+			return -1;
+		}
+		for (int i = 0; i < allColumns.size(); i++) {
+			if (allColumns.get(i).getShortName().equalsIgnoreCase(columnName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	public Object lookupCodeValue(CommandContext context, String codeTableName,
 			String returnElementName, String keyElementName, Object keyValue)
 			throws BlockedException, TeiidComponentException,
@@ -169,7 +169,7 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	    
 	    private int userRequestSourceConcurrency;
 	    private Subject subject;
-	    private HashSet<Object> dataObjects;
+	    private Set<Object> dataObjects;
 
 		private RequestID requestId;
 		
@@ -209,12 +209,13 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     private LinkedList<String> recursionStack;
     private boolean nonBlocking;
     private HashSet<Object> planningObjects;
-    private HashSet<Object> dataObjects = this.globalState.dataObjects;
+    private Set<Object> dataObjects = this.globalState.dataObjects;
     private TupleSourceCache tupleSourceCache;
     private VDBState vdbState = new VDBState();
     private Determinism[] determinismLevel = new Determinism[] {Determinism.DETERMINISTIC};
     private AtomicBoolean cancelled = new AtomicBoolean();
     private AtomicBoolean parentCancelled;
+    private boolean parallel;
     
     /**
      * Construct a new context.
@@ -309,6 +310,25 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     	return clone;
     }
     
+    /**
+     * Create a context for a plan branch that is processed concurrently with the plan using this context.
+     * <br>
+     * The global state is shared, but the branch has its own variable context and determinism level,
+     * which should be applied to this context by the processing thread.  The non-thread safe format
+     * caches are not used by the branch and the branch has its own {@link TupleSourceCache}, which
+     * should be closed along with the branch.
+     */
+    public CommandContext createParallelContext() {
+    	CommandContext clone = clone();
+    	clone.determinismLevel = new Determinism[] {Determinism.DETERMINISTIC};
+    	clone.pushVariableContext(new VariableContext());
+    	clone.dataObjects = this.dataObjects;
+    	//the shared source queries are not thread safe, so the branch uses its own cache
+    	clone.tupleSourceCache = new TupleSourceCache();
+    	clone.parallel = true;
+    	return clone;
+    }
+    
     public void setNewVDBState(DQPWorkContext newWorkContext) {
     	this.vdbState = new VDBState();
     	VDBMetaData vdb = newWorkContext.getVDB();
@@ -664,7 +684,11 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		return dataObjects;
 	}
 	
-	public void setDataObjects(HashSet<Object> dataObjectsAccessed) {
+	/**
+	 * Set the data objects that will be accessed.  The set should be thread safe
+	 * if the plan may process branches in parallel.
+	 */
+	public void setDataObjects(Set<Object> dataObjectsAccessed) {
 		this.dataObjects = dataObjectsAccessed;
 	}
 	
@@ -833,6 +857,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	
 	public static DecimalFormat getDecimalFormat(CommandContext context, String format) {
 		DecimalFormat result = null;
+		if (context != null && context.parallel) {
+			context = null; //the cached instances are not thread safe
+		}
 		if (context != null) {
 			if (context.globalState.decimalFormatCache == null) {
 				context.globalState.decimalFormatCache = new LRUCache<String, DecimalFormat>(32);
@@ -852,6 +879,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	
 	public static SimpleDateFormat getDateFormat(CommandContext context, String format) {
 		SimpleDateFormat result = null;
+		if (context != null && context.parallel) {
+			context = null; //the cached instances are not thread safe
+		}
 		if (context != null) {
 			if (context.globalState.dateFormatCache == null) {
 				context.globalState.dateFormatCache = new LRUCache<String, SimpleDateFormat>(32);
@@ -879,6 +909,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
      */
     public static Pattern getPattern(CommandContext context, String regex, int flags) {
         Pattern result = null;
+        if (context != null && context.parallel) {
+            context = null; //the cache is not thread safe
+        }
         if (context != null) {
             if (context.globalState.patternCache == null) {
                 context.globalState.patternCache = new LRUCache<Entry<String,Integer>,Pattern>(32);
@@ -1014,7 +1047,10 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 
 	public long addAndGetReservedBuffers(int i) {
-		return globalState.reservedBuffers += i;
+		//may be called concurrently by parallel plan branches
+		synchronized (this.globalState) {
+			return globalState.reservedBuffers += i;
+		}
 	}
 
 	@Override
@@ -1032,17 +1068,21 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 	
 	public TupleSource getCodeLookup(String matTableName, Object keyValue) {
-		if (this.globalState.lookups != null) {
-			return this.globalState.lookups.remove(new LookupKey(matTableName, keyValue));
+		synchronized (this.globalState) {
+			if (this.globalState.lookups != null) {
+				return this.globalState.lookups.remove(new LookupKey(matTableName, keyValue));
+			}
 		}
 		return null;
 	}
 
 	public void putCodeLookup(String matTableName, Object keyValue, TupleSource ts) {
-		if (this.globalState.lookups == null) {
-			this.globalState.lookups = new TreeMap<LookupKey, TupleSource>();
+		synchronized (this.globalState) {
+			if (this.globalState.lookups == null) {
+				this.globalState.lookups = new TreeMap<LookupKey, TupleSource>();
+			}
+			this.globalState.lookups.put(new LookupKey(matTableName, keyValue), ts);
 		}
-		this.globalState.lookups.put(new LookupKey(matTableName, keyValue), ts);
 	}
 	
 	
@@ -1121,8 +1161,10 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 
 	public void addCreatedLob(InputStreamFactory isf) {
-		if (this.globalState.created != null) {
-			this.globalState.created.add(isf);
+		synchronized (this.globalState) {
+			if (this.globalState.created != null) {
+				this.globalState.created.add(isf);
+			}
 		}
 	}
 
@@ -1156,17 +1198,21 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 
 	public Boolean isAccessible(AbstractMetadataRecord record) {
-		if (this.globalState.accessible == null) {
-			return null;
+		synchronized (this.globalState) {
+			if (this.globalState.accessible == null) {
+				return null;
+			}
+			return this.globalState.accessible.get(record);
 		}
-		return this.globalState.accessible.get(record);
 	}
 
 	public void setAccessible(AbstractMetadataRecord record, Boolean result) {
-		if (this.globalState.accessible == null) {
-			this.globalState.accessible = new LRUCache<>(1000);
+		synchronized (this.globalState) {
+			if (this.globalState.accessible == null) {
+				this.globalState.accessible = new LRUCache<>(1000);
+			}
+			this.globalState.accessible.put(record, result);
 		}
-		this.globalState.accessible.put(record, result);
 	}
 
 	public Throwable getBatchUpdateException() {
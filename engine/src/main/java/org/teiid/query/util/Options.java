@@ -40,6 +40,18 @@ public class Options {
 	public static final String DEFAULT_NULL_ORDER = "org.teiid.defaultNullOrder"; //$NON-NLS-1$
 	public static final String ASSUME_MATCHING_COLLATION = "org.teiid.assumeMatchingCollation"; //$NON-NLS-1$
 	public static final String AGGRESSIVE_JOIN_GROUPING = "org.teiid.aggressiveJoinGrouping"; //$NON-NLS-1$
+	public static final String USE_HASH_JOIN = "org.teiid.useHashJoin"; //$NON-NLS-1$
+	public static final String USE_HASH_AGGREGATION = "org.teiid.useHashAggregation"; //$NON-NLS-1$
+	public static final String USE_PARALLEL_EXCHANGE = "org.teiid.useParallelExchange"; //$NON-NLS-1$
+	public static final String USE_PARALLEL_SORT = "org.teiid.useParallelSort"; //$NON-NLS-1$
+	public static final String USE_COLUMNAR_BATCHES = "org.teiid.useColumnarBatches"; //$NON-NLS-1$
+	public static final String USE_VECTORIZED_CRITERIA = "org.teiid.useVectorizedCriteria"; //$NON-NLS-1$
+	public static final String USE_COMPILED_EXPRESSIONS = "org.teiid.useCompiledExpressions"; //$NON-NLS-1$
+	public static final String BLOOM_FILTER_DEPENDENT_JOIN = "org.teiid.bloomFilterDependentJoin"; //$NON-NLS-1$
+	public static final String BLOOM_FILTER_DEPENDENT_JOIN_QUERIES = "org.teiid.bloomFilterDependentJoinQueries"; //$NON-NLS-1$
+	public static final String AUTO_PARAMETERIZE = "org.teiid.autoParameterize"; //$NON-NLS-1$
+	public static final String JOIN_ENUMERATION_BUDGET = "org.teiid.joinEnumerationBudget"; //$NON-NLS-1$
+	public static final String ADAPTIVE_DEPENDENT_JOIN_FACTOR = "org.teiid.adaptiveDependentJoinFactor"; //$NON-NLS-1$
 
 	private Properties properties;
 	private boolean subqueryUnnestDefault = false;
@@ -51,6 +63,18 @@ public class Options {
 	private NullOrder defaultNullOrder = NullOrder.LOW;
 	private boolean assumeMatchingCollation = true;
 	private boolean aggressiveJoinGrouping = true;
+	private boolean useHashJoin;
+	private boolean useHashAggregation;
+	private boolean useParallelExchange;
+	private boolean useParallelSort;
+	private boolean useColumnarBatches;
+	private boolean useVectorizedCriteria;
+	private boolean useCompiledExpressions;
+	private boolean bloomFilterDependentJoin;
+	private int bloomFilterDependentJoinQueries = -1;
+	private boolean autoParameterize;
+	private int joinEnumerationBudget = 100000;
+	private int adaptiveDependentJoinFactor = 0;
 	
 	public Properties getProperties() {
 		return properties;
@@ -176,4 +200,181 @@ public class Options {
 		this.aggressiveJoinGrouping = b;
 		return this;
 	}
+
+	public boolean isUseHashJoin() {
+		return this.useHashJoin;
+	}
+	
+	public void setUseHashJoin(boolean useHashJoin) {
+		this.useHashJoin = useHashJoin;
+	}
+	
+	public Options useHashJoin(boolean b) {
+		this.useHashJoin = b;
+		return this;
+	}
+
+	public boolean isUseHashAggregation() {
+		return this.useHashAggregation;
+	}
+	
+	public void setUseHashAggregation(boolean useHashAggregation) {
+		this.useHashAggregation = useHashAggregation;
+	}
+	
+	public Options useHashAggregation(boolean b) {
+		this.useHashAggregation = b;
+		return this;
+	}
+
+	public boolean isUseParallelExchange() {
+		return this.useParallelExchange;
+	}
+	
+	public void setUseParallelExchange(boolean useParallelExchange) {
+		this.useParallelExchange = useParallelExchange;
+	}
+	
+	public Options useParallelExchange(boolean b) {
+		this.useParallelExchange = b;
+		return this;
+	}
+	
+	public boolean isUseParallelSort() {
+		return this.useParallelSort;
+	}
+	
+	public void setUseParallelSort(boolean useParallelSort) {
+		this.useParallelSort = useParallelSort;
+	}
+	
+	public Options useParallelSort(boolean b) {
+		this.useParallelSort = b;
+		return this;
+	}
+	
+	public boolean isUseColumnarBatches() {
+		return this.useColumnarBatches;
+	}
+	
+	public void setUseColumnarBatches(boolean useColumnarBatches) {
+		this.useColumnarBatches = useColumnarBatches;
+	}
+	
+	public Options useColumnarBatches(boolean b) {
+		this.useColumnarBatches = b;
+		return this;
+	}
+	
+	public boolean isUseVectorizedCriteria() {
+		return this.useVectorizedCriteria;
+	}
+	
+	public void setUseVectorizedCriteria(boolean useVectorizedCriteria) {
+		this.useVectorizedCriteria = useVectorizedCriteria;
+	}
+	
+	public Options useVectorizedCriteria(boolean b) {
+		this.useVectorizedCriteria = b;
+		return this;
+	}
+	
+	public boolean isUseCompiledExpressions() {
+		return this.useCompiledExpressions;
+	}
+	
+	public void setUseCompiledExpressions(boolean useCompiledExpressions) {
+		this.useCompiledExpressions = useCompiledExpressions;
+	}
+	
+	public Options useCompiledExpressions(boolean b) {
+		this.useCompiledExpressions = b;
+		return this;
+	}
+	
+	/**
+	 * If a bloom filter of the independent values should be used to pre-filter the
+	 * dependent side when the dependent criteria cannot be fully applied at the source
+	 */
+	public boolean isBloomFilterDependentJoin() {
+		return this.bloomFilterDependentJoin;
+	}
+	
+	public void setBloomFilterDependentJoin(boolean bloomFilterDependentJoin) {
+		this.bloomFilterDependentJoin = bloomFilterDependentJoin;
+	}
+	
+	public Options bloomFilterDependentJoin(boolean b) {
+		this.bloomFilterDependentJoin = b;
+		return this;
+	}
+	
+	/**
+	 * The number of source queries a dependent join may be split into before a single query 
+	 * with a bloom filter pre-filter is used instead.  -1 if there is no limit.
+	 */
+	public int getBloomFilterDependentJoinQueries() {
+		return this.bloomFilterDependentJoinQueries;
+	}
+	
+	public void setBloomFilterDependentJoinQueries(int bloomFilterDependentJoinQueries) {
+		this.bloomFilterDependentJoinQueries = bloomFilterDependentJoinQueries;
+	}
+	
+	public Options bloomFilterDependentJoinQueries(int i) {
+		this.bloomFilterDependentJoinQueries = i;
+		return this;
+	}
+	
+	/**
+	 * If comparison literals in plain statements should be replaced with references
+	 * so that the plan may be cached and reused as if the statement were prepared.
+	 */
+	public boolean isAutoParameterize() {
+		return this.autoParameterize;
+	}
+	
+	public void setAutoParameterize(boolean autoParameterize) {
+		this.autoParameterize = autoParameterize;
+	}
+	
+	public Options autoParameterize(boolean b) {
+		this.autoParameterize = b;
+		return this;
+	}
+	
+	/**
+	 * The maximum number of join steps that may be costed when enumerating the join orders
+	 * of a large join region before falling back to the greedy search.  0 disables the enumeration.
+	 */
+	public int getJoinEnumerationBudget() {
+		return this.joinEnumerationBudget;
+	}
+	
+	public void setJoinEnumerationBudget(int joinEnumerationBudget) {
+		this.joinEnumerationBudget = joinEnumerationBudget;
+	}
+	
+	public Options joinEnumerationBudget(int i) {
+		this.joinEnumerationBudget = i;
+		return this;
+	}
+	
+	/**
+	 * The factor by which the source queries needed for the actual independent values of a dependent join
+	 * may exceed those expected from the planning estimate before the set processing is abandoned
+	 * for the dependent join pushdown, a bloom filter, or a full fetch.  Defaults to 0, which disables the check.
+	 */
+	public int getAdaptiveDependentJoinFactor() {
+		return this.adaptiveDependentJoinFactor;
+	}
+	
+	public void setAdaptiveDependentJoinFactor(int adaptiveDependentJoinFactor) {
+		this.adaptiveDependentJoinFactor = adaptiveDependentJoinFactor;
+	}
+	
+	public Options adaptiveDependentJoinFactor(int i) {
+		this.adaptiveDependentJoinFactor = i;
+		return this;
+	}
 }
@@ -80,7 +80,7 @@ OPTIONS (UPDATECOUNT 1)
 CREATE FOREIGN PROCEDURE refreshMatViewRows(OUT RowsUpdated integer NOT NULL RESULT, IN ViewName string NOT NULL, VARIADIC Key object[] NOT NULL)
 OPTIONS (UPDATECOUNT 1)
 
-CREATE FOREIGN PROCEDURE setColumnStats(IN tableName string NOT NULL, IN columnName string NOT NULL, IN distinctCount long, IN nullCount long, IN max string, IN min string)
+CREATE FOREIGN PROCEDURE setColumnStats(IN tableName string NOT NULL, IN columnName string NOT NULL, IN distinctCount long, IN nullCount long, IN max string, IN min string, IN histogram string, IN mostCommonValues string)
 OPTIONS (UPDATECOUNT 0)
 
 CREATE FOREIGN PROCEDURE setProperty(OUT OldValue clob(2097152) NOT NULL RESULT, IN UID string(50) NOT NULL, IN Name string NOT NULL, IN "Value" clob(2097152))
@@ -377,3 +377,89 @@ BEGIN
 
 	RETURN  rowsUpdated;
 END
+
+CREATE VIRTUAL PROCEDURE analyzeTable(IN schemaName string NOT NULL, IN tableName string NOT NULL, IN sampleSize integer NOT NULL DEFAULT '10000') RETURNS TABLE (ColumnName string, DistinctCount long, NullCount long, MinValue string, MaxValue string, Histogram string, MostCommonValues string) AS
+BEGIN
+	DECLARE string vdbName = (SELECT Name FROM VirtualDatabases);
+	DECLARE string uid = (SELECT UID FROM SYS.Tables WHERE VDBName = VARIABLES.vdbName AND SchemaName = analyzeTable.schemaName AND Name = analyzeTable.tableName);
+	
+	IF (uid IS NULL)
+	BEGIN
+		RAISE SQLEXCEPTION 'The table not found';
+	END
+	
+	DECLARE string fullName = analyzeTable.schemaName || '.' || analyzeTable.tableName;
+	DECLARE string groupName = '"' || replace(analyzeTable.schemaName, '"', '""') || '"."' || replace(analyzeTable.tableName, '"', '""') || '"';
+	DECLARE integer buckets = 10;
+	DECLARE string sampleCrit = '';
+	
+	CREATE LOCAL TEMPORARY TABLE #analyze_stats (ColumnName string, DistinctCount long, NullCount long, MinValue string, MaxValue string, Histogram string, MostCommonValues string);
+	CREATE LOCAL TEMPORARY TABLE #analyze_columns (Name string, idx integer);
+	CREATE LOCAL TEMPORARY TABLE #analyze_sample (val string, rn integer);
+	
+	/* the per-column aggregates are computed in a single scan along with the cardinality */
+	DECLARE integer columnCount = 0;
+	DECLARE string aggregates = '';
+	LOOP ON (SELECT Name FROM SYS.Columns WHERE VDBName = VARIABLES.vdbName AND SchemaName = analyzeTable.schemaName AND TableName = analyzeTable.tableName AND SupportsSelect AND DataType NOT IN ('object', 'blob', 'clob', 'xml', 'geometry') AND DataType NOT LIKE '%[]' ORDER BY Position) AS col
+	BEGIN
+		DECLARE string colName = '"' || replace(col.Name, '"', '""') || '"';
+		VARIABLES.aggregates = VARIABLES.aggregates || ', cast(count(DISTINCT ' || colName || ') as string), cast(count(' || colName || ') as string), cast(min(' || colName || ') as string), cast(max(' || colName || ') as string)';
+		INSERT INTO #analyze_columns (Name, idx) VALUES (col.Name, VARIABLES.columnCount);
+		VARIABLES.columnCount = VARIABLES.columnCount + 1;
+	END
+	
+	IF (VARIABLES.columnCount = 0)
+	BEGIN
+		VARIABLES.aggregates = ', cast(null as string[])';
+	END ELSE
+	BEGIN
+		VARIABLES.aggregates = ', (cast(count(*) as string)' || VARIABLES.aggregates || ')';
+	END
+	
+	EXECUTE IMMEDIATE 'SELECT cast(count(*) as long)' || VARIABLES.aggregates || ' FROM ' || VARIABLES.groupName AS cardinality long, aggregates string[] INTO #analyze_count;
+	DECLARE long cardinality = (SELECT cardinality FROM #analyze_count);
+	DECLARE string[] columnAggregates = (SELECT aggregates FROM #analyze_count);
+	EXECUTE SYSADMIN.setTableStats(tableName=>VARIABLES.fullName, cardinality=>VARIABLES.cardinality);
+	
+	/* only a random fraction of the rows is used to build the histogram and most common values */
+	IF (VARIABLES.cardinality > analyzeTable.sampleSize)
+	BEGIN
+		VARIABLES.sampleCrit = ' AND rand() < ' || (cast(analyzeTable.sampleSize AS double) / VARIABLES.cardinality);
+	END
+	
+	LOOP ON (SELECT Name, idx FROM #analyze_columns ORDER BY idx) AS col
+	BEGIN
+		DELETE FROM #analyze_sample;
+		DECLARE string colName = '"' || replace(col.Name, '"', '""') || '"';
+		
+		/* the first element is the row count so that the array always has more than one element */
+		DECLARE integer pos = col.idx * 4 + 2;
+		DECLARE long distinctCount = cast(array_get(VARIABLES.columnAggregates, VARIABLES.pos) AS long);
+		DECLARE long nullCount = VARIABLES.cardinality - cast(array_get(VARIABLES.columnAggregates, VARIABLES.pos + 1) AS long);
+		DECLARE string minValue = array_get(VARIABLES.columnAggregates, VARIABLES.pos + 2);
+		DECLARE string maxValue = array_get(VARIABLES.columnAggregates, VARIABLES.pos + 3);
+		
+		EXECUTE IMMEDIATE 'SELECT cast(' || colName || ' as string), ROW_NUMBER() OVER (ORDER BY ' || colName || ') FROM ' || VARIABLES.groupName || ' WHERE ' || colName || ' IS NOT NULL' || VARIABLES.sampleCrit AS val string, rn integer INTO #analyze_sample;
+		DECLARE integer sampleCount = (SELECT count(*) FROM #analyze_sample);
+		DECLARE integer step = (VARIABLES.sampleCount + VARIABLES.buckets - 1) / VARIABLES.buckets;
+		DECLARE string histogram;
+		DECLARE string mostCommonValues;
+		
+		IF (VARIABLES.sampleCount > 1)
+		BEGIN
+			/* the sample excludes nulls, so the frequencies are scaled to be relative to all rows */
+			DECLARE double nonNullFraction = cast(VARIABLES.cardinality - VARIABLES.nullCount AS double) / cast(VARIABLES.cardinality AS double);
+			/* equi-depth bucket boundaries */
+			VARIABLES.histogram = (SELECT cast(string_agg(replace(replace(val, '\', '\\'), ',', '\,'), ',' ORDER BY rn) AS string) FROM #analyze_sample WHERE rn = VARIABLES.sampleCount OR mod(rn - 1, VARIABLES.step) = 0);
+			/* values that are more frequent than the average */
+			VARIABLES.mostCommonValues = (SELECT nullif(cast(string_agg(replace(replace(val, '\', '\\'), ',', '\,') || '=' || cast(cast(cnt AS double) / VARIABLES.sampleCount * VARIABLES.nonNullFraction AS string), ',' ORDER BY cnt DESC) AS string), '') FROM (SELECT val, count(*) AS cnt FROM #analyze_sample GROUP BY val ORDER BY cnt DESC LIMIT 10) AS x WHERE cnt > 1 AND cnt * VARIABLES.distinctCount > VARIABLES.sampleCount);
+		END
+		
+		EXECUTE SYSADMIN.setColumnStats(tableName=>VARIABLES.fullName, columnName=>col.Name, distinctCount=>VARIABLES.distinctCount, nullCount=>VARIABLES.nullCount, max=>VARIABLES.maxValue, min=>VARIABLES.minValue, histogram=>VARIABLES.histogram, mostCommonValues=>VARIABLES.mostCommonValues);
+		INSERT INTO #analyze_stats (ColumnName, DistinctCount, NullCount, MinValue, MaxValue, Histogram, MostCommonValues) VALUES (col.Name, VARIABLES.distinctCount, VARIABLES.nullCount, VARIABLES.minValue, VARIABLES.maxValue, VARIABLES.histogram, VARIABLES.mostCommonValues);
+	EXCEPTION e
+		EXECUTE logMsg(context=>'org.teiid.PROCESSOR', level=>'WARN', msg=>e.exception);
+	END
+	
+	SELECT * FROM #analyze_stats;
+END
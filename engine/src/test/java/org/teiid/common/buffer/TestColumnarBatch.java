@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.SizeUtility;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.Options;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestColumnarBatch {
+
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER,
+		DataTypeManager.DefaultDataClasses.LONG, DataTypeManager.DefaultDataClasses.DOUBLE,
+		DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.BIG_DECIMAL};
+
+	private List<List<?>> createRows(int count) {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < count; i++) {
+			rows.add(Arrays.asList(i % 7 == 0 ? null : i, (long)i * 3, i/2d, i % 5 == 0 ? null : "v" + (i % 3), BigDecimal.valueOf(i)));
+		}
+		return rows;
+	}
+
+	@Test public void testCreate() {
+		List<List<?>> rows = createRows(100);
+		ColumnarBatch batch = ColumnarBatch.create(rows, TYPES);
+		assertEquals(rows, batch);
+		assertTrue(batch.isIntColumn(0));
+		assertTrue(batch.isLongColumn(1));
+		assertTrue(batch.isDoubleColumn(2));
+		assertFalse(batch.isIntColumn(3));
+		assertTrue(batch.isNull(0, 0));
+		assertFalse(batch.isNull(1, 0));
+		assertEquals(1, batch.getInt(1, 0));
+		assertEquals(300, batch.getLong(100 - 1, 1) + 3);
+		assertEquals(1.5, batch.getDouble(3, 2), 0);
+		assertNull(batch.getValue(5, 3));
+		assertEquals("v1", batch.getValue(1, 3));
+	}
+
+	@Test public void testSelectProjectSlice() {
+		List<List<?>> rows = createRows(20);
+		ColumnarBatch batch = ColumnarBatch.create(rows, TYPES);
+		ColumnarBatch selected = batch.select(new int[] {1, 3, 10}, 2);
+		assertEquals(Arrays.asList(rows.get(1), rows.get(3)), selected);
+		ColumnarBatch projected = selected.project(new int[] {3, 0});
+		assertEquals(Arrays.asList(Arrays.asList("v1", 1), Arrays.asList("v0", 3)), projected);
+		ColumnarBatch slice = batch.subList(5, 10).subList(1, 3);
+		assertEquals(rows.subList(6, 8), slice);
+		assertEquals(Arrays.asList(rows.get(7)), slice.select(new int[] {1}, 1));
+	}
+
+	@Test public void testSizeEstimate() {
+		Class<?>[] types = Arrays.copyOf(TYPES, 4);
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (List<?> row : createRows(1000)) {
+			rows.add(row.subList(0, 4));
+		}
+		ColumnarBatch batch = ColumnarBatch.create(rows, types);
+		SizeUtility su = new SizeUtility(types);
+		assertTrue(su.getBatchSize(false, batch) < su.getBatchSize(false, rows) / 2);
+	}
+
+	@Test public void testSliceSizeEstimate() {
+		Class<?>[] types = Arrays.copyOf(TYPES, 4);
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (List<?> row : createRows(1000)) {
+			rows.add(row.subList(0, 4));
+		}
+		ColumnarBatch batch = ColumnarBatch.create(rows, types);
+		ColumnarBatch slice = batch.subList(0, 10);
+		assertTrue(slice.getSizeEstimate() < batch.getSizeEstimate() / 10);
+		assertTrue(batch.select(new int[] {1, 2}, 2).getSizeEstimate() < batch.getSizeEstimate() / 10);
+	}
+	
+	@Test public void testTuples() {
+		List<List<?>> rows = createRows(10);
+		TupleBatch batch = new TupleBatch(1, ColumnarBatch.create(rows, TYPES));
+		assertEquals(rows.get(1), batch.getColumnarBatch().getView(1));
+		//the tuple is a copy
+		List<Object> tuple = (List<Object>)batch.getTuple(2);
+		tuple.set(0, null);
+		assertEquals(rows.get(1), batch.getTuple(2));
+		//the tuples are modifiable
+		batch.getTuples().add(Arrays.asList(1, 2l, 3d, "4", BigDecimal.ONE));
+		assertNull(batch.getColumnarBatch());
+		assertEquals(11, batch.getRowCount());
+		assertEquals(rows, batch.getTuples().subList(0, 10));
+	}
+
+	@Test public void testTupleBuffer() throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		ElementSymbol y = new ElementSymbol("y");
+		y.setType(DataTypeManager.DefaultDataClasses.STRING);
+		BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(0, 2);
+		bm.setOptions(new Options().useColumnarBatches(true));
+		TupleBuffer tb = bm.createTupleBuffer(Arrays.asList(x, y), "x", TupleSourceType.PROCESSOR);
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 100; i++) {
+			List<?> row = Arrays.asList(i, "a");
+			rows.add(row);
+			tb.addTuple(row);
+		}
+		tb.close();
+		List<List<?>> result = new ArrayList<List<?>>();
+		for (int i = 1; i <= tb.getRowCount();) {
+			TupleBatch batch = tb.getBatch(i);
+			assertNotNull(batch.getColumnarBatch());
+			result.addAll(batch.getTuples());
+			i += batch.getRowCount();
+		}
+		assertEquals(rows, result);
+	}
+
+}
@@ -61,6 +61,35 @@ public class TestTupleBuffer {
 		assertEquals(2, batch.getBeginRow());
 	}
 	
+	@Test public void testAdaptiveBatchSize() throws Exception {
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.STRING);
+		List<ElementSymbol> schema = Arrays.asList(x);
+		TupleBuffer tb = BufferManagerFactory.createBufferManager().createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		int initial = tb.getBatchSize();
+		char[] chars = new char[10000];
+		Arrays.fill(chars, 'a');
+		String wide = new String(chars);
+		for (int i = 0; i < initial * 4; i++) {
+			tb.addTuple(Arrays.asList(wide));
+		}
+		tb.close();
+		//the measured rows are much wider than the static estimate
+		assertTrue(tb.getBatchSize() < initial);
+		assertTrue(tb.getBatchSize() >= BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE >> 3);
+		
+		TupleBufferTupleSource tbts = tb.createIndexedTupleSource();
+		int count = 0;
+		while (tbts.hasNext()) {
+			assertEquals(wide, tbts.nextTuple().get(0));
+			count++;
+		}
+		assertEquals(initial * 4, count);
+		
+		tb.setBatchSize(2);
+		assertEquals(0, tb.getTargetBatchBytes());
+	}
+	
 	@Test public void testReverseIteration() throws Exception {
 		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
 		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.lang.ref.WeakReference;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Test;
@@ -91,6 +92,8 @@ public class TestBufferFrontedFileStoreCache {
 		cache.add(ce, s);
 		ce = get(cache, 2l, s);
 		assertEquals(cacheObject, ce.getObject());
+		assertEquals(1, cache.getMemoryBufferReads());
+		assertEquals(0, cache.getStorageReads());
 		
 		//test something that exceeds the direct inode data blocks
 		ce = new CacheEntry(3l);
@@ -187,6 +190,75 @@ public class TestBufferFrontedFileStoreCache {
 		
 		ce = get(cache, 3l, s);
 		assertEquals(Integer.valueOf(5001), ce.getObject());
+		
+		assertTrue(cache.getStorageReads() > 0);
+		assertEquals(2, cache.getStorageReads() + cache.getMemoryBufferReads());
+	}
+	
+	@Test public void testCompression() throws Exception {
+		cache = createLayeredCache(1<<15, 1<<15, true, true);
+		cache.setCompressBufferFiles(true);
+		
+		Serializer<Integer> s = new SimpleSerializer();
+		WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+		cache.createCacheGroup(s.getId());
+		for (long i = 2; i < 6; i++) {
+			CacheEntry ce = new CacheEntry(i);
+			ce.setSerializer(ref);
+			ce.setObject(Integer.valueOf(5000 + (int)i));
+			cache.addToCacheGroup(s.getId(), ce.getId());
+			cache.add(ce, s);
+		}
+		long saved = cache.getCompressedBytesSaved();
+		assertTrue(saved > 0);
+		//without compression these would not fit in the memory buffer
+		for (long i = 2; i < 6; i++) {
+			CacheEntry ce = get(cache, i, s);
+			assertEquals(Integer.valueOf(5000 + (int)i), ce.getObject());
+		}
+		
+		//random data should bypass compression
+		Serializer<Integer> random = new Serializer<Integer>() {
+			@Override
+			public Integer deserialize(ObjectInput ois) throws IOException, ClassNotFoundException {
+				int result = ois.readInt();
+				byte[] bytes = new byte[result];
+				ois.readFully(bytes);
+				byte[] expected = new byte[result];
+				new Random(result).nextBytes(expected);
+				assertArrayEquals(expected, bytes);
+				return result;
+			}
+			
+			@Override
+			public Long getId() {
+				return 2l;
+			}
+			
+			@Override
+			public void serialize(Integer obj, ObjectOutput oos) throws IOException {
+				oos.writeInt(obj);
+				byte[] bytes = new byte[obj];
+				new Random(obj).nextBytes(bytes);
+				oos.write(bytes);
+			}
+			
+			@Override
+			public boolean useSoftCache() {
+				return false;
+			}
+		};
+		cache.createCacheGroup(random.getId());
+		CacheEntry ce = new CacheEntry(10l);
+		ce.setSerializer(new WeakReference<Serializer<?>>(random));
+		ce.setObject(Integer.valueOf(4000));
+		cache.addToCacheGroup(random.getId(), ce.getId());
+		cache.add(ce, random);
+		assertEquals(saved, cache.getCompressedBytesSaved());
+		PhysicalInfo o = cache.lockForLoad(10l, random);
+		ce = cache.get(o, 10l, new WeakReference<Serializer<?>>(random));
+		cache.unlockForLoad(o);
+		assertEquals(Integer.valueOf(4000), ce.getObject());
 	}
 	
 	@Test public void testEvictionFails() throws Exception {
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -41,7 +42,10 @@ import org.teiid.core.util.UnitTestUtil;
 public class TestFileStorageManager {
 		
 	public static FileStorageManager getStorageManager(Integer openFiles, String dir) throws TeiidComponentException {
-        FileStorageManager sm = new FileStorageManager();
+		return initStorageManager(new FileStorageManager(), openFiles, dir);
+	}
+
+	private static FileStorageManager initStorageManager(FileStorageManager sm, Integer openFiles, String dir) throws TeiidComponentException {
         sm.setStorageDirectory(UnitTestUtil.getTestScratchPath() + (dir != null ? File.separator + dir : "")); //$NON-NLS-1$
         if (openFiles != null) {
         	sm.setMaxOpenFiles(openFiles);
@@ -86,6 +90,78 @@ public class TestFileStorageManager {
         assertEquals(0, sm.getUsedBufferSpace());
     }
             
+    @Test public void testChannelPositionalWrite() throws Exception {
+        FileStorageManager sm = initStorageManager(new FileChannelStorageManager(), null, null);
+        FileStore store = sm.createFileStore("0");
+        byte[] expectedBytes = writeBytes(store, 2048);
+        assertEquals(4096, sm.getUsedBufferSpace());
+        writeBytes(store, 0);
+        assertEquals(4096, store.getLength());
+        
+        byte[] bytesRead = new byte[2048];        
+        store.readFully(2048, bytesRead, 0, bytesRead.length);
+        assertArrayEquals(expectedBytes, bytesRead);
+        assertEquals(-1, store.read(4096, bytesRead, 0, 1));
+        
+        store.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+    
+    @Test public void testChannelDirectBuffer() throws Exception {
+        FileStorageManager sm = initStorageManager(new FileChannelStorageManager(), null, null);
+        FileStore store = sm.createFileStore("0");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2048);
+        for (int i = 0; i < 2048; i++) {
+        	buffer.put((byte)i);
+        }
+        buffer.flip();
+        store.write(1024, buffer);
+        assertEquals(0, buffer.remaining());
+        assertEquals(3072, store.getLength());
+        
+        ByteBuffer read = ByteBuffer.allocateDirect(2048);
+        while (read.hasRemaining()) {
+        	assertTrue(store.read(1024 + read.position(), read) > 0);
+        }
+        buffer.flip();
+        read.flip();
+        assertEquals(buffer, read);
+        
+        store.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+    
+    @Test public void testRemoveDirectTwice() throws Exception {
+        FileStorageManager sm = getStorageManager(null, null);
+        FileStorageManager.DiskStore store = (FileStorageManager.DiskStore)sm.createFileStore("0");
+        writeBytes(store);
+        FileStore other = sm.createFileStore("1");
+        writeBytes(other);
+        assertEquals(4096, sm.getUsedBufferSpace());
+        store.removeDirect();
+        store.removeDirect();
+        assertEquals(2048, sm.getUsedBufferSpace());
+        other.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+    
+    @Test public void testChannelInterrupt() throws Exception {
+        FileStorageManager sm = initStorageManager(new FileChannelStorageManager(), null, null);
+        FileStore store = sm.createFileStore("0");
+        writeBytes(store);
+        Thread.currentThread().interrupt();
+        try {
+        	writeBytes(store);
+        	fail();
+        } catch (IOException e) {
+        	//the channel is closed by the interrupt
+        } finally {
+        	Thread.interrupted();
+        }
+        //should reopen the file
+        writeBytes(store, 0);
+    }
+    
     @Test(expected=IOException.class) public void testMaxSpace() throws Exception {
     	FileStorageManager sm = getStorageManager(null, null); 
     	sm.setMaxBufferSpace(1);
@@ -24,6 +24,7 @@ package org.teiid.common.buffer.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
@@ -50,4 +51,90 @@ public class TestLrfuEvictionQueue {
 		assertTrue(key1.compareTo(key) > 0);
 	}
 	
+	@Test public void testStripedTouch() {
+		AtomicLong clock = new AtomicLong();
+		StripedLrfuEvictionQueue<BaseCacheEntry> q = new StripedLrfuEvictionQueue<BaseCacheEntry>(clock);
+		BaseCacheEntry first = new BaseCacheEntry(new CacheKey(1l, 0l, 0l));
+		BaseCacheEntry second = new BaseCacheEntry(new CacheKey(2l, 0l, 0l));
+		q.add(first);
+		q.add(second);
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL * 2);
+		q.touch(first);
+		//the touch is deferred
+		assertEquals(1, q.getPending());
+		assertEquals(0, first.getKey().getLastAccess());
+		//and applied prior to choosing an eviction candidate
+		assertSame(second, q.firstEntry(false));
+		assertEquals(0, q.getPending());
+		assertEquals(clock.get(), first.getKey().getLastAccess());
+		//a removed entry is not reinserted
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL * 4);
+		q.touch(second);
+		q.remove(second);
+		assertSame(first, q.firstEntry(true));
+		assertNull(q.firstEntry(false));
+		assertEquals(0, q.getSize());
+	}
+	
+	@Test public void testStripedTouchBufferedOnce() {
+		AtomicLong clock = new AtomicLong();
+		StripedLrfuEvictionQueue<BaseCacheEntry> q = new StripedLrfuEvictionQueue<BaseCacheEntry>(clock);
+		BaseCacheEntry first = new BaseCacheEntry(new CacheKey(1l, 0l, 0l));
+		BaseCacheEntry second = new BaseCacheEntry(new CacheKey(2l, 0l, 0l));
+		q.add(first);
+		q.add(second);
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL * 2);
+		q.touch(first);
+		q.touch(first);
+		assertEquals(1, q.getPending());
+		//a stale touch is dropped
+		q.remove(first);
+		assertSame(second, q.firstEntry(false));
+		assertEquals(0, q.getPending());
+		assertEquals(0, first.getQueueState());
+		assertEquals(1, q.getSize());
+		//and the entry may be buffered again once re-added
+		q.add(first);
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL * 4);
+		q.touch(first);
+		assertEquals(1, q.getPending());
+		assertSame(second, q.firstEntry(false));
+		assertEquals(clock.get(), first.getKey().getLastAccess());
+	}
+	
+	@Test(timeout=10000) public void testStripedDrainWithEntryLocked() throws Exception {
+		AtomicLong clock = new AtomicLong();
+		StripedLrfuEvictionQueue<BaseCacheEntry> q = new StripedLrfuEvictionQueue<BaseCacheEntry>(clock);
+		final BaseCacheEntry first = new BaseCacheEntry(new CacheKey(1l, 0l, 0l));
+		BaseCacheEntry second = new BaseCacheEntry(new CacheKey(2l, 0l, 0l));
+		q.add(first);
+		q.add(second);
+		clock.set(LrfuEvictionQueue.MIN_INTERVAL * 2);
+		q.touch(first);
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Thread t = new Thread() {
+			@Override
+			public void run() {
+				synchronized (first) {
+					locked.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+					}
+				}
+			}
+		};
+		t.start();
+		locked.await();
+		try {
+			//the drain should not wait on the entry lock
+			assertSame(second, q.firstEntry(false));
+			assertEquals(0, q.getPending());
+		} finally {
+			release.countDown();
+			t.join();
+		}
+	}
+	
 }
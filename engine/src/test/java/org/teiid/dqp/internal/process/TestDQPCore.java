@@ -25,7 +25,9 @@ package org.teiid.dqp.internal.process;
 import static org.junit.Assert.*;
 
 import java.sql.ResultSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +45,7 @@ import org.teiid.cache.CacheConfiguration;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.client.RequestMessage;
 import org.teiid.client.RequestMessage.ResultsMode;
+import org.teiid.client.RequestMessage.ShowPlan;
 import org.teiid.client.RequestMessage.StatementType;
 import org.teiid.client.ResultsMessage;
 import org.teiid.client.lob.LobChunk;
@@ -56,10 +59,15 @@ import org.teiid.dqp.internal.datamgr.FakeTransactionService;
 import org.teiid.dqp.internal.process.AbstractWorkItem.ThreadState;
 import org.teiid.dqp.service.AutoGenDataService;
 import org.teiid.dqp.service.FakeBufferService;
+import org.teiid.metadata.Column;
+import org.teiid.query.metadata.CompositeMetadataStore;
+import org.teiid.query.metadata.SystemMetadata;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.Options;
 import org.teiid.translator.SourceSystemFunctions;
 
 @SuppressWarnings("nls")
@@ -283,6 +291,24 @@ public class TestDQPCore {
 		assertFalse(this.core.cancelRequest(1L));
 	}
 	
+	@Test public void testAnalyzeTable() throws Exception {
+		TransformationMetadata metadata = RealMetadataFactory.createTransformationMetadata(new CompositeMetadataStore(Arrays.asList(RealMetadataFactory.exampleBQTStore(), SystemMetadata.getInstance().getSystemStore())), "bqt");
+		DQPWorkContext context = RealMetadataFactory.buildWorkContext(metadata);
+		ConnectorManagerRepository repo = Mockito.mock(ConnectorManagerRepository.class);
+		context.getVDB().addAttchment(ConnectorManagerRepository.class, repo);
+		Mockito.stub(repo.getConnectorManager(Mockito.anyString())).toReturn(agds);
+		agds.setUseIntCounter(true);
+		
+		ResultsMessage rm = helpExecute("select * from (call sysadmin.analyzeTable('BQT1', 'SmallA')) as x where ColumnName = 'IntKey'", "a"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(Arrays.asList("IntKey", 10l, 0l, "0", "9", "0,1,2,3,4,5,6,7,8,9", null), rm.getResultsList().get(0)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		
+		Column column = metadata.getElementID("BQT1.SmallA.IntKey"); //$NON-NLS-1$
+		assertEquals(10, column.getDistinctValues());
+		assertEquals("9", column.getMaximumValue()); //$NON-NLS-1$
+		assertEquals("0,1,2,3,4,5,6,7,8,9", column.getHistogram()); //$NON-NLS-1$
+		assertEquals(10, metadata.getCardinality(metadata.getGroupID("BQT1.SmallA")), 0); //$NON-NLS-1$
+	}
+	
     @Test public void testBufferLimit() throws Exception {
     	//the sql should return 400 rows
         String sql = "SELECT A.IntKey FROM BQT1.SmallA as A, BQT1.SmallA as B, (select intkey from BQT1.SmallA limit 4) as C"; //$NON-NLS-1$
@@ -546,6 +572,60 @@ public class TestDQPCore {
         assertEquals(2, rm.getResultsList().size());
     }
 
+    @Test public void testParallelExchange() throws Exception {
+    	core.stop();
+    	Properties props = new Properties();
+    	props.setProperty(Options.USE_PARALLEL_EXCHANGE, "true");
+    	config.setProperties(props);
+    	core.start(config);
+    	core.setUserRequestSourceConcurrency(1);
+    	
+    	String sql = "select count(*) from (select stringkey, max(intkey) from bqt1.smalla group by stringkey union all select stringkey, max(intkey) from bqt1.smallb group by stringkey) as x"; //$NON-NLS-1$
+    	RequestMessage reqMsg = exampleRequestMessage(sql);
+    	reqMsg.setShowPlan(ShowPlan.ON);
+    	reqMsg.setUseResultSetCache(true);
+    	ResultsMessage rm = execute("a", 1, reqMsg);
+    	assertNull(rm.getException());
+    	assertTrue(rm.getPlanDescription().toString().contains("ExchangeNode")); //$NON-NLS-1$
+    	assertEquals(Arrays.asList(Arrays.asList(2)), rm.getResultsList());
+    	
+    	//the data objects accessed by the branches allow the results to be cached
+    	reqMsg = exampleRequestMessage(sql);
+    	reqMsg.setUseResultSetCache(true);
+    	rm = execute("a", 1, reqMsg);
+    	assertEquals(Arrays.asList(Arrays.asList(2)), rm.getResultsList());
+    	assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+
+    @Test public void testAutoParameterize() throws Exception {
+    	core.stop();
+    	Properties props = new Properties();
+    	props.setProperty(Options.AUTO_PARAMETERIZE, "true");
+    	config.setProperties(props);
+    	core.start(config);
+    	
+    	helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 1 and StringKey between '1' and '2'", "a");
+    	assertEquals(0, this.core.getPrepPlanCache().getCacheHitCount());
+    	ResultsMessage rm = helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 5 and StringKey between '3' and '4'", "a");
+    	assertEquals(1, this.core.getPrepPlanCache().getCacheHitCount());
+    	assertEquals(10, rm.getResultsList().size());
+    	
+    	//the literals are bound as values, so the source sees the new values
+    	assertEquals("SELECT g_0.IntKey FROM BQT1.SmallA AS g_0 WHERE (g_0.IntKey = 5) AND (g_0.StringKey >= '3') AND (g_0.StringKey <= '4')", agds.lastCommand.toString());
+    	
+    	//in lists are not parameterized
+    	helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey in (1, 2)", "a");
+    	helpExecute("SELECT IntKey FROM BQT1.SmallA WHERE IntKey in (1, 3)", "a");
+    	assertEquals(1, this.core.getPrepPlanCache().getCacheHitCount());
+    	
+    	//a row limit prevents parameterization
+    	RequestMessage reqMsg = exampleRequestMessage("SELECT IntKey FROM BQT1.SmallA WHERE IntKey = 6");
+    	reqMsg.setRowLimit(2);
+    	rm = execute("a", 1, reqMsg);
+    	assertEquals(2, rm.getResultsList().size());
+    	assertEquals(1, this.core.getPrepPlanCache().getCacheHitCount());
+    }
+    
     @Test public void testPreparedPlanInvalidation() throws Exception {
         helpTestPlanInvalidation("select * from #temp a, #temp b limit 10");
         
@@ -48,6 +48,7 @@ import org.teiid.dqp.message.AtomicResultsMessage;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities;
 import org.teiid.query.processor.relational.RelationalNodeUtil;
+import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.translator.CacheDirective;
 import org.teiid.translator.DataNotAvailableException;
@@ -75,6 +76,7 @@ public class AutoGenDataService extends ConnectorManager{
 	public CacheDirective cacheDirective;
 	public boolean dataAvailable;
 	public boolean threadBound;
+	public Command lastCommand;
 
     public AutoGenDataService() {
     	super("FakeConnector","FakeConnector"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -104,6 +106,7 @@ public class AutoGenDataService extends ConnectorManager{
     @Override
     public ConnectorWork registerRequest(AtomicRequestMessage message)
     		throws TeiidComponentException {
+        lastCommand = message.getCommand();
         List projectedSymbols = (message.getCommand()).getProjectedSymbols(); 
         List[] results = createResults(projectedSymbols, rows, useIntCounter);
         if (RelationalNodeUtil.isUpdate(message.getCommand())) {
@@ -116,6 +116,16 @@ public class TestDDLStringVisitor {
 		helpTest(ddl, expected);
 	}	
 	
+	@Test
+	public void testColumnDistributionOptions() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE G1( e1 integer OPTIONS (HISTOGRAM '0,10,100', MOST_COMMON_VALUES '1=.5,2=.1'), e2 varchar OPTIONS (MOST_COMMON_VALUES 'a\\,b=.2'))";
+		String expected = "CREATE FOREIGN TABLE G1 (\n" + 
+				"	e1 integer OPTIONS (HISTOGRAM '0,10,100', MOST_COMMON_VALUES '1=.5,2=.1'),\n" + 
+				"	e2 string OPTIONS (MOST_COMMON_VALUES 'a\\,b=.2')\n" + 
+				");";
+		helpTest(ddl, expected);
+	}
+	
 	@Test
 	public void testConstraints2() throws Exception {
 		String ddl = "CREATE FOREIGN TABLE G1( e1 integer, e2 varchar, e3 date, " +
@@ -38,10 +38,14 @@ import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.UnitTestUtil;
+import org.teiid.language.SQLConstants;
 import org.teiid.metadata.Column;
 import org.teiid.metadata.Datatype;
 import org.teiid.metadata.MetadataFactory;
 import org.teiid.metadata.Table;
+import org.teiid.query.mapping.relational.QueryNode;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.translator.TranslatorException;
 
@@ -185,4 +189,19 @@ public class TestTransformationMetadata {
 		assertNotNull(mf1.getEnterpriseDatatype("unknown"));
 	}
 	
+	@Test public void testCommandCache() throws Exception {
+		TransformationMetadata tm = RealMetadataFactory.example1();
+		GroupSymbol group = new GroupSymbol("vm1.g1");
+		group.setMetadataID(tm.getGroupID("vm1.g1"));
+		QueryNode node = QueryResolver.resolveView(group, tm.getVirtualPlan(group.getMetadataID()), SQLConstants.Reserved.SELECT, tm, false);
+		assertEquals(1, tm.getCommandCacheStatistics().getRequestCount());
+		assertEquals(0, tm.getCommandCacheStatistics().getHitRatio(), 0);
+		
+		//shared with the design time metadata
+		assertSame(node, QueryResolver.resolveView(group, tm.getVirtualPlan(group.getMetadataID()), SQLConstants.Reserved.SELECT, tm.getDesignTimeMetadata(), false));
+		assertEquals(2, tm.getCommandCacheStatistics().getRequestCount());
+		assertEquals(50, tm.getCommandCacheStatistics().getHitRatio(), 0);
+		assertEquals(1, tm.getCommandCacheStatistics().getTotalEntries());
+	}
+	
 }
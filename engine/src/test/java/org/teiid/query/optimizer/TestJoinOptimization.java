@@ -54,6 +54,7 @@ import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.HardcodedDataManager;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.TestProcessor;
+import org.teiid.query.processor.relational.AccessNode;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
@@ -65,6 +66,7 @@ import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.SupportedJoinCriteria;
 import org.teiid.translator.SourceSystemFunctions;
 
@@ -1482,4 +1484,122 @@ public class TestJoinOptimization {
         helpProcess(plan, createCommandContext(), hdm, new List[] {Arrays.asList("b", 2)});
     }
 	
+	/**
+	 * A star join larger than the exhaustive search limit should produce the same plan
+	 * whether fully enumerated, greedily completed after a small budget, or searched with the legacy heuristics.
+	 * A chain join should be ordered better by the enumeration than by the legacy heuristics.
+	 */
+	@Test public void testLargeStarJoinEnumeration() throws Exception {
+		StringBuilder ddl = new StringBuilder("create foreign table f (k0 integer"); //$NON-NLS-1$
+		StringBuilder sql = new StringBuilder("select f.k0 from f"); //$NON-NLS-1$
+		StringBuilder where = new StringBuilder(" where f.k0 = 1"); //$NON-NLS-1$
+		for (int i = 1; i < 10; i++) {
+			ddl.append(", k").append(i).append(" integer"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		ddl.append(") options (cardinality 1000000);"); //$NON-NLS-1$
+		for (int i = 1; i < 10; i++) {
+			ddl.append("create foreign table d").append(i).append(" (id integer primary key, v string options (distinct_values ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(i * 3).append(")) options (cardinality ").append(i * 1000).append(");"); //$NON-NLS-1$ //$NON-NLS-2$
+			sql.append(", d").append(i); //$NON-NLS-1$
+			where.append(" and f.k").append(i).append(" = d").append(i).append(".id and d").append(i).append(".v = 'x'"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		sql.append(where);
+		TransformationMetadata metadata = RealMetadataFactory.fromDDL(ddl.toString(), "x", "y"); //$NON-NLS-1$ //$NON-NLS-2$
+		BasicSourceCapabilities bsc = new BasicSourceCapabilities();
+		bsc.setCapabilitySupport(Capability.CRITERIA_COMPARE_EQ, true);
+		
+		String expected = null;
+		for (int budget : new int[] {new Options().getJoinEnumerationBudget(), 5, 0}) {
+			CommandContext cc = new CommandContext();
+			cc.setOptions(new Options().joinEnumerationBudget(budget));
+			ProcessorPlan plan = TestOptimizer.getPlan(TestOptimizer.helpGetCommand(sql.toString(), metadata, null), metadata, new DefaultCapabilitiesFinder(bsc), null, true, cc);
+			TestOptimizer.checkNodeTypes(plan, new int[] {10}, new Class[] {AccessNode.class});
+			if (expected == null) {
+				expected = plan.toString();
+			} else {
+				assertEquals(expected, plan.toString());
+			}
+		}
+		
+		//a chain where the greedy order introduces an intermediate cross join
+		int[] cardinality = {100, 10, 100, 100, 10000, 10000, 100, 100, 10, 1000};
+		int[] ndv = {14, 2, 100, 25, 2000, 2000, 100, 100, 1, 250};
+		ddl = new StringBuilder();
+		sql = new StringBuilder("select t0.a from t0"); //$NON-NLS-1$
+		where = new StringBuilder(" where t0.a = 1"); //$NON-NLS-1$
+		for (int i = 0; i < cardinality.length; i++) {
+			ddl.append("create foreign table t").append(i).append(" (a integer, b integer options (distinct_values ") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(ndv[i]).append(")) options (cardinality ").append(cardinality[i]).append(");"); //$NON-NLS-1$ //$NON-NLS-2$
+			if (i > 0) {
+				sql.append(", t").append(i); //$NON-NLS-1$
+				where.append(" and t").append(i - 1).append(".a = t").append(i).append(".b"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		sql.append(where);
+		metadata = RealMetadataFactory.fromDDL(ddl.toString(), "x", "y"); //$NON-NLS-1$ //$NON-NLS-2$
+		
+		CommandContext cc = new CommandContext();
+		cc.setOptions(new Options().joinEnumerationBudget(0));
+		ProcessorPlan greedy = TestOptimizer.getPlan(TestOptimizer.helpGetCommand(sql.toString(), metadata, null), metadata, new DefaultCapabilitiesFinder(bsc), null, true, cc);
+		cc = new CommandContext();
+		ProcessorPlan plan = TestOptimizer.getPlan(TestOptimizer.helpGetCommand(sql.toString(), metadata, null), metadata, new DefaultCapabilitiesFinder(bsc), null, true, cc);
+		
+		//only the disconnected t0 is cross joined, and the intermediate results are estimated to be much smaller
+		assertEquals(2, countCrossJoins(((RelationalPlan)greedy).getRootNode()));
+		assertEquals(1, countCrossJoins(((RelationalPlan)plan).getRootNode()));
+		assertTrue(sumJoinEstimates(((RelationalPlan)plan).getRootNode()) * 10 < sumJoinEstimates(((RelationalPlan)greedy).getRootNode()));
+		assertEquals("ProjectNode(0) output=[t0.a] [t0.a]\n" + //$NON-NLS-1$
+				"  JoinNode(1) [NESTED LOOP JOIN] [CROSS JOIN] output=[t0.a]\n" + //$NON-NLS-1$
+				"    JoinNode(2) [Dependent] [ENHANCED SORT JOIN [SEMI] (SORT/SORT)] [INNER JOIN] criteria=[t8.a=t9.b] output=[]\n" + //$NON-NLS-1$
+				"      JoinNode(3) [Dependent] [ENHANCED SORT JOIN (SORT/SORT)] [INNER JOIN] criteria=[t8.b=t7.a] output=[t8.a]\n" + //$NON-NLS-1$
+				"        AccessNode(4) output=[t8.b, t8.a] SELECT y.t8.b, y.t8.a FROM y.t8\n" + //$NON-NLS-1$
+				"        JoinNode(5) [ENHANCED SORT JOIN (SORT/SORT)] [INNER JOIN] criteria=[t6.a=t7.b] output=[t7.a]\n" + //$NON-NLS-1$
+				"          JoinNode(6) [Dependent] [ENHANCED SORT JOIN (SORT/SORT)] [INNER JOIN] criteria=[t6.b=t5.a] output=[t6.a]\n" + //$NON-NLS-1$
+				"            AccessNode(7) output=[t6.b, t6.a] SELECT y.t6.b, y.t6.a FROM y.t6\n" + //$NON-NLS-1$
+				"            JoinNode(8) [Dependent] [ENHANCED SORT JOIN [SEMI] (SORT/SORT)] [INNER JOIN] criteria=[t4.a=t5.b] output=[t5.a]\n" + //$NON-NLS-1$
+				"              JoinNode(9) [Dependent] [ENHANCED SORT JOIN [SEMI] (SORT/SORT)] [INNER JOIN] criteria=[t3.a=t4.b] output=[t4.a]\n" + //$NON-NLS-1$
+				"                JoinNode(10) [Dependent] [ENHANCED SORT JOIN [SEMI] (SORT/SORT)] [INNER JOIN] criteria=[t2.a=t3.b] output=[t3.a]\n" + //$NON-NLS-1$
+				"                  JoinNode(11) [Dependent] [ENHANCED SORT JOIN [SEMI] (SORT/SORT)] [INNER JOIN] criteria=[t1.a=t2.b] output=[t2.a]\n" + //$NON-NLS-1$
+				"                    AccessNode(12) output=[t1.a] SELECT y.t1.a FROM y.t1 WHERE y.t1.b = 1\n" + //$NON-NLS-1$
+				"                    SelectNode(13) output=[t2.b, t2.a] t2.b IN (<dependent values>)\n" + //$NON-NLS-1$
+				"                      AccessNode(14) output=[t2.b, t2.a] SELECT y.t2.b, y.t2.a FROM y.t2\n" + //$NON-NLS-1$
+				"                  SelectNode(15) output=[t3.b, t3.a] t3.b IN (<dependent values>)\n" + //$NON-NLS-1$
+				"                    AccessNode(16) output=[t3.b, t3.a] SELECT y.t3.b, y.t3.a FROM y.t3\n" + //$NON-NLS-1$
+				"                SelectNode(17) output=[t4.b, t4.a] t4.b IN (<dependent values>)\n" + //$NON-NLS-1$
+				"                  AccessNode(18) output=[t4.b, t4.a] SELECT y.t4.b, y.t4.a FROM y.t4\n" + //$NON-NLS-1$
+				"              SelectNode(19) output=[t5.b, t5.a] (t5.a IN (<dependent values>)) AND (t5.b IN (<dependent values>))\n" + //$NON-NLS-1$
+				"                AccessNode(20) output=[t5.a, t5.b] SELECT y.t5.a, y.t5.b FROM y.t5\n" + //$NON-NLS-1$
+				"          SelectNode(21) output=[t7.b, t7.a] t7.a IN (<dependent values>)\n" + //$NON-NLS-1$
+				"            AccessNode(22) output=[t7.a, t7.b] SELECT y.t7.a, y.t7.b FROM y.t7\n" + //$NON-NLS-1$
+				"      SelectNode(23) output=[t9.b] t9.b IN (<dependent values>)\n" + //$NON-NLS-1$
+				"        AccessNode(24) output=[t9.b] SELECT y.t9.b FROM y.t9\n" + //$NON-NLS-1$
+				"    AccessNode(25) output=[t0.a] SELECT y.t0.a FROM y.t0 WHERE y.t0.a = 1\n", plan.toString()); //$NON-NLS-1$
+	}
+	
+	private static int countCrossJoins(RelationalNode node) {
+		int count = 0;
+		if (node instanceof JoinNode && ((JoinNode)node).getJoinType() == JoinType.JOIN_CROSS) {
+			count++;
+		}
+		for (RelationalNode child : node.getChildren()) {
+			if (child != null) {
+				count += countCrossJoins(child);
+			}
+		}
+		return count;
+	}
+	
+	private static double sumJoinEstimates(RelationalNode node) {
+		double sum = 0;
+		if (node instanceof JoinNode) {
+			sum += node.getEstimateNodeCardinality().doubleValue();
+		}
+		for (RelationalNode child : node.getChildren()) {
+			if (child != null) {
+				sum += sumJoinEstimates(child);
+			}
+		}
+		return sum;
+	}
+	
 }
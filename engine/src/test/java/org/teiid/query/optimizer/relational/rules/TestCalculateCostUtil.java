@@ -616,6 +616,59 @@ public class TestCalculateCostUtil {
         
         helpTestEstimateCost(critString, 100, 33, metadata);
     }
+    
+    @Test public void testEstimateCostOfCriteriaHistogram() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setHistogram("0,10,20,100,1000"); //$NON-NLS-1$
+        
+        helpTestEstimateCost("pm1.g1.e2 < 15", 1000, 375, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 >= 100", 1000, 250, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 > 5000", 1000, 1, metadata); //$NON-NLS-1$
+    }
+    
+    @Test public void testEstimateCostOfCriteriaMostCommonValues() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e1 = metadata.getElementID("pm1.g1.e1"); //$NON-NLS-1$
+        e1.setMostCommonValues("a=.5,b=.1"); //$NON-NLS-1$
+        e1.setDistinctValues(12);
+        
+        helpTestEstimateCost("pm1.g1.e1 = 'a'", 1000, 500, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e1 = 'c'", 1000, 40, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e1 <> 'a'", 1000, 500, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e1 in ('a', 'b')", 1000, 600, metadata); //$NON-NLS-1$
+    }
+    
+    @Test public void testEstimateCostOfCriteriaHistogramWithNulls() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setHistogram("0,10,20,100,1000"); //$NON-NLS-1$
+        e2.setNullValues(500);
+        e2.setDistinctValues(12);
+        e2.setMostCommonValues("5=.25"); //$NON-NLS-1$
+        metadata.getGroupID("pm1.g1").setCardinality(1000); //$NON-NLS-1$
+        
+        helpTestEstimateCost("pm1.g1.e2 >= 100", 1000, 125, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 = 6", 1000, 22, metadata); //$NON-NLS-1$
+    }
+    
+    @Test public void testEstimateCostOfCriteriaMostCommonValuesEscaped() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e1 = metadata.getElementID("pm1.g1.e1"); //$NON-NLS-1$
+        e1.setMostCommonValues("a\\,b=.5,c\\\\=.1"); //$NON-NLS-1$
+        e1.setDistinctValues(12);
+        
+        helpTestEstimateCost("pm1.g1.e1 = 'a,b'", 1000, 500, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e1 = 'c\\'", 1000, 100, metadata); //$NON-NLS-1$
+    }
+    
+    @Test public void testEstimateCostOfCriteriaInvalidHistogram() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setHistogram("x,y"); //$NON-NLS-1$
+        
+        helpTestEstimateCost("pm1.g1.e2 < 15", 300, 100, metadata); //$NON-NLS-1$
+    }
 
     @Test public void testNDVEstimate() throws Exception {
         String crit = "US.accounts.account = 10"; //$NON-NLS-1$
@@ -875,6 +875,19 @@ public class TestDDLParser {
 		assertEquals("y", c.getProperty("x", false));
 	}	
 	
+	@Test
+	public void testAlterTableColumnDistributionOptions() throws Exception {
+		String ddl = "CREATE FOREIGN TABLE G1( e1 integer OPTIONS (HISTOGRAM '0,10,100'), e2 varchar);" +
+				"ALTER FOREIGN TABLE G1 ALTER COLUMN e1 OPTIONS(DROP HISTOGRAM);" +
+				"ALTER FOREIGN TABLE G1 ALTER COLUMN e2 OPTIONS(ADD MOST_COMMON_VALUES 'a=.5');";
+
+		Schema s = helpParse(ddl, "model").getSchema();
+		Table table = s.getTables().get("G1");
+		assertNull(table.getColumnByName("e1").getHistogram());
+		assertEquals("a=.5", table.getColumnByName("e2").getMostCommonValues());
+		assertNull(table.getColumnByName("e2").getProperty("MOST_COMMON_VALUES", false));
+	}
+	
 	@Test
 	public void testAlterProcedureOptions() throws Exception {
 		String ddl = "CREATE FOREIGN PROCEDURE myProc(OUT p1 boolean, p2 varchar, INOUT p3 decimal) " +
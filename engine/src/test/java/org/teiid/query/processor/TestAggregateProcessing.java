@@ -1260,4 +1260,22 @@ public class TestAggregateProcessing {
                 hdm, new List<?>[] {Arrays.asList("b,b"), Arrays.asList("a,a")});
     }
 
+    @Test public void testHashAggregatePlanning() throws Exception {
+        String sql = "select e1, count(e2) from pm1.g1 group by e1";
+
+        TransformationMetadata metadata = RealMetadataFactory.example1Cached();
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().useHashAggregation(true));
+        ProcessorPlan plan = TestProcessor.helpGetPlan(helpParse(sql), metadata, DefaultCapabilitiesFinder.INSTANCE, cc);
+        assertTrue(plan.getDescriptionProperties().toString().contains("Hash Aggregation"));
+        
+        HardcodedDataManager hdm = new HardcodedDataManager();
+        hdm.addData("SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1", Arrays.asList("a", 1), Arrays.asList("b", 2), Arrays.asList("a", null));
+        TestProcessor.helpProcess(plan, cc, hdm, new List<?>[] {Arrays.asList("a", 1), Arrays.asList("b", 1)});
+        
+        //ordering is required
+        plan = TestProcessor.helpGetPlan(helpParse(sql + " order by e1"), metadata, DefaultCapabilitiesFinder.INSTANCE, cc);
+        assertFalse(plan.getDescriptionProperties().toString().contains("Hash Aggregation"));
+    }
+
 }
@@ -28,11 +28,19 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.processor.relational.FakeRelationalNode;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings("nls")
 public class TestBatchCollector {
@@ -50,4 +58,33 @@ public class TestBatchCollector {
 		assertEquals(3, bc.collectTuples().getRowCount());
 	}
 	
+	@Test public void testSaveLastRowColumnar() throws Exception {
+		List<ElementSymbol> elements = Arrays.asList(new ElementSymbol("x", null, DataTypeManager.DefaultDataClasses.INTEGER));
+		BufferManager bm = BufferManagerFactory.getTestBufferManager(1000000, 2);
+		bm.setOptions(new Options().useColumnarBatches(true));
+		final TupleBuffer tb = bm.createTupleBuffer(elements, "test", TupleSourceType.PROCESSOR);
+		for (int i = 1; i <= 4; i++) {
+			tb.addTuple(Arrays.asList(i));
+		}
+		tb.close();
+		assertNotNull(tb.getBatch(1).getColumnarBatch());
+		FakeRelationalNode sourceNode = new FakeRelationalNode(1, new List[0]) {
+			@Override
+			public TupleBatch nextBatchDirect() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+				TupleBatch batch = tb.getBatch(1);
+				batch.setTerminationFlag(true);
+				return batch;
+			}
+		};
+		sourceNode.setElements(elements);
+		BatchCollector bc = new BatchCollector(sourceNode, bm, new CommandContext(), false);
+		bc.setRowLimit(2);
+		bc.setSaveLastRow(true);
+		TupleBuffer result = bc.collectTuples();
+		assertEquals(3, result.getRowCount());
+		assertEquals(Arrays.asList(1), result.getBatch(1).getTuple(1));
+		assertEquals(Arrays.asList(2), result.getBatch(2).getTuple(2));
+		assertEquals(Arrays.asList(4), result.getBatch(3).getTuple(3));
+	}
+	
 }
@@ -50,12 +50,14 @@ import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.FakeCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.relational.DependentAccessNode;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.NullOrder;
 
 @SuppressWarnings({"rawtypes", "unchecked", "nls"})
@@ -785,6 +787,132 @@ public class TestDependentJoins {
         TestProcessor.helpProcess(plan, cc, dataManager, expected);
     }
     
+    @Test public void testBloomFilter() throws Exception {
+    	String sql = "SELECT pm1.g1.e1, pm2.g1.e1 FROM pm1.g1, pm2.g1 makedep where pm1.g1.e2=pm2.g1.e2 order by pm1.g1.e1"; //$NON-NLS-1$
+    	
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities depcaps = new BasicSourceCapabilities();
+        depcaps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+        depcaps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+        capFinder.addCapabilities("pm2", depcaps); //$NON-NLS-1$
+
+        List[] expected = new List[] {
+            Arrays.asList("a", "x"), //$NON-NLS-1$ //$NON-NLS-2$
+            Arrays.asList("b", "y"), //$NON-NLS-1$ //$NON-NLS-2$
+        	}; 
+
+        Command command = TestProcessor.helpParse(sql);
+        ProcessorPlan plan = TestProcessor.helpGetPlan(command, RealMetadataFactory.example1Cached(), capFinder);
+        
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT pm1.g1.e2, pm1.g1.e1 FROM pm1.g1", new List<?>[] {Arrays.asList(1, "a"), Arrays.asList(2, "b"), Arrays.asList(3, "c")});
+        //a single query rather than one per value
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1", new List<?>[] {Arrays.asList(1, "x"), Arrays.asList(2, "y"), Arrays.asList(4, "z"), Arrays.asList(null, "n")});
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().bloomFilterDependentJoin(true).bloomFilterDependentJoinQueries(1));
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        //the rows for 4 and null are removed before the join
+        DependentAccessNode dan = getDependentAccessNode(((RelationalPlan)plan).getRootNode());
+        assertEquals(Arrays.asList("2"), dan.getDescriptionProperties().getProperty(AnalysisRecord.PROP_BLOOM_FILTERED_ROWS).getValues());
+        
+        //by default there are multiple queries
+        plan.reset();
+        dataManager.clearData();
+        dataManager.addData("SELECT pm1.g1.e2, pm1.g1.e1 FROM pm1.g1", new List<?>[] {Arrays.asList(1, "a"), Arrays.asList(2, "b"), Arrays.asList(3, "c")});
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 1", new List<?>[] {Arrays.asList(1, "x")});
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 2", new List<?>[] {Arrays.asList(2, "y")});
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 3", new List<?>[0]);
+        cc = TestProcessor.createCommandContext();
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+    }
+    
+    @Test public void testAdaptiveDependentJoin() throws Exception {
+    	String sql = "SELECT pm1.g1.e1, pm2.g1.e1 FROM pm1.g1, pm2.g1 makedep where pm1.g1.e2=pm2.g1.e2 order by pm1.g1.e1"; //$NON-NLS-1$
+    	
+    	TransformationMetadata metadata = RealMetadataFactory.example1();
+    	RealMetadataFactory.setCardinality("pm1.g1", 1, metadata);
+    	RealMetadataFactory.setCardinality("pm2.g1", 100, metadata);
+    	metadata.getElementID("pm1.g1.e2").setDistinctValues(1);
+    	
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities depcaps = new BasicSourceCapabilities();
+        depcaps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+        depcaps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+        capFinder.addCapabilities("pm2", depcaps); //$NON-NLS-1$
+
+        List<?>[] independent = new List<?>[12];
+        for (int i = 0; i < independent.length; i++) {
+        	independent[i] = Arrays.asList(i, String.valueOf((char)('a' + i)));
+        }
+        List[] expected = new List[] {
+            Arrays.asList("a", "x"), //$NON-NLS-1$ //$NON-NLS-2$
+            Arrays.asList("b", "y"), //$NON-NLS-1$ //$NON-NLS-2$
+        	}; 
+
+        Command command = TestProcessor.helpParse(sql);
+        ProcessorPlan plan = TestProcessor.helpGetPlan(command, metadata, capFinder);
+        
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT pm1.g1.e2, pm1.g1.e1 FROM pm1.g1", independent);
+        //12 values were not expected and the dependent side is small, so a single query with the bloom filter is used
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1", new List<?>[] {Arrays.asList(0, "x"), Arrays.asList(1, "y"), Arrays.asList(20, "z")});
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().bloomFilterDependentJoin(true).adaptiveDependentJoinFactor(10));
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        assertTrue(plan.getDescriptionProperties().toString().contains("Bloom Filter - 12 independent values, estimated 1"));
+        
+        //the check is disabled by default, so there is a query per value
+        plan.reset();
+        dataManager.clearData();
+        dataManager.setMustRegisterCommands(false);
+        dataManager.addData("SELECT pm1.g1.e2, pm1.g1.e1 FROM pm1.g1", independent);
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 0", new List<?>[] {Arrays.asList(0, "x")});
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 1", new List<?>[] {Arrays.asList(1, "y")});
+        cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options());
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        assertTrue(dataManager.getCommandHistory().toString().contains("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 11"));
+        assertTrue(plan.getDescriptionProperties().toString().contains("Set Criteria - 12 independent values"));
+        
+        //the dependent side is too large to fetch in full, so there is still a query per value
+        RealMetadataFactory.setCardinality("pm2.g1", 1000000, metadata);
+        plan = TestProcessor.helpGetPlan(command, metadata, capFinder);
+        dataManager.clearData();
+        dataManager.addData("SELECT pm1.g1.e2, pm1.g1.e1 FROM pm1.g1", independent);
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 0", new List<?>[] {Arrays.asList(0, "x")});
+        dataManager.addData("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 1", new List<?>[] {Arrays.asList(1, "y")});
+        cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().bloomFilterDependentJoin(true).adaptiveDependentJoinFactor(10));
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        assertTrue(dataManager.getCommandHistory().toString().contains("SELECT pm2.g1.e2, pm2.g1.e1 FROM pm2.g1 WHERE pm2.g1.e2 = 11"));
+        assertTrue(plan.getDescriptionProperties().toString().contains("Set Criteria - 12 independent values"));
+    }
+    
+    private static DependentAccessNode getDependentAccessNode(RelationalNode node) {
+    	if (node instanceof DependentAccessNode) {
+    		return (DependentAccessNode)node;
+    	}
+    	for (RelationalNode child : node.getChildren()) {
+    		if (child != null) {
+    			DependentAccessNode result = getDependentAccessNode(child);
+    			if (result != null) {
+    				return result;
+    			}
+    		}
+    	}
+    	return null;
+    }
+    
     /**
      * concurrentOpen will be minimum of 2 to gather the pm1 results.
      */
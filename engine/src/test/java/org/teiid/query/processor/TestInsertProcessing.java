@@ -7,7 +7,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
@@ -330,7 +332,11 @@ public class TestInsertProcessing {
         if (!txn) {
         	TransactionContext tc = new TransactionContext();
         	cc.setTransactionContext(tc);
-        	cc.setBufferManager(null);
+        	BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        	bm.setProcessorBatchSize(2);
+        	//keep the batch size fixed so that the number of iterator requests is predictable
+        	bm.setAdaptiveBatchSizing(false);
+        	cc.setBufferManager(bm);
         	cc.setProcessorBatchSize(2);
         }
         
@@ -35,10 +35,13 @@ import org.junit.Test;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
+import org.teiid.metadata.Table;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
@@ -162,6 +165,61 @@ public class TestMaterialization {
 		execute("SELECT * from vgroup5 where y is null and z = 2");
 	}
 	
+	@Test public void testMultipleSecondaryIndexesMaintained() throws Exception {
+		execute("SELECT * from vgroup5 where z = 1 and y = 'zne'", Arrays.asList("one", "zne", 1));
+		String matTableName = RelationalPlanner.MAT_PREFIX + "MATVIEW.VGROUP5";
+		assertNotNull(this.globalStore.updateMatViewRow(matTableName, Arrays.asList("one", "new", 2), false));
+		//both the single column and composite prefix indexes should reflect the change
+		execute("SELECT x from vgroup5 where z = 2", Arrays.asList("one"));
+		execute("SELECT * from vgroup5 where y = 'zne'");
+		execute("SELECT x, z from vgroup5 where y = 'new'", Arrays.asList("one", 2));
+		assertNotNull(this.globalStore.updateMatViewRow(matTableName, Arrays.asList("one"), true));
+		execute("SELECT x from vgroup5 where z = 2");
+		execute("SELECT x from vgroup5 where y = 'new'");
+	}
+	
+	@Test public void testDeltaRefresh() throws Exception {
+		Table table = (Table)metadata.getGroupID("MatView.VGroup3");
+		table.setProperty(MaterializationMetadataRepository.MATVIEW_LAST_MODIFIED_COLUMN, "x");
+		table.setProperty(MaterializationMetadataRepository.MATVIEW_TTL, "100");
+		execute("SELECT * from vgroup3 where x = 'one'", Arrays.asList("one", "zne"));
+		//add zed and remove one
+		hdm.addData("SELECT MatSrc.MatSrc.x FROM MatSrc.MatSrc", new List[] {Arrays.asList((String)null), Arrays.asList("two"), Arrays.asList("three"), Arrays.asList("zed")});
+		Thread.sleep(150);
+		execute("SELECT * from vgroup3 where x >= 'two'", Arrays.asList("two", "zwo"), Arrays.asList("zed", "zed"));
+		assertEquals(2, hdm.getCommandHistory().size());
+		//the delete is not seen by the delta
+		execute("SELECT count(*) from vgroup3", Arrays.asList(5));
+		//without a high water mark, such as after refreshMatView with invalidate, a full load is performed
+		String matTableName = RelationalPlanner.MAT_PREFIX + "MATVIEW.VGROUP3";
+		assertEquals("zed", this.globalStore.getMatTableInfo(matTableName).getLastModified());
+		this.globalStore.getMatTableInfo(matTableName).setLastModified(null);
+		Thread.sleep(150);
+		execute("SELECT count(*) from vgroup3", Arrays.asList(4));
+		assertEquals(3, hdm.getCommandHistory().size());
+	}
+	
+	@Test public void testDeltaRefreshFailure() throws Exception {
+		Table table = (Table)metadata.getGroupID("MatView.VGroup3");
+		table.setProperty(MaterializationMetadataRepository.MATVIEW_LAST_MODIFIED_COLUMN, "x");
+		table.setProperty(MaterializationMetadataRepository.MATVIEW_TTL, "100");
+		execute("SELECT * from vgroup3 where x = 'one'", Arrays.asList("one", "zne"));
+		String matTableName = RelationalPlanner.MAT_PREFIX + "MATVIEW.VGROUP3";
+		assertEquals("two", this.globalStore.getMatTableInfo(matTableName).getLastModified());
+		hdm.clearData();
+		Thread.sleep(150);
+		try {
+			execute("SELECT count(*) from vgroup3");
+			fail();
+		} catch (TeiidComponentException e) {
+			//the delta query fails
+		}
+		//the next load is full
+		assertNull(this.globalStore.getMatTableInfo(matTableName).getLastModified());
+		hdm.addData("SELECT MatSrc.MatSrc.x FROM MatSrc.MatSrc", new List[] {Arrays.asList((String)null), Arrays.asList("two")});
+		execute("SELECT count(*) from vgroup3", Arrays.asList(2));
+	}
+	
 	@Test public void testNonCoveringSecondaryIndexWithoutPrimaryKey() throws Exception {
 		execute("SELECT * from vgroup6 where y in ('zne', 'zwo') order by y desc", Arrays.asList("two", "zwo"), Arrays.asList("one", "zne"));
 		execute("SELECT * from vgroup6 where y is null", Arrays.asList((String)null, (String)null));
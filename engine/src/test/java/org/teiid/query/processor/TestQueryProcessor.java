@@ -32,6 +32,7 @@ import java.util.List;
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
@@ -41,6 +42,7 @@ import org.teiid.core.TeiidException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 /**
  */
@@ -132,6 +134,29 @@ public class TestQueryProcessor {
         helpTestProcessor(plan, expectedResults);                    
     }
     
+    @Test public void testContinuousColumnar() throws Exception {
+        List<ElementSymbol> elements = Arrays.asList(new ElementSymbol("x", null, DataTypeManager.DefaultDataClasses.INTEGER)); //$NON-NLS-1$
+        BufferManager bufferMgr = BufferManagerFactory.getTestBufferManager(1000000, 2);
+        bufferMgr.setOptions(new Options().useColumnarBatches(true));
+        TupleBuffer tb = bufferMgr.createTupleBuffer(elements, "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        tb.addTuple(Arrays.asList(1));
+        tb.addTuple(Arrays.asList(2));
+        tb.close();
+        TupleBatch batch = tb.getBatch(1);
+        assertNotNull(batch.getColumnarBatch());
+        batch.setTerminationFlag(true);
+        
+        FakeProcessorPlan plan = new FakeProcessorPlan(elements, new ArrayList<Object>(Arrays.asList(batch)));
+        CommandContext context = new CommandContext("pid", "group", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+        QueryProcessor processor = new QueryProcessor(plan, context, bufferMgr, new FakeDataManager());
+        processor.setContinuous(null, "select 1"); //$NON-NLS-1$
+        TupleBatch result = processor.nextBatch();
+        assertEquals(TupleBatch.ITERATION_TERMINATED, result.getTermination());
+        assertEquals(3, result.getRowCount());
+        assertEquals(Arrays.asList(2), result.getTuple(2));
+        assertEquals(Arrays.asList((Object)null), result.getTuple(3));
+    }
+    
     @Test public void testCloseBeforeInitialization() throws TeiidComponentException {
         BufferManager bufferMgr = BufferManagerFactory.getStandaloneBufferManager();
         FakeDataManager dataManager = new FakeDataManager();
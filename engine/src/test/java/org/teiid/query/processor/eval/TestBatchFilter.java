@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.BatchFilter;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+
+@SuppressWarnings("nls")
+public class TestBatchFilter {
+
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER,
+		DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.INTEGER,
+		DataTypeManager.DefaultDataClasses.DOUBLE};
+
+	private Map<Expression, Integer> elementMap = new HashMap<Expression, Integer>();
+
+	{
+		for (int i = 0; i < TYPES.length; i++) {
+			elementMap.put(new ElementSymbol("e" + (i + 1)), i);
+		}
+	}
+
+	private List<List<?>> createRows() {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 100; i++) {
+			rows.add(Arrays.asList(i % 7 == 0 ? null : i % 10, i % 5 == 0 ? null : "v" + (i % 3), i % 11 == 0 ? null : i % 4, i % 13 == 0 ? null : i / 4d));
+		}
+		return rows;
+	}
+
+	private Criteria parse(String sql) throws Exception {
+		Criteria crit = QueryParser.getQueryParser().parseCriteria(sql);
+		for (ElementSymbol es : ElementCollectorVisitor.getElements(crit, false)) {
+			es.setType(TYPES[elementMap.get(es)]);
+		}
+		return crit;
+	}
+
+	private void helpTest(String sql) throws Exception {
+		helpTest(parse(sql), parse(sql));
+	}
+
+	/**
+	 * Ensure that the filter produces the same rows as the evaluator over row and columnar batches
+	 */
+	private void helpTest(Criteria crit, Criteria evaluatorCrit) throws Exception {
+		BatchFilter filter = BatchFilter.compile(crit, elementMap);
+		assertNotNull(filter);
+		List<List<?>> rows = createRows();
+		Evaluator evaluator = new Evaluator(elementMap, null, null);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < rows.size(); i++) {
+			if (evaluator.evaluate(evaluatorCrit, rows.get(i))) {
+				expected.add(i);
+			}
+		}
+		assertEquals(expected, helpFilter(filter, rows));
+		assertEquals(expected, helpFilter(filter, ColumnarBatch.create(rows, TYPES)));
+	}
+
+	private List<Integer> helpFilter(BatchFilter filter, List<? extends List<?>> tuples) {
+		int[] selected = new int[tuples.size()];
+		for (int i = 0; i < selected.length; i++) {
+			selected[i] = i;
+		}
+		int count = filter.filter(tuples, selected, selected.length);
+		List<Integer> result = new ArrayList<Integer>();
+		for (int i = 0; i < count; i++) {
+			result.add(selected[i]);
+		}
+		return result;
+	}
+
+	@Test public void testCompare() throws Exception {
+		helpTest("e1 = 3");
+		helpTest("e1 <> 3");
+		helpTest("e1 < 3");
+		helpTest("4 <= e1");
+		helpTest("e2 >= 'v1'");
+		helpTest("e1 > e3");
+		helpTest("e1 = null");
+	}
+
+	@Test public void testDoubleCompare() throws Exception {
+		ElementSymbol e4 = new ElementSymbol("e4");
+		e4.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+		CompareCriteria crit = new CompareCriteria(e4, CompareCriteria.LT, new Constant(10.5));
+		helpTest(crit, crit);
+	}
+
+	@Test public void testSet() throws Exception {
+		helpTest("e1 in (1, 3, 5)");
+		helpTest("e1 not in (1, 3, 5)");
+		helpTest("e1 not in (1, null)");
+		helpTest("e1 in (1, null)");
+		helpTest("e2 in ('v0', 'v2')");
+		SetCriteria set = (SetCriteria)parse("e1 not in (1, 3)");
+		set.setAllConstants(true);
+		helpTest(set, set);
+	}
+
+	@Test public void testIsNull() throws Exception {
+		helpTest("e1 is null");
+		helpTest("e2 is not null");
+	}
+
+	@Test public void testBetween() throws Exception {
+		helpTest(parse("e1 between 2 and 5"), parse("e1 >= 2 and e1 <= 5"));
+		helpTest(parse("e1 not between 2 and 5"), parse("e1 < 2 or e1 > 5"));
+	}
+
+	@Test public void testCompound() throws Exception {
+		helpTest("e1 = 1 or e2 = 'v1' and e3 < 2");
+		helpTest("(e1 > 1 or e3 is null) and (e2 in ('v1', 'v2') or e1 < 4)");
+		helpTest("e1 = 1 or e1 = 2 or e1 = 3");
+	}
+
+	@Test public void testNotCompilable() throws Exception {
+		assertNull(BatchFilter.compile(parse("not(e1 = 1)"), elementMap));
+		assertNull(BatchFilter.compile(parse("e1 = 1 and e2 like 'v%'"), elementMap));
+		assertNull(BatchFilter.compile(parse("e1 + 1 = 2"), elementMap));
+	}
+
+}
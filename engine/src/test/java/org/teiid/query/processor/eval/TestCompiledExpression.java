@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.resolver.TestFunctionResolving;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestCompiledExpression {
+
+	private static final List<?>[] TUPLES = new List<?>[] {
+		Arrays.asList("a", 1, true, 1.5),
+		Arrays.asList(null, 2, false, null),
+		Arrays.asList("b", null, null, 3.0),
+	};
+
+	/**
+	 * Ensure that the compiled expression produces the same values as the evaluator
+	 */
+	private void helpTest(String sql) throws Exception {
+		Expression expr = TestFunctionResolving.getExpression(sql);
+		Map<Expression, Integer> elementMap = new HashMap<Expression, Integer>();
+		for (ElementSymbol es : ElementCollectorVisitor.getElements(expr, true)) {
+			elementMap.put(es, Integer.valueOf(es.getShortName().substring(1)) - 1);
+		}
+		CompiledExpression compiled = CompiledExpression.compile(expr, elementMap);
+		Evaluator evaluator = new Evaluator(elementMap, null, new CommandContext());
+		for (List<?> tuple : TUPLES) {
+			Object expected = null;
+			String expectedMessage = null;
+			try {
+				expected = evaluator.evaluate(expr, tuple);
+			} catch (ExpressionEvaluationException e) {
+				expectedMessage = e.getMessage();
+			}
+			try {
+				assertEquals(expected, evaluator.evaluate(compiled, tuple));
+				assertNull(expectedMessage);
+			} catch (ExpressionEvaluationException e) {
+				assertEquals(expectedMessage, e.getMessage());
+			}
+		}
+	}
+
+	@Test public void testFunctions() throws Exception {
+		helpTest("concat(pm1.g1.e1, 'x')");
+		helpTest("convert(pm1.g1.e2, string)");
+		helpTest("pm1.g1.e2 * 2 + 1");
+		helpTest("pm1.g1.e4 / 2");
+		helpTest("coalesce(pm1.g1.e1, 'z')");
+		helpTest("ifnull(pm1.g1.e1, 'z')");
+	}
+
+	@Test public void testCase() throws Exception {
+		helpTest("case when pm1.g1.e2 > 1 then upper(pm1.g1.e1) when pm1.g1.e3 then 'y' else lower(pm1.g1.e1) end");
+		helpTest("case pm1.g1.e2 when 1 then 'a' when 2 then 'b' end");
+	}
+
+	@Test public void testCriteria() throws Exception {
+		helpTest("pm1.g1.e2 = 1 or pm1.g1.e1 is null");
+		helpTest("not(pm1.g1.e2 >= 2) and pm1.g1.e4 is not null");
+		helpTest("pm1.g1.e1 in ('a', 'c')");
+	}
+
+	@Test public void testException() throws Exception {
+		helpTest("pm1.g1.e2 / 0");
+		helpTest("case when pm1.g1.e2 / 0 = 1 then 1 end");
+	}
+
+	@Test public void testMethodHandle() throws Exception {
+		Function function = (Function)TestFunctionResolving.getExpression("concat('a', 'b')");
+		assertNotNull(function.getFunctionDescriptor().createMethodHandle());
+		//var args are invoked with reflection
+		function = (Function)TestFunctionResolving.getExpression("coalesce('a', 'b', 'c')");
+		assertNull(function.getFunctionDescriptor().createMethodHandle());
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+
+import org.junit.Test;
+import org.teiid.core.types.DataTypeManager;
+
+@SuppressWarnings("nls")
+public class TestBloomFilter {
+
+	@Test public void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(10000, BloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+		for (int i = 0; i < 10000; i++) {
+			filter.add(i * 7);
+		}
+		assertEquals(10000, filter.getCount());
+		int falsePositives = 0;
+		for (int i = 0; i < 70000; i++) {
+			boolean contained = filter.mightContain(i);
+			if (i % 7 == 0) {
+				assertTrue(contained);
+			} else if (contained) {
+				falsePositives++;
+			}
+		}
+		//roughly 1% of the 60000 not added
+		assertTrue(String.valueOf(falsePositives), falsePositives < 1200);
+		assertFalse(filter.mightContain(null));
+	}
+	
+	@Test public void testComparableValues() {
+		BloomFilter filter = new BloomFilter(3, BloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+		filter.add(new BigDecimal("1.10"));
+		filter.add(new BigDecimal("0.00"));
+		filter.add("a");
+		filter.add(Date.valueOf("2000-01-01"));
+		assertTrue(filter.mightContain(new BigDecimal("1.1")));
+		assertTrue(filter.mightContain(BigDecimal.ZERO));
+		assertTrue(filter.mightContain("a"));
+		assertTrue(filter.mightContain(Date.valueOf("2000-01-01")));
+	}
+	
+	@Test public void testSupported() {
+		assertTrue(BloomFilter.isSupported(DataTypeManager.DefaultDataClasses.INTEGER));
+		assertTrue(BloomFilter.isSupported(DataTypeManager.DefaultDataClasses.TIMESTAMP));
+		assertFalse(BloomFilter.isSupported(DataTypeManager.DefaultDataClasses.CLOB));
+		assertFalse(BloomFilter.isSupported(DataTypeManager.DefaultDataClasses.OBJECT));
+	}
+	
+}
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.dqp.internal.process.TupleSourceCache;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.FakeDataManager;
+import org.teiid.query.processor.HardcodedDataManager;
+import org.teiid.query.processor.ProcessorPlan;
+import org.teiid.query.processor.TestProcessor;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
+
+@SuppressWarnings({"rawtypes", "nls"})
+public class TestExchangeNode {
+
+	private List[] createData(int rows) {
+		List[] data = new List[rows];
+		for (int i = 0; i < rows; i++) {
+			data[i] = Arrays.asList(i);
+		}
+		return data;
+	}
+
+	private List<List<?>> helpProcess(RelationalNode child, CommandContext context) throws TeiidComponentException, TeiidProcessingException {
+		BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+		ElementSymbol es1 = new ElementSymbol("e1");
+		es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		child.setElements(Arrays.asList(es1));
+		ExchangeNode exchange = new ExchangeNode(2);
+		exchange.setElements(child.getElements());
+		exchange.addChild(child);
+		FakeDataManager fdm = new FakeDataManager();
+		child.initialize(context, mgr, fdm);
+		exchange.initialize(context, mgr, fdm);
+		exchange.open();
+
+		List<List<?>> result = new ArrayList<List<?>>();
+		try {
+			while (true) {
+				try {
+					TupleBatch batch = exchange.nextBatch();
+					assertEquals(result.size() + 1, batch.getBeginRow());
+					result.addAll(batch.getTuples());
+					if (batch.getTerminationFlag()) {
+						break;
+					}
+				} catch (BlockedException e) {
+					//ignore and retry
+				}
+			}
+		} finally {
+			exchange.close();
+		}
+		assertTrue(child.isClosed());
+		return result;
+	}
+
+	@Test public void testDirect() throws Exception {
+		List[] data = createData(10);
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		List<List<?>> result = helpProcess(new BlockingFakeRelationalNode(1, data, 2), context);
+		assertEquals(Arrays.asList(data), result);
+	}
+
+	@Test public void testThreaded() throws Exception {
+		List[] data = createData(100);
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		context.setExecutor(executor);
+		try {
+			List<List<?>> result = helpProcess(new BlockingFakeRelationalNode(1, data, 3), context);
+			assertEquals(Arrays.asList(data), result);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected=TeiidProcessingException.class) public void testException() throws Exception {
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		context.setExecutor(executor);
+		try {
+			helpProcess(new FakeRelationalNode(1, createData(10), 2) {
+				@Override
+				public TupleBatch nextBatchDirect() throws BlockedException,
+						TeiidComponentException, TeiidProcessingException {
+					throw new TeiidProcessingException("fail");
+				}
+			}, context);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void testCloseWhileRunning() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		FakeRelationalNode child = new FakeRelationalNode(1, createData(10), 2) {
+			@Override
+			public TupleBatch nextBatchDirect() throws BlockedException,
+					TeiidComponentException, TeiidProcessingException {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new TeiidComponentException(e);
+				}
+				return super.nextBatchDirect();
+			}
+		};
+		ElementSymbol es1 = new ElementSymbol("e1");
+		es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		child.setElements(Arrays.asList(es1));
+		ExchangeNode exchange = new ExchangeNode(2);
+		exchange.setElements(child.getElements());
+		exchange.addChild(child);
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		context.setExecutor(executor);
+		try {
+			BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+			exchange.initialize(context, mgr, new FakeDataManager());
+			exchange.open();
+			started.await();
+			//should not wait for the branch
+			exchange.close();
+			assertFalse(child.isClosed());
+			release.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertTrue(child.isClosed());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void testParallelContext() throws Exception {
+		CommandContext context = new CommandContext("pid", "test", null, null, 1);
+		context.setDataObjects(Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>()));
+		CommandContext parallel = context.createParallelContext();
+		parallel.setDeterminismLevel(Determinism.SESSION_DETERMINISTIC);
+		parallel.accessedDataObject("x");
+		assertEquals(Determinism.DETERMINISTIC, context.getDeterminismLevel());
+		assertEquals(Collections.singleton("x"), context.getDataObjects());
+		assertNotSame(CommandContext.getDecimalFormat(parallel, "#"), CommandContext.getDecimalFormat(parallel, "#"));
+		context.setTupleSourceCache(new TupleSourceCache());
+		parallel = context.createParallelContext();
+		assertNotNull(parallel.getTupleSourceCache());
+		assertNotSame(context.getTupleSourceCache(), parallel.getTupleSourceCache());
+	}
+	
+	@Test public void testPlanningSubqueryAndLookup() throws Exception {
+		String sql = "select e1, max(e2) from pm1.g1 group by e1 union all select e1, (select max(e2) from pm1.g3 where e1 = pm1.g2.e1) from pm1.g2 " //$NON-NLS-1$
+				+ "union all select e1, lookup('pm1.g3', 'e2', 'e1', e1) from pm1.g2 group by e1"; //$NON-NLS-1$
+
+		CommandContext context = TestProcessor.createCommandContext();
+		context.setOptions(new Options().useParallelExchange(true));
+		ProcessorPlan plan = TestProcessor.helpGetPlan(QueryParser.getQueryParser().parseCommand(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, context);
+		String planString = plan.toString();
+		assertTrue(planString, planString.contains("ExchangeNode")); //$NON-NLS-1$
+		//the branches with the subquery and the lookup are not processed in parallel
+		String[] lines = planString.split("\n"); //$NON-NLS-1$
+		for (int i = 1; i < lines.length; i++) {
+			if (lines[i].contains("ProjectNode") && (lines[i].contains("SELECT MAX") || lines[i].contains("lookup("))) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				assertFalse(planString, lines[i - 1].contains("ExchangeNode")); //$NON-NLS-1$
+			}
+		}
+	}
+
+	@Test public void testPlanning() throws Exception {
+		String sql = "select e1, max(e2) from pm1.g1 group by e1 union all select e1, max(e2) from pm1.g2 group by e1";
+
+		CommandContext context = TestProcessor.createCommandContext();
+		context.setOptions(new Options().useParallelExchange(true));
+		ProcessorPlan plan = TestProcessor.helpGetPlan(QueryParser.getQueryParser().parseCommand(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, context);
+		assertTrue(plan.toString(), plan.toString().contains("ExchangeNode"));
+
+		HardcodedDataManager hdm = new HardcodedDataManager();
+		hdm.addData("SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1", new List<?>[] {Arrays.asList("a", 1), Arrays.asList("a", 2)});
+		hdm.addData("SELECT pm1.g2.e1, pm1.g2.e2 FROM pm1.g2", new List<?>[] {Arrays.asList("b", 3)});
+		TestProcessor.helpProcess(plan, context, hdm, new List<?>[] {Arrays.asList("a", 2), Arrays.asList("b", 3)});
+	}
+
+}
@@ -28,6 +28,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -439,6 +440,84 @@ public class TestGroupingNode {
 		return node;
 	}
 	
+	private GroupingNode getExampleHashGroupingNode() {
+		GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+        
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1); 
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setHashAggregate(true);
+		return node;
+	}
+	
+	private void helpProcessHash(BufferManager mgr, GroupingNode node, FakeTupleSource dataSource, List[] expected) throws Exception {
+        RelationalNode dataNode = new FakeRelationalNode(0, dataSource, mgr.getProcessorBatchSize());
+        dataNode.setElements(dataSource.getSchema());            
+        node.addChild(dataNode);    
+        node.initialize(new CommandContext("pid", "test", null, null, 1), mgr, null); //$NON-NLS-1$ //$NON-NLS-2$
+        node.open();
+        
+        List<List<?>> actual = new ArrayList<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                actual.addAll(batch.getTuples());
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //ignore
+            }
+        }
+        node.close();
+        
+        //the output is not ordered
+        assertEquals(expected.length, actual.size());
+        assertEquals(new HashSet(Arrays.asList(expected)), new HashSet(actual));
+	}
+	
+	@Test public void testHashAggregate() throws Exception {
+        List[] expected = new List[] {
+            Arrays.asList(new Object[] { null, new Integer(1), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1), new Long(4) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1), new Long(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1), new Long(0) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(2), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2), new Long(7) })
+        };
+		helpProcessHash(BufferManagerFactory.getStandaloneBufferManager(), getExampleHashGroupingNode(), createTupleSource1(), expected);
+	}
+	
+	/**
+	 * With no memory available only the first batch of groups is held in memory
+	 */
+	@Test public void testHashAggregateSpill() throws Exception {
+		BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(0, 2);
+		List<ElementSymbol> symbols = createTupleSource1().getSchema();
+		List[] tuples = new List[100];
+		for (int i = 0; i < tuples.length; i++) {
+			tuples[i] = Arrays.asList(i % 50, i);
+		}
+		List[] expected = new List[50];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = Arrays.asList(i, 2, Long.valueOf(2*i + 50));
+		}
+		helpProcessHash(mgr, getExampleHashGroupingNode(), new FakeTupleSource(symbols, tuples), expected);
+		//all of the reserved memory should be released
+		assertEquals(0, mgr.getReserveBatchBytes());
+	}
+	
 	@Test public void testDescriptionProperties() {
 		GroupingNode node = getExampleGroupingNode();
 		SymbolMap outputMapping = new SymbolMap();
@@ -26,6 +26,8 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +44,8 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
+import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.HardcodedDataManager;
 import org.teiid.query.processor.ProcessorPlan;
@@ -57,6 +61,7 @@ import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings({"unchecked", "rawtypes", "nls"})
 public class TestJoinNode {
@@ -1182,4 +1187,154 @@ public class TestJoinNode {
         TestProcessor.helpProcess(plan, context, hdm, results);
     }
     
+    @Test public void testHashJoin() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) })            
+        };
+        for (int batchSize : new int[] {1, 10, 100}) {
+	        helpCreateJoin();
+	        this.joinStrategy = new HashJoinStrategy(SortOption.SORT, SortOption.SORT);
+	        this.join.setJoinStrategy(joinStrategy);
+	        helpTestJoinDirect(expected, batchSize, 100000);
+	        assertEquals("HASH JOIN", this.joinStrategy.toString());
+        }
+    }
+    
+    /**
+     * The join expressions are not hashable, so the merge join fallback is used and the
+     * blocking sources block during its sort
+     */
+    @Test public void testHashJoinDegradedBlocking() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) })            
+        };
+        for (int batchSize : new int[] {1, 10, 100}) {
+	        helpCreateJoin();
+	        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+	        es1.setType(DataTypeManager.DefaultDataClasses.OBJECT);
+	        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+	        es2.setType(DataTypeManager.DefaultDataClasses.OBJECT);
+	        join.setJoinExpressions(Arrays.asList(es1), Arrays.asList(es2));
+	        this.joinStrategy = new HashJoinStrategy(SortOption.SORT, SortOption.SORT);
+	        this.join.setJoinStrategy(joinStrategy);
+	        helpTestJoinDirect(expected, batchSize, 100000);
+	        assertEquals("HASH JOIN RAN AS SORT MERGE", this.joinStrategy.toString());
+        }
+    }
+    
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(5), null }),    
+            Arrays.asList(new Object[] { new Integer(3), null }),    
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),    
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),            
+            Arrays.asList(new Object[] { new Integer(10), null }),            
+            Arrays.asList(new Object[] { new Integer(11), null }),    
+            Arrays.asList(new Object[] { new Integer(11), null })            
+        };
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy(SortOption.SORT, SortOption.SORT);
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 100000);
+    }
+    
+    @Test public void testHashJoinPartitioned() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        leftTuples = new List[3000];
+        for (int i = 0; i < leftTuples.length; i++) {
+        	leftTuples[i] = Arrays.asList(i % 1000);
+        }
+        rightTuples = createTuples(0, 2000);
+        List<List<?>> expectedList = new ArrayList<List<?>>();
+        for (int i = 0; i < leftTuples.length; i++) {
+        	expectedList.add(Arrays.asList(i % 1000, i % 1000));
+        }
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy(SortOption.SORT, SortOption.SORT);
+        this.join.setJoinStrategy(joinStrategy);
+        
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(102400, 10);
+        mgr.setTargetBytesPerRow(100);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        join.addChild(leftNode);
+        join.addChild(rightNode);
+        leftNode.initialize(context, mgr, dataMgr);
+        rightNode.initialize(context, mgr, dataMgr);
+        join.initialize(context, mgr, dataMgr);
+        
+        join.open();
+        List<List<?>> results = new ArrayList<List<?>>();
+        while (true) {
+        	try {
+        		TupleBatch batch = join.nextBatch();
+        		results.addAll(batch.getTuples());
+        		if (batch.getTerminationFlag()) {
+        			break;
+        		}
+        	} catch (BlockedException e) {
+        		// ignore and retry
+        	}
+        }
+        join.close();
+        assertEquals("HASH JOIN RAN PARTITIONED", this.joinStrategy.toString());
+        Comparator<List<?>> comparator = new Comparator<List<?>>() {
+        	@Override
+        	public int compare(List<?> o1, List<?> o2) {
+        		return ((Integer)o1.get(0)).compareTo((Integer)o2.get(0));
+        	}
+		};
+		Collections.sort(results, comparator);
+		Collections.sort(expectedList, comparator);
+        assertEquals(expectedList, results);
+    }
+    
+    @Test public void testHashJoinAntiSemi() throws Exception {
+        joinType = JoinType.JOIN_ANTI_SEMI;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(5), null }),    
+            Arrays.asList(new Object[] { new Integer(3), null }),    
+            Arrays.asList(new Object[] { new Integer(10), null }),            
+            Arrays.asList(new Object[] { new Integer(11), null }),    
+            Arrays.asList(new Object[] { new Integer(11), null })            
+        };
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy(SortOption.SORT, SortOption.SORT);
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 100000);
+    }
+    
+    @Test public void testHashJoinPlanning() throws Exception {
+    	String sql = "select a.e1, b.e2 from pm1.g1 as a, pm2.g2 as b where a.e1 = b.e1"; //$NON-NLS-1$
+    	
+    	CommandContext context = TestProcessor.createCommandContext();
+    	context.setOptions(new Options().useHashJoin(true));
+    	ProcessorPlan plan = TestProcessor.helpGetPlan(QueryParser.getQueryParser().parseCommand(sql), RealMetadataFactory.example1Cached(), DefaultCapabilitiesFinder.INSTANCE, context);
+    	assertTrue(plan.toString(), plan.toString().contains("HASH JOIN"));
+    	
+    	HardcodedDataManager hdm = new HardcodedDataManager();
+    	hdm.addData("SELECT pm1.g1.e1 FROM pm1.g1", new List<?>[] {Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c")});
+    	hdm.addData("SELECT pm2.g2.e1, pm2.g2.e2 FROM pm2.g2", new List<?>[] {Arrays.asList("b", 1), Arrays.asList("a", 2), Arrays.asList("b", 3)});
+    	TestProcessor.helpProcess(plan, context, hdm, new List<?>[] {Arrays.asList("a", 2), Arrays.asList("b", 1), Arrays.asList("b", 3)});
+    }
+    
 }
@@ -66,6 +66,8 @@ public class TestRelationalNodeStatistics {
         assertEquals("The NodeOutputRows was Inccorrect. Correct: 1000 Actual: "+ actualNodeOutputRows, 1000, actualNodeOutputRows); //$NON-NLS-1$
         assertEquals("The NodeNextBatchCalls was Inccorrect. Correct: 10 Actual: "+ actualNodeNextBatchCalls, 10, actualNodeNextBatchCalls); //$NON-NLS-1$
         assertEquals("The NodeBlocks was Inccorrect. Correct: 0 Actual: "+ actualNodeBlocks, 0, actualNodeBlocks); //$NON-NLS-1$
+        assertTrue(fakeNode.getNodeStatistics().getNodeOutputBytes() > 0);
+        assertEquals(fakeNode.getNodeStatistics().getNodeOutputBytes() / 1000, fakeNode.getNodeStatistics().getNodeAverageRowBytes());
     }
     
     @Test public void testStatsCollectionBuffer() throws TeiidComponentException, TeiidProcessingException {
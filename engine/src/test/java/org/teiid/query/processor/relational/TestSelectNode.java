@@ -35,6 +35,7 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -46,13 +47,16 @@ import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
 import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings("unchecked")
 public class TestSelectNode {
@@ -71,9 +75,15 @@ public class TestSelectNode {
 			RelationalNode child,
 			SelectNode selectNode) throws TeiidComponentException,
 			TeiidProcessingException {
-		BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
         CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
-        
+        helpTestSelect(elements, criteria, childElements, dataMgr, expected, child, selectNode, context, BufferManagerFactory.getStandaloneBufferManager());
+	}
+
+	private void helpTestSelect(List elements, Criteria criteria, List childElements,
+			ProcessorDataManager dataMgr, List[] expected,
+			RelationalNode child,
+			SelectNode selectNode, CommandContext context, BufferManager mgr) throws TeiidComponentException,
+			TeiidProcessingException {
         child.setElements(childElements);
         child.initialize(context, mgr, dataMgr);
 		selectNode.setCriteria(criteria);
@@ -233,6 +243,65 @@ public class TestSelectNode {
 
     }
 
+    @Test public void testColumnarSelect() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        
+        CompareCriteria crit = new CompareCriteria(es1, CompareCriteria.EQ, new Constant(new Integer(1)));
+        
+        List[] data = new List[20];
+        for(int i=0; i<20; i++) { 
+            data[i] = Arrays.asList((i*51) % 11, String.valueOf(i));
+        }
+        
+        final Class<?>[] types = new Class<?>[] {es1.getType(), es2.getType()};
+        FakeRelationalNode child = new FakeRelationalNode(2, data, 7) {
+        	@Override
+        	public TupleBatch nextBatchDirect() throws BlockedException,
+        			TeiidComponentException, TeiidProcessingException {
+        		TupleBatch batch = super.nextBatchDirect();
+        		TupleBatch result = new TupleBatch(batch.getBeginRow(), ColumnarBatch.create(batch.getTuples(), types));
+        		result.setTerminationFlag(batch.getTerminationFlag());
+        		return result;
+        	}
+        };
+
+        List[] expected = new List[] {
+            Arrays.asList("8"), //$NON-NLS-1$
+            Arrays.asList("19") //$NON-NLS-1$
+        };
+        
+        helpTestSelect(Arrays.asList(es2), crit, Arrays.asList(es1, es2), null, expected, child);
+    }
+
+    @Test public void testVectorizedSelect() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        
+        CompoundCriteria crit = new CompoundCriteria(CompoundCriteria.OR, new CompareCriteria(es1, CompareCriteria.EQ, new Constant(1)), 
+        		new IsNullCriteria(es2));
+        
+        List[] data = new List[20];
+        List<List<?>> expected = new ArrayList<List<?>>();
+        for(int i=0; i<20; i++) { 
+            data[i] = Arrays.asList(i % 3, i % 4 == 0 ? null : String.valueOf(i));
+            if (i % 3 == 1 || i % 4 == 0) {
+            	expected.add(data[i]);
+            }
+        }
+        
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().useVectorizedCriteria(true));
+        //a small processor batch size forces the filtered rows to span output batches
+        helpTestSelect(Arrays.asList(es1, es2), crit, Arrays.asList(es1, es2), null, expected.toArray(new List[expected.size()]), new FakeRelationalNode(2, data, 20), new SelectNode(1), context, BufferManagerFactory.getTestBufferManager(0, 1));
+    }
+
     @Test public void testSelectWithLookup() throws TeiidComponentException, TeiidProcessingException {
         ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
         es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
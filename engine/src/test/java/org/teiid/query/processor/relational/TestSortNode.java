@@ -30,6 +30,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -58,6 +62,7 @@ import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings({"rawtypes", "nls"})
 public class TestSortNode {
@@ -353,6 +358,96 @@ public class TestSortNode {
     	assertNull(ts.nextTuple());
     }
     
+    @Test public void testParallelSort() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManagerImpl bm = new BufferManagerImpl();
+        bm.setProcessorBatchSize(16);
+        bm.setMaxProcessingKB(200);
+        //allow for additional runs to be reserved
+        bm.setMaxReserveKB(2000);
+        BufferManagerFactory.initBufferManager(bm);
+        bm.setOptions(new Options().useParallelSort(true));
+        long reserve = bm.getReserveBatchBytes();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1, es2), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        int rows = 20000;
+        for (int i = 0; i < rows; i++) {
+        	tsid.addTuple(Arrays.asList((i*31) % 1000, i));
+        }
+    	tsid.close();
+    	
+    	final ExecutorService service = Executors.newFixedThreadPool(2);
+    	final AtomicInteger runs = new AtomicInteger();
+    	Executor executor = new Executor() {
+    		@Override
+    		public void execute(Runnable command) {
+    			runs.incrementAndGet();
+    			service.execute(command);
+    		}
+    	};
+    	try {
+	    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+	    	su.setStableSort(true);
+	    	su.setExecutor(executor);
+	    	TupleBuffer out = su.sort();
+	    	assertTrue(runs.get() > 0);
+	    	assertEquals(rows, out.getRowCount());
+	    	TupleSource ts = out.createIndexedTupleSource();
+	    	List<?> last = ts.nextTuple();
+	    	for (List<?> tuple = ts.nextTuple(); tuple != null; tuple = ts.nextTuple()) {
+	    		int compare = ((Integer)last.get(0)).compareTo((Integer)tuple.get(0));
+	    		assertTrue(compare < 0 || (compare == 0 && (Integer)last.get(1) < (Integer)tuple.get(1)));
+	    		last = tuple;
+	    	}
+	    	out.remove();
+	    	assertEquals(reserve, bm.getReserveBatchBytes());
+	    	
+	    	runs.set(0);
+	    	su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.DUP_REMOVE, bm, "test", Arrays.asList(es1)); //$NON-NLS-1$
+	    	su.setExecutor(executor);
+	    	out = su.sort();
+	    	assertTrue(runs.get() > 0);
+	    	assertEquals(1000, out.getRowCount());
+	    	ts = out.createIndexedTupleSource();
+	    	for (int i = 0; i < 1000; i++) {
+	    		assertEquals(i, ts.nextTuple().get(0));
+	    	}
+	    	out.remove();
+	    	assertEquals(reserve, bm.getReserveBatchBytes());
+    	} finally {
+    		service.shutdownNow();
+    	}
+    }
+    
+    @Test public void testStreamingMerge() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(0, 2);
+        long reserve = bm.getReserveBatchBytes();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        for (int i = 0; i < 100; i++) {
+        	tsid.addTuple(Arrays.asList((i*17) % 50));
+        }
+    	tsid.close();
+    	
+    	for (Mode mode : Mode.values()) {
+	    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), mode, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+	    	su.setBatchSize(2);
+	    	TupleSource ts = su.sortStreaming(-1);
+	    	for (int i = 0; i < 50; i++) {
+	    		assertEquals(i, ts.nextTuple().get(0));
+	    		if (mode == Mode.SORT) {
+	    			assertEquals(i, ts.nextTuple().get(0));
+	    		}
+	    	}
+	    	assertNull(ts.nextTuple());
+	    	assertEquals(reserve, bm.getReserveBatchBytes());
+	    	su.remove();
+    	}
+    }
+    
     @Test public void testSortLimit() throws Exception {
     	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
         es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.query.sql.visitor;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.unittest.RealMetadataFactory;
+
+@SuppressWarnings("nls")
+public class TestLiteralParameterizerVisitor {
+	
+	@Test public void testParameterize() throws Exception {
+		Command command = QueryParser.getQueryParser().parseCommand("select 1, e1 from pm1.g1 where e2 = 2 and 'a' < e1 and e3 between 1 and 3 and e4 in (1, 2) and e1 like 'b%' and e2 is null and e2 = null and e2 + 1 = 4 and exists (select e1 from pm1.g2 where e2 = 5) limit 6");
+		List<Object> values = LiteralParameterizerVisitor.parameterize(command);
+		assertEquals(Arrays.asList(2, "a", 1, 3, 5), values);
+		assertEquals("SELECT 1, e1 FROM pm1.g1 WHERE (e2 = ?) AND (? < e1) AND (e3 BETWEEN ? AND ?) AND (e4 IN (1, 2)) AND (e1 LIKE 'b%') AND (e2 IS NULL) AND (e2 = null) AND ((e2 + 1) = 4) AND (EXISTS (SELECT e1 FROM pm1.g2 WHERE e2 = ?)) LIMIT 6", command.toString());
+		assertEquals(5, ReferenceCollectorVisitor.getReferences(command).size());
+	}
+
+	@Test public void testPlanningColumnsNotParameterized() throws Exception {
+		TransformationMetadata metadata = RealMetadataFactory.fromDDL("create foreign table t1 (a integer, b string); create foreign table t2 (a integer, b string); "
+				+ "create view v as select 1 as p, a, b from t1 union all select 2 as p, a, b from t2; "
+				+ "create view v1 as select 'x' as c, a, b from t1; create view v2 as select p, a from v", "x", "y");
+		Command command = QueryParser.getQueryParser().parseCommand("select a from v where p = 1 and a = 2 and b between 'c' and 'd' and exists (select c from v1 where c = 'x' and a = 3) "
+				+ "and a in (select p from v2 where p = 2 and a = 4) and a in (select p from (select a as p from t1 union all select a from t2) as x where p = 5) "
+				+ "and a in (select p from (select 1 as p from t1 union all select 2 from t2) as x where p = 1)");
+		List<Object> values = LiteralParameterizerVisitor.parameterize(command, metadata);
+		assertEquals(Arrays.asList(2, "c", "d", 3, 4, 5), values);
+		assertEquals("SELECT a FROM v WHERE (p = 1) AND (a = ?) AND (b BETWEEN ? AND ?) AND (EXISTS (SELECT c FROM v1 WHERE (c = 'x') AND (a = ?))) "
+				+ "AND (a IN (SELECT p FROM v2 WHERE (p = 2) AND (a = ?))) AND (a IN (SELECT p FROM (SELECT a AS p FROM t1 UNION ALL SELECT a FROM t2) AS x WHERE p = ?)) "
+				+ "AND (a IN (SELECT p FROM (SELECT 1 AS p FROM t1 UNION ALL SELECT 2 FROM t2) AS x WHERE p = 1))", command.toString());
+	}
+
+}
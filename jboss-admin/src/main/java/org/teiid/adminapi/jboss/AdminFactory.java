@@ -974,6 +974,14 @@ public class AdminFactory {
 	            	}
 	            	if (outcome.hasDefined("result")) {
 	            		ModelNode result = outcome.get("result");
+	            		if (result.getType() == ModelType.LIST) {
+	            			//the resolved command cache has an entry per vdb
+	            			List<CacheStatistics> stats = new ArrayList<CacheStatistics>();
+	            			for (ModelNode node : result.asList()) {
+	            				stats.add(VDBMetadataMapper.CacheStatisticsMetadataMapper.INSTANCE.unwrap(node));
+	            			}
+	            			return stats;
+	            		}
 	            		return Arrays.asList(VDBMetadataMapper.CacheStatisticsMetadataMapper.INSTANCE.unwrap(result));
 	            	}
 	            }
@@ -1159,6 +1159,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 		private static final String DISK_READ_COUNT = "buffermgr-disk-read-count"; //$NON-NLS-1$
 		private static final String CACHE_WRITE_COUNT = "buffermgr-cache-write-count"; //$NON-NLS-1$
 		private static final String CACHE_READ_COUNT = "buffermgr-cache-read-count"; //$NON-NLS-1$
+		private static final String HEAP_CACHE_HIT_COUNT = "buffermgr-heap-cache-hit-count"; //$NON-NLS-1$
+		private static final String MEMORY_BUFFER_READ_COUNT = "buffermgr-memory-buffer-read-count"; //$NON-NLS-1$
 		private static final String DISK_SPACE_USED = "buffermgr-diskspace-used-mb"; //$NON-NLS-1$
 		private static final String ACTIVE_PLAN_COUNT = "active-plans-count"; //$NON-NLS-1$
 		private static final String WAITING_PLAN_COUNT = "waiting-plans-count"; //$NON-NLS-1$
@@ -1177,6 +1179,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			node.get(DISK_READ_COUNT).set(object.getDiskReadCount());
 			node.get(CACHE_WRITE_COUNT).set(object.getCacheWriteCount());	
 			node.get(CACHE_READ_COUNT).set(object.getCacheReadCount());
+			node.get(HEAP_CACHE_HIT_COUNT).set(object.getHeapCacheHitCount());
+			node.get(MEMORY_BUFFER_READ_COUNT).set(object.getMemoryBufferReadCount());
 			node.get(DISK_SPACE_USED).set(object.getDiskSpaceUsedInMB());
 			node.get(ACTIVE_PLAN_COUNT).set(object.getActivePlanCount());
 			node.get(WAITING_PLAN_COUNT).set(object.getWaitPlanCount());
@@ -1198,6 +1202,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			stats.setDiskReadCount(node.get(DISK_READ_COUNT).asLong());
 			stats.setCacheReadCount(node.get(CACHE_READ_COUNT).asLong());
 			stats.setCacheWriteCount(node.get(CACHE_WRITE_COUNT).asLong());
+			stats.setHeapCacheHitCount(node.get(HEAP_CACHE_HIT_COUNT).asLong());
+			stats.setMemoryBufferReadCount(node.get(MEMORY_BUFFER_READ_COUNT).asLong());
 			stats.setDiskSpaceUsedInMB(node.get(DISK_SPACE_USED).asLong());
 			stats.setActivePlanCount(node.get(ACTIVE_PLAN_COUNT).asInt());
 			stats.setWaitPlanCount(node.get(WAITING_PLAN_COUNT).asInt());
@@ -1215,6 +1221,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			addAttribute(node, DISK_READ_COUNT, ModelType.LONG, true);
 			addAttribute(node, CACHE_READ_COUNT, ModelType.LONG, true);
 			addAttribute(node, CACHE_WRITE_COUNT, ModelType.LONG, true);
+			addAttribute(node, HEAP_CACHE_HIT_COUNT, ModelType.LONG, true);
+			addAttribute(node, MEMORY_BUFFER_READ_COUNT, ModelType.LONG, true);
 			addAttribute(node, DISK_SPACE_USED, ModelType.LONG, true);
 			addAttribute(node, ACTIVE_PLAN_COUNT, ModelType.INT, true);
 			addAttribute(node, WAITING_PLAN_COUNT, ModelType.INT, true);
@@ -1231,6 +1239,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 					new SimpleAttributeDefinition(DISK_READ_COUNT, ModelType.LONG, false),
 					new SimpleAttributeDefinition(CACHE_READ_COUNT, ModelType.LONG, false),
 					new SimpleAttributeDefinition(CACHE_WRITE_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(HEAP_CACHE_HIT_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(MEMORY_BUFFER_READ_COUNT, ModelType.LONG, false),
 					new SimpleAttributeDefinition(DISK_SPACE_USED, ModelType.LONG, false),
 					new SimpleAttributeDefinition(ACTIVE_PLAN_COUNT, ModelType.INT, false),
 					new SimpleAttributeDefinition(WAITING_PLAN_COUNT, ModelType.INT, false),
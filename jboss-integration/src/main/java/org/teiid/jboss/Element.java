@@ -72,6 +72,8 @@ enum Element {
 	MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE("max-storage-object-size", "buffer-service-max-storage-object-size"),
 	INLINE_LOBS("inline-lobs", "buffer-service-inline-lobs"),
 	ENCRYPT_FILES_ATTRIBUTE("encrypt-files", "buffer-service-encrypt-files"),
+	USE_FILE_CHANNELS_ATTRIBUTE("use-file-channels", "buffer-service-use-file-channels"),
+	STRIPED_EVICTION_QUEUE_ATTRIBUTE("striped-eviction-queue", "buffer-service-striped-eviction-queue"),
 	
 	//prepared-plan-cache-config
 	PREPAREDPLAN_CACHE_ELEMENT("preparedplan-cache"),
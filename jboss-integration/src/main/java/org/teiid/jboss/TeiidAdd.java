@@ -142,6 +142,8 @@ class TeiidAdd extends AbstractAddStepHandler {
 		TeiidConstants.MEMORY_BUFFER_OFFHEAP_ATTRIBUTE,
 		TeiidConstants.MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE,
 		TeiidConstants.ENCRYPT_FILES_ATTRIBUTE,
+		TeiidConstants.USE_FILE_CHANNELS_ATTRIBUTE,
+		TeiidConstants.STRIPED_EVICTION_QUEUE_ATTRIBUTE,
 		
 		// prepared plan cache
 		TeiidConstants.PPC_NAME_ATTRIBUTE,
@@ -652,6 +654,12 @@ class TeiidAdd extends AbstractAddStepHandler {
     	if (isDefined(ENCRYPT_FILES_ATTRIBUTE, node, context)) {
     		bufferManger.setEncryptFiles(asBoolean(ENCRYPT_FILES_ATTRIBUTE, node, context));
     	}
+    	if (isDefined(USE_FILE_CHANNELS_ATTRIBUTE, node, context)) {
+    		bufferManger.setUseFileChannels(asBoolean(USE_FILE_CHANNELS_ATTRIBUTE, node, context));
+    	}
+    	if (isDefined(STRIPED_EVICTION_QUEUE_ATTRIBUTE, node, context)) {
+    		bufferManger.setStripedEvictionQueue(asBoolean(STRIPED_EVICTION_QUEUE_ATTRIBUTE, node, context));
+    	}
     	return bufferManger;
     }	
     
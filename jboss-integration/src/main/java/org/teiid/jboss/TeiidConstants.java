@@ -278,6 +278,20 @@ public class TeiidConstants {
         .setDefaultValue(new ModelNode(false))
         .build();   
 	
+	public static SimpleAttributeDefinition USE_FILE_CHANNELS_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.USE_FILE_CHANNELS_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
+        .setXmlName(Element.USE_FILE_CHANNELS_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode(false))
+        .build();   
+	
+	public static SimpleAttributeDefinition STRIPED_EVICTION_QUEUE_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.STRIPED_EVICTION_QUEUE_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
+        .setXmlName(Element.STRIPED_EVICTION_QUEUE_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode(false))
+        .build();   
+	
 	// prepared-plan-cache-config
 	// PREPAREDPLAN_CACHE_ELEMENT("preparedplan-cache",true, false, MeasurementUnit.NONE);
 	public static SimpleAttributeDefinition PPC_ENABLE_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.PPC_ENABLE_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
@@ -605,6 +605,14 @@ abstract class BaseCachehandler extends BaseOperationHandler<SessionAwareCache>{
 		}
 		return null;
 	}
+	
+	/**
+	 * The resolved command cache is held by the metadata of each vdb
+	 */
+	static List<VDBMetaData> getVDBs(OperationContext context) {
+		ServiceController<?> sc = context.getServiceRegistry(false).getRequiredService(TeiidServiceNames.VDB_REPO);
+		return VDBRepository.class.cast(sc.getValue()).getVDBs();
+	}
 }
 
 
@@ -620,6 +628,7 @@ class CacheTypes extends BaseCachehandler {
 		for (String type:types) {
 			result.add(type);
 		}
+		result.add(Admin.Cache.RESOLVED_COMMAND_CACHE.name());
 	}
 
 	@Override
@@ -645,17 +654,34 @@ class ClearCache extends BaseCachehandler {
 		if (cache == null) {
 			throw new OperationFailedException(IntegrationPlugin.Util.gs(IntegrationPlugin.Event.TEIID50071, cacheType));
 		}
+		boolean commandCache = Admin.Cache.RESOLVED_COMMAND_CACHE.name().equals(cacheType);
 
 		if (operation.hasDefined(OperationsConstants.VDB_NAME.getName()) && operation.hasDefined(OperationsConstants.VDB_VERSION.getName())) {
 			String vdbName = operation.get(OperationsConstants.VDB_NAME.getName()).asString();
 			String vdbVersion = operation.get(OperationsConstants.VDB_VERSION.getName()).asString();
-			TeiidOperationHandler.checkVDB(context, vdbName, vdbVersion);
+			VDBMetaData vdb = TeiidOperationHandler.checkVDB(context, vdbName, vdbVersion);
 			LogManager.logInfo(LogConstants.CTX_DQP, IntegrationPlugin.Util.gs(IntegrationPlugin.Event.TEIID50005, cacheType, vdbName, vdbVersion));
-			cache.clearForVDB(vdbName, vdbVersion);
+			if (commandCache) {
+				TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+				if (metadata != null) {
+					metadata.clearCommandCache();
+				}
+			} else {
+				cache.clearForVDB(vdbName, vdbVersion);
+			}
 		}
 		else {
 			LogManager.logInfo(LogConstants.CTX_DQP, IntegrationPlugin.Util.gs(IntegrationPlugin.Event.TEIID50098, cacheType));
-			cache.clearAll();
+			if (commandCache) {
+				for (VDBMetaData vdb : getVDBs(context)) {
+					TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+					if (metadata != null) {
+						metadata.clearCommandCache();
+					}
+				}
+			} else {
+				cache.clearAll();
+			}
 		}
 	}
 
@@ -684,6 +710,19 @@ class CacheStatistics extends BaseCachehandler {
 		}
 
 		ModelNode result = context.getResult();
+		if (Admin.Cache.RESOLVED_COMMAND_CACHE.name().equals(cacheType)) {
+			//one entry per vdb
+			for (VDBMetaData vdb : getVDBs(context)) {
+				TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+				if (metadata == null) {
+					continue; //not yet loaded
+				}
+				CacheStatisticsMetadata stats = metadata.getCommandCacheStatistics();
+				stats.setName(vdb.getFullName());
+				VDBMetadataMapper.CacheStatisticsMetadataMapper.INSTANCE.wrap(stats, result.add());
+			}
+			return;
+		}
 		CacheStatisticsMetadata stats = cache.buildCacheStats(cacheType);
 		VDBMetadataMapper.CacheStatisticsMetadataMapper.INSTANCE.wrap(stats, result);
 	}
@@ -212,6 +212,8 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
 		MEMORY_BUFFER_OFFHEAP_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		ENCRYPT_FILES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		USE_FILE_CHANNELS_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		STRIPED_EVICTION_QUEUE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 	}
 
 	private void writeResultsetCacheConfiguration(XMLExtendedStreamWriter writer, ModelNode node) throws XMLStreamException {
@@ -663,6 +665,12 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
     			case ENCRYPT_FILES_ATTRIBUTE:
     				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
     				break;
+    			case USE_FILE_CHANNELS_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
+    			case STRIPED_EVICTION_QUEUE_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
     			default:
     				throw ParseUtils.unexpectedAttribute(reader, i);    			
     			}
@@ -36,6 +36,7 @@ public interface Client {
     public static final String BATCH_SIZE = "batch-size"; //$NON-NLS-1$
     public static final String SKIPTOKEN_TIME = "skiptoken-cache-time"; //$NON-NLS-1$
     public static final String CHARSET = "charset"; //$NON-NLS-1$
+    public static final String STREAMING = "streaming"; //$NON-NLS-1$
     
     VDBMetaData getVDB();
 
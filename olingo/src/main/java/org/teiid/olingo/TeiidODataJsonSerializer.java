@@ -22,27 +22,167 @@
 package org.teiid.olingo;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.sql.SQLException;
 import java.util.List;
 
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 
 public class TeiidODataJsonSerializer extends ODataJsonSerializer {
     
+    /**
+     * The source of entities for a streamed collection
+     */
+    public interface EntitySource {
+        /**
+         * @return the next entity or null if there are no more
+         */
+        Entity nextEntity() throws SQLException;
+        
+        /**
+         * Called after all entities have been returned
+         * @return the next link or null if there is none
+         */
+        URI getNextLink() throws SQLException;
+    }
+    
+    private final boolean isODataMetadataNone;
+    
     public TeiidODataJsonSerializer(ContentType contentType) {
         super(contentType);
+        this.isODataMetadataNone = ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(
+                contentType.getParameter(ContentType.PARAMETER_ODATA_METADATA));
+    }
+    
+    /**
+     * Serialize the entity collection as the returned stream is read, so that only 
+     * a single entity, including its expanded entities, is held in memory at a time.
+     */
+    public InputStream entityCollectionStreamed(final ServiceMetadata metadata,
+            final EdmEntityType entityType, final EntitySource source,
+            final ContextURL contextURL, final ExpandOption expand,
+            final SelectOption select) {
+        return new EntityCollectionInputStream(metadata, entityType, source, contextURL, expand, select);
+    }
+    
+    private class EntityCollectionInputStream extends InputStream {
+        private final ServiceMetadata metadata;
+        private final EdmEntityType entityType;
+        private final EntitySource source;
+        private final ContextURL contextURL;
+        private final ExpandOption expand;
+        private final SelectOption select;
+        private final AccessibleByteArrayOutputStream buffer = new AccessibleByteArrayOutputStream(1 << 13);
+        private int position;
+        private JsonGenerator json;
+        private boolean done;
+
+        EntityCollectionInputStream(ServiceMetadata metadata,
+                EdmEntityType entityType, EntitySource source,
+                ContextURL contextURL, ExpandOption expand, SelectOption select) {
+            this.metadata = metadata;
+            this.entityType = entityType;
+            this.source = source;
+            this.contextURL = contextURL;
+            this.expand = expand;
+            this.select = select;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer.getBuffer()[position++] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.getCount() - position);
+            System.arraycopy(buffer.getBuffer(), position, b, off, read);
+            position += read;
+            return read;
+        }
+        
+        @Override
+        public int available() throws IOException {
+            return buffer.getCount() - position;
+        }
+        
+        /**
+         * Serialize the next portion of the response once the buffer has been consumed
+         * @return false if the end of the response has been reached
+         */
+        private boolean fill() throws IOException {
+            while (position == buffer.getCount()) {
+                if (done) {
+                    return false;
+                }
+                buffer.reset();
+                position = 0;
+                try {
+                    if (json == null) {
+                        json = new JsonFactory().createGenerator(buffer);
+                        json.writeStartObject();
+                        if (contextURL != null && !isODataMetadataNone) {
+                            json.writeStringField(Constants.JSON_CONTEXT, ContextURLBuilder.create(contextURL).toASCIIString());
+                        }
+                        json.writeFieldName(Constants.VALUE);
+                        json.writeStartArray();
+                        json.flush();
+                        continue;
+                    }
+                    Entity entity = source.nextEntity();
+                    if (entity != null) {
+                        writeEntity(metadata, entityType, entity, null, expand, null, select, false, null, json);
+                        json.flush();
+                        continue;
+                    }
+                    json.writeEndArray();
+                    URI nextLink = source.getNextLink();
+                    if (nextLink != null) {
+                        json.writeStringField(Constants.JSON_NEXT_LINK, nextLink.toASCIIString());
+                    }
+                    json.close();
+                    done = true;
+                } catch (SQLException e) {
+                    throw new IOException(e);
+                } catch (SerializerException e) {
+                    throw new IOException(e);
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            done = true;
+            position = buffer.getCount();
+        }
     }
 
     public SerializerResult complexCollection(final ServiceMetadata metadata,
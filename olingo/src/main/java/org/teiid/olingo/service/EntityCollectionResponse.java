@@ -85,6 +85,10 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
     private DocumentNode documentNode;
     private String baseURL;
     private Map<String, Object> streams;
+    private boolean streaming;
+    private LocalClient.ResultsPage resultsPage;
+    private Entity current;
+    private long rowCount;
 
     private EntityCollectionResponse() {
     }
@@ -99,8 +103,48 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
         Entity entity = createEntity(rs, this.documentNode, this.baseURL, this);
         
     	processExpands(asRow(rs), entity, this.documentNode);
+    	if (this.streaming) {
+    		this.current = entity;
+    		this.rowCount++;
+    		return;
+    	}
         getEntities().add(entity);
     }
+    
+    /**
+     * When streaming the entities are not held by this collection, rather 
+     * they are created from the results as {@link #nextEntity()} is called.
+     * Should only be used with a collection response that does not need the count. 
+     */
+    public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+    
+    public boolean isStreaming() {
+		return streaming;
+	}
+    
+    void setResultsPage(LocalClient.ResultsPage resultsPage) {
+		this.resultsPage = resultsPage;
+	}
+    
+    /**
+     * Get the next streamed entity, fetching the row and its expanded rows as needed.
+     * @return the entity or null if there are no more rows in this page.
+     */
+    public Entity nextEntity() throws SQLException {
+    	if (this.resultsPage == null) {
+    		return null;
+    	}
+    	while (this.resultsPage.next()) {
+    		Entity entity = this.current;
+    		this.current = null;
+    		if (entity != null) {
+    			return entity;
+    		}
+    	}
+    	return null;
+    }
 
 	private void processExpands(Row vals, Entity entity, DocumentNode node)
 			throws SQLException {
@@ -436,6 +480,9 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
 
     @Override
     public long size() {
+    	if (this.streaming) {
+    		return this.rowCount;
+    	}
         return getEntities().size();
     }
 
@@ -285,47 +285,106 @@ public class LocalClient implements Client {
             size = Integer.MAX_VALUE;
         }
         
-        //build the results
-        int i = 0;
-        int nextCount = count;
-        while(true) {            
-            if (!rs.next()) {
-                break;
-            }
-            count++;
-            i++;
-            entityCount++;
-            if (i > size) {
-                break;
-            }
-            nextCount++;
-            response.addRow(rs);
+        ResultsPage page = new ResultsPage(rs, response, cache, sessionId, 
+                savedEntityCount, getCount, pageSize, size, top, count, entityCount);
+        if (!getCount && response instanceof EntityCollectionResponse 
+                && ((EntityCollectionResponse)response).isStreaming()) {
+            //the rows will be fetched as the response is serialized
+            ((EntityCollectionResponse)response).setResultsPage(page);
+            return;
+        }
+        while (page.next()) {
+            //build the results
         }
+    }
+    
+    /**
+     * Tracks the position in the results for a single page so that rows may be
+     * added to the response all at once or as they are needed.
+     */
+    class ResultsPage {
+        private final ResultSet rs;
+        private final QueryResponse response;
+        private final boolean cache;
+        private final String sessionId;
+        private final Integer savedEntityCount;
+        private final boolean getCount;
+        private final int pageSize;
+        private final int size;
+        private final int top;
+        private int count;
+        private int entityCount;
+        private int nextCount;
+        private int i;
+        private boolean done;
         
-        //set the count
-        if (getCount) {
-            while (rs.next()) {
+        ResultsPage(ResultSet rs, QueryResponse response, boolean cache,
+                String sessionId, Integer savedEntityCount,
+                boolean getCount, int pageSize, int size, int top, int count,
+                int entityCount) {
+            this.rs = rs;
+            this.response = response;
+            this.cache = cache;
+            this.sessionId = sessionId;
+            this.savedEntityCount = savedEntityCount;
+            this.getCount = getCount;
+            this.pageSize = pageSize;
+            this.size = size;
+            this.top = top;
+            this.count = count;
+            this.entityCount = entityCount;
+            this.nextCount = count;
+        }
+        
+        /**
+         * Add the next row to the response.
+         * @return false if the page is complete and the count and next token have been set 
+         */
+        boolean next() throws SQLException {
+            if (done) {
+                return false;
+            }
+            if (rs.next()) {
                 count++;
+                i++;
                 entityCount++;
+                if (i <= size) {
+                    nextCount++;
+                    response.addRow(rs);
+                    return true;
+                }
             }
+            done = true;
+            finish();
+            return false;
         }
-        if (savedEntityCount != null) {
-            response.setCount(savedEntityCount);
-        } else {
-            response.setCount(entityCount);
-        }
-        
-        //set the skipToken if needed
-        if (cache && response.size() == pageSize) {
-            long end = nextCount;
+
+        private void finish() throws SQLException {
+            //set the count
             if (getCount) {
-                if (end < Math.min(top, count)) {
-                    response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                while (rs.next()) {
+                    count++;
+                    entityCount++;
+                }
+            }
+            if (savedEntityCount != null) {
+                response.setCount(savedEntityCount);
+            } else {
+                response.setCount(entityCount);
+            }
+            
+            //set the skipToken if needed
+            if (cache && response.size() == pageSize) {
+                long end = nextCount;
+                if (getCount) {
+                    if (end < Math.min(top, count)) {
+                        response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                    }
+                } else if (count != nextCount){
+                    response.setNextToken(nextToken(cache, sessionId, end, null));
+                    //will force the entry to cache or is effectively a no-op when already cached
+                    rs.last();    
                 }
-            } else if (count != nextCount){
-                response.setNextToken(nextToken(cache, sessionId, end, null));
-                //will force the entry to cache or is effectively a no-op when already cached
-                rs.last();    
             }
         }
     }
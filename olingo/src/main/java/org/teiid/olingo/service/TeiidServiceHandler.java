@@ -60,6 +60,7 @@ import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.core.ContentNegotiatorException;
 import org.apache.olingo.server.core.ServiceHandler;
 import org.apache.olingo.server.core.ServiceRequest;
 import org.apache.olingo.server.core.requests.ActionRequest;
@@ -87,6 +88,8 @@ import org.teiid.odata.api.QueryResponse;
 import org.teiid.odata.api.UpdateResponse;
 import org.teiid.olingo.EdmComplexResponse;
 import org.teiid.olingo.ODataPlugin;
+import org.teiid.olingo.TeiidODataJsonSerializer;
+import org.teiid.olingo.TeiidODataJsonSerializer.EntitySource;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ActionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.FunctionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ProcedureReturn;
@@ -169,7 +172,8 @@ public class TeiidServiceHandler implements ServiceHandler {
         final BaseResponse queryResponse;
         try {
             Query query = visitor.selectQuery();
-            queryResponse = executeQuery(request, request.isCountRequest(), visitor, query);
+            queryResponse = executeQuery(request, request.isCountRequest(), visitor, query, 
+                    isStreaming(request, visitor, response));
         } catch (Throwable e) {
             throw new ODataApplicationException(e.getMessage(),
                     HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(),
@@ -258,19 +262,19 @@ public class TeiidServiceHandler implements ServiceHandler {
     private void sendResults(final DataRequest request,
             final ODataSQLBuilder visitor,
             final BaseResponse queryResponse, EntitySetResponse response)
-            throws ODataApplicationException, SerializerException {
+            throws ODataApplicationException, ODataLibraryException {
         if (request.getPreference(ODATA_MAXPAGESIZE) != null) {
             response.writeHeader(PREFERENCE_APPLIED,
                     ODATA_MAXPAGESIZE+"="+ request.getPreference(ODATA_MAXPAGESIZE)); //$NON-NLS-1$
         }
         EntityCollectionResponse result = (EntityCollectionResponse)queryResponse;
+        if (result.isStreaming()) {
+            streamResults(request, visitor, result, response);
+            return;
+        }
         if (result.getNextToken() != null) {
             try {
-                String nextUri = request.getODataRequest().getRawBaseUri()
-                        +request.getODataRequest().getRawODataPath()
-                        + "?"
-                        +buildNextToken(request.getODataRequest().getRawQueryPath(), result.getNextToken());
-                result.setNext(new URI(nextUri));
+                result.setNext(buildNextLink(request, result.getNextToken()));
             } catch (URISyntaxException e) {
                 throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
             } catch (MalformedURLException e) {
@@ -279,6 +283,67 @@ public class TeiidServiceHandler implements ServiceHandler {
         }
         response.writeReadEntitySet(visitor.getContext().getEdmEntityType(), result);
     }
+    
+    /**
+     * Streaming is only used for json entity collections of the base entity set that do not 
+     * require a count, so that the entities are written as they are read from the results.
+     */
+    private boolean isStreaming(final DataRequest request,
+            final ODataSQLBuilder visitor, ServiceResponse response)
+            throws ContentNegotiatorException {
+        return response instanceof EntitySetResponse
+                && Boolean.valueOf(getClient().getProperty(Client.STREAMING))
+                && !visitor.includeTotalSize()
+                && !visitor.hasNavigation()
+                && request.getResponseContentType().isCompatible(ContentType.APPLICATION_JSON);
+    }
+    
+    private void streamResults(final DataRequest request,
+            final ODataSQLBuilder visitor,
+            final EntityCollectionResponse result, EntitySetResponse response)
+            throws ODataLibraryException {
+        EdmEntityType entityType = visitor.getContext().getEdmEntityType();
+        UriInfo uriInfo = request.getUriInfo();
+        ContextURL contextURL = new ContextURL.Builder()
+                .entitySetOrSingletonOrType(visitor.getContext().getName())
+                .selectList(this.odata.createUriHelper().buildContextURLSelectList(
+                        entityType, uriInfo.getExpandOption(), uriInfo.getSelectOption()))
+                .build();
+        
+        ContentType contentType = request.getResponseContentType();
+        InputStream content = new TeiidODataJsonSerializer(contentType).entityCollectionStreamed(
+                this.serviceMetadata, entityType, new EntitySource() {
+                    @Override
+                    public Entity nextEntity() throws SQLException {
+                        return result.nextEntity();
+                    }
+                    
+                    @Override
+                    public URI getNextLink() throws SQLException {
+                        if (result.getNextToken() == null) {
+                            return null;
+                        }
+                        try {
+                            return buildNextLink(request, result.getNextToken());
+                        } catch (URISyntaxException e) {
+                            throw new SQLException(e);
+                        } catch (MalformedURLException e) {
+                            throw new SQLException(e);
+                        }
+                    }
+                }, contextURL, uriInfo.getExpandOption(), uriInfo.getSelectOption());
+        response.writeContent(content, 200, false);
+        response.writeOK(contentType);
+    }
+    
+    private URI buildNextLink(final DataRequest request, String nextToken)
+            throws URISyntaxException, MalformedURLException {
+        String nextUri = request.getODataRequest().getRawBaseUri()
+                +request.getODataRequest().getRawODataPath()
+                + "?"
+                +buildNextToken(request.getODataRequest().getRawQueryPath(), nextToken);
+        return new URI(nextUri);
+    }
 
     String buildNextToken(final String queryPath, String nextToken)
             throws URISyntaxException, MalformedURLException {
@@ -327,16 +392,18 @@ public class TeiidServiceHandler implements ServiceHandler {
     }    
 
     private BaseResponse executeQuery(final ServiceRequest request, boolean countRequest, 
-            final ODataSQLBuilder visitor, Query query) throws SQLException {
+            final ODataSQLBuilder visitor, Query query, boolean streaming) throws SQLException {
         if (countRequest) {
             return getClient().executeCount(query, visitor.getParameters());
         }
         else {
             String pageSize = getPageSize(request);
 
-            QueryResponse result = new EntityCollectionResponse(request
+            EntityCollectionResponse entities = new EntityCollectionResponse(request
                     .getODataRequest().getRawBaseUri(),
                     visitor.getContext());
+            entities.setStreaming(streaming);
+            QueryResponse result = entities;
             
             if (visitor.getContext() instanceof CrossJoinNode) {
                 result = new CrossJoinResult(request.getODataRequest().getRawBaseUri(), 
@@ -875,7 +942,7 @@ public class TeiidServiceHandler implements ServiceHandler {
 
         try {
             Query query = visitor.selectQuery();
-            BaseResponse queryResponse = executeQuery(request, request.isCountRequest(), visitor, query);
+            BaseResponse queryResponse = executeQuery(request, request.isCountRequest(), visitor, query, false);
             ContextURL.Builder builder = new ContextURL.Builder()
                 .asCollection()
                 .entitySetOrSingletonOrType("Edm.ComplexType");
@@ -946,7 +1013,7 @@ public class TeiidServiceHandler implements ServiceHandler {
         final EntityCollectionResponse queryResponse;
         try {
             Query query = visitor.selectQuery();
-            queryResponse = (EntityCollectionResponse)executeQuery(request, request.isCountRequest(), visitor, query);
+            queryResponse = (EntityCollectionResponse)executeQuery(request, request.isCountRequest(), visitor, query, false);
         } catch (Exception e) {
             throw new ODataApplicationException(e.getMessage(),
                     HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(),
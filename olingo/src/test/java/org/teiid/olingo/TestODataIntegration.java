@@ -1008,6 +1008,67 @@ public class TestODataIntegration {
         }
     }
     
+    @Test 
+    public void testStreaming() throws Exception {
+        try {
+            ModelMetaData mmd = new ModelMetaData();
+            mmd.setName("vw");
+            mmd.addSourceMetadata("ddl", "create view x (a string primary key, b integer) "
+                    + "as select 'xyz', 123 union all select 'abc', 456;"
+                    + "create view y (c string primary key, a string, CONSTRAINT FKX FOREIGN KEY (a) REFERENCES x(a)) "
+                    + "as select 'c1', 'abc' union all select 'c3', 'xyz' union all select 'c2', 'abc';");
+            mmd.setModelType(Model.Type.VIRTUAL);
+            teiid.deployVDB("northwind", mmd);
+
+            Properties props = new Properties();
+            props.setProperty("batch-size", "1");
+            props.setProperty("streaming", "true");
+            localClient = getClient(teiid.getDriver(), "northwind", props);
+            
+            ContentResponse response = http.GET(baseURL + "/northwind/vw/x?$format=json");
+            assertEquals(200, response.getStatus());
+            String starts = "{\"@odata.context\":\"$metadata#x\",\"value\":[{\"a\":\"abc\",\"b\":456}],"
+                    + "\"@odata.nextLink\":\""+baseURL+"/northwind/vw/x?$format=json&$skiptoken=";
+            assertTrue(response.getContentAsString(), response.getContentAsString().startsWith(starts));
+            
+            JsonNode node = getJSONNode(response);
+            String nextLink = node.get("@odata.nextLink").asText();
+            response = http.GET(nextLink);
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"@odata.context\":\"$metadata#x\",\"value\":[{\"a\":\"xyz\",\"b\":123}]}", 
+                    response.getContentAsString());
+            
+            //the expanded rows of an entity span several result rows, but stay on the entity's page
+            response = http.GET(baseURL + "/northwind/vw/x?$format=json&$expand=y_FKX");
+            assertEquals(200, response.getStatus());
+            starts = "{\"@odata.context\":\"$metadata#x\",\"value\":[{\"a\":\"abc\",\"b\":456,"
+                    + "\"y_FKX\":[{\"c\":\"c1\",\"a\":\"abc\"},{\"c\":\"c2\",\"a\":\"abc\"}]}],"
+                    + "\"@odata.nextLink\":\"";
+            assertTrue(response.getContentAsString(), response.getContentAsString().startsWith(starts));
+            
+            node = getJSONNode(response);
+            response = http.GET(node.get("@odata.nextLink").asText());
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"@odata.context\":\"$metadata#x\",\"value\":[{\"a\":\"xyz\",\"b\":123,"
+                    + "\"y_FKX\":[{\"c\":\"c3\",\"a\":\"xyz\"}]}]}", 
+                    response.getContentAsString());
+            
+            response = http.GET(baseURL + "/northwind/vw/x?$format=json&$select=b&$filter=b%20eq%200");
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"@odata.context\":\"$metadata#x(b)\",\"value\":[]}", 
+                    response.getContentAsString());
+            
+            //count is not streamed
+            response = http.GET(baseURL + "/northwind/vw/x?$format=json&$count=true&$top=1");
+            assertEquals(200, response.getStatus());
+            assertEquals("{\"@odata.context\":\"$metadata#x\",\"@odata.count\":2,\"value\":[{\"a\":\"abc\",\"b\":456}]}", 
+                    response.getContentAsString());
+        } finally {
+            localClient = null;
+            teiid.undeployVDB("northwind");
+        }
+    }
+    
     @Test 
     public void testSkipTokenNoSystemOptions() throws Exception {
         try {
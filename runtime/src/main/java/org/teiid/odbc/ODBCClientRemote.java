@@ -27,6 +27,7 @@ import java.util.Properties;
 import org.teiid.client.util.ResultsFuture;
 import org.teiid.jdbc.ResultSetImpl;
 import org.teiid.odbc.PGUtil.PgColInfo;
+import org.teiid.transport.pg.PGCopyFormat;
 
 public interface ODBCClientRemote {
 	
@@ -102,6 +103,15 @@ public interface ODBCClientRemote {
 	
 	void sendSslResponse();
 	
+	//	CopyOutResponse (B)
+	//	CopyData (B)
+	//	CopyDone (B)
+	//	CommandComplete (B)
+	void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, PGCopyFormat format);
+	
+	//	CopyInResponse (B)
+	void sendCopyInResponse(int columns, PGCopyFormat format);
+	
 	// unimplemented backend messages
 	
 	//	AuthenticationKerberosV5 (B)
@@ -111,11 +121,6 @@ public interface ODBCClientRemote {
 	
 	//	CloseComplete (B)
 
-	//	CopyData (F & B)
-	//	CopyDone (F & B)
-	//	CopyInResponse (B)
-	//	CopyOutResponse (B)
-	
 	//	NoticeResponse (B)
 	//	NotificationResponse (B)
 	
@@ -62,10 +62,11 @@ public interface ODBCServerRemote {
 	
 	void sslRequest();
 	
-	//  unimplemented frontend messages
-	//	CopyData (F & B)
-	//	CopyDone (F & B)
-	//	CopyFail (F)
+	void copyData(byte[] data);
+	
+	void copyDone();
+	
+	void copyFail(String msg);
 }
 
 
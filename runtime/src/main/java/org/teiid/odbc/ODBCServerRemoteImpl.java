@@ -26,6 +26,7 @@ import static org.teiid.odbc.PGUtil.*;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.charset.Charset;
 import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -73,8 +74,14 @@ import org.teiid.security.GSSResult;
 import org.teiid.transport.LocalServerConnection;
 import org.teiid.transport.LogonImpl;
 import org.teiid.transport.ODBCClientInstance;
+import org.teiid.transport.PGCharsetConverter;
 import org.teiid.transport.PgBackendProtocol;
 import org.teiid.transport.PgFrontendProtocol.NullTerminatedStringDataInputStream;
+import org.teiid.transport.pg.PGBinaryFormat;
+import org.teiid.transport.pg.PGCopyFormat;
+import org.teiid.transport.pg.PGCopyFormat.Format;
+import org.teiid.transport.pg.PGCopyFormat.RowParser;
+import org.teiid.transport.pg.PGbytea;
 
 /**
  * While executing the multiple prepared statements I see this bug currently
@@ -179,6 +186,10 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 	private static Pattern savepointPattern = Pattern.compile("SAVEPOINT (\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	private static Pattern rollbackPattern = Pattern.compile("ROLLBACK\\s+(to)?\\s+(\\w+\\d+_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	
+	private static Pattern copyOutPattern = Pattern.compile("COPY\\s*\\((.*)\\)\\s*TO\\s+STDOUT(?:\\s+(.*))?", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+	private static Pattern copyTablePattern = Pattern.compile("COPY\\s+(BINARY\\s+)?([^\\s(]+)\\s*(?:\\(([^)]*)\\))?\\s*(TO\\s+STDOUT|FROM\\s+STDIN)(?:\\s+(.*))?", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+	private static final int COPY_BATCH_SIZE = 2048;
+	
 	private static Pattern txnPattern = Pattern.compile("(BEGIN|COMMIT|ROLLBACK)(\\s+(WORK|TRANSACTION))?", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 	
 	private TeiidDriver driver;
@@ -189,6 +200,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 	private boolean errorOccurred;
 	
 	private volatile ResultsFuture<Boolean> executionFuture;
+	private volatile CopyIn copyIn;
 	
 	// TODO: this is unbounded map; need to define some boundaries as to how many stmts each session can have
 	private Map<String, Prepared> preparedMap = Collections.synchronizedMap(new HashMap<String, Prepared>());
@@ -383,7 +395,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		if (rows < 1) {
 			throw new SQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40112, cursorName, rows));
 		}
-		this.client.sendResults("FETCH", cursor.rs, cursor.prepared.columnMetadata, completion, direction, rows, true); //$NON-NLS-1$
+		this.client.sendResults("FETCH", cursor.rs, cursor.columnMetadata, completion, direction, rows, true); //$NON-NLS-1$
 	}
 	
 	private void cursorMove(String prepareName, String direction, final int rows, final ResultsFuture<Integer> completion) throws SQLException {
@@ -457,6 +469,13 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 	}	
 	
     private void sqlExecute(final String sql, final ResultsFuture<Integer> completion) throws SQLException {
+    	sqlExecute(sql, null, completion);
+    }
+    
+    /**
+     * @param copy if not null the results are sent as COPY TO STDOUT data
+     */
+    private void sqlExecute(final String sql, final PGCopyFormat copy, final ResultsFuture<Integer> completion) throws SQLException {
     	String modfiedSQL = fixSQL(sql); 
     	final StatementImpl stmt = connection.createStatement();
         executionFuture = stmt.submitExecute(modfiedSQL, null);
@@ -476,8 +495,21 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
     			try {
 	                if (future.get()) {
                 		List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
+                		if (copy != null) {
+                			if (copy.getFormat() == Format.BINARY) {
+                				for (PgColInfo col : cols) {
+                					if (!PGBinaryFormat.isSupported(col.type)) {
+                						throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40150, col.name));
+                					}
+                				}
+                			}
+                			client.sendCopyOut(stmt.getResultSet(), cols, completion, copy);
+                			return;
+                		}
                 		String tag = PgBackendProtocol.getCompletionTag(sql, null);
                         client.sendResults(sql, stmt.getResultSet(), cols, completion, CursorDirection.FORWARD, -1, tag.equals("SELECT") || tag.equals("SHOW") ); //$NON-NLS-1$ //$NON-NLS-2$
+	                } else if (copy != null) {
+	                	throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40154, sql));
 	                } else {
 	                	client.sendUpdateCount(sql, stmt.getUpdateCount());
 	                	setEncoding();
@@ -492,6 +524,229 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		});    	
     }	
 	
+	/**
+	 * Start a COPY FROM STDIN as batched inserts.  The data is consumed as it arrives with {@link #copyData(byte[])}
+	 */
+	private void copyIn(String table, String columns, PGCopyFormat format, ResultsFuture<Integer> completion) throws SQLException {
+		int count = 0;
+		if (columns == null) {
+			PreparedStatementImpl ps = this.connection.prepareStatement("SELECT * FROM " + table); //$NON-NLS-1$
+			try {
+				count = ps.getMetaData().getColumnCount();
+			} finally {
+				ps.close();
+			}
+			columns = ""; //$NON-NLS-1$
+		} else {
+			count = columns.split(",").length; //$NON-NLS-1$
+			columns = " (" + columns + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(columns).append(" VALUES ("); //$NON-NLS-1$ //$NON-NLS-2$
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				insert.append(", "); //$NON-NLS-1$
+			}
+			insert.append('?');
+		}
+		insert.append(')');
+		PreparedStatementImpl stmt = this.connection.prepareStatement(insert.toString());
+		try {
+			ParameterMetaData pmd = stmt.getParameterMetaData();
+			int[] types = new int[count];
+			for (int i = 0; i < count; i++) {
+				types[i] = convertType(pmd.getParameterType(i + 1));
+			}
+			Charset encoding = PGCharsetConverter.getCharset(getEncoding());
+			if (encoding == null) {
+				encoding = Charset.forName("UTF-8"); //$NON-NLS-1$
+			}
+			CopyIn copy = new CopyIn(stmt, format.createParser(count, encoding), types, encoding, completion);
+			//load the rows in a single local transaction unless the client has already started one
+			if (this.connection.getAutoCommit()) {
+				this.connection.setAutoCommit(false);
+				copy.localTxn = true;
+			}
+			this.copyIn = copy;
+			stmt = null;
+		} finally {
+			if (stmt != null) {
+				stmt.close();
+			}
+		}
+		this.client.sendCopyInResponse(count, format);
+		//allow the copy messages to be processed
+		doneExecuting();
+	}
+	
+	@Override
+	public void copyData(byte[] data) {
+		CopyIn copy = this.copyIn;
+		if (copy == null) {
+			errorOccurred(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40151, "CopyData")); //$NON-NLS-1$
+			return;
+		}
+		if (copy.error != null) {
+			//ignore the remaining data
+			return;
+		}
+		//hold the following messages while the batches are executing
+		this.executing = true;
+		copy.parser.write(data);
+		copyRows(copy, false);
+	}
+	
+	@Override
+	public void copyDone() {
+		finishCopy(null);
+	}
+	
+	@Override
+	public void copyFail(String msg) {
+		finishCopy(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40151, msg));
+	}
+	
+	private void finishCopy(String failure) {
+		CopyIn copy = this.copyIn;
+		if (copy == null) {
+			errorOccurred(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40151, failure == null?"CopyDone":failure)); //$NON-NLS-1$
+			return;
+		}
+		this.copyIn = null;
+		this.executing = true;
+		if (failure != null) {
+			copy.error = new TeiidSQLException(failure);
+		}
+		copyRows(copy, true);
+	}
+	
+	/**
+	 * Add the available rows, which will resume from the batch completion if a batch is submitted
+	 */
+	private void copyRows(CopyIn copy, boolean done) {
+		try {
+			if (copy.error == null && addCopyRows(copy, done)) {
+				return;
+			}
+		} catch (SQLException e) {
+			copy.error = e;
+		}
+		if (done) {
+			completeCopy(copy);
+		} else {
+			doneExecuting();
+		}
+	}
+	
+	/**
+	 * @return true if a batch was submitted
+	 */
+	private boolean addCopyRows(CopyIn copy, boolean done) throws SQLException {
+		List<Object> row = null;
+		while (copy.batched < COPY_BATCH_SIZE && (row = copy.parser.nextRow(done)) != null) {
+			for (int i = 0; i < row.size(); i++) {
+				copy.stmt.setObject(i + 1, toCopyParameter(row.get(i), copy.types[i], copy.encoding));
+			}
+			copy.stmt.addBatch();
+			copy.batched++;
+		}
+		if (copy.batched >= COPY_BATCH_SIZE || (done && copy.batched > 0)) {
+			executeCopyBatch(copy, done);
+			return true;
+		}
+		return false;
+	}
+
+	private void executeCopyBatch(final CopyIn copy, final boolean done) throws SQLException {
+		copy.txnStarted = true;
+		ResultsFuture<Boolean> result = copy.stmt.submitExecuteBatch();
+		result.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
+			@Override
+			public void onCompletion(ResultsFuture<Boolean> future) {
+				try {
+					future.get();
+					copy.rows += copy.batched;
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				} catch (ExecutionException e) {
+					copy.error = TeiidSQLException.create(e.getCause());
+				}
+				copy.batched = 0;
+				copyRows(copy, done);
+			}
+		});
+	}
+	
+	/**
+	 * Close the statement, end the local transaction, and report the result
+	 */
+	private void completeCopy(final CopyIn copy) {
+		try {
+			copy.stmt.close();
+		} catch (SQLException e) {
+			LogManager.logDetail(LogConstants.CTX_ODBC, e, "Error closing statement"); //$NON-NLS-1$
+		}
+		if (copy.localTxn) {
+			try {
+				if (!copy.txnStarted) {
+					this.connection.setAutoCommit(true);
+				} else {
+					ResultsFuture<?> pending = this.connection.submitSetAutoCommitTrue(copy.error == null);
+					pending.addCompletionListener(new ResultsFuture.CompletionListener() {
+						@Override
+						public void onCompletion(ResultsFuture future) {
+							try {
+								future.get();
+							} catch (InterruptedException e) {
+								throw new AssertionError(e);
+							} catch (ExecutionException e) {
+								if (copy.error == null) {
+									copy.error = TeiidSQLException.create(e.getCause());
+								}
+							}
+							reportCopy(copy);
+						}
+					});
+					return;
+				}
+			} catch (SQLException e) {
+				if (copy.error == null) {
+					copy.error = e;
+				}
+			}
+		}
+		reportCopy(copy);
+	}
+
+	private void reportCopy(CopyIn copy) {
+		if (copy.error != null) {
+			copy.completion.getResultsReceiver().exceptionOccurred(copy.error);
+		} else {
+			this.client.sendCommandComplete("COPY", copy.rows); //$NON-NLS-1$
+			copy.completion.getResultsReceiver().receiveResults(copy.rows);
+		}
+	}
+	
+	/**
+	 * Convert the text values that don't use the default string conversions
+	 */
+	private static Object toCopyParameter(Object value, int pgType, Charset encoding) throws SQLException {
+		if (value instanceof byte[]) {
+			return PGBinaryFormat.toObject((byte[])value, pgType);
+		}
+		if (value == null) {
+			return null;
+		}
+		String str = (String)value;
+		switch (pgType) {
+		case PG_TYPE_BOOL:
+			str = str.trim().toLowerCase();
+			return str.equals("t") || str.equals("true") || str.equals("y") || str.equals("yes") || str.equals("on") || str.equals("1"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		case PG_TYPE_BYTEA:
+			return PGbytea.toBytes(str.getBytes(encoding));
+		}
+		return str;
+	}
+	
 	@Override
 	public void prepare(String prepareName, String sql, int[] paramType) {
 		if (prepareName == null || prepareName.length() == 0) {
@@ -543,14 +798,6 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		}
 	}	
 	
-	private long readLong(byte[] bytes, int length) {
-		long val = 0;
-		for (int k = 0; k < length; k++) {
-			val += ((bytes[k] & 255) << ((length - k - 1)*8));
-		}
-		return val;
-	}
-	
 	@Override
 	public void bindParameters(String bindName, String prepareName, Object[] params, int resultCodeCount, int[] resultColumnFormat) {
 		// An unnamed portal is destroyed at the end of the transaction, or as soon as 
@@ -581,35 +828,8 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 			for (int i = 0; i < params.length; i++) {
 				Object param = params[i];
 				if (param instanceof byte[] && prepared.paramType.length > i) {
-					int oid = prepared.paramType[i];
-					switch (oid) {
-					//binary array
-					//pgobject
-					//hstore
-					//date
-					//time
-					//timestamp
-					case PGUtil.PG_TYPE_UNSPECIFIED:
-						//TODO: should infer type from the parameter metadata from the parse message
-						break;
-					case PGUtil.PG_TYPE_BYTEA:
-						break;
-					case PGUtil.PG_TYPE_INT2:
-						param = (short)readLong((byte[])param, 2);
-						break;
-					case PGUtil.PG_TYPE_INT4:
-						param = (int)readLong((byte[])param, 4);
-						break;
-					case PGUtil.PG_TYPE_INT8:
-						param = readLong((byte[])param, 8);
-						break;
-					case PGUtil.PG_TYPE_FLOAT4:
-						param = Float.intBitsToFloat((int)readLong((byte[])param, 4));
-						break;
-					case PGUtil.PG_TYPE_FLOAT8:
-						param = Double.longBitsToDouble(readLong((byte[])param, 8));
-						break;
-					}
+					//TODO: for PG_TYPE_UNSPECIFIED should infer type from the parameter metadata from the parse message
+					param = PGBinaryFormat.toObject((byte[])param, prepared.paramType[i]);
 				}
 				stmt.setObject(i+1, param);
 			}
@@ -706,7 +926,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 
 	private void sendCursorResults(final Portal cursor, final int fetchSize) {
 		ResultsFuture<Integer> result = new ResultsFuture<Integer>();
-		this.client.sendResults(null, cursor.rs, cursor.prepared.columnMetadata, result, CursorDirection.FORWARD, fetchSize, false);
+		this.client.sendResults(null, cursor.rs, cursor.columnMetadata, result, CursorDirection.FORWARD, fetchSize, false);
 		result.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
 			public void onCompletion(ResultsFuture<Integer> future) {
 				try {
@@ -921,12 +1141,16 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 			errorOccurred(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40078, bindName));
 		}
 		else {
-			this.client.sendResultSetDescription(query.prepared.columnMetadata);
+			this.client.sendResultSetDescription(query.columnMetadata);
 		}
 	}
 
 	@Override
 	public void sync() {
+		if (this.copyIn != null) {
+			//ignored during COPY FROM STDIN
+			return;
+		}
 		ready();
 	}
 	
@@ -1170,6 +1394,21 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		    				client.sendCommandComplete("DEALLOCATE", null); //$NON-NLS-1$
 		    				results.getResultsReceiver().receiveResults(1);
 		    			}
+		    			else if ((m = copyOutPattern.matcher(sql)).matches()) {
+		    				sqlExecute(m.group(1), PGCopyFormat.parse(m.group(2)), results);
+		    			}
+		    			else if ((m = copyTablePattern.matcher(sql)).matches()) {
+		    				String options = m.group(5);
+		    				if (m.group(1) != null) {
+		    					options = "BINARY " + (options == null?"":options); //$NON-NLS-1$ //$NON-NLS-2$
+		    				}
+		    				PGCopyFormat format = PGCopyFormat.parse(options);
+		    				if (StringUtil.startsWithIgnoreCase(m.group(4), "TO")) { //$NON-NLS-1$
+		    					sqlExecute("SELECT " + (m.group(3) == null?"*":m.group(3)) + " FROM " + m.group(2), format, results); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		    				} else {
+		    					copyIn(m.group(2), m.group(3), format, results);
+		    				}
+		    			}
 		    			else {
 		    				sqlExecute(sql, results);
 		    			}
@@ -1286,12 +1525,45 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
      */
     static class Portal {
 
-    	public Portal(String name, Prepared prepared, int[] resultColumnformat, PreparedStatementImpl stmt) {
+    	public Portal(String name, Prepared prepared, int[] resultColumnformat, PreparedStatementImpl stmt) throws SQLException {
     		this.name = name;
     		this.prepared = prepared;
     		this.resultColumnFormat = resultColumnformat;
     		this.stmt = stmt;
+    		this.columnMetadata = getColumnMetadata(prepared.columnMetadata, resultColumnformat);
+    	}
+    	
+    	/**
+    	 * Apply the requested result formats.
+    	 * @throws SQLException if binary is requested for a type that does not support it
+    	 */
+    	private static List<PgColInfo> getColumnMetadata(List<PgColInfo> cols, int[] resultColumnFormat) throws SQLException {
+    		if (cols == null || resultColumnFormat == null || resultColumnFormat.length == 0) {
+    			return cols;
+    		}
+    		List<PgColInfo> result = new ArrayList<PgColInfo>(cols.size());
+    		for (int i = 0; i < cols.size(); i++) {
+    			PgColInfo col = cols.get(i);
+    			int format = resultColumnFormat.length == 1?resultColumnFormat[0]:(i < resultColumnFormat.length?resultColumnFormat[i]:0);
+    			if (format != 0) {
+    				if (!PGBinaryFormat.isSupported(col.type)) {
+    					throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40153, col.name));
+    				}
+    				PgColInfo binary = new PgColInfo();
+    				binary.name = col.name;
+    				binary.reloid = col.reloid;
+    				binary.attnum = col.attnum;
+    				binary.type = col.type;
+    				binary.precision = col.precision;
+    				binary.mod = col.mod;
+    				binary.format = 1;
+    				col = binary;
+    			}
+    			result.add(col);
+    		}
+    		return result;
     	}
+    	
         /**
          * The portal name.
          */
@@ -1301,6 +1573,11 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
          * The format used in the result set columns (if set).
          */
         final int[] resultColumnFormat;
+        
+        /**
+         * The column metadata with the result formats applied
+         */
+        final List<PgColInfo> columnMetadata;
 
         final Prepared prepared;
         
@@ -1312,9 +1589,34 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         final PreparedStatementImpl stmt;
     }
     
+    /**
+     * The state of a COPY FROM STDIN
+     */
+    static class CopyIn {
+    	
+    	public CopyIn(PreparedStatementImpl stmt, RowParser parser, int[] types, Charset encoding, ResultsFuture<Integer> completion) {
+    		this.stmt = stmt;
+    		this.parser = parser;
+    		this.types = types;
+    		this.encoding = encoding;
+    		this.completion = completion;
+    	}
+    	
+    	final PreparedStatementImpl stmt;
+    	final RowParser parser;
+    	final int[] types;
+    	final Charset encoding;
+    	final ResultsFuture<Integer> completion;
+    	boolean localTxn;
+    	boolean txnStarted;
+    	int batched;
+    	int rows;
+    	volatile SQLException error;
+    }
+    
     static class Cursor extends Portal {
     	
-    	public Cursor (String name, String sql, PreparedStatementImpl stmt, ResultSetImpl rs, List<PgColInfo> colMetadata) {
+    	public Cursor (String name, String sql, PreparedStatementImpl stmt, ResultSetImpl rs, List<PgColInfo> colMetadata) throws SQLException {
     		super(name, new Prepared(UNNAMED, sql, sql, null, colMetadata), null, stmt);
     		this.rs = rs;
     	}
@@ -31,12 +31,13 @@ public class PGUtil {
 	
 	public static final int PG_TYPE_BOOL = 16;
 	public static final int PG_TYPE_BYTEA = 17;
+	public static final int PG_TYPE_CHAR = 18;
 	public static final int PG_TYPE_BPCHAR = 1042;
 	public static final int PG_TYPE_INT8 = 20;
 	public static final int PG_TYPE_INT2 = 21;
 	public static final int PG_TYPE_INT4 = 23;
 	public static final int PG_TYPE_TEXT = 25;
-    //private static final int PG_TYPE_OID = 26;
+	public static final int PG_TYPE_OID = 26;
 	public static final int PG_TYPE_FLOAT4 = 700;
 	public static final int PG_TYPE_FLOAT8 = 701;
 	public static final int PG_TYPE_UNKNOWN = 705;
@@ -60,6 +61,8 @@ public class PGUtil {
 		public int type;
 		public int precision;
 		public int mod = -1;
+		//0 for text, 1 for binary
+		public int format;
 	}
 		
 	/**
@@ -35,6 +35,7 @@ import java.util.Set;
 import org.teiid.adminapi.*;
 import org.teiid.adminapi.VDB.ConnectionType;
 import org.teiid.adminapi.VDB.Status;
+import org.teiid.adminapi.impl.CacheStatisticsMetadata;
 import org.teiid.adminapi.impl.DataPolicyMetadata;
 import org.teiid.adminapi.impl.EngineStatisticsMetadata;
 import org.teiid.adminapi.impl.ModelMetaData;
@@ -84,6 +85,8 @@ public class EmbeddedAdminFactory {
 		stats.setDiskReadCount(bufferService.getDiskReadCount());
 		stats.setCacheReadCount(bufferService.getCacheReadCount());
 		stats.setCacheWriteCount(bufferService.getCacheWriteCount());
+		stats.setHeapCacheHitCount(bufferService.getHeapCacheHitCount());
+		stats.setMemoryBufferReadCount(bufferService.getMemoryBufferReadCount());
 		stats.setDiskSpaceUsedInMB(bufferService.getUsedDiskBufferSpaceMB());
 		stats.setActivePlanCount(dqp.getActivePlanCount());
 		stats.setWaitPlanCount(dqp.getWaitingPlanCount());
@@ -345,6 +348,7 @@ public class EmbeddedAdminFactory {
 		public Collection<String> getCacheTypes() throws AdminException {
 			Set<String> cacheTypes = new HashSet<String>();
 			cacheTypes.addAll(SessionAwareCache.getCacheTypes());
+			cacheTypes.add(Admin.Cache.RESOLVED_COMMAND_CACHE.name());
 			return cacheTypes;
 		}
 
@@ -438,22 +442,35 @@ public class EmbeddedAdminFactory {
 				this.embeddedServer.getRsCache().clearAll();
 			} else if(cacheType.equals(Admin.Cache.PREPARED_PLAN_CACHE.name())) {
 				this.embeddedServer.getPpcCache().clearAll();
+			} else if(cacheType.equals(Admin.Cache.RESOLVED_COMMAND_CACHE.name())) {
+				for (VDBMetaData vdb : this.embeddedServer.repo.getVDBs()) {
+					clearCommandCache(vdb);
+				}
 			} else {
-				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE));
+				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE, Admin.Cache.RESOLVED_COMMAND_CACHE));
 			}
 		}
 
 		@Override
 		public void clearCache(String cacheType, String vdbName, String vdbVersion) throws AdminException {
 			
-			checkVDB(vdbName, vdbVersion);
+			VDBMetaData vdb = checkVDB(vdbName, vdbVersion);
 
 			if(cacheType.equals(Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE.name())){
 				this.embeddedServer.getRsCache().clearForVDB(new VDBKey(vdbName, vdbVersion));
 			} else if(cacheType.equals(Admin.Cache.PREPARED_PLAN_CACHE.name())) {
 				this.embeddedServer.getPpcCache().clearForVDB(new VDBKey(vdbName, vdbVersion));
+			} else if(cacheType.equals(Admin.Cache.RESOLVED_COMMAND_CACHE.name())) {
+				clearCommandCache(vdb);
 			} else {
-				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE));
+				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE, Admin.Cache.RESOLVED_COMMAND_CACHE));
+			}
+		}
+
+		private void clearCommandCache(VDBMetaData vdb) {
+			TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+			if (metadata != null) {
+				metadata.clearCommandCache();
 			}
 		}
 
@@ -464,8 +481,20 @@ public class EmbeddedAdminFactory {
 				return Arrays.asList(this.embeddedServer.getRsCache().buildCacheStats(cacheType));
 			} else if(cacheType.equals(Admin.Cache.PREPARED_PLAN_CACHE.name())) {
 				return Arrays.asList(this.embeddedServer.getPpcCache().buildCacheStats(cacheType));
+			} else if(cacheType.equals(Admin.Cache.RESOLVED_COMMAND_CACHE.name())) {
+				List<CacheStatisticsMetadata> stats = new ArrayList<CacheStatisticsMetadata>();
+				for (VDBMetaData vdb : this.embeddedServer.repo.getVDBs()) {
+					TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+					if (metadata == null) {
+						continue; //not yet loaded
+					}
+					CacheStatisticsMetadata vdbStats = metadata.getCommandCacheStatistics();
+					vdbStats.setName(vdb.getFullName());
+					stats.add(vdbStats);
+				}
+				return stats;
 			} else {
-				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE));
+				throw new AdminProcessingException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40139, cacheType, Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE, Admin.Cache.PREPARED_PLAN_CACHE, Admin.Cache.RESOLVED_COMMAND_CACHE));
 			}				
 		}
 		
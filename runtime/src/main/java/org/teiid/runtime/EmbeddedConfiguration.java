@@ -73,6 +73,8 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 	private long maxBufferSpace ;
 	private long maxFileSize ;
 	private boolean encryptFiles = false;
+	private boolean useFileChannels = false;
+	private boolean stripedEvictionQueue = false;
 	private int maxStorageObjectSize ;
 	private boolean memoryBufferOffHeap = false;
 	private int memoryBufferSpace ;
@@ -317,6 +319,30 @@ public class EmbeddedConfiguration extends DQPConfiguration {
 		this.encryptFiles = encryptFiles;
 	}
 
+	public boolean isUseFileChannels() {
+		return useFileChannels;
+	}
+
+	/**
+	 * Use positional {@link java.nio.channels.FileChannel} access for the buffer files.
+	 * @param useFileChannels
+	 */
+	public void setUseFileChannels(boolean useFileChannels) {
+		this.useFileChannels = useFileChannels;
+	}
+
+	public boolean isStripedEvictionQueue() {
+		return stripedEvictionQueue;
+	}
+
+	/**
+	 * Buffer touches of cached entries and reorder the eviction queues in batches.
+	 * @param stripedEvictionQueue
+	 */
+	public void setStripedEvictionQueue(boolean stripedEvictionQueue) {
+		this.stripedEvictionQueue = stripedEvictionQueue;
+	}
+
 	public int getMaxStorageObjectSize() {
 		return maxStorageObjectSize;
 	}
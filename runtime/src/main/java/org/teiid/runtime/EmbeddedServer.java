@@ -459,6 +459,8 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
 		if(config.getMaxFileSize() != -1) 
 			this.bufferService.setMaxFileSize(config.getMaxFileSize());
 		this.bufferService.setEncryptFiles(config.isEncryptFiles());
+		this.bufferService.setUseFileChannels(config.isUseFileChannels());
+		this.bufferService.setStripedEvictionQueue(config.isStripedEvictionQueue());
 		if(config.getMaxStorageObjectSize() != -1) {
 			this.bufferService.setMaxStorageObjectSize(config.getMaxStorageObjectSize());
 		}
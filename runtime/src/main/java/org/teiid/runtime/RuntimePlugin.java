@@ -154,6 +154,12 @@ public class RuntimePlugin {
         TEIID40145, 
         TEIID40146, 
         TEIID40147, 
-        TEIID40148
+        TEIID40148,
+        TEIID40149,
+        TEIID40150,
+        TEIID40151,
+        TEIID40152,
+        TEIID40153,
+        TEIID40154
     }
 }
@@ -32,6 +32,7 @@ import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.common.buffer.impl.EncryptedStorageManager;
+import org.teiid.common.buffer.impl.FileChannelStorageManager;
 import org.teiid.common.buffer.impl.FileStorageManager;
 import org.teiid.common.buffer.impl.MemoryStorageManager;
 import org.teiid.common.buffer.impl.SplittableStorageManager;
@@ -59,6 +60,8 @@ public class BufferServiceImpl implements BufferService, Serializable {
 	private File bufferDir;
 	private boolean useDisk = true;
 	private boolean encryptFiles = false;
+	private boolean useFileChannels = false;
+	private boolean stripedEvictionQueue = false;
 	private int processorBatchSize = BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE;
     private int maxOpenFiles = FileStorageManager.DEFAULT_MAX_OPEN_FILES;
     private long maxFileSize = SplittableStorageManager.DEFAULT_MAX_FILESIZE; // 2GB
@@ -90,6 +93,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxReserveKB(this.maxReserveKb);
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
+            this.bufferMgr.setStripedEvictionQueue(stripedEvictionQueue);
             this.bufferMgr.initialize();
             
             // If necessary, add disk storage manager
@@ -102,7 +106,11 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 // wise FileStorageManager is smart enough to clean up after itself
                 cleanDirectory(bufferDir);
                 // Get the properties for FileStorageManager and create.
-                fsm = new FileStorageManager();
+                if (useFileChannels) {
+                	fsm = new FileChannelStorageManager();
+                } else {
+                	fsm = new FileStorageManager();
+                }
                 fsm.setStorageDirectory(bufferDir.getCanonicalPath());
                 fsm.setMaxOpenFiles(maxOpenFiles);
                 fsm.setMaxBufferSpace(maxBufferSpace*MB);
@@ -116,6 +124,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsc.setBufferManager(this.bufferMgr);
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
                 fsc.setDirect(memoryBufferOffHeap);
+                fsc.setStripedEvictionQueue(stripedEvictionQueue);
                 //use approximately 40% of what's set aside for the reserved accounting for conversion from kb to bytes
                 long autoMaxBufferSpace = 4*(((long)this.bufferMgr.getMaxReserveKB())<<10)/10; 
                 //estimate inode/batch overhead
@@ -280,6 +289,20 @@ public class BufferServiceImpl implements BufferService, Serializable {
 		return 0;
 	}
 	
+    public long getMemoryBufferReadCount() {
+    	if (fsc != null) {
+    		return fsc.getMemoryBufferReads();
+    	}
+    	return 0;
+    }
+    
+    /**
+     * @return the number of batch reads satisfied from the heap without deserialization
+     */
+    public long getHeapCacheHitCount() {
+    	return bufferMgr.getReadAttempts() - bufferMgr.getReadCount();
+    }
+    
     public long getDiskWriteCount() {
     	if (fsc != null) {
     		return fsc.getStorageWrites();
@@ -325,4 +348,20 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public void setEncryptFiles(boolean encryptFiles) {
 		this.encryptFiles = encryptFiles;
 	}
+    
+    public boolean isUseFileChannels() {
+		return useFileChannels;
+	}
+    
+    public void setUseFileChannels(boolean useFileChannels) {
+		this.useFileChannels = useFileChannels;
+	}
+    
+    public boolean isStripedEvictionQueue() {
+		return stripedEvictionQueue;
+	}
+    
+    public void setStripedEvictionQueue(boolean stripedEvictionQueue) {
+		this.stripedEvictionQueue = stripedEvictionQueue;
+	}
 }
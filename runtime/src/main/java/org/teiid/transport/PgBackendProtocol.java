@@ -35,15 +35,20 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StreamCorruptedException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.sql.Array;
 import java.sql.Blob;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Properties;
 
@@ -64,6 +69,9 @@ import org.teiid.net.socket.ServiceInvocationStruct;
 import org.teiid.odbc.ODBCClientRemote;
 import org.teiid.odbc.PGUtil.PgColInfo;
 import org.teiid.runtime.RuntimePlugin;
+import org.teiid.transport.pg.PGBinaryFormat;
+import org.teiid.transport.pg.PGCopyFormat;
+import org.teiid.transport.pg.PGCopyFormat.Format;
 import org.teiid.transport.pg.PGbytea;
 /**
  * Represents the messages going from Server --> PG ODBC Client  
@@ -99,6 +107,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		private int rowsSent = 0;
 		private int rowsInBuffer = 0;
 		String sql;
+		PGCopyFormat copy;
 
 		private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send) {
 			this.cols = cols;
@@ -142,7 +151,11 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 			boolean processNext = true;
 			try {
     			if (future.get()) {
-    				sendDataRow(rs, cols);
+    				if (copy != null) {
+    					sendCopyRow(rs, cols, copy);
+    				} else {
+    					sendDataRow(rs, cols);
+    				}
     				rowsSent++;
     				rowsInBuffer++;
     				boolean done = rowsSent == rows2Send;
@@ -155,7 +168,11 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
     					result.getResultsReceiver().receiveResults(rowsSent);
     				}
     			} else {
-    				sendContents();
+    				if (copy != null) {
+    					sendCopyDone(copy);
+    				} else {
+    					sendContents();
+    				}
     				if (sql != null) {
 		    			sendCommandComplete(sql, rowsSent);
 		    		}
@@ -172,8 +189,13 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		private void flushResults(boolean force) {
 			int avgRowsize = dataOut.writerIndex()/rowsInBuffer;
 			if (force || (maxBufferSize - dataOut.writerIndex()) < (avgRowsize*2)) {
-				sendContents();
-				initBuffer(maxBufferSize / 8);
+				if (copy != null) {
+					sendMessage();
+					startCopyData();
+				} else {
+					sendContents();
+					initBuffer(maxBufferSize / 8);
+				}
 				rowsInBuffer = 0;
 			}			
 		}
@@ -183,7 +205,9 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	public static final String CLIENT_ENCODING = "client_encoding";
 
     private ByteBuf dataOut;
+    private ByteBufOutputStream dataOutStream;
 	private OutputStreamWriter writer;
+	private StringWriter copyValue = new StringWriter();
 
     private Properties props;    
     private Charset encoding = Charset.forName("UTF-8");
@@ -262,7 +286,8 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		
 		sendParameterStatus("client_encoding", clientEncoding);
 		sendParameterStatus("DateStyle", this.props.getProperty("DateStyle", "ISO"));
-		sendParameterStatus("integer_datetimes", "off");
+		//the binary date time values are int64 microseconds, the text format is unaffected
+		sendParameterStatus("integer_datetimes", "on");
 		sendParameterStatus("is_superuser", "off");
 		sendParameterStatus("server_encoding", "SQL_ASCII");
 		sendParameterStatus("server_version", "8.1.4");
@@ -332,7 +357,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		for (int i = 0; i < paramType.length; i++) {
 			writeInt(paramType[i]);
 		}
-		sendMessage();
+		sendMessage(false);
 	}
 
 	@Override
@@ -385,6 +410,59 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		}
 	}
 
+	@Override
+	public void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols,
+			ResultsFuture<Integer> result, PGCopyFormat format) {
+		if (nextFuture != null) {
+			sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
+		}
+		boolean binary = format.getFormat() == Format.BINARY;
+		startMessage('H');
+		write(binary?1:0);
+		writeShort(cols.size());
+		for (int i = 0; i < cols.size(); i++) {
+			writeShort(binary?1:0);
+		}
+		sendMessage(false);
+		ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, -1);
+		r.sql = "COPY";
+		r.copy = format;
+		try {
+			startCopyData();
+			if (binary) {
+				write(PGCopyFormat.BINARY_SIGNATURE);
+				//flags and header extension length
+				writeInt(0);
+				writeInt(0);
+			} else if (format.isHeader()) {
+				for (int i = 0; i < cols.size(); i++) {
+					if (i > 0) {
+						writer.append(format.getDelimiter());
+					}
+					format.writeValue(writer, cols.get(i).name);
+				}
+				writer.append('\n');
+				writer.flush();
+			}
+		} catch (IOException e) {
+			result.getResultsReceiver().exceptionOccurred(e);
+			return;
+		}
+		r.run();
+	}
+	
+	@Override
+	public void sendCopyInResponse(int columns, PGCopyFormat format) {
+		boolean binary = format.getFormat() == Format.BINARY;
+		startMessage('G');
+		write(binary?1:0);
+		writeShort(columns);
+		for (int i = 0; i < columns; i++) {
+			writeShort(binary?1:0);
+		}
+		sendMessage();
+	}
+	
 	@Override
 	public void sendUpdateCount(String sql, int updateCount) {
 		sendCommandComplete(sql, updateCount);
@@ -393,7 +471,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	@Override
 	public void statementClosed() {
 		startMessage('3');
-		sendMessage();
+		sendMessage(false);
 	}
 
 	@Override
@@ -406,8 +484,9 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	@Override
 	public void flush() {
 		this.dataOut = null;
+		this.dataOutStream = null;
 		this.writer = null;
-		this.ctx.writeAndFlush(null);
+		this.ctx.flush();
 	}
 
 	@Override
@@ -422,7 +501,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 
 	private void sendEmptyQueryResponse() {
 		startMessage('I');
-		sendMessage();
+		sendMessage(false);
 	}
 
 	@Override
@@ -430,7 +509,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		startMessage('C');
 		String tag = getCompletionTag(sql, count);
 		writeString(tag);
-		sendMessage();
+		sendMessage(false);
 	}
 
 	public static String getCompletionTag(String sql, Integer count) {
@@ -462,19 +541,74 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		int lengthIndex = this.dataOut.writerIndex() - 4;
 		writeShort(cols.size());
 		for (int i = 0; i < cols.size(); i++) {
-			int dataBytesIndex = this.dataOut.writerIndex();
-			writeInt(-1);
-			getContent(rs, cols.get(i), i+1);
+			PgColInfo col = cols.get(i);
+			writeColumn(rs, col, i+1, col.format != 0);
+		}
+		this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+	}
+	
+	/**
+	 * Write the length prefixed column value 
+	 */
+	private void writeColumn(ResultSet rs, PgColInfo col, int column, boolean binary) throws SQLException, IOException {
+		int dataBytesIndex = this.dataOut.writerIndex();
+		writeInt(-1);
+		if (!binary) {
+			getContent(rs, col, column, writer);
 			writer.flush();
-			if (!rs.wasNull()) {
-				int bytes = this.dataOut.writerIndex() - dataBytesIndex - 4;
-				this.dataOut.setInt(dataBytesIndex, bytes);
+		} else {
+			getBinaryContent(rs, col, column);
+		}
+		if (!rs.wasNull()) {
+			int bytes = this.dataOut.writerIndex() - dataBytesIndex - 4;
+			this.dataOut.setInt(dataBytesIndex, bytes);
+		} else {
+			//discard any primitive default written for null
+			this.dataOut.writerIndex(dataBytesIndex + 4);
+		}
+	}
+	
+	/**
+	 * Write the row to the current CopyData message.  Rows are not required to align with messages
+	 * so many rows are sent in each message.
+	 */
+	private void sendCopyRow(ResultSet rs, List<PgColInfo> cols, PGCopyFormat format) throws SQLException, IOException {
+		if (format.getFormat() == Format.BINARY) {
+			writeShort(cols.size());
+			for (int i = 0; i < cols.size(); i++) {
+				writeColumn(rs, cols.get(i), i+1, true);
 			}
+			return;
 		}
-		this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+		for (int i = 0; i < cols.size(); i++) {
+			if (i > 0) {
+				writer.append(format.getDelimiter());
+			}
+			copyValue.getBuffer().setLength(0);
+			getContent(rs, cols.get(i), i+1, copyValue);
+			format.writeValue(writer, rs.wasNull()?null:copyValue.getBuffer());
+		}
+		writer.append('\n');
+		writer.flush();
+	}
+	
+	private void startCopyData() {
+		initBuffer(maxBufferSize / 8);
+		startMessage('d', -1);
 	}
 	
-	private void getContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
+	private void sendCopyDone(PGCopyFormat format) {
+		if (format.getFormat() == Format.BINARY) {
+			writeShort(-1);
+		}
+		if (this.dataOut.writerIndex() > 5) {
+			sendMessage(false);
+		}
+		startMessage('c');
+		sendMessage(false);
+	}
+	
+	private void getContent(ResultSet rs, PgColInfo col, int column, Writer writer) throws SQLException, TeiidSQLException, IOException {
 		switch (col.type) {
 			case PG_TYPE_BOOL:
 			case PG_TYPE_BPCHAR:
@@ -580,6 +714,90 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		}
 	}
 	
+	/**
+	 * Write the value in the binary format.  The col type must be supported by {@link PGBinaryFormat#isSupported(int)}
+	 */
+	private void getBinaryContent(ResultSet rs, PgColInfo col, int column) throws SQLException, IOException {
+		switch (col.type) {
+			case PG_TYPE_BOOL:
+				dataOut.writeByte(rs.getBoolean(column)?1:0);
+				break;
+			case PG_TYPE_INT2:
+				dataOut.writeShort(rs.getShort(column));
+				break;
+			case PG_TYPE_INT4:
+				dataOut.writeInt(rs.getInt(column));
+				break;
+			case PG_TYPE_INT8:
+				dataOut.writeLong(rs.getLong(column));
+				break;
+			case PG_TYPE_FLOAT4:
+				dataOut.writeFloat(rs.getFloat(column));
+				break;
+			case PG_TYPE_FLOAT8:
+				dataOut.writeDouble(rs.getDouble(column));
+				break;
+			case PG_TYPE_NUMERIC:
+				BigDecimal bd = rs.getBigDecimal(column);
+				if (bd != null) {
+					PGBinaryFormat.writeNumeric(bd, dataOutStream);
+				}
+				break;
+			case PG_TYPE_DATE:
+				Date date = rs.getDate(column);
+				if (date != null) {
+					dataOut.writeInt(PGBinaryFormat.toPgDate(date));
+				}
+				break;
+			case PG_TYPE_TIME:
+				Time time = rs.getTime(column);
+				if (time != null) {
+					dataOut.writeLong(PGBinaryFormat.toPgTime(time));
+				}
+				break;
+			case PG_TYPE_TIMESTAMP_NO_TMZONE:
+				Timestamp ts = rs.getTimestamp(column);
+				if (ts != null) {
+					dataOut.writeLong(PGBinaryFormat.toPgTimestamp(ts));
+				}
+				break;
+			case PG_TYPE_BYTEA:
+				Blob blob = rs.getBlob(column);
+				if (blob != null) {
+					try {
+						dataOut.writeBytes(ObjectConverterUtil.convertToByteArray(blob.getBinaryStream(), this.maxLobSize));
+					} catch(OutOfMemoryError e) {
+						throw new StreamCorruptedException("data too big: " + e.getMessage()); //$NON-NLS-1$ 
+					}
+				}
+				break;
+			case PG_TYPE_BPCHAR:
+			case PG_TYPE_VARCHAR:
+			case PG_TYPE_TEXT:
+				//the binary format is the same as the text format
+				getContent(rs, col, column, writer);
+				writer.flush();
+				break;
+			case PG_TYPE_CHARARRAY:
+			case PG_TYPE_TEXTARRAY:
+			case PG_TYPE_OIDARRAY:
+				Array array = rs.getArray(column);
+				if (array != null) {
+					PGBinaryFormat.writeArray(array.getArray(), col.type, this.encoding, dataOutStream);
+				}
+				break;
+			case PG_TYPE_INT2VECTOR:
+			case PG_TYPE_OIDVECTOR:
+				ArrayImpl vector = (ArrayImpl)rs.getObject(column);
+				if (vector != null) {
+					PGBinaryFormat.writeArray(vector.getValues(), col.type, this.encoding, dataOutStream);
+				}
+				break;
+			default:
+				throw new TeiidSQLException("unknown datatype failed to convert");
+		}
+	}
+	
 	public static void escapeQuote(Writer sb, String s) throws IOException {
 		sb.append('"');
 		for (int i = 0; i < s.length(); i++) {
@@ -648,7 +866,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 		if (cols == null) {
 			//send NoData
 			startMessage('n');
-			sendMessage();
+			sendMessage(false);
 			return;
 		}
 		startMessage('T');
@@ -665,10 +883,10 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 			writeShort(getTypeSize(info.type, info.precision));
 			// pg_attribute.atttypmod
 			writeInt(info.mod);
-			// text
-			writeShort(0);
+			// text or binary
+			writeShort(info.format);
 		}
-		sendMessage();
+		sendMessage(false);
 	}
 
 	private int getTypeSize(int pgType, int precision) {
@@ -696,18 +914,18 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 	
 	private void sendParseComplete() {
 		startMessage('1');
-		sendMessage();
+		sendMessage(false);
 	}
 
 	private void sendBindComplete() {
 		startMessage('2');
-		sendMessage();
+		sendMessage(false);
 	}
 	
 	@Override
 	public void sendPortalSuspended() {
 		startMessage('s');
-		sendMessage();
+		sendMessage(false);
 	}	
 
 	private void sendAuthenticationCleartextPassword() {
@@ -827,21 +1045,38 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 
 	private void initBuffer(int estimatedLength) {
 		this.dataOut = Unpooled.buffer(estimatedLength);
-		ByteBufOutputStream cbos = new ByteBufOutputStream(this.dataOut);
-		this.writer = new OutputStreamWriter(cbos, this.encoding);
+		this.dataOutStream = new ByteBufOutputStream(this.dataOut);
+		this.writer = new OutputStreamWriter(this.dataOutStream, this.encoding);
 	}
 
 	private void sendMessage() {
+		sendMessage(true);
+	}
+	
+	/**
+	 * @param flush false if the message may be held until the next flush, which 
+	 * allows the responses to pipelined extended query messages to be sent together
+	 */
+	private void sendMessage(boolean flush) {
 		int pos = this.dataOut.writerIndex();
 		this.dataOut.setInt(1, pos - 1);
-		sendContents();
+		sendContents(flush);
 	}
 	
 	private void sendContents() {
+		sendContents(true);
+	}
+	
+	private void sendContents(boolean flush) {
 		ByteBuf cb = this.dataOut;
 		this.dataOut = null;
+		this.dataOutStream = null;
 		this.writer = null;
-		this.ctx.writeAndFlush(cb);
+		if (flush) {
+			this.ctx.writeAndFlush(cb);
+		} else {
+			this.ctx.write(cb);
+		}
 	}
 
 	private static void trace(String... msg) {
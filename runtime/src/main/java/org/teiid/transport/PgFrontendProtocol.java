@@ -171,6 +171,12 @@ public class PgFrontendProtocol extends ByteToMessageDecoder {
         	return buildFlush();
         case 'F':
         	return buildFunctionCall(data);        	               	
+        case 'd':
+        	return buildCopyData(data);
+        case 'c':
+        	return buildCopyDone();
+        case 'f':
+        	return buildCopyFail(data);
         default:
         	return buildError();
         }
@@ -317,6 +323,24 @@ public class PgFrontendProtocol extends ByteToMessageDecoder {
 		return message;
 	}	
 
+	private Object buildCopyData(NullTerminatedStringDataInputStream data) throws IOException {
+		byte[] bytes = createByteArray(this.dataLength - 4);
+		data.readFully(bytes);
+		this.odbcProxy.copyData(bytes);
+		return message;
+	}
+	
+	private Object buildCopyDone() {
+		this.odbcProxy.copyDone();
+		return message;
+	}
+	
+	private Object buildCopyFail(NullTerminatedStringDataInputStream data) throws IOException {
+		String msg = data.readString();
+		this.odbcProxy.copyFail(msg);
+		return message;
+	}
+
 	private Object buildExecuteQuery(NullTerminatedStringDataInputStream data) throws IOException {
         String query = data.readString();
         this.odbcProxy.executeQuery(query);
@@ -0,0 +1,345 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.transport.pg;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.teiid.odbc.PGUtil;
+
+/**
+ * Converts to and from the postgresql binary transfer format for the common types.
+ * <br>
+ * Date time values are relative to the postgres epoch of 2000-01-01 in the server timezone
+ * and use the integer_datetimes representation.
+ * <br>
+ * The binary format of the text types is the same as the text format, which is the value in the client encoding.
+ */
+public class PGBinaryFormat {
+
+	private static final int NUMERIC_POS = 0x0000;
+	private static final int NUMERIC_NEG = 0x4000;
+	private static final int NUMERIC_NAN = 0xC000;
+	private static final BigInteger NBASE = BigInteger.valueOf(10000);
+
+	private static final long MILLIS_PER_DAY = 86400000l;
+	//days from 1970-01-01 to 2000-01-01
+	private static final long PG_EPOCH_DAYS = 10957;
+
+	public static boolean isSupported(int pgType) {
+		switch (pgType) {
+		case PGUtil.PG_TYPE_BOOL:
+		case PGUtil.PG_TYPE_BYTEA:
+		case PGUtil.PG_TYPE_INT2:
+		case PGUtil.PG_TYPE_INT4:
+		case PGUtil.PG_TYPE_INT8:
+		case PGUtil.PG_TYPE_FLOAT4:
+		case PGUtil.PG_TYPE_FLOAT8:
+		case PGUtil.PG_TYPE_NUMERIC:
+		case PGUtil.PG_TYPE_DATE:
+		case PGUtil.PG_TYPE_TIME:
+		case PGUtil.PG_TYPE_TIMESTAMP_NO_TMZONE:
+		case PGUtil.PG_TYPE_BPCHAR:
+		case PGUtil.PG_TYPE_VARCHAR:
+		case PGUtil.PG_TYPE_TEXT:
+		case PGUtil.PG_TYPE_CHARARRAY:
+		case PGUtil.PG_TYPE_TEXTARRAY:
+		case PGUtil.PG_TYPE_OIDARRAY:
+		case PGUtil.PG_TYPE_INT2VECTOR:
+		case PGUtil.PG_TYPE_OIDVECTOR:
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Write the array as the number of dimensions, the null flag, the element type, 
+	 * the dimension length and lower bound, and then the length prefixed elements.
+	 * <br>
+	 * Similar to the text format, null elements of the vector types are written as 0.
+	 */
+	public static void writeArray(Object array, int pgType, Charset encoding, DataOutput out) throws IOException {
+		int elementType = 0;
+		int lowerBound = 1;
+		switch (pgType) {
+		case PGUtil.PG_TYPE_CHARARRAY:
+			elementType = PGUtil.PG_TYPE_CHAR;
+			break;
+		case PGUtil.PG_TYPE_TEXTARRAY:
+			elementType = PGUtil.PG_TYPE_TEXT;
+			break;
+		case PGUtil.PG_TYPE_OIDARRAY:
+			elementType = PGUtil.PG_TYPE_OID;
+			break;
+		case PGUtil.PG_TYPE_INT2VECTOR:
+			elementType = PGUtil.PG_TYPE_INT2;
+			lowerBound = 0;
+			break;
+		case PGUtil.PG_TYPE_OIDVECTOR:
+			elementType = PGUtil.PG_TYPE_OID;
+			lowerBound = 0;
+			break;
+		default:
+			throw new IllegalArgumentException(String.valueOf(pgType));
+		}
+		boolean vector = lowerBound == 0;
+		int length = java.lang.reflect.Array.getLength(array);
+		boolean hasNull = false;
+		if (!vector) {
+			for (int i = 0; i < length; i++) {
+				if (java.lang.reflect.Array.get(array, i) == null) {
+					hasNull = true;
+					break;
+				}
+			}
+		}
+		out.writeInt(length == 0?0:1);
+		out.writeInt(hasNull?1:0);
+		out.writeInt(elementType);
+		if (length > 0) {
+			out.writeInt(length);
+			out.writeInt(lowerBound);
+		}
+		for (int i = 0; i < length; i++) {
+			Object o = java.lang.reflect.Array.get(array, i);
+			if (o == null && !vector) {
+				out.writeInt(-1);
+				continue;
+			}
+			switch (elementType) {
+			case PGUtil.PG_TYPE_INT2:
+				out.writeInt(2);
+				out.writeShort(o == null?0:((Number)o).shortValue());
+				break;
+			case PGUtil.PG_TYPE_OID:
+				out.writeInt(4);
+				out.writeInt(o == null?0:((Number)o).intValue());
+				break;
+			default:
+				byte[] bytes = o.toString().getBytes(encoding);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Read a big-endian integer value of the given byte length
+	 */
+	public static long readLong(byte[] bytes, int length) {
+		long val = 0;
+		for (int k = 0; k < length; k++) {
+			val = (val << 8) | (bytes[k] & 255);
+		}
+		if (length < 8) {
+			//sign extend
+			int shift = 64 - length * 8;
+			val = (val << shift) >> shift;
+		}
+		return val;
+	}
+
+	/**
+	 * Convert a binary parameter value of the given type to the corresponding java value.
+	 * Unknown types are returned as is.
+	 */
+	public static Object toObject(byte[] bytes, int pgType) throws SQLException {
+		switch (pgType) {
+		case PGUtil.PG_TYPE_BOOL:
+			return bytes[0] != 0;
+		case PGUtil.PG_TYPE_INT2:
+			return (short)readLong(bytes, 2);
+		case PGUtil.PG_TYPE_INT4:
+			return (int)readLong(bytes, 4);
+		case PGUtil.PG_TYPE_INT8:
+			return readLong(bytes, 8);
+		case PGUtil.PG_TYPE_FLOAT4:
+			return Float.intBitsToFloat((int)readLong(bytes, 4));
+		case PGUtil.PG_TYPE_FLOAT8:
+			return Double.longBitsToDouble(readLong(bytes, 8));
+		case PGUtil.PG_TYPE_NUMERIC:
+			return readNumeric(bytes);
+		case PGUtil.PG_TYPE_DATE:
+			return toDate((int)readLong(bytes, 4));
+		case PGUtil.PG_TYPE_TIME:
+			return toTime(readLong(bytes, 8));
+		case PGUtil.PG_TYPE_TIMESTAMP_NO_TMZONE:
+			return toTimestamp(readLong(bytes, 8));
+		}
+		return bytes;
+	}
+
+	/**
+	 * Write the numeric value as ndigits, weight, sign, dscale, and the base 10000 digits
+	 */
+	public static void writeNumeric(BigDecimal value, DataOutput out) throws IOException {
+		int dscale = Math.max(0, value.scale());
+		int sign = value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS;
+		String plain = value.abs().setScale(dscale).toPlainString();
+		int point = plain.indexOf('.');
+		String intPart = point < 0 ? plain : plain.substring(0, point);
+		String fracPart = point < 0 ? "" : plain.substring(point + 1); //$NON-NLS-1$
+		int intGroups = (intPart.length() + 3) / 4;
+		int fracGroups = (fracPart.length() + 3) / 4;
+		short[] digits = new short[intGroups + fracGroups];
+		//the first group may be partial
+		int end = intPart.length();
+		for (int i = intGroups - 1; i >= 0; i--) {
+			digits[i] = Short.parseShort(intPart.substring(Math.max(0, end - 4), end));
+			end -= 4;
+		}
+		for (int i = 0; i < fracGroups; i++) {
+			int start = i * 4;
+			String group = fracPart.substring(start, Math.min(fracPart.length(), start + 4));
+			short digit = Short.parseShort(group);
+			for (int j = group.length(); j < 4; j++) {
+				digit *= 10;
+			}
+			digits[intGroups + i] = digit;
+		}
+		int weight = intGroups - 1;
+		int first = 0;
+		while (first < digits.length && digits[first] == 0) {
+			first++;
+			weight--;
+		}
+		int last = digits.length;
+		while (last > first && digits[last - 1] == 0) {
+			last--;
+		}
+		if (first == last) {
+			weight = 0;
+			sign = NUMERIC_POS;
+		}
+		out.writeShort(last - first);
+		out.writeShort(weight);
+		out.writeShort(sign);
+		out.writeShort(dscale);
+		for (int i = first; i < last; i++) {
+			out.writeShort(digits[i]);
+		}
+	}
+
+	public static BigDecimal readNumeric(byte[] bytes) throws SQLException {
+		int ndigits = (int)readLong(bytes, 2);
+		int weight = (short)((bytes[2] & 255) << 8 | (bytes[3] & 255));
+		int sign = (bytes[4] & 255) << 8 | (bytes[5] & 255);
+		int dscale = (bytes[6] & 255) << 8 | (bytes[7] & 255);
+		if (sign == NUMERIC_NAN) {
+			throw new SQLException("NaN numeric values are not supported"); //$NON-NLS-1$
+		}
+		BigInteger unscaled = BigInteger.ZERO;
+		for (int i = 0; i < ndigits; i++) {
+			int digit = (bytes[8 + i*2] & 255) << 8 | (bytes[9 + i*2] & 255);
+			unscaled = unscaled.multiply(NBASE).add(BigInteger.valueOf(digit));
+		}
+		BigDecimal result = new BigDecimal(unscaled, (ndigits - 1 - weight) * 4).setScale(dscale, RoundingMode.DOWN);
+		if (sign == NUMERIC_NEG) {
+			return result.negate();
+		}
+		return result;
+	}
+
+	private static long toLocalMillis(java.util.Date date) {
+		long time = date.getTime();
+		return time + TimeZone.getDefault().getOffset(time);
+	}
+
+	/**
+	 * @return the days since 2000-01-01
+	 */
+	public static int toPgDate(Date date) {
+		return (int)(floorDiv(toLocalMillis(date), MILLIS_PER_DAY) - PG_EPOCH_DAYS);
+	}
+
+	/**
+	 * @return the microseconds since midnight
+	 */
+	public static long toPgTime(Time time) {
+		return floorMod(toLocalMillis(time), MILLIS_PER_DAY) * 1000;
+	}
+
+	/**
+	 * @return the microseconds since 2000-01-01 00:00:00
+	 */
+	public static long toPgTimestamp(Timestamp ts) {
+		long seconds = floorDiv(toLocalMillis(ts), 1000);
+		return (seconds - PG_EPOCH_DAYS * 86400) * 1000000 + ts.getNanos() / 1000;
+	}
+
+	public static Date toDate(int days) {
+		return new Date(getCalendar(days, 0).getTimeInMillis());
+	}
+
+	public static Time toTime(long micros) {
+		Calendar cal = getCalendar(0, micros / 1000);
+		cal.set(1970, Calendar.JANUARY, 1);
+		return new Time(cal.getTimeInMillis());
+	}
+
+	public static Timestamp toTimestamp(long micros) {
+		long days = floorDiv(micros, MILLIS_PER_DAY * 1000);
+		long dayMicros = micros - days * MILLIS_PER_DAY * 1000;
+		Calendar cal = getCalendar((int)days, dayMicros / 1000000 * 1000);
+		Timestamp ts = new Timestamp(cal.getTimeInMillis());
+		ts.setNanos((int)(dayMicros % 1000000) * 1000);
+		return ts;
+	}
+
+	/**
+	 * Uses the lenient calendar to resolve the local wall time
+	 */
+	private static Calendar getCalendar(int days, long dayMillis) {
+		Calendar cal = new GregorianCalendar();
+		cal.clear();
+		cal.set(2000, Calendar.JANUARY, 1);
+		cal.add(Calendar.DAY_OF_MONTH, days);
+		cal.set(Calendar.MILLISECOND, (int)dayMillis);
+		return cal;
+	}
+
+	private static long floorDiv(long x, long y) {
+		long r = x / y;
+		if ((x ^ y) < 0 && (r * y != x)) {
+			r--;
+		}
+		return r;
+	}
+
+	private static long floorMod(long x, long y) {
+		return x - floorDiv(x, y) * y;
+	}
+
+}
@@ -0,0 +1,570 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.transport.pg;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.teiid.jdbc.TeiidSQLException;
+import org.teiid.runtime.RuntimePlugin;
+
+/**
+ * The options of a COPY statement and the postgresql text, csv, and binary copy formats.
+ */
+public class PGCopyFormat {
+
+	public enum Format {
+		TEXT,
+		CSV,
+		BINARY
+	}
+
+	/**
+	 * The binary copy signature, which is followed by the int32 flags and the int32 header extension length
+	 */
+	public static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+
+	private Format format = Format.TEXT;
+	private Character delimiter;
+	private String nullString;
+	private boolean header;
+	private char quote = '"';
+	private Character escape;
+
+	/**
+	 * Parse both the option list and the legacy forms of the COPY options, e.g.
+	 * <code>WITH (FORMAT csv, HEADER)</code> or <code>WITH CSV HEADER</code>
+	 */
+	public static PGCopyFormat parse(String options) throws SQLException {
+		PGCopyFormat result = new PGCopyFormat();
+		if (options == null) {
+			return result;
+		}
+		List<String> tokens = tokenize(options);
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			String upper = token.toUpperCase();
+			if (upper.equals("WITH")) { //$NON-NLS-1$
+				continue;
+			}
+			if (upper.equals("BINARY")) { //$NON-NLS-1$
+				result.format = Format.BINARY;
+			} else if (upper.equals("CSV")) { //$NON-NLS-1$
+				result.format = Format.CSV;
+			} else if (upper.equals("FORMAT") && i + 1 < tokens.size()) { //$NON-NLS-1$
+				try {
+					result.format = Format.valueOf(tokens.get(++i).toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40149, tokens.get(i)));
+				}
+			} else if (upper.equals("HEADER")) { //$NON-NLS-1$
+				result.header = true;
+				if (i + 1 < tokens.size()) {
+					String value = tokens.get(i + 1).toUpperCase();
+					if (value.equals("TRUE") || value.equals("ON") || value.equals("1")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						i++;
+					} else if (value.equals("FALSE") || value.equals("OFF") || value.equals("0")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						i++;
+						result.header = false;
+					}
+				}
+			} else if ((upper.equals("DELIMITER") || upper.equals("NULL") || upper.equals("QUOTE") || upper.equals("ESCAPE")) && i + 1 < tokens.size()) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				if (tokens.get(i + 1).equalsIgnoreCase("AS") && i + 2 < tokens.size()) { //$NON-NLS-1$
+					i++;
+				}
+				String value = tokens.get(++i);
+				if (upper.equals("NULL")) { //$NON-NLS-1$
+					result.nullString = value;
+				} else if (value.length() != 1) {
+					throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40149, token + " " + value)); //$NON-NLS-1$
+				} else if (upper.equals("DELIMITER")) { //$NON-NLS-1$
+					result.delimiter = value.charAt(0);
+				} else if (upper.equals("QUOTE")) { //$NON-NLS-1$
+					result.quote = value.charAt(0);
+				} else {
+					result.escape = value.charAt(0);
+				}
+			} else {
+				throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40149, token));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Split into words and single quoted strings ignoring commas and parens
+	 */
+	private static List<String> tokenize(String options) {
+		List<String> result = new ArrayList<String>();
+		int i = 0;
+		while (i < options.length()) {
+			char c = options.charAt(i);
+			if (Character.isWhitespace(c) || c == ',' || c == '(' || c == ')') {
+				i++;
+				continue;
+			}
+			StringBuilder token = new StringBuilder();
+			if (c == '\'' || (Character.toUpperCase(c) == 'E' && i + 1 < options.length() && options.charAt(i + 1) == '\'')) {
+				boolean escaped = c != '\'';
+				if (escaped) {
+					i++;
+				}
+				i++;
+				while (i < options.length()) {
+					c = options.charAt(i++);
+					if (c == '\'') {
+						if (i < options.length() && options.charAt(i) == '\'') {
+							i++;
+						} else {
+							break;
+						}
+					} else if (escaped && c == '\\' && i < options.length()) {
+						c = unescape(options.charAt(i++));
+					}
+					token.append(c);
+				}
+			} else {
+				while (i < options.length()) {
+					c = options.charAt(i);
+					if (Character.isWhitespace(c) || c == ',' || c == '(' || c == ')' || c == '\'') {
+						break;
+					}
+					token.append(c);
+					i++;
+				}
+			}
+			result.add(token.toString());
+		}
+		return result;
+	}
+
+	private static char unescape(char c) {
+		switch (c) {
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'v':
+			return 11;
+		}
+		return c;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	public boolean isHeader() {
+		return header;
+	}
+
+	public char getDelimiter() {
+		if (delimiter != null) {
+			return delimiter;
+		}
+		return format == Format.CSV?',':'\t';
+	}
+
+	public String getNullString() {
+		if (nullString != null) {
+			return nullString;
+		}
+		return format == Format.CSV?"":"\\N"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public char getQuote() {
+		return quote;
+	}
+
+	public char getEscape() {
+		if (escape != null) {
+			return escape;
+		}
+		return quote;
+	}
+
+	/**
+	 * Write a text or csv value, which may be null
+	 */
+	public void writeValue(Writer w, CharSequence value) throws IOException {
+		if (value == null) {
+			w.append(getNullString());
+			return;
+		}
+		char delim = getDelimiter();
+		if (format == Format.CSV) {
+			boolean quoted = value.length() == 0 || value.toString().equals(getNullString());
+			for (int i = 0; !quoted && i < value.length(); i++) {
+				char c = value.charAt(i);
+				quoted = c == delim || c == quote || c == '\r' || c == '\n';
+			}
+			if (!quoted) {
+				w.append(value);
+				return;
+			}
+			char esc = getEscape();
+			w.append(quote);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == quote || c == esc) {
+					w.append(esc);
+				}
+				w.append(c);
+			}
+			w.append(quote);
+			return;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				w.append("\\\\"); //$NON-NLS-1$
+				continue;
+			case '\b':
+				w.append("\\b"); //$NON-NLS-1$
+				continue;
+			case '\f':
+				w.append("\\f"); //$NON-NLS-1$
+				continue;
+			case '\n':
+				w.append("\\n"); //$NON-NLS-1$
+				continue;
+			case '\r':
+				w.append("\\r"); //$NON-NLS-1$
+				continue;
+			case '\t':
+				w.append("\\t"); //$NON-NLS-1$
+				continue;
+			case 11:
+				w.append("\\v"); //$NON-NLS-1$
+				continue;
+			}
+			if (c == delim) {
+				w.append('\\');
+			}
+			w.append(c);
+		}
+	}
+
+	/**
+	 * Create a parser for incoming copy data
+	 */
+	public RowParser createParser(int columns, Charset encoding) {
+		return new RowParser(columns, encoding);
+	}
+
+	/**
+	 * Accumulates the copy data, which may be split at arbitrary points, and produces rows of
+	 * String values for text and csv or byte[] values for binary.  Null values are returned as null.
+	 */
+	public class RowParser {
+
+		private byte[] buffer = new byte[1 << 13];
+		private int start;
+		private int end;
+		private int columns;
+		private Charset encoding;
+		private int line;
+		private boolean headerRead = !header;
+		private boolean binaryHeaderRead;
+		private boolean endOfData;
+
+		RowParser(int columns, Charset encoding) {
+			this.columns = columns;
+			this.encoding = encoding;
+		}
+
+		public void write(byte[] data) {
+			if (endOfData) {
+				return;
+			}
+			if (end + data.length > buffer.length) {
+				int length = end - start;
+				if (length + data.length > buffer.length / 2) {
+					buffer = Arrays.copyOfRange(buffer, start, Math.max(buffer.length * 2, length + data.length));
+				} else {
+					System.arraycopy(buffer, start, buffer, 0, length);
+				}
+				start = 0;
+				end = length;
+			}
+			System.arraycopy(data, 0, buffer, end, data.length);
+			end += data.length;
+		}
+
+		/**
+		 * @param done true if no more data is expected
+		 * @return the next complete row or null if more data is needed or the data has ended
+		 */
+		public List<Object> nextRow(boolean done) throws SQLException {
+			if (endOfData) {
+				return null;
+			}
+			if (format == Format.BINARY) {
+				return nextBinaryRow(done);
+			}
+			while (true) {
+				int lineEnd = findLineEnd();
+				int next = lineEnd + 1;
+				if (lineEnd < 0) {
+					if (!done || start == end) {
+						return null;
+					}
+					lineEnd = end;
+					next = end;
+				}
+				int length = lineEnd - start;
+				if (length > 0 && buffer[lineEnd - 1] == '\r') {
+					length--;
+				}
+				String text = new String(buffer, start, length, encoding);
+				start = next;
+				line++;
+				if (!headerRead) {
+					headerRead = true;
+					continue;
+				}
+				if (text.equals("\\.")) { //$NON-NLS-1$
+					endOfData = true;
+					return null;
+				}
+				List<Object> row = format == Format.CSV?splitCsv(text):splitText(text);
+				if (row.size() != columns) {
+					throw invalid("expected " + columns + " columns, but was " + row.size()); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				return row;
+			}
+		}
+
+		private SQLException invalid(String message) {
+			return new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40152, line, message));
+		}
+
+		/**
+		 * Find the next newline that is not in a quoted csv value
+		 */
+		private int findLineEnd() {
+			boolean inQuote = false;
+			char esc = getEscape();
+			for (int i = start; i < end; i++) {
+				byte b = buffer[i];
+				if (format == Format.CSV) {
+					if (inQuote && esc != quote && b == esc && i + 1 < end) {
+						i++;
+						continue;
+					}
+					if (b == quote) {
+						inQuote = !inQuote;
+						continue;
+					}
+				}
+				if (b == '\n' && !inQuote) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private List<Object> splitText(String text) {
+			List<Object> row = new ArrayList<Object>(columns);
+			char delim = getDelimiter();
+			String nullValue = getNullString();
+			int fieldStart = 0;
+			for (int i = 0; i <= text.length(); i++) {
+				if (i < text.length()) {
+					char c = text.charAt(i);
+					if (c == '\\') {
+						i++;
+						continue;
+					}
+					if (c != delim) {
+						continue;
+					}
+				}
+				String raw = text.substring(fieldStart, Math.min(i, text.length()));
+				fieldStart = i + 1;
+				if (raw.equals(nullValue)) {
+					row.add(null);
+				} else {
+					row.add(unescapeText(raw));
+				}
+			}
+			return row;
+		}
+
+		private String unescapeText(String raw) {
+			if (raw.indexOf('\\') < 0) {
+				return raw;
+			}
+			StringBuilder result = new StringBuilder(raw.length());
+			for (int i = 0; i < raw.length(); i++) {
+				char c = raw.charAt(i);
+				if (c != '\\' || i + 1 == raw.length()) {
+					result.append(c);
+					continue;
+				}
+				c = raw.charAt(++i);
+				if (c >= '0' && c <= '7') {
+					int value = c - '0';
+					for (int j = 0; j < 2 && i + 1 < raw.length() && raw.charAt(i + 1) >= '0' && raw.charAt(i + 1) <= '7'; j++) {
+						value = value * 8 + raw.charAt(++i) - '0';
+					}
+					result.append((char)value);
+				} else if (c == 'x' && i + 1 < raw.length() && Character.digit(raw.charAt(i + 1), 16) >= 0) {
+					int value = Character.digit(raw.charAt(++i), 16);
+					if (i + 1 < raw.length() && Character.digit(raw.charAt(i + 1), 16) >= 0) {
+						value = value * 16 + Character.digit(raw.charAt(++i), 16);
+					}
+					result.append((char)value);
+				} else {
+					result.append(unescape(c));
+				}
+			}
+			return result.toString();
+		}
+
+		private List<Object> splitCsv(String text) throws SQLException {
+			List<Object> row = new ArrayList<Object>(columns);
+			char delim = getDelimiter();
+			char esc = getEscape();
+			String nullValue = getNullString();
+			StringBuilder value = new StringBuilder();
+			boolean quoted = false;
+			boolean inQuote = false;
+			for (int i = 0; i <= text.length(); i++) {
+				if (i == text.length()) {
+					if (inQuote) {
+						throw invalid("unterminated quoted value"); //$NON-NLS-1$
+					}
+				} else {
+					char c = text.charAt(i);
+					if (inQuote) {
+						if (c == esc && i + 1 < text.length() && (text.charAt(i + 1) == quote || text.charAt(i + 1) == esc) && (esc != quote || text.charAt(i + 1) == quote)) {
+							value.append(text.charAt(++i));
+						} else if (c == quote) {
+							inQuote = false;
+						} else {
+							value.append(c);
+						}
+						continue;
+					}
+					if (c == quote) {
+						inQuote = true;
+						quoted = true;
+						continue;
+					}
+					if (c != delim) {
+						value.append(c);
+						continue;
+					}
+				}
+				String result = value.toString();
+				if (!quoted && result.equals(nullValue)) {
+					row.add(null);
+				} else {
+					row.add(result);
+				}
+				value.setLength(0);
+				quoted = false;
+			}
+			return row;
+		}
+
+		private List<Object> nextBinaryRow(boolean done) throws SQLException {
+			if (!binaryHeaderRead) {
+				if (end - start < BINARY_SIGNATURE.length + 8) {
+					return binaryIncomplete(done);
+				}
+				for (int i = 0; i < BINARY_SIGNATURE.length; i++) {
+					if (buffer[start + i] != BINARY_SIGNATURE[i]) {
+						throw invalid("invalid binary signature"); //$NON-NLS-1$
+					}
+				}
+				int extension = readInt(start + BINARY_SIGNATURE.length + 4);
+				int headerLength = BINARY_SIGNATURE.length + 8 + extension;
+				if (end - start < headerLength) {
+					return binaryIncomplete(done);
+				}
+				start += headerLength;
+				binaryHeaderRead = true;
+			}
+			if (end - start < 2) {
+				return binaryIncomplete(done);
+			}
+			int count = (short)((buffer[start] & 255) << 8 | (buffer[start + 1] & 255));
+			if (count == -1) {
+				endOfData = true;
+				start = end;
+				return null;
+			}
+			if (count != columns) {
+				throw invalid("expected " + columns + " columns, but was " + count); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			int pos = start + 2;
+			List<Object> row = new ArrayList<Object>(columns);
+			for (int i = 0; i < count; i++) {
+				if (end - pos < 4) {
+					return binaryIncomplete(done);
+				}
+				int length = readInt(pos);
+				pos += 4;
+				if (length == -1) {
+					row.add(null);
+					continue;
+				}
+				if (end - pos < length) {
+					return binaryIncomplete(done);
+				}
+				row.add(Arrays.copyOfRange(buffer, pos, pos + length));
+				pos += length;
+			}
+			start = pos;
+			line++;
+			return row;
+		}
+
+		private List<Object> binaryIncomplete(boolean done) throws SQLException {
+			if (done) {
+				throw invalid("incomplete binary data"); //$NON-NLS-1$
+			}
+			return null;
+		}
+
+		private int readInt(int pos) {
+			return (buffer[pos] & 255) << 24 | (buffer[pos + 1] & 255) << 16 | (buffer[pos + 2] & 255) << 8 | (buffer[pos + 3] & 255);
+		}
+
+	}
+
+}
@@ -172,6 +172,7 @@ public class TestEmbeddedServerAdmin {
 		Set<String> cacheTypes = (Set<String>) admin.getCacheTypes();
 		assertTrue(cacheTypes.contains("PREPARED_PLAN_CACHE"));
 		assertTrue(cacheTypes.contains("QUERY_SERVICE_RESULT_SET_CACHE"));
+		assertTrue(cacheTypes.contains("RESOLVED_COMMAND_CACHE"));
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -262,6 +263,39 @@ public class TestEmbeddedServerAdmin {
 		assertEquals(list.get(0).getName(), Admin.Cache.QUERY_SERVICE_RESULT_SET_CACHE.name());
 	}
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetResolvedCommandCacheStats() throws AdminException, SQLException {
+		Connection conn = newSession();
+		Statement stmt = conn.createStatement();
+		stmt.executeQuery("SELECT * FROM helloworld").close();
+		stmt.executeQuery("SELECT * FROM helloworld").close();
+		stmt.close();
+		conn.close();
+		List<CacheStatistics> list = (List<CacheStatistics>) admin.getCacheStats("RESOLVED_COMMAND_CACHE");
+		assertEquals(1, list.size());
+		assertEquals("AdminAPITestVDB.1", list.get(0).getName());
+		assertTrue(list.get(0).getRequestCount() >= 2);
+		assertTrue(list.get(0).getHitRatio() > 0);
+		assertTrue(list.get(0).getTotalEntries() >= 1);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testClearResolvedCommandCache() throws AdminException, SQLException {
+		Connection conn = newSession();
+		Statement stmt = conn.createStatement();
+		stmt.executeQuery("SELECT * FROM helloworld").close();
+		stmt.close();
+		conn.close();
+		List<CacheStatistics> list = (List<CacheStatistics>) admin.getCacheStats("RESOLVED_COMMAND_CACHE");
+		assertTrue(list.get(0).getTotalEntries() >= 1);
+		admin.clearCache("RESOLVED_COMMAND_CACHE", "AdminAPITestVDB", 1);
+		list = (List<CacheStatistics>) admin.getCacheStats("RESOLVED_COMMAND_CACHE");
+		assertEquals(0, list.get(0).getTotalEntries());
+		admin.clearCache("RESOLVED_COMMAND_CACHE");
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testGetEngineStats() throws AdminException, SQLException {
@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.transport.pg;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+import org.teiid.odbc.PGUtil;
+
+@SuppressWarnings("nls")
+public class TestPGBinaryFormat {
+
+	private byte[] writeNumeric(BigDecimal value) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		PGBinaryFormat.writeNumeric(value, out);
+		out.close();
+		return baos.toByteArray();
+	}
+
+	private void helpTestNumeric(String value) throws Exception {
+		BigDecimal bd = new BigDecimal(value);
+		assertEquals(bd, PGBinaryFormat.readNumeric(writeNumeric(bd)));
+	}
+
+	@Test public void testNumeric() throws Exception {
+		helpTestNumeric("0");
+		helpTestNumeric("0.00");
+		helpTestNumeric("1");
+		helpTestNumeric("-12345.678");
+		helpTestNumeric("10000");
+		helpTestNumeric("0.0001");
+		helpTestNumeric("0.00000001");
+		helpTestNumeric("123456789012345678901234567890.123456789");
+		assertEquals(new BigDecimal("1200"), PGBinaryFormat.readNumeric(writeNumeric(new BigDecimal("1.2E3"))));
+	}
+
+	@Test public void testNumericFormat() throws Exception {
+		//ndigits 3, weight 1, positive, dscale 2, digits 1 2345 6700
+		assertArrayEquals(new byte[] {0, 3, 0, 1, 0, 0, 0, 2, 0, 1, 0x09, 0x29, 0x1A, 0x2C}, writeNumeric(new BigDecimal("12345.67")));
+	}
+
+	@Test public void testReadLong() throws Exception {
+		assertEquals((short)-2, PGBinaryFormat.toObject(new byte[] {(byte)0xff, (byte)0xfe}, PGUtil.PG_TYPE_INT2));
+		assertEquals(Long.MAX_VALUE, PGBinaryFormat.toObject(new byte[] {0x7f, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff}, PGUtil.PG_TYPE_INT8));
+		assertEquals(Boolean.TRUE, PGBinaryFormat.toObject(new byte[] {1}, PGUtil.PG_TYPE_BOOL));
+	}
+
+	@Test public void testDateTime() throws Exception {
+		Date date = Date.valueOf("2000-01-02");
+		assertEquals(1, PGBinaryFormat.toPgDate(date));
+		assertEquals(date, PGBinaryFormat.toDate(1));
+		date = Date.valueOf("1969-12-31");
+		assertEquals(date, PGBinaryFormat.toDate(PGBinaryFormat.toPgDate(date)));
+
+		Time time = Time.valueOf("01:02:03");
+		assertEquals(3723000000l, PGBinaryFormat.toPgTime(time));
+		assertEquals(time, PGBinaryFormat.toTime(3723000000l));
+
+		Timestamp ts = Timestamp.valueOf("2000-01-01 00:00:01.000002");
+		assertEquals(1000002, PGBinaryFormat.toPgTimestamp(ts));
+		assertEquals(ts, PGBinaryFormat.toTimestamp(1000002));
+		ts = Timestamp.valueOf("1999-12-31 23:59:59.5");
+		assertEquals(-500000, PGBinaryFormat.toPgTimestamp(ts));
+		assertEquals(ts, PGBinaryFormat.toTimestamp(-500000));
+		ts = Timestamp.valueOf("2015-03-08 02:30:00.123456");
+		assertEquals(ts, PGBinaryFormat.toTimestamp(PGBinaryFormat.toPgTimestamp(ts)));
+	}
+
+	@Test public void testArray() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		PGBinaryFormat.writeArray(new Object[] {"a", null}, PGUtil.PG_TYPE_TEXTARRAY, Charset.forName("UTF-8"), out);
+		out.close();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		assertEquals(1, in.readInt()); //dimensions
+		assertEquals(1, in.readInt()); //has null
+		assertEquals(PGUtil.PG_TYPE_TEXT, in.readInt());
+		assertEquals(2, in.readInt()); //length
+		assertEquals(1, in.readInt()); //lower bound
+		assertEquals(1, in.readInt());
+		assertEquals('a', in.readByte());
+		assertEquals(-1, in.readInt());
+		assertEquals(-1, in.read());
+	}
+	
+	@Test public void testVector() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		PGBinaryFormat.writeArray(new Object[] {1, null}, PGUtil.PG_TYPE_INT2VECTOR, Charset.forName("UTF-8"), out);
+		out.close();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		assertEquals(1, in.readInt());
+		assertEquals(0, in.readInt());
+		assertEquals(PGUtil.PG_TYPE_INT2, in.readInt());
+		assertEquals(2, in.readInt());
+		assertEquals(0, in.readInt());
+		assertEquals(2, in.readInt());
+		assertEquals(1, in.readShort());
+		//nulls are sent as 0 as with the text format
+		assertEquals(2, in.readInt());
+		assertEquals(0, in.readShort());
+		assertEquals(-1, in.read());
+	}
+
+}
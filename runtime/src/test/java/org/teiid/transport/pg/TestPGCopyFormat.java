@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.transport.pg;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.transport.pg.PGCopyFormat.Format;
+import org.teiid.transport.pg.PGCopyFormat.RowParser;
+
+@SuppressWarnings("nls")
+public class TestPGCopyFormat {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private String write(PGCopyFormat format, String... values) throws Exception {
+		StringWriter sw = new StringWriter();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				sw.append(format.getDelimiter());
+			}
+			format.writeValue(sw, values[i]);
+		}
+		return sw.toString();
+	}
+
+	/**
+	 * Parse the data fed in chunks of the given size
+	 */
+	private List<List<Object>> parse(PGCopyFormat format, int columns, byte[] data, int chunkSize) throws SQLException {
+		RowParser parser = format.createParser(columns, UTF_8);
+		List<List<Object>> result = new ArrayList<List<Object>>();
+		for (int i = 0; i < data.length; i += chunkSize) {
+			parser.write(Arrays.copyOfRange(data, i, Math.min(data.length, i + chunkSize)));
+			List<Object> row = null;
+			while ((row = parser.nextRow(false)) != null) {
+				result.add(row);
+			}
+		}
+		List<Object> row = null;
+		while ((row = parser.nextRow(true)) != null) {
+			result.add(row);
+		}
+		return result;
+	}
+
+	@Test public void testParseOptions() throws Exception {
+		PGCopyFormat format = PGCopyFormat.parse(null);
+		assertEquals(Format.TEXT, format.getFormat());
+		assertEquals('\t', format.getDelimiter());
+		assertEquals("\\N", format.getNullString());
+
+		format = PGCopyFormat.parse("WITH (FORMAT csv, HEADER true, DELIMITER ';', NULL 'x')");
+		assertEquals(Format.CSV, format.getFormat());
+		assertTrue(format.isHeader());
+		assertEquals(';', format.getDelimiter());
+		assertEquals("x", format.getNullString());
+
+		format = PGCopyFormat.parse("WITH CSV HEADER QUOTE AS '''' ESCAPE '\\'");
+		assertEquals(Format.CSV, format.getFormat());
+		assertEquals('\'', format.getQuote());
+		assertEquals('\\', format.getEscape());
+		assertEquals("", format.getNullString());
+
+		format = PGCopyFormat.parse("BINARY");
+		assertEquals(Format.BINARY, format.getFormat());
+
+		try {
+			PGCopyFormat.parse("OIDS");
+			fail();
+		} catch (SQLException e) {
+		}
+	}
+
+	@Test public void testText() throws Exception {
+		PGCopyFormat format = PGCopyFormat.parse(null);
+		String line = write(format, "a\tb", null, "c\\d\ne", "");
+		assertEquals("a\\tb\t\\N\tc\\\\d\\ne\t", line);
+		byte[] data = (line + "\n" + "x\t\\101\t\\x41\t\\N\r\n\\.\n").getBytes(UTF_8);
+		for (int chunk : new int[] {1, 3, data.length}) {
+			List<List<Object>> rows = parse(format, 4, data, chunk);
+			assertEquals(Arrays.asList(Arrays.asList("a\tb", null, "c\\d\ne", ""), Arrays.asList("x", "A", "A", null)), rows);
+		}
+	}
+
+	@Test public void testCsv() throws Exception {
+		PGCopyFormat format = PGCopyFormat.parse("csv header");
+		String line = write(format, "a,b", null, "say \"hi\"\nthere", "");
+		assertEquals("\"a,b\",,\"say \"\"hi\"\"\nthere\",\"\"", line);
+		byte[] data = ("c1,c2,c3,c4\n" + line + "\n1,,2,3").getBytes(UTF_8);
+		for (int chunk : new int[] {1, 5, data.length}) {
+			List<List<Object>> rows = parse(format, 4, data, chunk);
+			assertEquals(Arrays.asList(Arrays.asList("a,b", null, "say \"hi\"\nthere", ""), Arrays.asList("1", null, "2", "3")), rows);
+		}
+	}
+
+	@Test(expected=SQLException.class) public void testColumnCount() throws Exception {
+		parse(PGCopyFormat.parse(null), 2, "a\tb\tc\n".getBytes(UTF_8), 10);
+	}
+
+	@Test public void testBinary() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		out.write(PGCopyFormat.BINARY_SIGNATURE);
+		out.writeInt(0);
+		out.writeInt(0);
+		out.writeShort(2);
+		out.writeInt(4);
+		out.writeInt(5);
+		out.writeInt(-1);
+		out.writeShort(-1);
+		out.close();
+		byte[] data = baos.toByteArray();
+		for (int chunk : new int[] {1, 7, data.length}) {
+			List<List<Object>> rows = parse(PGCopyFormat.parse("(format binary)"), 2, data, chunk);
+			assertEquals(1, rows.size());
+			assertArrayEquals(new byte[] {0, 0, 0, 5}, (byte[])rows.get(0).get(0));
+			assertNull(rows.get(0).get(1));
+		}
+	}
+
+}
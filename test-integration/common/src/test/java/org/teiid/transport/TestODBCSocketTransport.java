@@ -24,7 +24,17 @@ package org.teiid.transport;
 
 import static org.junit.Assert.*;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.charset.Charset;
 import java.sql.Array;
 import java.sql.Connection;
@@ -43,6 +53,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.core.v3.ExtendedQueryExectutorImpl;
 import org.teiid.adminapi.Model.Type;
 import org.teiid.adminapi.Request.ProcessingState;
@@ -54,6 +66,7 @@ import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.core.util.UnitTestUtil;
 import org.teiid.jdbc.FakeServer;
 import org.teiid.jdbc.TestMMDatabaseMetaData;
+import org.teiid.odbc.PGUtil;
 import org.teiid.runtime.EmbeddedConfiguration;
 import org.teiid.runtime.TestEmbeddedServer;
 import org.teiid.runtime.TestEmbeddedServer.MockTransactionManager;
@@ -114,6 +127,115 @@ public class TestODBCSocketTransport {
 	
 	private static FakeOdbcServer odbcServer = new FakeOdbcServer();
 	
+	/**
+	 * Writes the frontend messages directly so that the wire format, rather than
+	 * the driver handling, can be checked.
+	 */
+	static class RawPgConnection {
+		private Socket socket;
+		private DataOutputStream out;
+		private DataInputStream in;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private DataOutputStream body = new DataOutputStream(buffer);
+		
+		RawPgConnection(String database) throws IOException {
+			socket = new Socket(odbcServer.addr.getHostName(), odbcServer.odbcTransport.getPort());
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			//the startup message does not have a type
+			body.writeInt(196608);
+			writeString("user");
+			writeString("testuser");
+			writeString("database");
+			writeString(database);
+			body.writeByte(0);
+			out.writeInt(buffer.size() + 4);
+			buffer.writeTo(out);
+			buffer.reset();
+			out.flush();
+			while (true) {
+				char type = (char)in.readByte();
+				DataInputStream data = readData();
+				if (type == 'R' && data.readInt() == 3) {
+					writeString("testpassword");
+					send('p');
+					out.flush();
+				} else if (type == 'E') {
+					fail("logon failed");
+				} else if (type == 'Z') {
+					break;
+				}
+			}
+		}
+		
+		void writeString(String value) throws IOException {
+			body.write(value.getBytes("UTF-8"));
+			body.writeByte(0);
+		}
+		
+		void send(char type) throws IOException {
+			out.writeByte(type);
+			out.writeInt(buffer.size() + 4);
+			buffer.writeTo(out);
+			buffer.reset();
+		}
+		
+		void parse(String name, String sql) throws IOException {
+			writeString(name);
+			writeString(sql);
+			body.writeShort(0);
+			send('P');
+		}
+		
+		void bind(String portal, String name, int... resultFormats) throws IOException {
+			writeString(portal);
+			writeString(name);
+			body.writeShort(0);
+			body.writeShort(0);
+			body.writeShort(resultFormats.length);
+			for (int format : resultFormats) {
+				body.writeShort(format);
+			}
+			send('B');
+		}
+		
+		void describePortal(String portal) throws IOException {
+			body.writeByte('P');
+			writeString(portal);
+			send('D');
+		}
+		
+		void execute(String portal) throws IOException {
+			writeString(portal);
+			body.writeInt(0);
+			send('E');
+		}
+		
+		void sync() throws IOException {
+			send('S');
+			out.flush();
+		}
+		
+		DataInputStream readData() throws IOException {
+			byte[] data = new byte[in.readInt() - 4];
+			in.readFully(data);
+			return new DataInputStream(new ByteArrayInputStream(data));
+		}
+		
+		DataInputStream expect(char type) throws IOException {
+			char actual = (char)in.readByte();
+			DataInputStream data = readData();
+			assertEquals(type, actual);
+			return data;
+		}
+		
+		void close() throws IOException {
+			send('X');
+			out.flush();
+			socket.close();
+		}
+	}
+	
 	@BeforeClass public static void oneTimeSetup() throws Exception {
 		odbcServer.start(Mode.LEGACY);
 	}
@@ -493,6 +615,19 @@ public class TestODBCSocketTransport {
 		assertNull(ps.getMetaData());
 	}
 	
+	@Test public void testCopy() throws Exception {
+		Statement stmt = conn.createStatement();
+		assertFalse(stmt.execute("create local temporary table x (y string, z integer)"));
+		CopyManager cm = ((PGConnection)conn).getCopyAPI();
+		assertEquals(2, cm.copyIn("COPY x FROM STDIN WITH CSV", new StringReader("a,1\n\"b,c\",\n")));
+		StringWriter sw = new StringWriter();
+		assertEquals(2, cm.copyOut("COPY (select y, z from x order by y) TO STDOUT", sw));
+		assertEquals("a\t1\nb,c\t\\N\n", sw.toString());
+		sw = new StringWriter();
+		assertEquals(2, cm.copyOut("COPY x (y) TO STDOUT WITH (FORMAT csv, HEADER)", sw));
+		assertEquals("y\na\n\"b,c\"\n", sw.toString());
+	}
+	
 	@Test public void testSelectSsl() throws Exception {
 		conn.close();
 		Driver d = new Driver();
@@ -715,6 +850,87 @@ public class TestODBCSocketTransport {
 		s.close();
 	}
 	
+	@Test public void testBinaryResultFormat() throws Exception {
+		RawPgConnection raw = new RawPgConnection("parts");
+		try {
+			raw.parse("", "select cast(1 as integer), cast(2 as long), 'abc', cast(1.5 as double), cast('2000-01-02' as date)");
+			//a single format code applies to all columns
+			raw.bind("", "", 1);
+			raw.describePortal("");
+			raw.execute("");
+			raw.sync();
+			raw.expect('1');
+			raw.expect('2');
+			DataInputStream description = raw.expect('T');
+			assertEquals(5, description.readShort());
+			int[] types = new int[] {PGUtil.PG_TYPE_INT4, PGUtil.PG_TYPE_INT8, PGUtil.PG_TYPE_VARCHAR, PGUtil.PG_TYPE_FLOAT8, PGUtil.PG_TYPE_DATE};
+			for (int type : types) {
+				while (description.readByte() != 0) {
+					//name
+				}
+				description.readInt();
+				description.readShort();
+				assertEquals(type, description.readInt());
+				description.readShort();
+				description.readInt();
+				assertEquals(1, description.readShort());
+			}
+			DataInputStream row = raw.expect('D');
+			assertEquals(5, row.readShort());
+			assertEquals(4, row.readInt());
+			assertEquals(1, row.readInt());
+			assertEquals(8, row.readInt());
+			assertEquals(2, row.readLong());
+			assertEquals(3, row.readInt());
+			byte[] bytes = new byte[3];
+			row.readFully(bytes);
+			assertEquals("abc", new String(bytes, "UTF-8"));
+			assertEquals(8, row.readInt());
+			assertEquals(1.5, row.readDouble(), 0);
+			//days since 2000-01-01
+			assertEquals(4, row.readInt());
+			assertEquals(1, row.readInt());
+			raw.expect('C');
+			raw.expect('Z');
+		} finally {
+			raw.close();
+		}
+	}
+	
+	@Test public void testPipelinedExtendedQuery() throws Exception {
+		RawPgConnection raw = new RawPgConnection("parts");
+		try {
+			raw.parse("s1", "select 1");
+			raw.bind("p1", "s1");
+			raw.execute("p1");
+			raw.parse("s2", "select 'a'");
+			raw.bind("p2", "s2", 1);
+			raw.describePortal("p2");
+			raw.execute("p2");
+			raw.sync();
+			//all responses are sent in order after the sync
+			raw.expect('1');
+			raw.expect('2');
+			DataInputStream row = raw.expect('D');
+			assertEquals(1, row.readShort());
+			assertEquals(1, row.readInt());
+			assertEquals('1', row.readByte());
+			raw.expect('C');
+			raw.expect('1');
+			raw.expect('2');
+			DataInputStream description = raw.expect('T');
+			assertEquals(1, description.readShort());
+			row = raw.expect('D');
+			assertEquals(1, row.readShort());
+			assertEquals(1, row.readInt());
+			assertEquals('a', row.readByte());
+			raw.expect('C');
+			raw.expect('Z');
+		} finally {
+			raw.close();
+		}
+	}
+	
 	@Test public void testExportedKey() throws Exception {
 		String sql = ObjectConverterUtil.convertFileToString(UnitTestUtil.getTestDataFile("exported-fk-query.txt"));
 		